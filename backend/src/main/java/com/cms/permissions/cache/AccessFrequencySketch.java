@@ -0,0 +1,238 @@
+package com.cms.permissions.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 访问频率草图：Count-Min Sketch估算任意键的访问次数，另跟踪估算次数最高的K个键（热点键）
+ * 内存固定为depth*width个计数加K个热点键，不随键的数量增长；估算值只会偏高，不会偏低。
+ * 计数的哈希只依赖String.hashCode（由语言规范定义），相同尺寸的草图可在节点间按计数相加合并。
+ * 记录访问时计数和已有热点键的估算次数更新无锁，只有新进入热点表的键需要加锁。
+ */
+public class AccessFrequencySketch {
+
+    private final int depth;
+
+    private final int width;
+
+    private final int capacity;
+
+    private final AtomicIntegerArray counters;
+
+    // 热点键 -> 最近一次的估算次数
+    private final Map<String, Integer> heavyHitters = new ConcurrentHashMap<>();
+
+    private final ReentrantLock heavyHitterLock = new ReentrantLock();
+
+    // 热点表已满时进入热点表所需的最低估算次数
+    private volatile int admissionThreshold;
+
+    /**
+     * @param depth 哈希行数，误差超出上界的概率约为e^-depth
+     * @param width 每行计数个数，误差上界约为总访问次数*e/width
+     * @param capacity 跟踪的热点键个数
+     */
+    public AccessFrequencySketch(int depth, int width, int capacity) {
+        if (depth <= 0 || width <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Sketch dimensions must be positive: " + depth + "x" + width + ", k=" + capacity
+            );
+        }
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.counters = new AtomicIntegerArray(depth * width);
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public void increment(String key) {
+        int hash = spread(key.hashCode());
+        int step = (hash >>> 16) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int count = incrementSaturated(row * width + index(hash + row * step));
+            estimate = Math.min(estimate, count);
+        }
+        if (heavyHitters.replace(key, estimate) == null && estimate >= admissionThreshold) {
+            offer(key, estimate);
+        }
+    }
+
+    /**
+     * 估算键的访问次数
+     */
+    public int estimate(String key) {
+        int hash = spread(key.hashCode());
+        int step = (hash >>> 16) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + index(hash + row * step)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 按估算次数从高到低返回热点键
+     */
+    public Map<String, Integer> topK(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(heavyHitters.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            if (top.size() >= limit) {
+                break;
+            }
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    /**
+     * 合并另一个相同尺寸的草图：计数相加，两边的热点键按合并后的计数重新估算并保留前K个
+     */
+    public void merge(AccessFrequencySketch other) {
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException(
+                "Cannot merge sketch " + other.depth + "x" + other.width +
+                " into " + depth + "x" + width
+            );
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            int add = other.counters.get(i);
+            if (add != 0) {
+                counters.getAndUpdate(i, count -> saturatedAdd(count, add));
+            }
+        }
+        Map<String, Integer> candidates = other.topK(other.capacity);
+        heavyHitterLock.lock();
+        try {
+            for (String key : heavyHitters.keySet()) {
+                candidates.putIfAbsent(key, 0);
+            }
+            heavyHitters.clear();
+            for (String key : candidates.keySet()) {
+                heavyHitters.put(key, estimate(key));
+            }
+            trimHeavyHitters();
+        } finally {
+            heavyHitterLock.unlock();
+        }
+    }
+
+    public boolean isCompatible(AccessFrequencySketch other) {
+        return depth == other.depth && width == other.width;
+    }
+
+    public boolean isEmpty() {
+        return heavyHitters.isEmpty();
+    }
+
+    /**
+     * 写入紧凑编码：尺寸、全部计数（变长编码，空计数只占一个字节）和热点键
+     */
+    public void write(CompactCodecs.Writer out) {
+        out.writeVarLong(depth);
+        out.writeVarLong(width);
+        out.writeVarLong(capacity);
+        for (int i = 0; i < counters.length(); i++) {
+            out.writeVarLong(counters.get(i));
+        }
+        Map<String, Integer> top = topK(capacity);
+        out.writeVarLong(top.size());
+        top.forEach((key, count) -> {
+            out.writeString(key);
+            out.writeVarLong(count);
+        });
+    }
+
+    public static AccessFrequencySketch read(CompactCodecs.Reader in) {
+        int depth = (int) in.readVarLong();
+        int width = in.readSize();
+        int capacity = (int) in.readVarLong();
+        if (depth <= 0 || depth > 16 || (long) depth * width > Integer.MAX_VALUE || capacity > 1 << 20) {
+            throw new IllegalArgumentException("Invalid sketch dimensions " + depth + "x" + width);
+        }
+        AccessFrequencySketch sketch = new AccessFrequencySketch(depth, width, capacity);
+        for (int i = 0; i < sketch.counters.length(); i++) {
+            sketch.counters.set(i, (int) Math.min(Integer.MAX_VALUE, in.readVarLong()));
+        }
+        int size = in.readSize();
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            sketch.heavyHitters.put(key, (int) Math.min(Integer.MAX_VALUE, in.readVarLong()));
+        }
+        sketch.trimHeavyHitters();
+        return sketch;
+    }
+
+    private void offer(String key, int estimate) {
+        heavyHitterLock.lock();
+        try {
+            if (heavyHitters.size() >= capacity && estimate < admissionThreshold) {
+                return;
+            }
+            heavyHitters.put(key, estimate);
+            if (heavyHitters.size() > capacity) {
+                trimHeavyHitters();
+            }
+        } finally {
+            heavyHitterLock.unlock();
+        }
+    }
+
+    /**
+     * 移除估算次数最低的键直到不超过容量，并更新准入门槛；调用方持有锁
+     */
+    private void trimHeavyHitters() {
+        while (heavyHitters.size() > capacity) {
+            String lowest = null;
+            int lowestCount = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> entry : heavyHitters.entrySet()) {
+                if (entry.getValue() <= lowestCount) {
+                    lowest = entry.getKey();
+                    lowestCount = entry.getValue();
+                }
+            }
+            heavyHitters.remove(lowest);
+        }
+        if (heavyHitters.size() < capacity) {
+            admissionThreshold = 0;
+        } else {
+            int threshold = Integer.MAX_VALUE;
+            for (int count : heavyHitters.values()) {
+                threshold = Math.min(threshold, count);
+            }
+            admissionThreshold = threshold;
+        }
+    }
+
+    private int incrementSaturated(int index) {
+        return counters.updateAndGet(index, count -> count == Integer.MAX_VALUE ? count : count + 1);
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        long sum = (long) a + b;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+
+    private int index(int hash) {
+        return Math.floorMod(hash, width);
+    }
+
+    // 打散String.hashCode的低位分布（murmur3的fmix32）
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,177 @@
+package com.cms.permissions.cache;
+
+import com.cms.permissions.util.TransactionCallbacks;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存键二级索引
+ * 写入缓存时把Redis键登记到按用户、按文档、按缓存名称划分的有序集合中（分值为条目过期时间），
+ * 失效时只读取索引并UNLINK受影响的键，耗时与受影响键数成正比，不再用KEYS/SCAN扫描整个键空间。
+ * 同一索引中的键应来自同一缓存（TTL相同），索引本身随最后一次登记的TTL过期。
+ */
+@Component
+public class CacheKeyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        CacheKeyIndex.class
+    );
+
+    public static final String USER_INDEX_PREFIX = "cms:index:user:";
+    public static final String DOCUMENT_INDEX_PREFIX = "cms:index:document:";
+    public static final String CACHE_INDEX_PREFIX = "cms:index:cache:";
+
+    // 每批读取和删除的键数，避免单条命令过大
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    public static String userIndex(Long userId) {
+        return USER_INDEX_PREFIX + userId;
+    }
+
+    public static String documentIndex(Long documentId) {
+        return DOCUMENT_INDEX_PREFIX + documentId;
+    }
+
+    public static String cacheIndex(String cacheName) {
+        return CACHE_INDEX_PREFIX + cacheName;
+    }
+
+    /**
+     * 把单个缓存键登记到给定索引
+     */
+    public void register(String redisKey, long ttlSeconds, String... indexKeys) {
+        register(List.of(redisKey), ttlSeconds, indexKeys);
+    }
+
+    /**
+     * 通过管道把一批缓存键登记到给定索引，同时清理索引中已过期的成员
+     * 登记失败只记录日志，对应条目最迟在TTL到期后失效
+     */
+    public void register(
+        Collection<String> redisKeys,
+        long ttlSeconds,
+        String... indexKeys
+    ) {
+        if (redisKeys.isEmpty() || indexKeys.length == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        double expireAt = now + ttlSeconds * 1000;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String indexKey : indexKeys) {
+                    byte[] index = bytes(indexKey);
+                    connection.zSetCommands().zRemRangeByScore(index, 0, now);
+                    for (String redisKey : redisKeys) {
+                        connection
+                            .zSetCommands()
+                            .zAdd(index, expireAt, bytes(redisKey));
+                    }
+                    connection.keyCommands().expire(index, ttlSeconds);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn(
+                "Failed to register {} cache keys in index: {}",
+                redisKeys.size(),
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 分批UNLINK索引中的所有缓存键并从索引移除
+     * 在事务中调用时延迟到提交之后执行：事务内的Redis写命令排队在MULTI中，提交前无法读到删除的结果
+     */
+    public void evict(String indexKey) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                evictNow(indexKey);
+            } catch (RuntimeException e) {
+                // 失效失败只记录日志，对应条目最迟在TTL到期后失效
+                logger.warn("Failed to evict cache index {}: {}", indexKey, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 在不参与事务的独立连接上按批ZPOPMIN取出成员并UNLINK，最多处理开始时索引中的成员数，返回处理的键数
+     */
+    long evictNow(String indexKey) {
+        byte[] index = bytes(indexKey);
+        RedisConnection connection = redisTemplate
+            .getRequiredConnectionFactory()
+            .getConnection();
+        try {
+            Long size = connection.zSetCommands().zCard(index);
+            long remaining = size != null ? size : 0L;
+            long evicted = 0;
+            while (remaining > 0) {
+                Set<Tuple> members = connection
+                    .zSetCommands()
+                    .zPopMin(index, Math.min(remaining, BATCH_SIZE));
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                byte[][] keys = new byte[members.size()][];
+                int i = 0;
+                for (Tuple member : members) {
+                    keys[i++] = member.getValue();
+                }
+                connection.keyCommands().unlink(keys);
+                evicted += keys.length;
+                remaining -= keys.length;
+            }
+            return evicted;
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * 统计索引中尚未过期的缓存键数量（按用户/文档维度失效后可能包含少量已删除的键）
+     */
+    public long count(String indexKey) {
+        Long count = redisTemplate.execute(
+            (RedisCallback<Long>) connection ->
+                connection
+                    .zSetCommands()
+                    .zCount(
+                        bytes(indexKey),
+                        System.currentTimeMillis(),
+                        Double.POSITIVE_INFINITY
+                    )
+        );
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 生成一批缓存键，便于调用方按同一前缀登记
+     */
+    public static List<String> keys(String keyPrefix, Collection<?> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            keys.add(keyPrefix + id);
+        }
+        return keys;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
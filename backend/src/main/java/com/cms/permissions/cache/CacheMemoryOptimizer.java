@@ -1,6 +1,8 @@
 package com.cms.permissions.cache;
 
 import com.cms.permissions.service.CachePerformanceAnalyzer;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -10,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.scheduling.annotation.Async;
@@ -30,6 +33,9 @@ public class CacheMemoryOptimizer {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
     @Autowired
     @Lazy
     private CachePerformanceAnalyzer performanceAnalyzer;
@@ -49,6 +55,39 @@ public class CacheMemoryOptimizer {
     @Value("${cache.optimization.memory.enabled:true}")
     private boolean optimizationEnabled;
 
+    @Value("${cache.optimization.memory.reaper.pattern:cms:cache:*}")
+    private String reaperPattern;
+
+    @Value("${cache.optimization.memory.reaper.idle-threshold-seconds:3600}")
+    private long reaperIdleThresholdSeconds;
+
+    @Value("${cache.optimization.memory.reaper.scan-count:200}")
+    private int reaperScanCount;
+
+    @Value("${cache.optimization.memory.reaper.delete-batch-size:100}")
+    private int reaperDeleteBatchSize;
+
+    @Value("${cache.optimization.memory.reaper.ops-per-second:2000}")
+    private int reaperOpsPerSecond;
+
+    @Value("${cache.optimization.memory.reaper.max-run-time-ms:30000}")
+    private long reaperMaxRunTimeMs;
+
+    private IdleKeyReaper idleKeyReaper;
+
+    @PostConstruct
+    public void init() {
+        idleKeyReaper = new IdleKeyReaper(
+            redisConnectionFactory,
+            reaperPattern,
+            Duration.ofSeconds(reaperIdleThresholdSeconds),
+            reaperScanCount,
+            reaperDeleteBatchSize,
+            reaperOpsPerSecond,
+            Duration.ofMillis(reaperMaxRunTimeMs)
+        );
+    }
+
     /**
      * 内存使用信息
      */
@@ -394,9 +433,6 @@ public class CacheMemoryOptimizer {
             cacheTypeCleanup.put("idle", idleKeysRemoved);
             totalKeysRemoved += idleKeysRemoved;
 
-            // 压缩内存
-            compressMemory();
-
             long memoryAfter = getMemoryUsageInfo().getUsedMemory();
             long memoryFreed = memoryBefore - memoryAfter;
             long duration = System.currentTimeMillis() - startTime;
@@ -479,85 +515,30 @@ public class CacheMemoryOptimizer {
 
     /**
      * 清理长时间未访问的缓存项
+     * 由空闲键清理器从上次的游标继续限速清理，单次运行有时间上限；
+     * 删除使用UNLINK在Redis后台释放内存，不触发AOF重写
      */
     private int cleanupIdleItems() {
         try {
-            int removedCount = 0;
-
-            // 扫描所有缓存键，检查最后访问时间
-            ScanOptions options = ScanOptions.scanOptions()
-                .match("cms:cache:*")
-                .count(batchSize)
-                .build();
-
-            List<String> keysToDelete = new ArrayList<>();
-            try (var cursor = redisTemplate.scan(options)) {
-                while (cursor.hasNext()) {
-                    String key = cursor.next();
-                    try {
-                        // 检查键的空闲时间
-                        Long idleTime = redisTemplate.execute(
-                            (org.springframework.data.redis.core.RedisCallback<
-                                Long
-                            >) connection -> {
-                                try {
-                                    // 使用Redis的OBJECT IDLETIME命令
-                                    java.time.Duration duration = connection.keyCommands().idletime(key.getBytes());
-                                    return duration != null ? duration.getSeconds() : null;
-                                } catch (Exception e) {
-                                    return null;
-                                }
-                            }
-                        );
-
-                        if (idleTime != null && idleTime > 3600) {
-                            // 1小时未访问
-                            keysToDelete.add(key);
-                        }
-                    } catch (Exception e) {
-                        logger.warn(
-                            "Failed to check idle time for key: " + key,
-                            e
-                        );
-                    }
-                }
+            IdleKeyReaper.ReapResult result = idleKeyReaper.reap();
+            if (!result.executed()) {
+                logger.debug("Idle key cleanup skipped: {}", result.skippedReason());
+                return 0;
             }
-
-            if (!keysToDelete.isEmpty()) {
-                redisTemplate.delete(keysToDelete);
-                removedCount = keysToDelete.size();
-                logger.info("Cleaned up {} idle cache keys", removedCount);
+            if (result.keysRemoved() > 0) {
+                logger.info(
+                    "Cleaned up {} idle cache keys ({} scanned)",
+                    result.keysRemoved(),
+                    result.keysScanned()
+                );
             }
-
-            return removedCount;
+            return (int) result.keysRemoved();
         } catch (Exception e) {
             logger.error("Failed to cleanup idle items", e);
             return 0;
         }
     }
 
-    /**
-     * 压缩内存
-     */
-    private void compressMemory() {
-        try {
-            // 执行Redis内存压缩 - 使用BGREWRITEAOF命令
-            redisTemplate.execute(
-                (org.springframework.data.redis.core.RedisCallback<
-                    Object
-                >) connection -> {
-                    connection.serverCommands().bgReWriteAof();
-                    return null;
-                }
-            );
-            logger.info(
-                "Initiated background AOF rewrite for memory compression"
-            );
-        } catch (Exception e) {
-            logger.warn("Failed to initiate memory compression", e);
-        }
-    }
-
     /**
      * 获取优化建议
      */
@@ -748,6 +729,7 @@ public class CacheMemoryOptimizer {
         stats.put("memoryUsage", memoryInfo);
         stats.put("recommendations", getOptimizationRecommendations());
         stats.put("optimizationEnabled", optimizationEnabled);
+        stats.put("idleKeyReaper", idleKeyReaper != null ? idleKeyReaper.getLastResult() : null);
         stats.put("lastCheckTime", LocalDateTime.now());
 
         return stats;
@@ -1,33 +1,53 @@
 package com.cms.permissions.cache;
 
+import com.cms.permissions.entity.DocumentAssignment;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.lettuce.core.ClientOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.lettuce.core.SocketOptions;
 import io.lettuce.core.TimeoutOptions;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -53,7 +73,7 @@ public class CacheOptimizationConfig {
     @Value("${cache.permissions.ttl:300}")
     private int permissionsTtl;
 
-    @Value("${cache.document-public.ttl:600}")
+    @Value("${cache.document-public-status.ttl:600}")
     private int documentPublicTtl;
 
     @Value("${cache.document-assignments.ttl:180}")
@@ -77,6 +97,80 @@ public class CacheOptimizationConfig {
     @Value("${cache.optimization.socket.command-timeout:3000}")
     private long commandTimeout;
 
+    @Value("${cache.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${cache.near-cache.max-size:10000}")
+    private long nearCacheMaxSize;
+
+    @Value("${cache.near-cache.ttl:30}")
+    private int nearCacheTtl;
+
+    @Value(
+        "${cache.near-cache.cache-names:userPermissions,userPermissionBits,userRoleIds,userIds,documentPublic,documentAssignments,userDocumentPermissions}"
+    )
+    private List<String> nearCacheNames;
+
+    @Value("${cache.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    @Value(
+        "${cache.single-flight.cache-names:userPermissions,userPermissionBits,userRoleIds}"
+    )
+    private List<String> singleFlightCacheNames;
+
+    @Value("${cache.single-flight.lock-timeout-ms:3000}")
+    private long singleFlightLockTimeoutMs;
+
+    @Value("${cache.single-flight.poll-interval-ms:20}")
+    private long singleFlightPollIntervalMs;
+
+    @Value("${cache.permissions.refresh-ahead.enabled:true}")
+    private boolean permissionsRefreshAhead;
+
+    @Value("${cache.permissions.refresh-ahead.beta:1.0}")
+    private double permissionsRefreshBeta;
+
+    @Value("${cache.document-public-status.refresh-ahead.enabled:true}")
+    private boolean documentPublicRefreshAhead;
+
+    @Value("${cache.document-public-status.refresh-ahead.beta:1.0}")
+    private double documentPublicRefreshBeta;
+
+    @Value("${cache.document-assignments.refresh-ahead.enabled:true}")
+    private boolean documentAssignmentsRefreshAhead;
+
+    @Value("${cache.document-assignments.refresh-ahead.beta:1.0}")
+    private double documentAssignmentsRefreshBeta;
+
+    @Value("${cache.refresh-ahead.threads:2}")
+    private int refreshAheadThreads;
+
+    @Value("${cache.refresh-ahead.queue-size:1000}")
+    private int refreshAheadQueueSize;
+
+    @Value("${cache.refresh-ahead.max-entries:10000}")
+    private long refreshAheadMaxEntries;
+
+    // compact为紧凑二进制编码，json为原有JSON；两种格式都能读取对方写入的值
+    @Value("${cache.optimization.serialization.format:compact}")
+    private String serializationFormat;
+
+    @Value("${cache.optimization.serialization.compression:true}")
+    private boolean serializationCompression;
+
+    @Value("${cache.optimization.serialization.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${cache.metrics.enabled:true}")
+    private boolean cacheMetricsEnabled;
+
+    @Value("${cache.metrics.flush-interval-ms:10000}")
+    private long cacheMetricsFlushIntervalMs;
+
+    // 提前刷新的后台线程池，不注册为Bean以免替换默认的任务执行器
+    private ThreadPoolExecutor refreshAheadExecutor;
+
     /**
      * 优化的Redis连接工厂
      * 配置高性能连接池和网络参数
@@ -185,43 +279,115 @@ public class CacheOptimizationConfig {
      * 优化的Set序列化器
      */
     @Bean
-    public Jackson2JsonRedisSerializer<Set<String>> optimizedSetSerializer() {
+    public RedisSerializer<Set<String>> optimizedSetSerializer() {
         ObjectMapper mapper = optimizedObjectMapper();
-        Jackson2JsonRedisSerializer<Set<String>> serializer =
+        return compact(
+            CompactCodecs.STRING_SET,
             new Jackson2JsonRedisSerializer<>(
                 mapper,
                 mapper
                     .getTypeFactory()
                     .constructCollectionType(Set.class, String.class)
-            );
-        return serializer;
+            )
+        );
     }
 
     /**
      * 优化的List序列化器
      */
     @Bean
-    public Jackson2JsonRedisSerializer<List<Long>> optimizedListSerializer() {
+    public RedisSerializer<List<Long>> optimizedListSerializer() {
         ObjectMapper mapper = optimizedObjectMapper();
-        Jackson2JsonRedisSerializer<List<Long>> serializer =
+        return compact(
+            CompactCodecs.LONG_LIST,
             new Jackson2JsonRedisSerializer<>(
                 mapper,
                 mapper
                     .getTypeFactory()
                     .constructCollectionType(List.class, Long.class)
-            );
-        return serializer;
+            )
+        );
+    }
+
+    /**
+     * 优化的Long序列化器
+     */
+    @Bean
+    public RedisSerializer<Long> optimizedLongSerializer() {
+        return compact(
+            CompactCodecs.LONG,
+            new Jackson2JsonRedisSerializer<>(optimizedObjectMapper(), Long.class)
+        );
     }
 
     /**
      * 优化的Boolean序列化器
      */
     @Bean
-    public Jackson2JsonRedisSerializer<Boolean> optimizedBooleanSerializer() {
+    public RedisSerializer<Boolean> optimizedBooleanSerializer() {
+        return compact(
+            CompactCodecs.BOOLEAN,
+            new Jackson2JsonRedisSerializer<>(optimizedObjectMapper(), Boolean.class)
+        );
+    }
+
+    /**
+     * 文档分配列表序列化器
+     */
+    @Bean
+    public RedisSerializer<List<DocumentAssignment>> optimizedAssignmentListSerializer() {
         ObjectMapper mapper = optimizedObjectMapper();
-        Jackson2JsonRedisSerializer<Boolean> serializer =
-            new Jackson2JsonRedisSerializer<>(mapper, Boolean.class);
-        return serializer;
+        return compact(
+            CompactCodecs.ASSIGNMENT_LIST,
+            new Jackson2JsonRedisSerializer<>(
+                mapper,
+                mapper
+                    .getTypeFactory()
+                    .constructCollectionType(List.class, DocumentAssignment.class)
+            )
+        );
+    }
+
+    /**
+     * 权限位集序列化器
+     */
+    @Bean
+    public RedisSerializer<long[]> optimizedPermissionBitsSerializer() {
+        return compact(
+            CompactCodecs.LONG_ARRAY,
+            new Jackson2JsonRedisSerializer<>(optimizedObjectMapper(), long[].class)
+        );
+    }
+
+    /**
+     * 通用值序列化器：类型未知的值仍使用带类型信息的JSON，只对超过阈值的大值压缩
+     */
+    private RedisSerializer<Object> optimizedGenericSerializer() {
+        return new CompactRedisSerializer<>(
+            null,
+            new GenericJackson2JsonRedisSerializer(optimizedObjectMapper()),
+            compressionThreshold(),
+            false
+        );
+    }
+
+    /**
+     * 按配置的格式组装定型序列化器，JSON序列化器用于读取存量值
+     */
+    private <T> RedisSerializer<T> compact(
+        CompactCodecs.Codec<T> codec,
+        RedisSerializer<T> json
+    ) {
+        return new CompactRedisSerializer<>(
+            codec,
+            json,
+            compressionThreshold(),
+            !"json".equalsIgnoreCase(serializationFormat)
+        );
+    }
+
+    private int compressionThreshold() {
+        return serializationCompression ? Math.max(1, compressionThreshold) : 0;
     }
 
     /**
@@ -237,8 +403,7 @@ public class CacheOptimizationConfig {
 
         // 使用优化的序列化器
         StringRedisSerializer stringSerializer = optimizedStringSerializer();
-        GenericJackson2JsonRedisSerializer jsonSerializer =
-            new GenericJackson2JsonRedisSerializer(optimizedObjectMapper());
+        RedisSerializer<Object> jsonSerializer = optimizedGenericSerializer();
 
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
@@ -266,8 +431,7 @@ public class CacheOptimizationConfig {
         template.setConnectionFactory(connectionFactory);
 
         StringRedisSerializer stringSerializer = optimizedStringSerializer();
-        Jackson2JsonRedisSerializer<Set<String>> setSerializer =
-            optimizedSetSerializer();
+        RedisSerializer<Set<String>> setSerializer = optimizedSetSerializer();
 
         template.setKeySerializer(stringSerializer);
         template.setValueSerializer(setSerializer);
@@ -289,8 +453,7 @@ public class CacheOptimizationConfig {
         template.setConnectionFactory(connectionFactory);
 
         StringRedisSerializer stringSerializer = optimizedStringSerializer();
-        Jackson2JsonRedisSerializer<List<Long>> listSerializer =
-            optimizedListSerializer();
+        RedisSerializer<List<Long>> listSerializer = optimizedListSerializer();
 
         template.setKeySerializer(stringSerializer);
         template.setValueSerializer(listSerializer);
@@ -312,8 +475,7 @@ public class CacheOptimizationConfig {
         template.setConnectionFactory(connectionFactory);
 
         StringRedisSerializer stringSerializer = optimizedStringSerializer();
-        Jackson2JsonRedisSerializer<Boolean> booleanSerializer =
-            optimizedBooleanSerializer();
+        RedisSerializer<Boolean> booleanSerializer = optimizedBooleanSerializer();
 
         template.setKeySerializer(stringSerializer);
         template.setValueSerializer(booleanSerializer);
@@ -324,13 +486,73 @@ public class CacheOptimizationConfig {
         return template;
     }
 
+    /**
+     * 近端缓存失效广播
+     */
+    @Bean
+    public NearCacheInvalidationBus nearCacheInvalidationBus(
+        LettuceConnectionFactory connectionFactory
+    ) {
+        return new NearCacheInvalidationBus(connectionFactory);
+    }
+
+    /**
+     * 订阅近端缓存失效频道
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "cache.near-cache.enabled",
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    public RedisMessageListenerContainer nearCacheInvalidationListenerContainer(
+        LettuceConnectionFactory connectionFactory,
+        NearCacheInvalidationBus nearCacheInvalidationBus
+    ) {
+        RedisMessageListenerContainer container =
+            new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            nearCacheInvalidationBus,
+            new ChannelTopic(NearCacheInvalidationBus.CHANNEL)
+        );
+        return container;
+    }
+
+    /**
+     * 订阅文档可见性索引的增量更新频道
+     */
+    @Bean
+    @ConditionalOnProperty(
+        name = "cache.document-access.enabled",
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    public RedisMessageListenerContainer documentAccessListenerContainer(
+        LettuceConnectionFactory connectionFactory,
+        DocumentAccessIndex documentAccessIndex
+    ) {
+        RedisMessageListenerContainer container =
+            new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            documentAccessIndex,
+            new ChannelTopic(DocumentAccessIndex.CHANNEL)
+        );
+        return container;
+    }
+
     /**
      * 优化的缓存管理器
+     * 启用近端缓存时在Redis缓存前增加进程内L1缓存，配置了提前刷新的缓存按XFetch提前重算，
+     * 最外层记录缓存命中率等指标
      */
     @Bean
     @Primary
     public CacheManager optimizedCacheManager(
-        LettuceConnectionFactory connectionFactory
+        LettuceConnectionFactory connectionFactory,
+        NearCacheInvalidationBus nearCacheInvalidationBus,
+        ObjectProvider<MeterRegistry> meterRegistry
     ) {
         // 默认缓存配置
         RedisCacheConfiguration defaultConfig =
@@ -343,9 +565,7 @@ public class CacheOptimizationConfig {
                 )
                 .serializeValuesWith(
                     RedisSerializationContext.SerializationPair.fromSerializer(
-                        new GenericJackson2JsonRedisSerializer(
-                            optimizedObjectMapper()
-                        )
+                        optimizedGenericSerializer()
                     )
                 )
                 .disableCachingNullValues()
@@ -355,14 +575,58 @@ public class CacheOptimizationConfig {
         Map<String, RedisCacheConfiguration> cacheConfigurations =
             new HashMap<>();
 
-        // 用户权限缓存配置
+        // 用户权限缓存配置（键为用户名加角色代数，定型序列化器反序列化为Set<String>）
         cacheConfigurations.put(
             "userPermissions",
             defaultConfig
                 .entryTtl(Duration.ofSeconds(permissionsTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedSetSerializer()
+                    )
+                )
                 .computePrefixWith(cacheName -> "cms:permissions:user:")
         );
 
+        // 用户角色ID缓存配置，用于计算版本化的权限缓存键
+        cacheConfigurations.put(
+            "userRoleIds",
+            defaultConfig
+                .entryTtl(Duration.ofSeconds(permissionsTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedListSerializer()
+                    )
+                )
+                .computePrefixWith(cacheName -> "cms:permissions:roles:")
+        );
+
+        // 用户名到用户ID缓存配置，供权限评估在认证主体缺失时解析用户ID
+        cacheConfigurations.put(
+            "userIds",
+            defaultConfig
+                .entryTtl(Duration.ofSeconds(permissionsTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedLongSerializer()
+                    )
+                )
+                .computePrefixWith(cacheName -> "cms:users:id:")
+        );
+
+        // 用户权限位集缓存配置（使用定型序列化器，反序列化为long[]）
+        cacheConfigurations.put(
+            "userPermissionBits",
+            defaultConfig
+                .entryTtl(Duration.ofSeconds(permissionsTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedPermissionBitsSerializer()
+                    )
+                )
+                .computePrefixWith(cacheName -> "cms:permissions:bits:")
+        );
+
         // 文档权限缓存配置
         cacheConfigurations.put(
             "documentPermissions",
@@ -371,27 +635,190 @@ public class CacheOptimizationConfig {
                 .computePrefixWith(cacheName -> "cms:permissions:document:")
         );
 
-        // 文档公开状态缓存配置
+        // 文档公开状态缓存配置（定型序列化器，便于批量MGET直接反序列化）
         cacheConfigurations.put(
             "documentPublic",
             defaultConfig
                 .entryTtl(Duration.ofSeconds(documentPublicTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedBooleanSerializer()
+                    )
+                )
                 .computePrefixWith(cacheName -> "cms:public:document:")
         );
 
-        // 文档分配缓存配置
+        // 文档分配缓存配置（定型序列化器，反序列化为List<DocumentAssignment>）
         cacheConfigurations.put(
             "documentAssignments",
             defaultConfig
                 .entryTtl(Duration.ofSeconds(documentAssignmentsTtl))
+                .serializeValuesWith(
+                    RedisSerializationContext.SerializationPair.fromSerializer(
+                        optimizedAssignmentListSerializer()
+                    )
+                )
                 .computePrefixWith(cacheName -> "cms:assignments:user:")
         );
 
-        return RedisCacheManager.builder(connectionFactory)
+        // clear()/allEntries使用增量SCAN删除，避免默认KEYS命令阻塞Redis
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+            connectionFactory,
+            BatchStrategies.scan(1000)
+        );
+
+        // 事务感知由最外层管理器负责，保证L1与Redis在提交后一起更新
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(
+            cacheWriter
+        )
             .cacheDefaults(defaultConfig)
             .withInitialCacheConfigurations(cacheConfigurations)
-            .transactionAware()
             .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // 合并同一键的并发回源（@Cacheable(sync = true)路径）
+        SingleFlightCacheManager singleFlightCacheManager =
+            new SingleFlightCacheManager(
+                redisCacheManager,
+                singleFlightEnabled ? singleFlightCacheNames : List.of(),
+                connectionFactory,
+                Duration.ofMillis(singleFlightLockTimeoutMs),
+                Duration.ofMillis(singleFlightPollIntervalMs),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+            );
+
+        AbstractTransactionSupportingCacheManager cacheManager =
+            singleFlightCacheManager;
+        if (nearCacheEnabled) {
+            cacheManager.afterPropertiesSet();
+            cacheManager = new NearCacheManager(
+                cacheManager,
+                nearCacheNames,
+                nearCacheMaxSize,
+                Duration.ofSeconds(nearCacheTtl),
+                nearCacheInvalidationBus
+            );
+        }
+
+        // 到期前概率性提前刷新，位于最外层以便每次命中都参与判定
+        Map<String, RefreshAheadCacheManager.Policy> refreshPolicies =
+            refreshAheadPolicies();
+        if (!refreshPolicies.isEmpty()) {
+            cacheManager.afterPropertiesSet();
+            cacheManager = new RefreshAheadCacheManager(
+                cacheManager,
+                refreshPolicies,
+                refreshAheadMaxEntries,
+                refreshAheadExecutor(),
+                connectionFactory,
+                (cacheName, key) -> redisCacheKey(redisCacheManager, cacheName, key),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+            );
+        }
+
+        // 在最外层统计真实的命中/未命中，计数定期批量合并到Redis
+        if (cacheMetricsEnabled) {
+            cacheManager.afterPropertiesSet();
+            cacheManager = new MetricsCacheManager(
+                cacheManager,
+                connectionFactory,
+                Duration.ofMillis(cacheMetricsFlushIntervalMs),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+            );
+        }
+
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    /**
+     * 按缓存名称组装提前刷新策略，TTL与对应Redis缓存配置一致
+     */
+    private Map<String, RefreshAheadCacheManager.Policy> refreshAheadPolicies() {
+        Map<String, RefreshAheadCacheManager.Policy> policies = new HashMap<>();
+        if (permissionsRefreshAhead) {
+            RefreshAheadCacheManager.Policy policy =
+                new RefreshAheadCacheManager.Policy(
+                    Duration.ofSeconds(permissionsTtl),
+                    permissionsRefreshBeta
+                );
+            policies.put("userPermissions", policy);
+            policies.put("userPermissionBits", policy);
+            policies.put("userRoleIds", policy);
+        }
+        if (documentPublicRefreshAhead) {
+            policies.put(
+                "documentPublic",
+                new RefreshAheadCacheManager.Policy(
+                    Duration.ofSeconds(documentPublicTtl),
+                    documentPublicRefreshBeta
+                )
+            );
+        }
+        if (documentAssignmentsRefreshAhead) {
+            policies.put(
+                "documentAssignments",
+                new RefreshAheadCacheManager.Policy(
+                    Duration.ofSeconds(documentAssignmentsTtl),
+                    documentAssignmentsRefreshBeta
+                )
+            );
+        }
+        return policies;
+    }
+
+    private synchronized Executor refreshAheadExecutor() {
+        if (refreshAheadExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            refreshAheadExecutor = new ThreadPoolExecutor(
+                refreshAheadThreads,
+                refreshAheadThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(refreshAheadQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(
+                        runnable,
+                        "cache-refresh-" + threadCount.incrementAndGet()
+                    );
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        }
+        return refreshAheadExecutor;
+    }
+
+    @PreDestroy
+    public void shutdownRefreshAheadExecutor() {
+        if (refreshAheadExecutor != null) {
+            refreshAheadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 与RedisCache相同的键转换规则：前缀加字符串形式的缓存键
+     */
+    private static byte[] redisCacheKey(
+        RedisCacheManager redisCacheManager,
+        String cacheName,
+        Object key
+    ) {
+        RedisCacheConfiguration config = redisCacheManager
+            .getCacheConfigurations()
+            .get(cacheName);
+        if (config == null) {
+            return null;
+        }
+        String stringKey = key instanceof String
+            ? (String) key
+            : config.getConversionService().canConvert(key.getClass(), String.class)
+                ? config.getConversionService().convert(key, String.class)
+                : key.toString();
+        String redisKey = config.usePrefix()
+            ? config.getKeyPrefixFor(cacheName) + stringKey
+            : stringKey;
+        return redisKey.getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -419,7 +846,7 @@ public class CacheOptimizationConfig {
      */
     public static class CachePerformanceMonitor {
 
-        private final Map<String, CacheMetrics> metricsMap = new HashMap<>();
+        private final Map<String, CacheMetrics> metricsMap = new ConcurrentHashMap<>();
 
         public void recordCacheOperation(
             String cacheName,
@@ -446,63 +873,69 @@ public class CacheOptimizationConfig {
 
     /**
      * 缓存指标
+     * 使用LongAdder/LongAccumulator累加，记录时不加锁，高并发（包括虚拟线程）下不互相阻塞
      */
     public static class CacheMetrics {
 
-        private long totalOperations = 0;
-        private long hitCount = 0;
-        private long missCount = 0;
-        private long totalResponseTime = 0;
-        private long maxResponseTime = 0;
-        private long minResponseTime = Long.MAX_VALUE;
+        private final LongAdder hitCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+        private final LongAdder totalResponseTime = new LongAdder();
+        private final LongAccumulator maxResponseTime = new LongAccumulator(
+            Math::max,
+            0
+        );
+        private final LongAccumulator minResponseTime = new LongAccumulator(
+            Math::min,
+            Long.MAX_VALUE
+        );
 
-        public synchronized void recordOperation(
-            boolean hit,
-            long responseTime
-        ) {
-            totalOperations++;
+        public void recordOperation(boolean hit, long responseTime) {
             if (hit) {
-                hitCount++;
+                hitCount.increment();
             } else {
-                missCount++;
+                missCount.increment();
             }
 
-            totalResponseTime += responseTime;
-            maxResponseTime = Math.max(maxResponseTime, responseTime);
-            minResponseTime = Math.min(minResponseTime, responseTime);
+            totalResponseTime.add(responseTime);
+            maxResponseTime.accumulate(responseTime);
+            minResponseTime.accumulate(responseTime);
         }
 
         // Getters
         public long getTotalOperations() {
-            return totalOperations;
+            return hitCount.sum() + missCount.sum();
         }
 
         public long getHitCount() {
-            return hitCount;
+            return hitCount.sum();
         }
 
         public long getMissCount() {
-            return missCount;
+            return missCount.sum();
         }
 
         public double getHitRate() {
+            long hits = hitCount.sum();
+            long totalOperations = hits + missCount.sum();
             return totalOperations > 0
-                ? (double) hitCount / totalOperations
+                ? (double) hits / totalOperations
                 : 0.0;
         }
 
         public double getAverageResponseTime() {
+            long totalOperations = getTotalOperations();
             return totalOperations > 0
-                ? (double) totalResponseTime / totalOperations
+                ? (double) totalResponseTime.sum() / totalOperations
                 : 0.0;
         }
 
         public long getMaxResponseTime() {
-            return maxResponseTime;
+            return maxResponseTime.get();
         }
 
         public long getMinResponseTime() {
-            return minResponseTime == Long.MAX_VALUE ? 0 : minResponseTime;
+            long min = minResponseTime.get();
+            return min == Long.MAX_VALUE ? 0 : min;
         }
     }
 }
@@ -1,16 +1,30 @@
 package com.cms.permissions.cache;
 
 import com.cms.permissions.service.CacheWarmupService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -18,6 +32,11 @@ import org.springframework.stereotype.Service;
 /**
  * 缓存预热策略优化器
  * 基于访问模式和性能数据智能优化缓存预热策略
+ *
+ * <p>访问模式从缓存读取中学习（通过{@link MetricsCacheManager}的读取监听），按缓存类型和小时
+ * 记录在固定大小的访问频率草图中。各节点定期把自己的访问模式写入Redis哈希
+ * cms:warmup:access:{缓存类型}（字段为节点ID），并读取所有节点的检查点合并为全局访问模式，
+ * 重新部署后仍能使用之前学到的高峰时段和热点键；超过保留期未更新的节点检查点被删除。
  */
 @Service
 public class CacheWarmupStrategy {
@@ -26,11 +45,30 @@ public class CacheWarmupStrategy {
         CacheWarmupStrategy.class
     );
 
+    public static final String ACCESS_KEY_PREFIX = "cms:warmup:access:";
+
+    // 参与访问模式学习的缓存 -> 缓存类型，键分别为用户名和文档ID
+    private static final Map<String, String> TRACKED_CACHES = Map.of(
+        "userRoleIds",
+        "userPermissions",
+        "documentPublic",
+        "documentPublic",
+        "documentAssignments",
+        "documentAssignments"
+    );
+
     @Autowired
     private CacheWarmupService cacheWarmupService;
 
+    @Autowired
     private CacheMemoryOptimizer memoryOptimizer;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
     @Value("${cache.warmup.strategy.enabled:true}")
     private boolean strategyEnabled;
 
@@ -46,41 +84,164 @@ public class CacheWarmupStrategy {
     @Value("${cache.warmup.strategy.batch-size:500}")
     private int batchSize;
 
-    // 访问模式统计
+    @Value("${cache.warmup.strategy.sketch.depth:4}")
+    private int sketchDepth;
+
+    @Value("${cache.warmup.strategy.sketch.width:2048}")
+    private int sketchWidth;
+
+    @Value("${cache.warmup.strategy.sketch.top-k:500}")
+    private int topK;
+
+    @Value("${cache.warmup.strategy.checkpoint-interval-ms:60000}")
+    private long checkpointIntervalMs;
+
+    @Value("${cache.warmup.strategy.retention-hours:168}")
+    private long retentionHours;
+
+    // 为空时每次启动生成新的节点ID，上次运行的检查点作为历史数据保留到过期
+    @Value("${cache.warmup.strategy.node-id:}")
+    private String nodeId;
+
+    // 本节点的访问模式统计
     private final Map<String, AccessPattern> accessPatterns =
         new ConcurrentHashMap<>();
 
+    // 合并所有节点检查点后的全局访问模式，每次检查点后刷新
+    private volatile Map<String, AccessPattern> globalAccessPatterns = Map.of();
+
+    // 检查点编码后可能较大，超过阈值时压缩
+    private final CompactRedisSerializer<AccessPattern> checkpointSerializer =
+        new CompactRedisSerializer<>(AccessPattern.CODEC, null, 1024, true);
+
+    private ScheduledExecutorService checkpointScheduler;
+
     // 预热历史记录
     private final List<WarmupExecution> warmupHistory = new ArrayList<>();
 
     /**
      * 访问模式
+     * 每小时一个访问频率草图，内存固定；可编码后写入Redis，并与其他节点的访问模式合并
      */
     public static class AccessPattern {
 
-        private final String cacheType;
-        private final Map<Integer, Integer> hourlyAccess; // 小时 -> 访问次数
-        private final Map<String, Integer> keyAccess; // 键 -> 访问次数
-        private double averageHitRate;
-        private LocalDateTime lastUpdated;
+        private static final int HOURS = 24;
+
+        /**
+         * 紧凑编码：缓存类型、最后更新时间、每小时访问次数和有数据的小时的草图
+         */
+        static final CompactCodecs.Codec<AccessPattern> CODEC = new CompactCodecs.Codec<>() {
+            @Override
+            public void write(CompactCodecs.Writer out, AccessPattern value) {
+                out.writeString(value.cacheType);
+                out.writeVarLong(value.lastUpdatedMillis);
+                for (int hour = 0; hour < HOURS; hour++) {
+                    out.writeVarLong(value.hourlyAccess.get(hour));
+                }
+                int present = 0;
+                for (int hour = 0; hour < HOURS; hour++) {
+                    present += value.hourlyKeys.get(hour) != null ? 1 : 0;
+                }
+                out.writeVarLong(present);
+                for (int hour = 0; hour < HOURS; hour++) {
+                    AccessFrequencySketch sketch = value.hourlyKeys.get(hour);
+                    if (sketch != null) {
+                        out.writeByte(hour);
+                        sketch.write(out);
+                    }
+                }
+            }
+
+            @Override
+            public AccessPattern read(CompactCodecs.Reader in) {
+                AccessPattern value = new AccessPattern(in.readString(), 1, 1, 1);
+                value.lastUpdatedMillis = in.readVarLong();
+                for (int hour = 0; hour < HOURS; hour++) {
+                    value.hourlyAccess.set(hour, in.readVarLong());
+                }
+                int present = in.readSize();
+                for (int i = 0; i < present; i++) {
+                    int hour = in.readByte();
+                    if (hour >= HOURS) {
+                        throw new IllegalArgumentException("Invalid hour " + hour);
+                    }
+                    value.hourlyKeys.set(hour, AccessFrequencySketch.read(in));
+                }
+                return value;
+            }
+        };
 
-        public AccessPattern(String cacheType) {
+        private final String cacheType;
+        private final AtomicLongArray hourlyAccess; // 小时 -> 访问次数
+        private final AtomicReferenceArray<AccessFrequencySketch> hourlyKeys; // 小时 -> 键访问频率
+        private final int sketchDepth;
+        private final int sketchWidth;
+        private final int topK;
+        private volatile double averageHitRate;
+        private volatile long lastUpdatedMillis;
+
+        public AccessPattern(String cacheType, int sketchDepth, int sketchWidth, int topK) {
             this.cacheType = cacheType;
-            this.hourlyAccess = new ConcurrentHashMap<>();
-            this.keyAccess = new ConcurrentHashMap<>();
+            this.hourlyAccess = new AtomicLongArray(HOURS);
+            this.hourlyKeys = new AtomicReferenceArray<>(HOURS);
+            this.sketchDepth = sketchDepth;
+            this.sketchWidth = sketchWidth;
+            this.topK = topK;
             this.averageHitRate = 0.0;
-            this.lastUpdated = LocalDateTime.now();
+            this.lastUpdatedMillis = System.currentTimeMillis();
         }
 
         public void recordAccess(String key, int hour) {
-            hourlyAccess.merge(hour, 1, Integer::sum);
-            keyAccess.merge(key, 1, Integer::sum);
-            lastUpdated = LocalDateTime.now();
+            hourlyAccess.incrementAndGet(hour);
+            sketch(hour).increment(key);
+            lastUpdatedMillis = System.currentTimeMillis();
         }
 
         public void updateHitRate(double hitRate) {
             this.averageHitRate = hitRate;
-            this.lastUpdated = LocalDateTime.now();
+            this.lastUpdatedMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * 合并另一个访问模式（如其他节点的检查点），尺寸不同的草图只合并小时访问次数
+         */
+        public void merge(AccessPattern other) {
+            for (int hour = 0; hour < HOURS; hour++) {
+                long count = other.hourlyAccess.get(hour);
+                if (count != 0) {
+                    hourlyAccess.addAndGet(hour, count);
+                }
+                AccessFrequencySketch otherSketch = other.hourlyKeys.get(hour);
+                if (otherSketch != null) {
+                    AccessFrequencySketch sketch = sketch(hour);
+                    if (sketch.isCompatible(otherSketch)) {
+                        sketch.merge(otherSketch);
+                    }
+                }
+            }
+            lastUpdatedMillis = Math.max(lastUpdatedMillis, other.lastUpdatedMillis);
+        }
+
+        public boolean isEmpty() {
+            for (int hour = 0; hour < HOURS; hour++) {
+                if (hourlyAccess.get(hour) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private AccessFrequencySketch sketch(int hour) {
+            AccessFrequencySketch sketch = hourlyKeys.get(hour);
+            if (sketch == null) {
+                hourlyKeys.compareAndSet(
+                    hour,
+                    null,
+                    new AccessFrequencySketch(sketchDepth, sketchWidth, topK)
+                );
+                sketch = hourlyKeys.get(hour);
+            }
+            return sketch;
         }
 
         // Getters
@@ -88,12 +249,35 @@ public class CacheWarmupStrategy {
             return cacheType;
         }
 
-        public Map<Integer, Integer> getHourlyAccess() {
-            return new HashMap<>(hourlyAccess);
+        public Map<Integer, Long> getHourlyAccess() {
+            Map<Integer, Long> hourly = new TreeMap<>();
+            for (int hour = 0; hour < HOURS; hour++) {
+                long count = hourlyAccess.get(hour);
+                if (count != 0) {
+                    hourly.put(hour, count);
+                }
+            }
+            return hourly;
         }
 
+        /**
+         * 全天的热点键及估算访问次数
+         */
         public Map<String, Integer> getKeyAccess() {
-            return new HashMap<>(keyAccess);
+            AccessFrequencySketch allDay = null;
+            for (int hour = 0; hour < HOURS; hour++) {
+                AccessFrequencySketch sketch = hourlyKeys.get(hour);
+                if (sketch == null) {
+                    continue;
+                }
+                if (allDay == null) {
+                    allDay = new AccessFrequencySketch(sketchDepth, sketchWidth, topK);
+                }
+                if (allDay.isCompatible(sketch)) {
+                    allDay.merge(sketch);
+                }
+            }
+            return allDay != null ? allDay.topK(topK) : new LinkedHashMap<>();
         }
 
         public double getAverageHitRate() {
@@ -101,15 +285,22 @@ public class CacheWarmupStrategy {
         }
 
         public LocalDateTime getLastUpdated() {
-            return lastUpdated;
+            return LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(lastUpdatedMillis),
+                ZoneId.systemDefault()
+            );
+        }
+
+        long getLastUpdatedMillis() {
+            return lastUpdatedMillis;
         }
 
         public List<Integer> getPeakHours() {
-            return hourlyAccess
+            return getHourlyAccess()
                 .entrySet()
                 .stream()
                 .sorted(
-                    Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                    Map.Entry.<Integer, Long>comparingByValue().reversed()
                 )
                 .limit(3)
                 .map(Map.Entry::getKey)
@@ -117,16 +308,22 @@ public class CacheWarmupStrategy {
         }
 
         public List<String> getPopularKeys(int limit) {
-            return keyAccess
-                .entrySet()
+            return getKeyAccess()
+                .keySet()
                 .stream()
-                .sorted(
-                    Map.Entry.<String, Integer>comparingByValue().reversed()
-                )
                 .limit(limit)
-                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
         }
+
+        /**
+         * 指定小时的热点键
+         */
+        public List<String> getPopularKeys(int hour, int limit) {
+            AccessFrequencySketch sketch = hourlyKeys.get(hour);
+            return sketch != null
+                ? new ArrayList<>(sketch.topK(limit).keySet())
+                : new ArrayList<>();
+        }
     }
 
     /**
@@ -205,6 +402,56 @@ public class CacheWarmupStrategy {
         ADAPTIVE_LEARNING, // 自适应学习
     }
 
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        if (!strategyEnabled) {
+            return;
+        }
+        if (cacheManager instanceof MetricsCacheManager metricsCacheManager) {
+            metricsCacheManager.setAccessListener(this::onCacheAccess);
+        } else {
+            logger.info(
+                "Cache metrics disabled, access patterns are only learned from explicit recordCacheAccess calls"
+            );
+        }
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-access-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动时立即读取其他节点和上次运行留下的检查点
+        checkpointScheduler.scheduleWithFixedDelay(
+            this::checkpoint,
+            0,
+            checkpointIntervalMs,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cacheManager instanceof MetricsCacheManager metricsCacheManager) {
+            metricsCacheManager.setAccessListener(null);
+        }
+        if (checkpointScheduler != null) {
+            checkpointScheduler.shutdownNow();
+            checkpoint();
+        }
+    }
+
+    /**
+     * 缓存读取监听：只记录参与学习的缓存
+     */
+    private void onCacheAccess(String cacheName, Object key) {
+        String cacheType = TRACKED_CACHES.get(cacheName);
+        if (cacheType != null && key != null) {
+            recordCacheAccess(cacheType, key.toString());
+        }
+    }
+
     /**
      * 记录缓存访问
      */
@@ -217,7 +464,7 @@ public class CacheWarmupStrategy {
             int currentHour = LocalTime.now().getHour();
             AccessPattern pattern = accessPatterns.computeIfAbsent(
                 cacheType,
-                AccessPattern::new
+                this::newPattern
             );
             pattern.recordAccess(key, currentHour);
         } catch (Exception e) {
@@ -334,10 +581,11 @@ public class CacheWarmupStrategy {
             return WarmupStrategyType.MEMORY_PRESSURE_RELIEF;
         }
 
-        // 检查是否接近高峰期
+        // 检查是否接近高峰期（配置的高峰时段加上学到的高峰时段）
+        Set<Integer> effectivePeakHours = getEffectivePeakHours();
         boolean nearPeakHour =
-            peakHours.contains(currentHour) ||
-            peakHours.contains((currentHour + 1) % 24);
+            effectivePeakHours.contains(currentHour) ||
+            effectivePeakHours.contains((currentHour + 1) % 24);
         if (nearPeakHour) {
             return WarmupStrategyType.PEAK_HOUR_PREPARATION;
         }
@@ -361,24 +609,39 @@ public class CacheWarmupStrategy {
 
     /**
      * 执行高峰期准备预热
+     * 预热全局访问模式中即将到来的高峰小时的热点用户和文档；还没有学到热点键时全量预热
      */
     private Map<String, Integer> executePeakHourPreparation() {
         Map<String, Integer> itemsWarmed = new HashMap<>();
 
         try {
+            int currentHour = LocalTime.now().getHour();
+            int targetHour = getEffectivePeakHours().contains(currentHour)
+                ? currentHour
+                : (currentHour + 1) % 24;
+
             // 预热用户权限缓存
-            CacheWarmupService.WarmupResult userResult = cacheWarmupService
-                .warmupUserPermissions()
-                .get();
+            List<String> popularUsers = getGlobalAccessPattern("userPermissions")
+                .getPopularKeys(targetHour, batchSize);
+            CacheWarmupService.WarmupResult userResult = popularUsers.isEmpty()
+                ? cacheWarmupService.warmupUserPermissions().get()
+                : cacheWarmupService.warmupUserPermissions(popularUsers).get();
             itemsWarmed.put("userPermissions", userResult.getSuccessCount());
 
             // 预热热门文档
-            CacheWarmupService.WarmupResult docResult = cacheWarmupService
-                .warmupDocumentPublicStatus()
-                .get();
+            List<Long> popularDocuments = toIds(
+                getGlobalAccessPattern("documentPublic").getPopularKeys(targetHour, batchSize)
+            );
+            CacheWarmupService.WarmupResult docResult = popularDocuments.isEmpty()
+                ? cacheWarmupService.warmupDocumentPublicStatus().get()
+                : cacheWarmupService.warmupDocumentPublicStatus(popularDocuments).get();
             itemsWarmed.put("documentPublic", docResult.getSuccessCount());
 
-            logger.info("Peak hour preparation completed: {}", itemsWarmed);
+            logger.info(
+                "Peak hour preparation for hour {} completed: {}",
+                targetHour,
+                itemsWarmed
+            );
         } catch (Exception e) {
             logger.error("Failed to execute peak hour preparation", e);
         }
@@ -510,23 +773,23 @@ public class CacheWarmupStrategy {
         Map<String, Integer> itemsWarmed = new HashMap<>();
 
         try {
-            // 基于访问模式进行智能预热
-            for (AccessPattern pattern : accessPatterns.values()) {
-                List<String> popularKeys = pattern.getPopularKeys(batchSize);
-
-                if (
-                    "userPermissions".equals(pattern.getCacheType()) &&
-                    !popularKeys.isEmpty()
-                ) {
-                    // 这里可以实现基于热门键的选择性预热
-                    CacheWarmupService.WarmupResult result = cacheWarmupService
-                        .warmupUserPermissions()
-                        .get();
-                    itemsWarmed.put(
-                        "userPermissions",
-                        Math.min(result.getSuccessCount(), popularKeys.size())
-                    );
-                }
+            // 基于全局访问模式只预热热点键
+            List<String> popularUsers = getGlobalAccessPattern("userPermissions")
+                .getPopularKeys(batchSize);
+            if (!popularUsers.isEmpty()) {
+                CacheWarmupService.WarmupResult result = cacheWarmupService
+                    .warmupUserPermissions(popularUsers)
+                    .get();
+                itemsWarmed.put("userPermissions", result.getSuccessCount());
+            }
+            List<Long> popularDocuments = toIds(
+                getGlobalAccessPattern("documentPublic").getPopularKeys(batchSize)
+            );
+            if (!popularDocuments.isEmpty()) {
+                CacheWarmupService.WarmupResult result = cacheWarmupService
+                    .warmupDocumentPublicStatus(popularDocuments)
+                    .get();
+                itemsWarmed.put("documentPublic", result.getSuccessCount());
             }
 
             logger.info("Adaptive learning warmup completed: {}", itemsWarmed);
@@ -552,7 +815,7 @@ public class CacheWarmupStrategy {
             )
             .count();
 
-        return accessPatterns.size() >= 2 && recentAdaptiveExecutions == 0;
+        return getAccessPatterns().size() >= 2 && recentAdaptiveExecutions == 0;
     }
 
     /**
@@ -587,10 +850,132 @@ public class CacheWarmupStrategy {
     }
 
     /**
-     * 获取访问模式统计
+     * 检查点：写入本节点的访问模式，再读取所有节点的检查点合并为全局访问模式
+     * Redis不可用时全局访问模式退化为本节点的访问模式
+     */
+    public void checkpoint() {
+        Map<String, AccessPattern> merged = new HashMap<>();
+        for (String cacheType : new HashSet<>(TRACKED_CACHES.values())) {
+            merged.put(cacheType, newPattern(cacheType));
+        }
+        accessPatterns.keySet().forEach(cacheType ->
+            merged.computeIfAbsent(cacheType, this::newPattern)
+        );
+        for (Map.Entry<String, AccessPattern> entry : merged.entrySet()) {
+            String cacheType = entry.getKey();
+            AccessPattern global = entry.getValue();
+            AccessPattern local = accessPatterns.get(cacheType);
+            if (local != null) {
+                global.merge(local);
+                global.updateHitRate(local.getAverageHitRate());
+            }
+            try {
+                mergeCheckpoints(cacheType, local, global);
+            } catch (RuntimeException e) {
+                logger.warn(
+                    "Failed to checkpoint access pattern for {}: {}",
+                    cacheType,
+                    e.getMessage()
+                );
+            }
+        }
+        globalAccessPatterns = merged;
+    }
+
+    private void mergeCheckpoints(
+        String cacheType,
+        AccessPattern local,
+        AccessPattern global
+    ) {
+        byte[] key = (ACCESS_KEY_PREFIX + cacheType).getBytes(StandardCharsets.UTF_8);
+        byte[] field = nodeId.getBytes(StandardCharsets.UTF_8);
+        byte[] snapshot = local != null && !local.isEmpty()
+            ? checkpointSerializer.serialize(local)
+            : null;
+        long retentionMillis = Duration.ofHours(retentionHours).toMillis();
+        Map<byte[], byte[]> checkpoints = redisTemplate.execute(
+            (RedisCallback<Map<byte[], byte[]>>) connection -> {
+                if (snapshot != null) {
+                    connection.hashCommands().hSet(key, field, snapshot);
+                    connection.keyCommands().pExpire(key, retentionMillis);
+                }
+                return connection.hashCommands().hGetAll(key);
+            }
+        );
+        if (checkpoints == null) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - retentionMillis;
+        List<byte[]> expired = new ArrayList<>();
+        for (Map.Entry<byte[], byte[]> checkpoint : checkpoints.entrySet()) {
+            if (Arrays.equals(checkpoint.getKey(), field)) {
+                continue;
+            }
+            try {
+                AccessPattern other = checkpointSerializer.deserialize(checkpoint.getValue());
+                if (other == null || other.getLastUpdatedMillis() < expiredBefore) {
+                    expired.add(checkpoint.getKey());
+                } else {
+                    global.merge(other);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Discarding unreadable access pattern checkpoint for {}", cacheType);
+                expired.add(checkpoint.getKey());
+            }
+        }
+        if (!expired.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.hashCommands().hDel(key, expired.toArray(new byte[0][]))
+            );
+        }
+    }
+
+    /**
+     * 获取访问模式统计（所有节点合并后的全局访问模式）
      */
     public Map<String, AccessPattern> getAccessPatterns() {
-        return new HashMap<>(accessPatterns);
+        Map<String, AccessPattern> patterns = new HashMap<>(globalAccessPatterns);
+        patterns.values().removeIf(AccessPattern::isEmpty);
+        accessPatterns.forEach(patterns::putIfAbsent);
+        return patterns;
+    }
+
+    /**
+     * 全局访问模式，还没有检查点时为本节点的访问模式
+     */
+    private AccessPattern getGlobalAccessPattern(String cacheType) {
+        AccessPattern pattern = globalAccessPatterns.get(cacheType);
+        if (pattern == null) {
+            pattern = accessPatterns.get(cacheType);
+        }
+        return pattern != null ? pattern : newPattern(cacheType);
+    }
+
+    /**
+     * 配置的高峰时段加上从全局访问模式中学到的高峰时段
+     */
+    private Set<Integer> getEffectivePeakHours() {
+        Set<Integer> hours = new TreeSet<>(peakHours);
+        for (AccessPattern pattern : getAccessPatterns().values()) {
+            hours.addAll(pattern.getPeakHours());
+        }
+        return hours;
+    }
+
+    private AccessPattern newPattern(String cacheType) {
+        return new AccessPattern(cacheType, sketchDepth, sketchWidth, topK);
+    }
+
+    private static List<Long> toIds(List<String> keys) {
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                ids.add(Long.valueOf(key));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring non-numeric document key {}", key);
+            }
+        }
+        return ids;
     }
 
     /**
@@ -645,6 +1030,21 @@ public class CacheWarmupStrategy {
      */
     public void resetAccessPatterns() {
         accessPatterns.clear();
+        globalAccessPatterns = Map.of();
+        try {
+            byte[] field = nodeId.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                for (String cacheType : new HashSet<>(TRACKED_CACHES.values())) {
+                    connection.hashCommands().hDel(
+                        (ACCESS_KEY_PREFIX + cacheType).getBytes(StandardCharsets.UTF_8),
+                        field
+                    );
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to remove access pattern checkpoints: {}", e.getMessage());
+        }
         logger.info("Access patterns reset");
     }
 
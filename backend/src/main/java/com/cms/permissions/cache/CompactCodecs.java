@@ -0,0 +1,344 @@
+package com.cms.permissions.cache;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 缓存值的紧凑二进制编码
+ * 按值的已知结构编码，不写类型名和字段名：整数用变长编码（有符号数先做ZigZag），
+ * 字符串为长度前缀加UTF-8，集合为元素个数加元素。
+ * 编码格式写入Redis后即为存量数据，只能在末尾追加字段或新增编码，不能调整已有字段的顺序。
+ */
+public final class CompactCodecs {
+
+    /**
+     * 单一类型的编解码
+     */
+    public interface Codec<T> {
+        void write(Writer out, T value);
+
+        T read(Reader in);
+    }
+
+    /**
+     * Set&lt;String&gt;，如用户权限代码
+     */
+    public static final Codec<Set<String>> STRING_SET = new Codec<>() {
+        @Override
+        public void write(Writer out, Set<String> value) {
+            out.writeVarLong(value.size());
+            for (String item : value) {
+                out.writeString(item);
+            }
+        }
+
+        @Override
+        public Set<String> read(Reader in) {
+            int size = in.readSize();
+            Set<String> value = new HashSet<>(Math.max(16, size * 4 / 3 + 1));
+            for (int i = 0; i < size; i++) {
+                value.add(in.readString());
+            }
+            return value;
+        }
+    };
+
+    /**
+     * List&lt;Long&gt;，如用户角色ID，元素不能为null
+     */
+    public static final Codec<List<Long>> LONG_LIST = new Codec<>() {
+        @Override
+        public void write(Writer out, List<Long> value) {
+            out.writeVarLong(value.size());
+            for (Long item : value) {
+                out.writeZigZag(item);
+            }
+        }
+
+        @Override
+        public List<Long> read(Reader in) {
+            int size = in.readSize();
+            List<Long> value = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                value.add(in.readZigZag());
+            }
+            return value;
+        }
+    };
+
+    public static final Codec<Long> LONG = new Codec<>() {
+        @Override
+        public void write(Writer out, Long value) {
+            out.writeZigZag(value);
+        }
+
+        @Override
+        public Long read(Reader in) {
+            return in.readZigZag();
+        }
+    };
+
+    public static final Codec<Boolean> BOOLEAN = new Codec<>() {
+        @Override
+        public void write(Writer out, Boolean value) {
+            out.writeByte(value ? 1 : 0);
+        }
+
+        @Override
+        public Boolean read(Reader in) {
+            return in.readByte() != 0;
+        }
+    };
+
+    /**
+     * 权限位集，按字无符号变长编码（高位为0的字占用更少字节）
+     */
+    public static final Codec<long[]> LONG_ARRAY = new Codec<>() {
+        @Override
+        public void write(Writer out, long[] value) {
+            out.writeVarLong(value.length);
+            for (long word : value) {
+                out.writeVarLong(word);
+            }
+        }
+
+        @Override
+        public long[] read(Reader in) {
+            long[] value = new long[in.readSize()];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = in.readVarLong();
+            }
+            return value;
+        }
+    };
+
+    // 文档分配各字段的存在标记
+    private static final int HAS_DOCUMENT_ID = 1;
+
+    private static final int HAS_USER_ID = 1 << 1;
+
+    private static final int HAS_TYPE = 1 << 2;
+
+    private static final int HAS_ASSIGNED_AT = 1 << 3;
+
+    private static final int HAS_ASSIGNED_BY = 1 << 4;
+
+    /**
+     * List&lt;DocumentAssignment&gt;
+     * 每个元素以字段存在标记开头，分配类型按枚举序号编码（新增类型只能追加在末尾），
+     * 分配时间按UTC秒数加纳秒编码
+     */
+    public static final Codec<List<DocumentAssignment>> ASSIGNMENT_LIST =
+        new Codec<>() {
+            @Override
+            public void write(Writer out, List<DocumentAssignment> value) {
+                out.writeVarLong(value.size());
+                for (DocumentAssignment assignment : value) {
+                    int flags =
+                        (assignment.getDocumentId() != null ? HAS_DOCUMENT_ID : 0) |
+                        (assignment.getUserId() != null ? HAS_USER_ID : 0) |
+                        (assignment.getAssignmentType() != null ? HAS_TYPE : 0) |
+                        (assignment.getAssignedAt() != null ? HAS_ASSIGNED_AT : 0) |
+                        (assignment.getAssignedBy() != null ? HAS_ASSIGNED_BY : 0);
+                    out.writeByte(flags);
+                    if ((flags & HAS_DOCUMENT_ID) != 0) {
+                        out.writeZigZag(assignment.getDocumentId());
+                    }
+                    if ((flags & HAS_USER_ID) != 0) {
+                        out.writeZigZag(assignment.getUserId());
+                    }
+                    if ((flags & HAS_TYPE) != 0) {
+                        out.writeByte(assignment.getAssignmentType().ordinal());
+                    }
+                    if ((flags & HAS_ASSIGNED_AT) != 0) {
+                        LocalDateTime assignedAt = assignment.getAssignedAt();
+                        out.writeZigZag(assignedAt.toEpochSecond(ZoneOffset.UTC));
+                        out.writeVarLong(assignedAt.getNano());
+                    }
+                    if ((flags & HAS_ASSIGNED_BY) != 0) {
+                        out.writeZigZag(assignment.getAssignedBy());
+                    }
+                }
+            }
+
+            @Override
+            public List<DocumentAssignment> read(Reader in) {
+                int size = in.readSize();
+                List<DocumentAssignment> value = new ArrayList<>(size);
+                DocumentAssignment.AssignmentType[] types =
+                    DocumentAssignment.AssignmentType.values();
+                for (int i = 0; i < size; i++) {
+                    int flags = in.readByte();
+                    DocumentAssignment assignment = new DocumentAssignment();
+                    if ((flags & HAS_DOCUMENT_ID) != 0) {
+                        assignment.setDocumentId(in.readZigZag());
+                    }
+                    if ((flags & HAS_USER_ID) != 0) {
+                        assignment.setUserId(in.readZigZag());
+                    }
+                    if ((flags & HAS_TYPE) != 0) {
+                        int type = in.readByte();
+                        if (type >= types.length) {
+                            throw new IllegalArgumentException(
+                                "Unknown assignment type " + type
+                            );
+                        }
+                        assignment.setAssignmentType(types[type]);
+                    }
+                    if ((flags & HAS_ASSIGNED_AT) != 0) {
+                        long seconds = in.readZigZag();
+                        int nanos = (int) in.readVarLong();
+                        assignment.setAssignedAt(
+                            LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC)
+                        );
+                    }
+                    if ((flags & HAS_ASSIGNED_BY) != 0) {
+                        assignment.setAssignedBy(in.readZigZag());
+                    }
+                    value.add(assignment);
+                }
+                return value;
+            }
+        };
+
+    private CompactCodecs() {}
+
+    /**
+     * 可增长的字节缓冲
+     */
+    public static final class Writer {
+
+        private byte[] buffer;
+
+        private int length;
+
+        public Writer(int initialCapacity) {
+            this.buffer = new byte[Math.max(16, initialCapacity)];
+        }
+
+        public void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) value;
+        }
+
+        /**
+         * 无符号变长编码，每字节7位
+         */
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        /**
+         * 有符号数先做ZigZag变换，使绝对值小的负数也只占少量字节
+         */
+        public void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        public void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        public void writeBytes(byte[] bytes, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, offset, buffer, length, count);
+            length += count;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(
+                    buffer,
+                    Math.max(buffer.length << 1, length + extra)
+                );
+            }
+        }
+    }
+
+    /**
+     * 顺序读取，越界时抛出IllegalArgumentException
+     */
+    public static final class Reader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        public Reader(byte[] buffer, int offset) {
+            this.buffer = buffer;
+            this.position = offset;
+        }
+
+        public int readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated compact value");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        public long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        public long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        public String readString() {
+            int size = readSize();
+            String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        /**
+         * 读取元素个数或字节长度，不能超过剩余字节数，避免损坏的数据触发超大分配
+         */
+        public int readSize() {
+            long size = readVarLong();
+            if (size < 0 || size > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid size " + size);
+            }
+            return (int) size;
+        }
+
+        public int position() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cms.permissions.cache;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 紧凑的Redis值序列化器
+ * 写入格式为一个格式字节加负载：0xC1为紧凑二进制编码，0xC2为DEFLATE压缩后的负载（先写原始长度）。
+ * 负载达到压缩阈值时才压缩，且只在压缩后更小时使用压缩结果。
+ * 格式字节在合法的UTF-8和JSON中都不会出现在开头，据此区分存量的JSON值，
+ * 读取时不带格式字节的值交给JSON序列化器，切换格式无需清空缓存。
+ *
+ * <p>未指定编解码时负载为JSON序列化器的输出，且未压缩时不加格式字节，
+ * 与原有JSON值完全一致（便于对同一键执行INCR等命令），只对大值压缩。
+ */
+public class CompactRedisSerializer<T> implements RedisSerializer<T> {
+
+    static final byte FORMAT_COMPACT = (byte) 0xC1;
+
+    static final byte FORMAT_DEFLATE = (byte) 0xC2;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final CompactCodecs.Codec<T> codec;
+
+    private final RedisSerializer<T> json;
+
+    private final int compressionThreshold;
+
+    private final boolean writeCompact;
+
+    /**
+     * @param codec 紧凑编码，为null时负载为JSON
+     * @param json 读取存量JSON值，以及不使用紧凑编码时写入；为null时只接受紧凑编码的值
+     * @param compressionThreshold 负载达到该字节数时压缩，0表示不压缩
+     * @param writeCompact 是否以紧凑编码写入；为false时仍能读取紧凑编码的值，便于回退
+     */
+    public CompactRedisSerializer(
+        CompactCodecs.Codec<T> codec,
+        RedisSerializer<T> json,
+        int compressionThreshold,
+        boolean writeCompact
+    ) {
+        this.codec = codec;
+        this.json = json;
+        this.compressionThreshold = compressionThreshold;
+        this.writeCompact = writeCompact && codec != null;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        byte[] payload;
+        int length;
+        if (writeCompact) {
+            CompactCodecs.Writer writer = new CompactCodecs.Writer(64);
+            writer.writeByte(FORMAT_COMPACT);
+            try {
+                codec.write(writer, value);
+            } catch (RuntimeException e) {
+                throw new SerializationException(
+                    "Could not write compact value: " + e.getMessage(),
+                    e
+                );
+            }
+            if (!shouldCompress(writer.length() - 1)) {
+                return writer.toByteArray();
+            }
+            payload = writer.buffer();
+            length = writer.length();
+        } else {
+            payload = json.serialize(value);
+            if (payload == null || !shouldCompress(payload.length)) {
+                return payload;
+            }
+            length = payload.length;
+        }
+        byte[] compressed = compress(payload, length);
+        return compressed != null ? compressed : Arrays.copyOf(payload, length);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] == FORMAT_COMPACT) {
+                return readCompact(bytes, 1);
+            }
+            if (bytes[0] == FORMAT_DEFLATE) {
+                byte[] inflated = decompress(bytes);
+                // 压缩的负载以原格式字节开头
+                if (inflated.length > 0 && inflated[0] == FORMAT_COMPACT) {
+                    return readCompact(inflated, 1);
+                }
+                return json.deserialize(inflated);
+            }
+        } catch (IllegalArgumentException | DataFormatException e) {
+            throw new SerializationException(
+                "Could not read compact value: " + e.getMessage(),
+                e
+            );
+        }
+        if (json == null) {
+            throw new SerializationException("Not a compact value");
+        }
+        return json.deserialize(bytes);
+    }
+
+    private T readCompact(byte[] bytes, int offset) {
+        if (codec == null) {
+            throw new IllegalArgumentException("No compact codec for this value");
+        }
+        return codec.read(new CompactCodecs.Reader(bytes, offset));
+    }
+
+    private boolean shouldCompress(int payloadLength) {
+        return compressionThreshold > 0 && payloadLength >= compressionThreshold;
+    }
+
+    /**
+     * 压缩负载（紧凑编码连同其格式字节一起压缩），压缩后不更小时返回null
+     */
+    private static byte[] compress(byte[] payload, int length) {
+        CompactCodecs.Writer writer = new CompactCodecs.Writer(length / 2 + 16);
+        writer.writeByte(FORMAT_DEFLATE);
+        writer.writeVarLong(length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload, 0, length);
+            deflater.finish();
+            byte[] chunk = new byte[Math.min(length, 8192)];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                writer.writeBytes(chunk, 0, count);
+                if (writer.length() >= length) {
+                    return null;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        return writer.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] bytes) throws DataFormatException {
+        CompactCodecs.Reader reader = new CompactCodecs.Reader(bytes, 1);
+        long length = reader.readVarLong();
+        // 压缩比不会超过DEFLATE的理论上限，防止损坏的长度触发超大分配
+        if (length < 0 || length > (long) bytes.length * 1032) {
+            throw new IllegalArgumentException("Invalid inflated length " + length);
+        }
+        int offset = reader.position();
+        byte[] inflated = new byte[(int) length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            int total = 0;
+            while (total < inflated.length && !inflater.finished()) {
+                int count = inflater.inflate(inflated, total, inflated.length - total);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += count;
+            }
+            if (total != inflated.length) {
+                throw new IllegalArgumentException("Truncated compressed value");
+            }
+        } finally {
+            inflater.end();
+        }
+        return inflated;
+    }
+}
@@ -0,0 +1,312 @@
+package com.cms.permissions.cache;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文档可见性索引
+ * 为每个用户物化其被分配文档的压缩位图，并维护一个全局的公开文档位图，
+ * DOC:VIEW类检查只需两次O(1)的成员判断，不再读取并遍历文档的全部分配记录。
+ * 分配、公开状态变更和删除在事务提交后增量更新本地位图，并通过Redis频道同步到其他节点；
+ * 用户位图按TTL过期重建、公开位图由后台线程定期全量重建，以兜底丢失的同步消息和绕过服务层的写入。
+ */
+@Component
+public class DocumentAccessIndex implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        DocumentAccessIndex.class
+    );
+
+    public static final String CHANNEL = "cms:access:documents";
+
+    private static final String SEPARATOR = "\n";
+
+    private enum Operation {
+        ASSIGN,
+        PUBLIC,
+        PRIVATE,
+        DELETE,
+    }
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${cache.document-access.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.document-access.max-users:10000}")
+    private long maxUsers;
+
+    // 用户位图的本地TTL（秒）
+    @Value("${cache.document-access.ttl:600}")
+    private long userTtlSeconds;
+
+    // 公开位图的全量重建间隔（秒），0表示只增量更新
+    @Value("${cache.document-access.public-rebuild-interval:300}")
+    private long publicRebuildSeconds;
+
+    // 节点标识，用于忽略本节点发出的消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Cache<Long, DocumentBitmap> userBitmaps;
+
+    private volatile DocumentBitmap publicBitmap;
+
+    // 每次增量更新公开位图时递增，全量重建期间有更新则放弃本次重建结果
+    private long publicVersion;
+
+    // 首次构建公开位图时持有，并发的首次访问只查询一次
+    private final ReentrantLock initialBuildLock = new ReentrantLock();
+
+    private ScheduledExecutorService rebuildExecutor;
+
+    @PostConstruct
+    public void init() {
+        userBitmaps = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(Duration.ofSeconds(userTtlSeconds))
+            .build();
+        if (enabled && publicRebuildSeconds > 0) {
+            rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "document-access-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rebuildExecutor.scheduleWithFixedDelay(
+                this::scheduledRebuild,
+                publicRebuildSeconds,
+                publicRebuildSeconds,
+                TimeUnit.SECONDS
+            );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 用户是否可以查看文档：文档公开，或用户以任意角色被分配到该文档
+     */
+    public boolean canView(Long userId, Long documentId) {
+        if (documentId == null) {
+            return false;
+        }
+        if (publicDocuments().contains(documentId)) {
+            return true;
+        }
+        return userId != null && assignedDocuments(userId).contains(documentId);
+    }
+
+    /**
+     * 获取用户被分配的文档位图，本地没有时从数据库构建
+     */
+    public DocumentBitmap assignedDocuments(Long userId) {
+        return userBitmaps.get(userId, id ->
+            DocumentBitmap.of(
+                documentAssignmentRepository
+                    .findByUserId(id)
+                    .stream()
+                    .map(DocumentAssignment::getDocumentId)
+                    .collect(Collectors.toList())
+            )
+        );
+    }
+
+    /**
+     * 获取公开文档位图，只有首次访问时在调用线程中从数据库全量构建，之后的重建在后台完成
+     */
+    public DocumentBitmap publicDocuments() {
+        DocumentBitmap bitmap = publicBitmap;
+        if (bitmap != null) {
+            return bitmap;
+        }
+        initialBuildLock.lock();
+        try {
+            bitmap = publicBitmap;
+            return bitmap != null ? bitmap : rebuildPublicDocuments();
+        } finally {
+            initialBuildLock.unlock();
+        }
+    }
+
+    /**
+     * 记录用户被分配到文档（事务中调用时在提交后生效）
+     */
+    public void onAssigned(Long userId, Long documentId) {
+        TransactionCallbacks.afterCommit(() -> {
+            applyAssigned(userId, documentId);
+            publish(Operation.ASSIGN, documentId, userId);
+        });
+    }
+
+    /**
+     * 记录文档公开状态（事务中调用时在提交后生效）
+     */
+    public void onPublicStatusChanged(Long documentId, boolean isPublic) {
+        TransactionCallbacks.afterCommit(() -> {
+            applyPublicStatus(documentId, isPublic);
+            publish(isPublic ? Operation.PUBLIC : Operation.PRIVATE, documentId, null);
+        });
+    }
+
+    /**
+     * 记录文档被删除（事务中调用时在提交后生效）
+     */
+    public void onDeleted(Long documentId) {
+        TransactionCallbacks.afterCommit(() -> {
+            applyDeleted(documentId);
+            publish(Operation.DELETE, documentId, null);
+        });
+    }
+
+    /**
+     * 接收其他节点的增量更新
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(
+            message.getBody(),
+            StandardCharsets.UTF_8
+        ).split(SEPARATOR, 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            Long documentId = Long.valueOf(parts[2]);
+            switch (Operation.valueOf(parts[1])) {
+                case ASSIGN -> applyAssigned(Long.valueOf(parts[3]), documentId);
+                case PUBLIC -> applyPublicStatus(documentId, true);
+                case PRIVATE -> applyPublicStatus(documentId, false);
+                case DELETE -> applyDeleted(documentId);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed document access message: {}", e.getMessage());
+        }
+    }
+
+    private void applyAssigned(Long userId, Long documentId) {
+        // 只更新已物化的用户，未物化的用户下次访问时从数据库构建
+        userBitmaps
+            .asMap()
+            .computeIfPresent(userId, (id, bitmap) -> bitmap.with(documentId));
+    }
+
+    private synchronized void applyPublicStatus(Long documentId, boolean isPublic) {
+        publicVersion++;
+        if (publicBitmap != null) {
+            publicBitmap = isPublic
+                ? publicBitmap.with(documentId)
+                : publicBitmap.without(documentId);
+        }
+    }
+
+    private void applyDeleted(Long documentId) {
+        applyPublicStatus(documentId, false);
+        userBitmaps
+            .asMap()
+            .replaceAll((userId, bitmap) -> bitmap.without(documentId));
+    }
+
+    /**
+     * 后台定期重建；尚未有读取构建过位图时跳过，由首次访问构建
+     */
+    void scheduledRebuild() {
+        if (publicBitmap == null) {
+            return;
+        }
+        try {
+            rebuildPublicDocuments();
+        } catch (RuntimeException e) {
+            // 继续使用当前位图，下一个周期再重建
+            logger.warn("Failed to rebuild public document bitmap: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库全量构建公开位图，构建期间的读取继续使用当前位图，完成后替换
+     */
+    private DocumentBitmap rebuildPublicDocuments() {
+        long version;
+        synchronized (this) {
+            version = publicVersion;
+        }
+
+        DocumentBitmap rebuilt = DocumentBitmap.of(
+            documentRepository.findAllPublicDocumentIds()
+        );
+
+        synchronized (this) {
+            if (publicBitmap == null || publicVersion == version) {
+                publicBitmap = rebuilt;
+            } else {
+                // 查询期间有增量更新，结果可能缺少这些更新，保留当前位图等下次重建
+                logger.debug("Public document bitmap changed during rebuild, keeping current");
+            }
+            return publicBitmap;
+        }
+    }
+
+    private void publish(Operation operation, Long documentId, Long userId) {
+        String payload = String.join(
+            SEPARATOR,
+            nodeId,
+            operation.name(),
+            String.valueOf(documentId),
+            userId != null ? String.valueOf(userId) : ""
+        );
+        try {
+            redisTemplate.execute(
+                (RedisCallback<Long>) connection ->
+                    connection.publish(
+                        CHANNEL.getBytes(StandardCharsets.UTF_8),
+                        payload.getBytes(StandardCharsets.UTF_8)
+                    )
+            );
+        } catch (RuntimeException e) {
+            // 其他节点最迟在位图过期或重建后看到变更
+            logger.warn(
+                "Failed to publish document access update {} for document {}: {}",
+                operation,
+                documentId,
+                e.getMessage()
+            );
+        }
+    }
+}
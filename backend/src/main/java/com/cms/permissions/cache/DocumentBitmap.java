@@ -0,0 +1,194 @@
+package com.cms.permissions.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文档ID压缩位图（不可变）
+ * 按ID高位分成每块4096个ID，块内条目少时存为有序char数组，多时存为64个long的位图，
+ * 稀疏和稠密的ID集合都只占少量内存，成员判断为一次哈希查找加一次块内查找。
+ * 修改返回新实例，只复制被修改的块，读取无需加锁。
+ */
+public final class DocumentBitmap {
+
+    public static final DocumentBitmap EMPTY = new DocumentBitmap(Map.of(), 0);
+
+    private static final int BLOCK_BITS = 12;
+
+    private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
+    private static final int BLOCK_WORDS = (1 << BLOCK_BITS) / 64;
+
+    // 超过该条目数时数组块转为位图块（两者大小相同：256个char = 64个long）
+    private static final int ARRAY_MAX = 256;
+
+    // 块：char[]为有序数组块，long[]为位图块
+    private final Map<Long, Object> blocks;
+
+    private final int cardinality;
+
+    private DocumentBitmap(Map<Long, Object> blocks, int cardinality) {
+        this.blocks = blocks;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * 由ID集合构建位图，忽略null
+     */
+    public static DocumentBitmap of(Collection<Long> ids) {
+        long[] sorted = ids
+            .stream()
+            .filter(id -> id != null)
+            .mapToLong(Long::longValue)
+            .sorted()
+            .distinct()
+            .toArray();
+        if (sorted.length == 0) {
+            return EMPTY;
+        }
+
+        Map<Long, Object> blocks = new HashMap<>();
+        int start = 0;
+        while (start < sorted.length) {
+            long key = sorted[start] >>> BLOCK_BITS;
+            int end = start;
+            while (end < sorted.length && sorted[end] >>> BLOCK_BITS == key) {
+                end++;
+            }
+            char[] values = new char[end - start];
+            for (int i = start; i < end; i++) {
+                values[i - start] = (char) (sorted[i] & BLOCK_MASK);
+            }
+            blocks.put(key, values.length > ARRAY_MAX ? toWords(values) : values);
+            start = end;
+        }
+        return new DocumentBitmap(blocks, sorted.length);
+    }
+
+    public boolean contains(long id) {
+        Object block = blocks.get(id >>> BLOCK_BITS);
+        if (block == null) {
+            return false;
+        }
+        int low = (int) (id & BLOCK_MASK);
+        if (block instanceof char[]) {
+            return Arrays.binarySearch((char[]) block, (char) low) >= 0;
+        }
+        return (((long[]) block)[low >>> 6] & (1L << low)) != 0;
+    }
+
+    /**
+     * 返回加入id后的位图，已包含时返回自身
+     */
+    public DocumentBitmap with(long id) {
+        if (contains(id)) {
+            return this;
+        }
+        long key = id >>> BLOCK_BITS;
+        char low = (char) (id & BLOCK_MASK);
+        Object block = blocks.get(key);
+        Object updated;
+        if (block == null) {
+            updated = new char[] { low };
+        } else if (block instanceof char[]) {
+            char[] values = (char[]) block;
+            int insertAt = -Arrays.binarySearch(values, low) - 1;
+            char[] grown = new char[values.length + 1];
+            System.arraycopy(values, 0, grown, 0, insertAt);
+            grown[insertAt] = low;
+            System.arraycopy(values, insertAt, grown, insertAt + 1, values.length - insertAt);
+            updated = grown.length > ARRAY_MAX ? toWords(grown) : grown;
+        } else {
+            long[] words = ((long[]) block).clone();
+            words[low >>> 6] |= 1L << low;
+            updated = words;
+        }
+        Map<Long, Object> copy = new HashMap<>(blocks);
+        copy.put(key, updated);
+        return new DocumentBitmap(copy, cardinality + 1);
+    }
+
+    /**
+     * 返回移除id后的位图，不包含时返回自身
+     */
+    public DocumentBitmap without(long id) {
+        if (!contains(id)) {
+            return this;
+        }
+        long key = id >>> BLOCK_BITS;
+        char low = (char) (id & BLOCK_MASK);
+        Object block = blocks.get(key);
+        Object updated;
+        if (block instanceof char[]) {
+            char[] values = (char[]) block;
+            int removeAt = Arrays.binarySearch(values, low);
+            char[] shrunk = new char[values.length - 1];
+            System.arraycopy(values, 0, shrunk, 0, removeAt);
+            System.arraycopy(values, removeAt + 1, shrunk, removeAt, shrunk.length - removeAt);
+            updated = shrunk.length > 0 ? shrunk : null;
+        } else {
+            long[] words = ((long[]) block).clone();
+            words[low >>> 6] &= ~(1L << low);
+            char[] values = toValues(words);
+            updated = values.length > ARRAY_MAX ? words : values;
+        }
+        if (cardinality == 1) {
+            return EMPTY;
+        }
+        Map<Long, Object> copy = new HashMap<>(blocks);
+        if (updated == null) {
+            copy.remove(key);
+        } else {
+            copy.put(key, updated);
+        }
+        return new DocumentBitmap(copy, cardinality - 1);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * 估算占用的字节数（不含对象头和哈希表开销）
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Object block : blocks.values()) {
+            bytes += block instanceof char[]
+                ? ((char[]) block).length * 2L
+                : BLOCK_WORDS * 8L;
+        }
+        return bytes;
+    }
+
+    private static long[] toWords(char[] values) {
+        long[] words = new long[BLOCK_WORDS];
+        for (char value : values) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        char[] values = new char[count];
+        int index = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[index++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,337 @@
+package com.cms.permissions.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+
+/**
+ * 空闲键清理器
+ * 按SCAN游标分步扫描匹配的键，每步的OBJECT IDLETIME通过一次管道查询，空闲超过阈值的键按批UNLINK
+ * （内存在Redis后台线程释放）。所有命令按每秒操作数预算限速，单次运行有时间上限，
+ * 游标保存在Redis中，下次运行（包括其他节点或重启后）从上次的位置继续，一轮扫描完成后从头开始。
+ * 同一时间只有一个节点在清理同一模式的键。
+ */
+public class IdleKeyReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        IdleKeyReaper.class
+    );
+
+    public static final String CURSOR_KEY_PREFIX = "cms:reaper:cursor:";
+
+    public static final String LOCK_KEY_PREFIX = "cms:reaper:lock:";
+
+    // 单步扫描；RedisConnection的SCAN不能从指定游标开始，通过脚本执行一次SCAN
+    private static final byte[] SCAN_STEP_SCRIPT =
+        "return redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final String INITIAL_CURSOR = "0";
+
+    // 游标长时间未推进（如清理停用）时过期，重新从头扫描
+    private static final Duration CURSOR_TTL = Duration.ofDays(1);
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final String pattern;
+
+    private final Duration idleThreshold;
+
+    private final int scanCount;
+
+    private final int deleteBatchSize;
+
+    private final long nanosPerOperation;
+
+    private final Duration maxRunTime;
+
+    private final byte[] cursorKey;
+
+    private final byte[] lockKey;
+
+    // 同一节点上不并发运行
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    // 限速：下一个操作最早可以执行的时间
+    private long nextPermitNanos;
+
+    private volatile ReapResult lastResult;
+
+    /**
+     * @param pattern 清理的键模式
+     * @param idleThreshold 空闲超过该时长的键被删除
+     * @param scanCount 每步SCAN的COUNT，也是每次管道查询空闲时间的最大键数
+     * @param deleteBatchSize 每条UNLINK命令删除的最大键数
+     * @param operationsPerSecond 每秒Redis操作预算（SCAN、每个键的IDLETIME和UNLINK各计一次）
+     * @param maxRunTime 单次运行的时间上限，到时保存游标后退出
+     */
+    public IdleKeyReaper(
+        RedisConnectionFactory connectionFactory,
+        String pattern,
+        Duration idleThreshold,
+        int scanCount,
+        int deleteBatchSize,
+        int operationsPerSecond,
+        Duration maxRunTime
+    ) {
+        this.connectionFactory = connectionFactory;
+        this.pattern = pattern;
+        this.idleThreshold = idleThreshold;
+        this.scanCount = Math.max(1, scanCount);
+        this.deleteBatchSize = Math.max(1, deleteBatchSize);
+        this.nanosPerOperation = TimeUnit.SECONDS.toNanos(1) / Math.max(1, operationsPerSecond);
+        this.maxRunTime = maxRunTime;
+        this.cursorKey = bytes(CURSOR_KEY_PREFIX + pattern);
+        this.lockKey = bytes(LOCK_KEY_PREFIX + pattern);
+    }
+
+    /**
+     * 从保存的游标继续清理，直到完成一轮扫描或达到时间上限
+     */
+    public ReapResult reap() {
+        if (!runLock.tryLock()) {
+            return ReapResult.skipped("Reaper already running on this node");
+        }
+        byte[] token = bytes(UUID.randomUUID().toString());
+        try {
+            if (!acquireClusterLock(token)) {
+                return ReapResult.skipped("Reaper running on another node");
+            }
+            try {
+                return run();
+            } finally {
+                releaseClusterLock(token);
+            }
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * 最近一次运行的结果
+     */
+    public ReapResult getLastResult() {
+        return lastResult;
+    }
+
+    private ReapResult run() {
+        long start = System.nanoTime();
+        long deadline = start + maxRunTime.toNanos();
+        String cursor = loadCursor();
+        String startCursor = cursor;
+        long scanned = 0;
+        long removed = 0;
+        boolean passCompleted = false;
+        List<byte[]> pending = new ArrayList<>();
+        try {
+            while (System.nanoTime() < deadline) {
+                throttle(1);
+                ScanStep step = scanStep(cursor);
+                scanned += step.keys().size();
+                if (!step.keys().isEmpty()) {
+                    throttle(step.keys().size());
+                    pending.addAll(idleKeys(step.keys()));
+                }
+                while (pending.size() >= deleteBatchSize) {
+                    removed += unlink(pending, deleteBatchSize);
+                }
+                cursor = step.cursor();
+                if (INITIAL_CURSOR.equals(cursor)) {
+                    passCompleted = true;
+                    break;
+                }
+                saveCursor(cursor);
+            }
+            while (!pending.isEmpty()) {
+                removed += unlink(pending, deleteBatchSize);
+            }
+            if (passCompleted) {
+                resetCursor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Idle key reaper interrupted at cursor {}", cursor);
+        } catch (RuntimeException e) {
+            // 未删除的候选键会在下一轮扫描中再次检查
+            logger.warn("Idle key reaper stopped at cursor {}: {}", cursor, e.getMessage());
+        }
+
+        ReapResult result = new ReapResult(
+            true,
+            scanned,
+            removed,
+            passCompleted,
+            startCursor,
+            passCompleted ? INITIAL_CURSOR : cursor,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            null
+        );
+        lastResult = result;
+        logger.debug("Idle key reaper finished: {}", result);
+        return result;
+    }
+
+    private ScanStep scanStep(String cursor) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            List<Object> reply = connection.scriptingCommands().eval(
+                SCAN_STEP_SCRIPT,
+                ReturnType.MULTI,
+                0,
+                bytes(cursor),
+                bytes(pattern),
+                bytes(String.valueOf(scanCount))
+            );
+            if (reply == null || reply.size() != 2) {
+                throw new IllegalStateException("Unexpected SCAN reply: " + reply);
+            }
+            List<byte[]> keys = new ArrayList<>();
+            for (Object key : (List<?>) reply.get(1)) {
+                keys.add((byte[]) key);
+            }
+            return new ScanStep(string((byte[]) reply.get(0)), keys);
+        }
+    }
+
+    /**
+     * 通过一次管道查询一批键的空闲时间，返回空闲超过阈值的键；已过期或已删除的键被忽略
+     */
+    private List<byte[]> idleKeys(List<byte[]> keys) {
+        List<Object> idleTimes;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (byte[] key : keys) {
+                    connection.keyCommands().idletime(key);
+                }
+            } finally {
+                idleTimes = connection.closePipeline();
+            }
+        }
+        List<byte[]> idle = new ArrayList<>();
+        for (int i = 0; i < keys.size() && i < idleTimes.size(); i++) {
+            if (
+                idleTimes.get(i) instanceof Duration idleTime &&
+                idleTime.compareTo(idleThreshold) >= 0
+            ) {
+                idle.add(keys.get(i));
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * 从待删除列表头部取出最多batchSize个键执行一次UNLINK
+     */
+    private long unlink(List<byte[]> pending, int batchSize) throws InterruptedException {
+        List<byte[]> batch = pending.subList(0, Math.min(batchSize, pending.size()));
+        byte[][] keys = batch.toArray(new byte[0][]);
+        batch.clear();
+        throttle(keys.length);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long unlinked = connection.keyCommands().unlink(keys);
+            return unlinked != null ? unlinked : 0;
+        }
+    }
+
+    /**
+     * 按每秒操作预算等待，操作均匀分布，避免在前台流量中形成突发
+     */
+    private void throttle(int operations) throws InterruptedException {
+        long now = System.nanoTime();
+        if (nextPermitNanos < now) {
+            nextPermitNanos = now;
+        }
+        long wait = nextPermitNanos - now;
+        nextPermitNanos += operations * nanosPerOperation;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private boolean acquireClusterLock(byte[] token) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Boolean acquired = connection.stringCommands().set(
+                lockKey,
+                token,
+                Expiration.from(maxRunTime.multipliedBy(2)),
+                RedisStringCommands.SetOption.SET_IF_ABSENT
+            );
+            return Boolean.TRUE.equals(acquired);
+        }
+    }
+
+    private void releaseClusterLock(byte[] token) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            // 比较和删除在一个脚本中执行，锁过期后被其他节点取得时不会误删
+            connection
+                .scriptingCommands()
+                .eval(SingleFlightCache.UNLOCK_SCRIPT, ReturnType.INTEGER, 1, lockKey, token);
+        } catch (RuntimeException e) {
+            // 锁会在两倍运行上限后过期
+            logger.debug("Failed to release reaper lock: {}", e.getMessage());
+        }
+    }
+
+    private String loadCursor() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            byte[] cursor = connection.stringCommands().get(cursorKey);
+            return cursor != null ? string(cursor) : INITIAL_CURSOR;
+        }
+    }
+
+    private void saveCursor(String cursor) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.stringCommands().set(
+                cursorKey,
+                bytes(cursor),
+                Expiration.from(CURSOR_TTL),
+                RedisStringCommands.SetOption.UPSERT
+            );
+        }
+    }
+
+    private void resetCursor() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.keyCommands().del(cursorKey);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private record ScanStep(String cursor, List<byte[]> keys) {}
+
+    /**
+     * 一次运行的结果
+     */
+    public record ReapResult(
+        boolean executed,
+        long keysScanned,
+        long keysRemoved,
+        boolean passCompleted,
+        String startCursor,
+        String endCursor,
+        long durationMs,
+        String skippedReason
+    ) {
+        static ReapResult skipped(String reason) {
+            return new ReapResult(false, 0, 0, false, null, null, 0, reason);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cms.permissions.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR风格的延迟直方图（纳秒）
+ * 桶按2的幂分段，每段再线性划分为16个子桶，任意量级的相对误差约6%，
+ * 固定960个计数器即可覆盖全部long范围。记录只做一次原子自增，不加锁。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 小于该值的延迟各占一个桶，精确记录
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+
+    // Long.MAX_VALUE落在最后一个桶（下标959）
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 估算百分位延迟（纳秒），返回所在桶的中点；没有记录时返回0
+     *
+     * @param percentile 0到100之间
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return lowerBound(i) + (bucketWidth(i) - 1) / 2;
+            }
+        }
+        return lowerBound(BUCKET_COUNT - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (64 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS + 1);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long lowerBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    }
+
+    static long bucketWidth(int index) {
+        return index < LINEAR_LIMIT ? 1 : 1L << ((index >> SUB_BUCKET_BITS) - 1);
+    }
+}
@@ -0,0 +1,233 @@
+package com.cms.permissions.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.cache.Cache;
+
+/**
+ * 记录缓存操作指标的缓存包装
+ * 在缓存层统计真实的读取命中/未命中、写入、清除和回源耗时，
+ * 同时发布为Micrometer指标（cms.cache.*）并累加到本地计数，由{@link MetricsCacheManager}批量写入Redis。
+ * get(key, loader)只有在调用线程内执行了回源才算未命中，提前刷新在后台执行的回源只计入回源耗时。
+ * 设置了访问监听时，每次读取（无论命中与否）都通知监听方，用于学习访问模式。
+ */
+public class MetricsCache implements Cache {
+
+    /**
+     * 缓存读取监听，在读取线程内同步调用，实现必须足够轻量且不抛出异常
+     */
+    @FunctionalInterface
+    public interface AccessListener {
+        void onAccess(String cacheName, Object key);
+    }
+
+    private final Cache delegate;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter putCounter;
+
+    private final Counter evictionCounter;
+
+    private final Timer loadTimer;
+
+    private volatile AccessListener accessListener;
+
+    public MetricsCache(Cache delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        String name = delegate.getName();
+        this.hitCounter = Counter.builder("cms.cache.gets")
+            .description("Cache reads served from the cache")
+            .tag("cache", name)
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("cms.cache.gets")
+            .description("Cache reads that found no entry")
+            .tag("cache", name)
+            .tag("result", "miss")
+            .register(meterRegistry);
+        this.putCounter = Counter.builder("cms.cache.puts")
+            .description("Entries written to the cache")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.evictionCounter = Counter.builder("cms.cache.evictions")
+            .description("Entries evicted from the cache")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.loadTimer = Timer.builder("cms.cache.loads")
+            .description("Time spent loading values on cache misses and refreshes")
+            .tag("cache", name)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        recordGet(value != null);
+        recordAccess(key);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        recordGet(value != null);
+        recordAccess(key);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Thread caller = Thread.currentThread();
+        AtomicBoolean loadedByCaller = new AtomicBoolean();
+        T value = delegate.get(key, () -> {
+            long start = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                recordLoad(System.nanoTime() - start);
+                if (Thread.currentThread() == caller) {
+                    loadedByCaller.set(true);
+                }
+            }
+        });
+        recordGet(!loadedByCaller.get());
+        recordAccess(key);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(
+        Object key,
+        Supplier<CompletableFuture<T>> valueLoader
+    ) {
+        return delegate.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        recordPut();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            recordPut();
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        recordEviction();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            recordEviction();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * 本节点启动以来的累计计数
+     */
+    public MetricsCacheManager.CacheOperationCounts counts() {
+        return new MetricsCacheManager.CacheOperationCounts(
+            hits.sum(),
+            misses.sum(),
+            puts.sum(),
+            evictions.sum(),
+            loads.sum(),
+            loadNanos.sum()
+        );
+    }
+
+    void setAccessListener(AccessListener accessListener) {
+        this.accessListener = accessListener;
+    }
+
+    private void recordAccess(Object key) {
+        AccessListener listener = accessListener;
+        if (listener != null) {
+            listener.onAccess(getName(), key);
+        }
+    }
+
+    private void recordGet(boolean hit) {
+        if (hit) {
+            hits.increment();
+            hitCounter.increment();
+        } else {
+            misses.increment();
+            missCounter.increment();
+        }
+    }
+
+    private void recordPut() {
+        puts.increment();
+        putCounter.increment();
+    }
+
+    private void recordEviction() {
+        evictions.increment();
+        evictionCounter.increment();
+    }
+
+    private void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        loadTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,333 @@
+package com.cms.permissions.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 缓存指标管理器
+ * 为所有缓存包装{@link MetricsCache}，并定期将各节点的计数增量通过一次管道HINCRBY
+ * 合并到Redis哈希cms:cache:stats:{缓存名称}，供缓存统计接口读取集群范围的命中率。
+ * 计数在内存中累加，请求路径上不访问Redis。
+ */
+public class MetricsCacheManager
+    extends AbstractTransactionSupportingCacheManager
+    implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        MetricsCacheManager.class
+    );
+
+    public static final String STATS_KEY_PREFIX = "cms:cache:stats:";
+
+    private static final byte[][] FIELDS = {
+        bytes("hits"),
+        bytes("misses"),
+        bytes("puts"),
+        bytes("evictions"),
+        bytes("loads"),
+        bytes("loadNanos"),
+    };
+
+    private final CacheManager delegate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final Duration flushInterval;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, MetricsCache> metricsCaches = new ConcurrentHashMap<>();
+
+    // 各缓存上次成功写入Redis时的累计计数
+    private final Map<String, CacheOperationCounts> flushed = new ConcurrentHashMap<>();
+
+    // 定时刷新与关闭时的最后一次刷新互斥，避免同一增量写入两次
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile MetricsCache.AccessListener accessListener;
+
+    /**
+     * @param connectionFactory 为null时只在本节点统计
+     * @param flushInterval 计数写入Redis的间隔
+     */
+    public MetricsCacheManager(
+        CacheManager delegate,
+        RedisConnectionFactory connectionFactory,
+        Duration flushInterval,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.connectionFactory = connectionFactory;
+        this.flushInterval = flushInterval;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (connectionFactory != null && scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-metrics-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMs = flushInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(
+                this::flush,
+                intervalMs,
+                intervalMs,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String cacheName : delegate.getCacheNames()) {
+            Cache cache = delegate.getCache(cacheName);
+            if (cache != null) {
+                caches.add(wrap(cache));
+            }
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache cache = delegate.getCache(name);
+        return cache != null ? wrap(cache) : null;
+    }
+
+    /**
+     * 被包装的缓存管理器
+     */
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 本节点的累计计数
+     */
+    public CacheOperationCounts localCounts(String cacheName) {
+        MetricsCache cache = metricsCaches.get(cacheName);
+        return cache != null ? cache.counts() : CacheOperationCounts.EMPTY;
+    }
+
+    /**
+     * 集群范围的累计计数：Redis中已合并的计数加上本节点尚未写入的增量；
+     * Redis不可用时退回本节点计数
+     */
+    public CacheOperationCounts clusterCounts(String cacheName) {
+        CacheOperationCounts local = localCounts(cacheName);
+        if (connectionFactory == null) {
+            return local;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Map<byte[], byte[]> entries = connection
+                .hashCommands()
+                .hGetAll(bytes(STATS_KEY_PREFIX + cacheName));
+            CacheOperationCounts stored = fromHash(entries);
+            CacheOperationCounts pending = local.minus(
+                flushed.getOrDefault(cacheName, CacheOperationCounts.EMPTY)
+            );
+            return stored.plus(pending);
+        } catch (RuntimeException e) {
+            logger.warn(
+                "Failed to read cache stats for {}: {}",
+                cacheName,
+                e.getMessage()
+            );
+            return local;
+        }
+    }
+
+    /**
+     * 将自上次刷新以来的计数增量通过管道写入Redis
+     */
+    public void flush() {
+        if (connectionFactory == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<String, CacheOperationCounts> current = new HashMap<>();
+            metricsCaches.forEach((name, cache) -> {
+                CacheOperationCounts delta = cache
+                    .counts()
+                    .minus(flushed.getOrDefault(name, CacheOperationCounts.EMPTY));
+                if (!delta.isEmpty()) {
+                    current.put(name, delta);
+                }
+            });
+            if (current.isEmpty()) {
+                return;
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.openPipeline();
+                current.forEach((name, delta) -> {
+                    byte[] key = bytes(STATS_KEY_PREFIX + name);
+                    long[] values = delta.toArray();
+                    for (int i = 0; i < FIELDS.length; i++) {
+                        if (values[i] != 0) {
+                            connection.hashCommands().hIncrBy(key, FIELDS[i], values[i]);
+                        }
+                    }
+                });
+                connection.closePipeline();
+            }
+            current.forEach((name, delta) ->
+                flushed.merge(name, delta, CacheOperationCounts::plus)
+            );
+        } catch (RuntimeException e) {
+            // 增量保留在本地，下次刷新时一并写入
+            logger.warn("Failed to flush cache stats: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * 设置所有缓存（包括之后创建的缓存）的读取监听，传入null取消
+     */
+    public void setAccessListener(MetricsCache.AccessListener accessListener) {
+        this.accessListener = accessListener;
+        metricsCaches.values().forEach(cache -> cache.setAccessListener(accessListener));
+    }
+
+    private Cache wrap(Cache cache) {
+        return metricsCaches.computeIfAbsent(cache.getName(), name -> {
+            MetricsCache metricsCache = new MetricsCache(cache, meterRegistry);
+            metricsCache.setAccessListener(accessListener);
+            return metricsCache;
+        });
+    }
+
+    private static CacheOperationCounts fromHash(Map<byte[], byte[]> entries) {
+        long[] values = new long[FIELDS.length];
+        if (entries != null) {
+            entries.forEach((field, value) -> {
+                String name = new String(field, StandardCharsets.UTF_8);
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (name.equals(new String(FIELDS[i], StandardCharsets.UTF_8))) {
+                        values[i] = Long.parseLong(
+                            new String(value, StandardCharsets.UTF_8)
+                        );
+                    }
+                }
+            });
+        }
+        return CacheOperationCounts.of(values);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 缓存操作计数
+     *
+     * @param hits 读取命中
+     * @param misses 读取未命中
+     * @param puts 写入
+     * @param evictions 单键清除
+     * @param loads 回源次数（含后台提前刷新）
+     * @param loadNanos 回源总耗时（纳秒）
+     */
+    public record CacheOperationCounts(
+        long hits,
+        long misses,
+        long puts,
+        long evictions,
+        long loads,
+        long loadNanos
+    ) {
+        public static final CacheOperationCounts EMPTY = new CacheOperationCounts(
+            0,
+            0,
+            0,
+            0,
+            0,
+            0
+        );
+
+        public long requests() {
+            return hits + misses;
+        }
+
+        public double hitRate() {
+            long requests = requests();
+            return requests > 0 ? (double) hits / requests : 0.0;
+        }
+
+        CacheOperationCounts plus(CacheOperationCounts other) {
+            return new CacheOperationCounts(
+                hits + other.hits,
+                misses + other.misses,
+                puts + other.puts,
+                evictions + other.evictions,
+                loads + other.loads,
+                loadNanos + other.loadNanos
+            );
+        }
+
+        CacheOperationCounts minus(CacheOperationCounts other) {
+            return new CacheOperationCounts(
+                hits - other.hits,
+                misses - other.misses,
+                puts - other.puts,
+                evictions - other.evictions,
+                loads - other.loads,
+                loadNanos - other.loadNanos
+            );
+        }
+
+        boolean isEmpty() {
+            return equals(EMPTY);
+        }
+
+        long[] toArray() {
+            return new long[] { hits, misses, puts, evictions, loads, loadNanos };
+        }
+
+        static CacheOperationCounts of(long[] values) {
+            return new CacheOperationCounts(
+                values[0],
+                values[1],
+                values[2],
+                values[3],
+                values[4],
+                values[5]
+            );
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.cms.permissions.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * 近端缓存
+ * 在Redis缓存之前增加一层有界的进程内(L1)缓存，命中时不再访问Redis，
+ * 失效操作会同时作用于Redis和本地，并通过{@link NearCacheInvalidationBus}广播到其他节点。
+ * 本地条目按容量和写入后TTL淘汰，TTL同时是跨节点失效丢失时的最长不一致时间。
+ */
+public class NearCache implements Cache {
+
+    private final Cache delegate;
+
+    private final com.github.benmanes.caffeine.cache.Cache<
+        String,
+        Object
+    > localCache;
+
+    private final NearCacheInvalidationBus invalidationBus;
+
+    public NearCache(
+        Cache delegate,
+        long maximumSize,
+        Duration timeToLive,
+        NearCacheInvalidationBus invalidationBus
+    ) {
+        this.delegate = delegate;
+        this.invalidationBus = invalidationBus;
+        this.localCache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .build();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = toLocalKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            localCache.put(localKey, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" +
+                    type.getName() +
+                    "]: " +
+                    value
+            );
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+
+        T loaded = delegate.get(key, valueLoader);
+        if (loaded != null) {
+            localCache.put(localKey, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        if (value != null) {
+            localCache.put(toLocalKey(key), value);
+        } else {
+            localCache.invalidate(toLocalKey(key));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        Object current = existing != null ? existing.get() : value;
+        if (current != null) {
+            localCache.put(toLocalKey(key), current);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictLocalAndBroadcast(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        evictLocalAndBroadcast(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        clearLocal();
+        invalidationBus.publish(
+            getName(),
+            NearCacheInvalidationBus.InvalidationType.CLEAR,
+            null
+        );
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        clearLocal();
+        invalidationBus.publish(
+            getName(),
+            NearCacheInvalidationBus.InvalidationType.CLEAR,
+            null
+        );
+        return invalidated;
+    }
+
+    /**
+     * 按键模式清除本地条目并广播（支持*通配符），用于Redis侧按模式删除的场景
+     */
+    public void evictMatching(String keyPattern) {
+        evictLocalMatching(keyPattern);
+        invalidationBus.publish(
+            getName(),
+            NearCacheInvalidationBus.InvalidationType.PATTERN,
+            keyPattern
+        );
+    }
+
+    /**
+     * 仅清除本地条目（处理远端失效事件时使用，不再广播）
+     */
+    void evictLocal(String localKey) {
+        localCache.invalidate(localKey);
+    }
+
+    void evictLocalMatching(String keyPattern) {
+        localCache
+            .asMap()
+            .keySet()
+            .removeIf(key -> PatternMatchUtils.simpleMatch(keyPattern, key));
+    }
+
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 只读取本地条目，不访问Redis，供批量查询先行过滤
+     */
+    public Object getLocal(Object key) {
+        return localCache.getIfPresent(toLocalKey(key));
+    }
+
+    /**
+     * 只写入本地条目，用于批量查询从Redis或数据库加载后回填L1
+     */
+    public void putLocal(Object key, Object value) {
+        if (value != null) {
+            localCache.put(toLocalKey(key), value);
+        }
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    private void evictLocalAndBroadcast(Object key) {
+        String localKey = toLocalKey(key);
+        localCache.invalidate(localKey);
+        invalidationBus.publish(
+            getName(),
+            NearCacheInvalidationBus.InvalidationType.KEY,
+            localKey
+        );
+    }
+
+    /**
+     * 本地键与Redis缓存键一致，均使用键的字符串形式，便于跨节点按键失效
+     */
+    private String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+}
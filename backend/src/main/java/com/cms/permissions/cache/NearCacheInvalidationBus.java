@@ -0,0 +1,111 @@
+package com.cms.permissions.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 近端缓存失效广播
+ * 通过Redis发布/订阅把本地(L1)缓存的失效事件同步到集群中的其他节点
+ */
+public class NearCacheInvalidationBus implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        NearCacheInvalidationBus.class
+    );
+
+    public static final String CHANNEL = "cms:cache:near:invalidation";
+
+    private static final String SEPARATOR = "\n";
+
+    private final RedisConnectionFactory connectionFactory;
+
+    // 节点标识，用于忽略本节点发出的消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final List<NearCacheManager> cacheManagers =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * 失效类型
+     */
+    public enum InvalidationType {
+        KEY,
+        PATTERN,
+        CLEAR,
+    }
+
+    public NearCacheInvalidationBus(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void register(NearCacheManager cacheManager) {
+        cacheManagers.add(cacheManager);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 广播失效事件，发布失败只记录日志，不影响本地失效
+     */
+    public void publish(
+        String cacheName,
+        InvalidationType type,
+        String value
+    ) {
+        String payload = String.join(
+            SEPARATOR,
+            nodeId,
+            cacheName,
+            type.name(),
+            value != null ? value : ""
+        );
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(
+                CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getBytes(StandardCharsets.UTF_8)
+            );
+        } catch (Exception e) {
+            logger.warn(
+                "Failed to publish near cache invalidation for cache {}: {}",
+                cacheName,
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 接收其他节点的失效事件
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(
+            message.getBody(),
+            StandardCharsets.UTF_8
+        ).split(SEPARATOR, 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        InvalidationType type;
+        try {
+            type = InvalidationType.valueOf(parts[2]);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown near cache invalidation type: {}", parts[2]);
+            return;
+        }
+
+        for (NearCacheManager cacheManager : cacheManagers) {
+            cacheManager.applyRemoteInvalidation(parts[1], type, parts[3]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cms.permissions.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+/**
+ * 近端缓存管理器
+ * 包装Redis缓存管理器，为指定的缓存名称增加进程内L1缓存层
+ */
+public class NearCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final CacheManager delegate;
+
+    private final Set<String> nearCacheNames;
+
+    private final long maximumSize;
+
+    private final Duration timeToLive;
+
+    private final NearCacheInvalidationBus invalidationBus;
+
+    private final Map<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(
+        CacheManager delegate,
+        Collection<String> nearCacheNames,
+        long maximumSize,
+        Duration timeToLive,
+        NearCacheInvalidationBus invalidationBus
+    ) {
+        this.delegate = delegate;
+        this.nearCacheNames = new HashSet<>(nearCacheNames);
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(this);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String cacheName : delegate.getCacheNames()) {
+            Cache cache = delegate.getCache(cacheName);
+            if (cache != null) {
+                caches.add(wrap(cache));
+            }
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache cache = delegate.getCache(name);
+        return cache != null ? wrap(cache) : null;
+    }
+
+    /**
+     * 获取指定名称的近端缓存，未启用近端缓存的名称返回null
+     */
+    public NearCache getNearCache(String name) {
+        getCache(name);
+        return nearCaches.get(name);
+    }
+
+    /**
+     * 按键模式清除近端缓存并广播
+     */
+    public void evictMatching(String cacheName, String keyPattern) {
+        NearCache nearCache = getNearCache(cacheName);
+        if (nearCache != null) {
+            nearCache.evictMatching(keyPattern);
+        }
+    }
+
+    /**
+     * 应用其他节点广播的失效事件
+     */
+    void applyRemoteInvalidation(
+        String cacheName,
+        NearCacheInvalidationBus.InvalidationType type,
+        String value
+    ) {
+        NearCache nearCache = nearCaches.get(cacheName);
+        if (nearCache == null) {
+            return;
+        }
+
+        switch (type) {
+            case KEY:
+                nearCache.evictLocal(value);
+                break;
+            case PATTERN:
+                nearCache.evictLocalMatching(value);
+                break;
+            case CLEAR:
+                nearCache.clearLocal();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Cache wrap(Cache cache) {
+        if (!nearCacheNames.contains(cache.getName())) {
+            return cache;
+        }
+        return nearCaches.computeIfAbsent(cache.getName(), name ->
+            new NearCache(cache, maximumSize, timeToLive, invalidationBus)
+        );
+    }
+}
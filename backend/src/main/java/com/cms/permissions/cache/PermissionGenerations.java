@@ -0,0 +1,123 @@
+package com.cms.permissions.cache;
+
+import com.cms.permissions.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 权限缓存代数（generation）
+ * 用户权限缓存键带上全局代数和用户各角色的代数，角色或权限变更时只递增对应代数，
+ * 持有该角色的用户下次访问时换用新键重新加载，其他用户的缓存保持不变，旧键由TTL自然过期。
+ * 代数保存在Redis哈希中，各节点通过{@link RedisCounterSnapshot}在本地保存快照并在后台刷新。
+ */
+@Component
+public class PermissionGenerations {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        PermissionGenerations.class
+    );
+
+    public static final String GENERATIONS_KEY = "cms:permissions:generations";
+
+    private static final String GLOBAL_FIELD = "global";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 其他节点递增代数后，本节点最迟在该间隔后感知
+    @Value("${cache.permissions.generation-refresh-ms:1000}")
+    private long refreshIntervalMs;
+
+    // 后台刷新的执行器，为null时由快照自行创建
+    private Executor refreshExecutor;
+
+    private RedisCounterSnapshot generations;
+
+    @PostConstruct
+    public void init() {
+        generations = new RedisCounterSnapshot(
+            redisTemplate,
+            GENERATIONS_KEY,
+            refreshIntervalMs,
+            refreshExecutor,
+            null
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generations.close();
+    }
+
+    /**
+     * 计算角色集合的代数指纹，作为权限缓存键的一部分
+     */
+    public String fingerprint(Collection<Long> roleIds) {
+        Map<String, Long> current = generations.get();
+        StringBuilder fingerprint = new StringBuilder("g").append(
+            current.getOrDefault(GLOBAL_FIELD, 0L)
+        );
+        for (Long roleId : new TreeSet<>(roleIds)) {
+            fingerprint
+                .append('-')
+                .append(roleId)
+                .append('.')
+                .append(current.getOrDefault(String.valueOf(roleId), 0L));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * 递增角色代数，使持有该角色的用户权限缓存失效（事务中调用时在提交后生效）
+     */
+    public void bumpRole(Long roleId) {
+        TransactionCallbacks.afterCommit(() -> increment(String.valueOf(roleId)));
+    }
+
+    /**
+     * 递增全局代数，使所有用户权限缓存失效（事务中调用时在提交后生效）
+     */
+    public void bumpGlobal() {
+        TransactionCallbacks.afterCommit(() -> increment(GLOBAL_FIELD));
+    }
+
+    private void increment(String field) {
+        Long generation = null;
+        try {
+            generation = redisTemplate.execute(
+                (RedisCallback<Long>) connection ->
+                    connection
+                        .hashCommands()
+                        .hIncrBy(bytes(GENERATIONS_KEY), bytes(field), 1)
+            );
+        } catch (RuntimeException e) {
+            // 至少让本节点立即失效，其他节点的缓存最迟在TTL到期后更新
+            logger.error(
+                "Failed to bump permission generation {}: {}",
+                field,
+                e.getMessage()
+            );
+        }
+        generations.merge(
+            field,
+            generation != null ? generation : generations.current(field) + 1
+        );
+        logger.debug("Permission generation {} bumped", field);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
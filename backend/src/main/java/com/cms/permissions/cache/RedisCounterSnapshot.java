@@ -0,0 +1,222 @@
+package com.cms.permissions.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Redis哈希计数器的本地快照
+ * 计数器（如权限代数、安全纪元）保存在Redis哈希中，各节点在本地保存快照，请求路径上只读取快照。
+ * 只有首次读取时在调用线程中加载；之后超过刷新间隔时由后台线程刷新，刷新期间继续返回上一份快照，Redis变慢或不可用不会阻塞请求。
+ * 计数器单调递增，刷新结果与本地已知的值取较大者，避免覆盖本节点刚写入的结果。
+ * 配置了过期下限时，值低于下限的字段视为过期：定期从Redis哈希中删除，本地快照也不再保留。
+ */
+public class RedisCounterSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        RedisCounterSnapshot.class
+    );
+
+    // 删除值低于下限的字段，在Redis中原子执行，不会与并发的写入交错
+    private static final byte[] PRUNE_SCRIPT = (
+        "local removed = 0 " +
+        "local entries = redis.call('hgetall', KEYS[1]) " +
+        "for i = 1, #entries, 2 do " +
+        "if tonumber(entries[i + 1]) < tonumber(ARGV[1]) then " +
+        "redis.call('hdel', KEYS[1], entries[i]) removed = removed + 1 end " +
+        "end " +
+        "return removed"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private static final long PRUNE_INTERVAL_MS = 60_000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final byte[] key;
+
+    private final long refreshIntervalMs;
+
+    private final LongSupplier expiredBefore;
+
+    private final Executor executor;
+
+    // 自行创建的刷新线程，关闭时停止；外部传入的执行器由调用方管理
+    private final ExecutorService ownExecutor;
+
+    private volatile Map<String, Long> values = Map.of();
+
+    private volatile boolean loaded;
+
+    private volatile long refreshedAt;
+
+    private volatile long prunedAt = System.currentTimeMillis();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    // 首次加载时持锁访问Redis，并发的首次读取只加载一次；使用ReentrantLock而不是synchronized，避免在虚拟线程上固定载体线程
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param executor 后台刷新的执行器，为null时创建一个守护线程
+     * @param expiredBefore 返回过期下限，为null时字段永不过期
+     */
+    public RedisCounterSnapshot(
+        RedisTemplate<String, Object> redisTemplate,
+        String key,
+        long refreshIntervalMs,
+        Executor executor,
+        LongSupplier expiredBefore
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.expiredBefore = expiredBefore;
+        if (executor != null) {
+            this.executor = executor;
+            this.ownExecutor = null;
+        } else {
+            this.ownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "redis-snapshot-" + key);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        }
+    }
+
+    /**
+     * 当前快照，超过刷新间隔时安排后台刷新
+     */
+    public Map<String, Long> get() {
+        if (!loaded) {
+            lock.lock();
+            try {
+                if (!loaded) {
+                    refresh();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } else if (
+            System.currentTimeMillis() - refreshedAt >= refreshIntervalMs &&
+            refreshing.compareAndSet(false, true)
+        ) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        prune();
+                        refresh();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                refreshing.set(false);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 本节点写入后立即更新快照，不等待下一次刷新
+     */
+    public void merge(String field, long value) {
+        lock.lock();
+        try {
+            Map<String, Long> updated = new HashMap<>(values);
+            updated.merge(field, value, Math::max);
+            values = updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 本地快照中的值，尚未加载时先加载
+     */
+    public long current(String field) {
+        return get().getOrDefault(field, 0L);
+    }
+
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            Map<byte[], byte[]> entries = redisTemplate.execute(
+                (RedisCallback<Map<byte[], byte[]>>) connection ->
+                    connection.hashCommands().hGetAll(key)
+            );
+            Map<String, Long> loadedValues = new HashMap<>();
+            if (entries != null) {
+                entries.forEach((field, value) ->
+                    loadedValues.put(
+                        new String(field, StandardCharsets.UTF_8),
+                        Long.parseLong(new String(value, StandardCharsets.UTF_8))
+                    )
+                );
+            }
+            long cutoff = expiredBefore != null ? expiredBefore.getAsLong() : Long.MIN_VALUE;
+            lock.lock();
+            try {
+                values.forEach((field, value) ->
+                    loadedValues.merge(field, value, Math::max)
+                );
+                loadedValues.values().removeIf(value -> value < cutoff);
+                values = loadedValues;
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            // Redis不可用时沿用上次的快照
+            logger.warn(
+                "Failed to refresh {}: {}",
+                new String(key, StandardCharsets.UTF_8),
+                e.getMessage()
+            );
+        }
+        loaded = true;
+        refreshedAt = now;
+    }
+
+    private void prune() {
+        long now = System.currentTimeMillis();
+        if (expiredBefore == null || now - prunedAt < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        prunedAt = now;
+        byte[] cutoff = String.valueOf(expiredBefore.getAsLong()).getBytes(
+            StandardCharsets.UTF_8
+        );
+        try {
+            redisTemplate.execute(
+                (RedisCallback<Long>) connection ->
+                    connection
+                        .scriptingCommands()
+                        .eval(PRUNE_SCRIPT, ReturnType.INTEGER, 1, key, cutoff)
+            );
+        } catch (RuntimeException e) {
+            logger.warn(
+                "Failed to prune {}: {}",
+                new String(key, StandardCharsets.UTF_8),
+                e.getMessage()
+            );
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.cms.permissions.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 提前刷新缓存（stale-while-revalidate）
+ * 采用XFetch概率提前重算：命中时以 {@code now - delta * beta * ln(rand) >= expiry} 判断是否刷新，
+ * 其中delta为该键最近一次加载耗时，越接近过期、加载越慢，提前刷新的概率越大，使刷新在时间上分散。
+ * 判定刷新时仍返回当前值，由后台任务重新加载并写回，同一键同时只有一个刷新任务。
+ * 仅作用于{@link #get(Object, Callable)}，即{@code @Cacheable(sync = true)}的调用路径。
+ */
+public class RefreshAheadCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        RefreshAheadCache.class
+    );
+
+    // 本节点尚未加载过时使用的加载耗时估计（毫秒）
+    private static final double DEFAULT_DELTA_MS = 50;
+
+    // 过期记录在TTL之后再保留的时间，使进行中的刷新仍能按记录判断条目是否被清除
+    private static final Duration ENTRY_GRACE = Duration.ofMinutes(1);
+
+    private final Cache delegate;
+
+    private final Duration timeToLive;
+
+    private final double beta;
+
+    private final Executor executor;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final Function<Object, byte[]> redisKeyResolver;
+
+    // 键的过期时间和加载耗时，由本节点加载或按PTTL探测得到；有界，版本化键换代后旧记录随TTL淘汰
+    private final ConcurrentMap<Object, Entry> entries;
+
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    private volatile double averageLoadMs = DEFAULT_DELTA_MS;
+
+    private final Counter refreshes;
+
+    private final Counter failures;
+
+    /**
+     * @param maximumEntries 本地保存的过期时间记录数上限，超出时淘汰的键按探测或默认估计重新判断
+     * @param connectionFactory 为null时只依据本节点的加载记录判断过期时间
+     * @param redisKeyResolver 缓存键到Redis键的转换，用于探测其他节点写入条目的剩余TTL
+     */
+    public RefreshAheadCache(
+        Cache delegate,
+        Duration timeToLive,
+        double beta,
+        long maximumEntries,
+        Executor executor,
+        RedisConnectionFactory connectionFactory,
+        Function<Object, byte[]> redisKeyResolver,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.beta = beta;
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maximumEntries)
+            .expireAfterWrite(timeToLive.plus(ENTRY_GRACE))
+            .<Object, Entry>build()
+            .asMap();
+        this.executor = executor;
+        this.connectionFactory = connectionFactory;
+        this.redisKeyResolver = redisKeyResolver;
+        this.refreshes = Counter.builder("cache.refresh_ahead.refreshes")
+            .description("Background reloads triggered before expiry")
+            .tag("cache", delegate.getName())
+            .register(meterRegistry);
+        this.failures = Counter.builder("cache.refresh_ahead.failures")
+            .description("Background reloads that failed")
+            .tag("cache", delegate.getName())
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached == null) {
+            return delegate.get(key, () -> (T) timedLoad(key, valueLoader));
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            // 其他节点写入的条目先按本地加载耗时估计，Redis中的剩余TTL在后台探测后替换，请求线程不访问Redis
+            Entry estimated = newEntry(averageLoadMs);
+            entry = entries.putIfAbsent(key, estimated);
+            if (entry == null) {
+                entry = estimated;
+                scheduleProbe(key, estimated);
+            }
+        }
+        if (shouldRefresh(entry, System.currentTimeMillis())) {
+            scheduleRefresh(key, entry, valueLoader);
+        }
+        return (T) cached.get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        entries.put(key, newEntry(averageLoadMs));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        entries.remove(key);
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        entries.remove(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        entries.remove(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        entries.clear();
+        return delegate.invalidate();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * XFetch判定，ln(rand)为负数，距离过期越近越容易满足
+     */
+    boolean shouldRefresh(Entry entry, long now) {
+        if (entry.expiresAt == Long.MAX_VALUE) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        if (random == 0) {
+            return true;
+        }
+        return now - entry.deltaMs * beta * Math.log(random) >= entry.expiresAt;
+    }
+
+    private Object timedLoad(Object key, Callable<?> valueLoader)
+        throws Exception {
+        long start = System.nanoTime();
+        Object value = valueLoader.call();
+        double deltaMs = (System.nanoTime() - start) / 1_000_000.0;
+        averageLoadMs = averageLoadMs * 0.8 + deltaMs * 0.2;
+        entries.put(key, newEntry(deltaMs));
+        return value;
+    }
+
+    private void scheduleRefresh(
+        Object key,
+        Entry entry,
+        Callable<?> valueLoader
+    ) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> refresh(key, entry, valueLoader));
+        } catch (RejectedExecutionException e) {
+            // 刷新队列已满，条目按原TTL过期后同步加载
+            refreshing.remove(key);
+        }
+    }
+
+    private void refresh(Object key, Entry entry, Callable<?> valueLoader) {
+        try {
+            // 其他节点可能已经刷新过，Redis中的剩余TTL已被延长
+            Entry current = probeRedis(key);
+            if (current != null && current.expiresAt > entry.expiresAt + 1000) {
+                entries.replace(key, entry, current);
+                return;
+            }
+
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            double deltaMs = (System.nanoTime() - start) / 1_000_000.0;
+            // 刷新期间条目被清除时不写回，避免覆盖失效操作
+            if (value != null && entries.replace(key, entry, newEntry(deltaMs))) {
+                delegate.put(key, value);
+                refreshes.increment();
+            }
+        } catch (Exception e) {
+            failures.increment();
+            logger.warn(
+                "Refresh-ahead failed for cache {} key {}: {}",
+                getName(),
+                key,
+                e.getMessage()
+            );
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * 在刷新线程中按Redis中的剩余TTL替换估计的过期时间，期间记录被替换或清除时不覆盖
+     */
+    private void scheduleProbe(Object key, Entry estimated) {
+        if (connectionFactory == null || redisKeyResolver == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                Entry probed = probeRedis(key);
+                if (probed != null) {
+                    entries.replace(key, estimated, probed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新队列已满，沿用估计的过期时间
+        }
+    }
+
+    /**
+     * 读取Redis中条目的剩余TTL，用于其他节点写入的条目；无法探测时返回null
+     */
+    private Entry probeRedis(Object key) {
+        byte[] redisKey = connectionFactory != null && redisKeyResolver != null
+            ? redisKeyResolver.apply(key)
+            : null;
+        if (redisKey == null) {
+            return null;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long ttlMillis = connection.keyCommands().pTtl(redisKey);
+            long now = System.currentTimeMillis();
+            if (ttlMillis == null || ttlMillis == -1) {
+                // 没有过期时间，无需提前刷新
+                return new Entry(Long.MAX_VALUE, averageLoadMs);
+            }
+            // -2表示Redis中已过期，只剩本地副本，立即刷新
+            return new Entry(now + Math.max(ttlMillis, 0), averageLoadMs);
+        } catch (RuntimeException e) {
+            logger.debug(
+                "Failed to read TTL for cache {}: {}",
+                getName(),
+                e.getMessage()
+            );
+            return null;
+        }
+    }
+
+    private Entry newEntry(double deltaMs) {
+        return new Entry(
+            System.currentTimeMillis() + timeToLive.toMillis(),
+            deltaMs
+        );
+    }
+
+    static final class Entry {
+
+        final long expiresAt;
+
+        final double deltaMs;
+
+        Entry(long expiresAt, double deltaMs) {
+            this.expiresAt = expiresAt;
+            this.deltaMs = deltaMs;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cms.permissions.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 提前刷新缓存管理器
+ * 为配置了提前刷新策略的缓存名称包装{@link RefreshAheadCache}，其余缓存原样返回
+ */
+public class RefreshAheadCacheManager
+    extends AbstractTransactionSupportingCacheManager {
+
+    private final CacheManager delegate;
+
+    private final Map<String, Policy> policies;
+
+    private final long maximumEntries;
+
+    private final Executor executor;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final BiFunction<String, Object, byte[]> redisKeyResolver;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param policies 缓存名称到提前刷新策略
+     * @param maximumEntries 每个缓存本地保存的过期时间记录数上限
+     * @param redisKeyResolver (缓存名称, 缓存键)到Redis键的转换
+     */
+    public RefreshAheadCacheManager(
+        CacheManager delegate,
+        Map<String, Policy> policies,
+        long maximumEntries,
+        Executor executor,
+        RedisConnectionFactory connectionFactory,
+        BiFunction<String, Object, byte[]> redisKeyResolver,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.policies = Map.copyOf(policies);
+        this.maximumEntries = maximumEntries;
+        this.executor = executor;
+        this.connectionFactory = connectionFactory;
+        this.redisKeyResolver = redisKeyResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String cacheName : delegate.getCacheNames()) {
+            Cache cache = delegate.getCache(cacheName);
+            if (cache != null) {
+                caches.add(wrap(cache));
+            }
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache cache = delegate.getCache(name);
+        return cache != null ? wrap(cache) : null;
+    }
+
+    /**
+     * 被包装的缓存管理器
+     */
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    private Cache wrap(Cache cache) {
+        String name = cache.getName();
+        Policy policy = policies.get(name);
+        if (policy == null) {
+            return cache;
+        }
+        return new RefreshAheadCache(
+            cache,
+            policy.timeToLive(),
+            policy.beta(),
+            maximumEntries,
+            executor,
+            connectionFactory,
+            redisKeyResolver != null
+                ? key -> redisKeyResolver.apply(name, key)
+                : null,
+            meterRegistry
+        );
+    }
+
+    /**
+     * 单个缓存的提前刷新策略
+     *
+     * @param timeToLive 与Redis条目TTL一致
+     * @param beta XFetch系数，大于1更早刷新，小于1更接近过期才刷新
+     */
+    public record Policy(Duration timeToLive, double beta) {}
+}
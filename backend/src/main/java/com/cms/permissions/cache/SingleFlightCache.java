@@ -0,0 +1,305 @@
+package com.cms.permissions.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+
+/**
+ * 合并回源缓存（single-flight）
+ * 同一个键的并发未命中只由一个调用方执行加载，其他调用方等待其结果：
+ * 本节点内通过进行中的Future合并；跨节点通过短期Redis锁，未拿到锁的节点轮询Redis等待结果，
+ * 超时或持锁节点加载失败时退化为本地加载。仅作用于{@link #get(Object, Callable)}，
+ * 即{@code @Cacheable(sync = true)}的调用路径。
+ */
+public class SingleFlightCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SingleFlightCache.class
+    );
+
+    public static final String LOCK_PREFIX = "cms:lock:cache:";
+
+    // 只删除自己持有的锁，GET和DEL在Redis中原子执行（IdleKeyReaper共用）
+    static final byte[] UNLOCK_SCRIPT = (
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+        "return redis.call('del', KEYS[1]) else return 0 end"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private final Cache delegate;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final Duration lockTimeout;
+
+    private final Duration pollInterval;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight =
+        new ConcurrentHashMap<>();
+
+    private final Counter loads;
+
+    private final Counter localWaits;
+
+    private final Counter remoteWaits;
+
+    private final Counter fallbacks;
+
+    /**
+     * @param connectionFactory 为null时只在本节点内合并
+     */
+    public SingleFlightCache(
+        Cache delegate,
+        RedisConnectionFactory connectionFactory,
+        Duration lockTimeout,
+        Duration pollInterval,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.connectionFactory = connectionFactory;
+        this.lockTimeout = lockTimeout;
+        this.pollInterval = pollInterval;
+        String name = delegate.getName();
+        this.loads = Counter.builder("cache.singleflight.loads")
+            .description("Loader executions after coalescing")
+            .tag("cache", name)
+            .register(meterRegistry);
+        this.localWaits = Counter.builder("cache.singleflight.coalesced")
+            .description("Callers served by a load in flight on this node")
+            .tag("cache", name)
+            .tag("scope", "local")
+            .register(meterRegistry);
+        this.remoteWaits = Counter.builder("cache.singleflight.coalesced")
+            .description("Callers served by a load on another node")
+            .tag("cache", name)
+            .tag("scope", "remote")
+            .register(meterRegistry);
+        this.fallbacks = Counter.builder("cache.singleflight.fallbacks")
+            .description("Remote waits that timed out and loaded locally")
+            .tag("cache", name)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            localWaits.increment();
+            return (T) await(existing, key, valueLoader);
+        }
+
+        try {
+            Object value = loadOnce(key, valueLoader);
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 跨节点合并：拿到锁的节点加载，其他节点等待其写入Redis
+     */
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        if (connectionFactory == null) {
+            return loadAndPut(key, valueLoader);
+        }
+
+        byte[] lockKey = (LOCK_PREFIX + getName() + ":" + key).getBytes(
+            StandardCharsets.UTF_8
+        );
+        byte[] token = UUID.randomUUID()
+            .toString()
+            .getBytes(StandardCharsets.UTF_8);
+
+        if (tryLock(lockKey, token)) {
+            try {
+                // 拿到锁前其他节点可能刚完成加载
+                ValueWrapper cached = delegate.get(key);
+                if (cached != null) {
+                    return cached.get();
+                }
+                return loadAndPut(key, valueLoader);
+            } finally {
+                unlock(lockKey, token);
+            }
+        }
+
+        long deadline = System.nanoTime() + lockTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            ValueWrapper cached = delegate.get(key);
+            if (cached != null) {
+                remoteWaits.increment();
+                return cached.get();
+            }
+            if (!isLocked(lockKey)) {
+                // 持锁节点已结束但没有写入结果
+                break;
+            }
+        }
+
+        fallbacks.increment();
+        return loadAndPut(key, valueLoader);
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        loads.increment();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            delegate.put(key, value);
+        }
+        return value;
+    }
+
+    private Object await(
+        CompletableFuture<Object> flight,
+        Object key,
+        Callable<?> valueLoader
+    ) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    /**
+     * 获取锁，Redis不可用时视为获取成功（退化为本地加载）
+     */
+    private boolean tryLock(byte[] lockKey, byte[] token) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Boolean acquired = connection
+                .stringCommands()
+                .set(
+                    lockKey,
+                    token,
+                    Expiration.from(lockTimeout),
+                    RedisStringCommands.SetOption.SET_IF_ABSENT
+                );
+            return !Boolean.FALSE.equals(acquired);
+        } catch (RuntimeException e) {
+            logger.debug(
+                "Single-flight lock unavailable for cache {}: {}",
+                getName(),
+                e.getMessage()
+            );
+            return true;
+        }
+    }
+
+    private void unlock(byte[] lockKey, byte[] token) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection
+                .scriptingCommands()
+                .eval(UNLOCK_SCRIPT, ReturnType.INTEGER, 1, lockKey, token);
+        } catch (RuntimeException e) {
+            // 锁会在超时后自动释放
+            logger.debug(
+                "Failed to release single-flight lock for cache {}: {}",
+                getName(),
+                e.getMessage()
+            );
+        }
+    }
+
+    private boolean isLocked(byte[] lockKey) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return Boolean.TRUE.equals(connection.keyCommands().exists(lockKey));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cms.permissions.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 合并回源缓存管理器
+ * 为指定的缓存名称包装{@link SingleFlightCache}，其余缓存原样返回
+ */
+public class SingleFlightCacheManager
+    extends AbstractTransactionSupportingCacheManager {
+
+    private final CacheManager delegate;
+
+    private final Set<String> singleFlightCacheNames;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final Duration lockTimeout;
+
+    private final Duration pollInterval;
+
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightCacheManager(
+        CacheManager delegate,
+        Collection<String> singleFlightCacheNames,
+        RedisConnectionFactory connectionFactory,
+        Duration lockTimeout,
+        Duration pollInterval,
+        MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.singleFlightCacheNames = new HashSet<>(singleFlightCacheNames);
+        this.connectionFactory = connectionFactory;
+        this.lockTimeout = lockTimeout;
+        this.pollInterval = pollInterval;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String cacheName : delegate.getCacheNames()) {
+            Cache cache = delegate.getCache(cacheName);
+            if (cache != null) {
+                caches.add(wrap(cache));
+            }
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache cache = delegate.getCache(name);
+        return cache != null ? wrap(cache) : null;
+    }
+
+    private Cache wrap(Cache cache) {
+        if (!singleFlightCacheNames.contains(cache.getName())) {
+            return cache;
+        }
+        return new SingleFlightCache(
+            cache,
+            connectionFactory,
+            lockTimeout,
+            pollInterval,
+            meterRegistry
+        );
+    }
+}
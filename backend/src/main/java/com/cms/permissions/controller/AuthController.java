@@ -1,8 +1,8 @@
 package com.cms.permissions.controller;
 
 import com.cms.permissions.entity.User;
+import com.cms.permissions.security.EmbeddedAuthorityTokenService;
 import com.cms.permissions.service.UserService;
-import com.cms.permissions.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,7 +31,7 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private EmbeddedAuthorityTokenService embeddedAuthorityTokenService;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -93,7 +93,7 @@ public class AuthController {
             System.out.println("User found: " + user.getUsername());
 
             // 生成JWT令牌
-            String token = jwtUtil.generateToken(user.getUsername());
+            String token = embeddedAuthorityTokenService.generateToken(user);
             System.out.println("JWT token generated");
 
             // 构建响应 - 简化roles处理
@@ -6,6 +6,8 @@ import com.cms.permissions.service.CacheWarmupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -95,6 +97,29 @@ public class CacheManagementController {
         return ResponseEntity.ok(result);
     }
 
+    @Operation(
+        summary = "获取缓存预热进度",
+        description = "获取各类缓存预热最近一次运行的进度"
+    )
+    @GetMapping("/warmup/progress")
+    public ResponseEntity<
+        List<CacheWarmupService.WarmupProgress>
+    > getWarmupProgress() {
+        return ResponseEntity.ok(cacheWarmupService.getWarmupProgress());
+    }
+
+    @Operation(
+        summary = "取消缓存预热",
+        description = "取消正在运行的缓存预热，已提交的批次写完后停止"
+    )
+    @PostMapping("/warmup/cancel")
+    @PreAuthorize("hasAuthority('CACHE:MANAGE')")
+    public ResponseEntity<Map<String, Object>> cancelWarmup() {
+        return ResponseEntity.ok(
+            Map.of("cancelled", cacheWarmupService.cancelWarmup())
+        );
+    }
+
     @Operation(
         summary = "执行完整缓存预热",
         description = "执行完整的缓存预热操作"
@@ -90,6 +90,7 @@ public class CacheMonitorController {
     public ResponseEntity<Map<String, String>> clearAllCaches() {
         permissionCacheService.evictAllUserPermissions();
         permissionCacheService.evictAllUserDocumentAssignments();
+        permissionCacheService.evictAllDocumentAssignments();
         permissionCacheService.evictAllDocumentPublicStatus();
 
         Map<String, String> response = new HashMap<>();
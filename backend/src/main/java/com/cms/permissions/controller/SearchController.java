@@ -1,13 +1,17 @@
 package com.cms.permissions.controller;
 
 import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.search.DocumentIndexingService;
+import com.cms.permissions.search.SearchHistoryRecorder;
 import com.cms.permissions.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +22,12 @@ public class SearchController {
     @Autowired
     private SearchService searchService;
 
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
+
+    @Autowired
+    private SearchHistoryRecorder searchHistoryRecorder;
+
     @GetMapping("/fulltext")
     @PreAuthorize("hasAuthority('SEARCH:QUERY')")
     public ResponseEntity<Page<DocumentIndex>> fullText(@RequestParam String q,
@@ -51,6 +61,23 @@ public class SearchController {
         return ResponseEntity.ok(searchService.searchByContent(q, publicOnly, language, page, size));
     }
 
+    @GetMapping("/advanced")
+    @PreAuthorize("hasAuthority('SEARCH:QUERY')")
+    public ResponseEntity<Page<DocumentIndex>> advanced(@RequestParam(required = false) String title,
+                                                        @RequestParam(required = false) String content,
+                                                        @RequestParam(required = false) String tags,
+                                                        @RequestParam(required = false) String categoryPath,
+                                                        @RequestParam(required = false) DocumentIndex.ContentType contentType,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                        @RequestParam(required = false) Boolean publicOnly,
+                                                        @RequestParam(required = false) String language,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(searchService.advancedSearch(title, content, tags, categoryPath, contentType,
+                startDate, endDate, publicOnly, language, page, size));
+    }
+
     @GetMapping("/suggest")
     @PreAuthorize("hasAuthority('SEARCH:SUGGEST')")
     public ResponseEntity<List<String>> suggest(@RequestParam String q,
@@ -62,6 +89,17 @@ public class SearchController {
     @PreAuthorize("hasAuthority('SEARCH:READ:STATS')")
     public ResponseEntity<Map<String, Object>> stats() {
         // 简单返回数量统计，详细统计可在 StatisticsService 中实现
-        return ResponseEntity.ok(Map.of("totalIndexes", 0));
+        return ResponseEntity.ok(Map.of(
+            "totalIndexes", 0,
+            "indexing", documentIndexingService.getStats(),
+            "history", searchHistoryRecorder.getStats()
+        ));
+    }
+
+    // 按indexVersion重建内容块（后台执行，已有重建在进行时started为false）
+    @PostMapping("/reindex")
+    @PreAuthorize("hasAuthority('SEARCH:REINDEX')")
+    public ResponseEntity<Map<String, Object>> reindex() {
+        return ResponseEntity.ok(Map.of("started", documentIndexingService.reindex()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.cms.permissions.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 每小时搜索汇总
+ * 由SearchHistoryRecorder在写入搜索历史时同批累加，按小时统计时读取本表而不扫描search_history
+ */
+@Entity
+@Table(name = "search_hourly_rollup")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHourlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 小时的开始时间
+     */
+    @Column(name = "hour_start", nullable = false, unique = true)
+    private LocalDateTime hourStart;
+
+    /**
+     * 搜索次数
+     */
+    @Column(name = "searches", nullable = false)
+    private Long searches;
+
+    /**
+     * 有结果的搜索次数
+     */
+    @Column(name = "successful_searches", nullable = false)
+    private Long successfulSearches;
+
+    /**
+     * 搜索耗时之和（毫秒）
+     */
+    @Column(name = "total_duration", nullable = false)
+    private Long totalDuration;
+
+    /**
+     * 记录了耗时的搜索次数
+     */
+    @Column(name = "duration_samples", nullable = false)
+    private Long durationSamples;
+}
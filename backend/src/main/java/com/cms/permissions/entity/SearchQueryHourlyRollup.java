@@ -0,0 +1,54 @@
+package com.cms.permissions.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 每小时每个搜索词的汇总
+ * 由SearchHistoryRecorder在写入搜索历史时同批累加，热门搜索词和无结果搜索词的统计读取本表
+ */
+@Entity
+@Table(name = "search_query_hourly_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_query_hour", columnNames = {"hour_start", "search_query"})
+}, indexes = {
+    @Index(name = "idx_rollup_hour_start", columnList = "hour_start")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchQueryHourlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 小时的开始时间
+     */
+    @Column(name = "hour_start", nullable = false)
+    private LocalDateTime hourStart;
+
+    /**
+     * 搜索查询
+     */
+    @Column(name = "search_query", nullable = false, length = 500)
+    private String searchQuery;
+
+    /**
+     * 搜索次数
+     */
+    @Column(name = "searches", nullable = false)
+    private Long searches;
+
+    /**
+     * 无结果的搜索次数
+     */
+    @Column(name = "no_result_searches", nullable = false)
+    private Long noResultSearches;
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,8 @@ public interface DocumentAssignmentRepository extends JpaRepository<DocumentAssi
 
     List<DocumentAssignment> findByDocumentId(Long documentId);
 
+    List<DocumentAssignment> findByDocumentIdIn(Collection<Long> documentIds);
+
     @Query("SELECT da FROM DocumentAssignment da WHERE da.documentId = :documentId AND da.userId = :userId AND da.assignmentType = :assignmentType")
     Optional<DocumentAssignment> findByDocumentIdAndUserIdAndAssignmentType(
             @Param("documentId") Long documentId,
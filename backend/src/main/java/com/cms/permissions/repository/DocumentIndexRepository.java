@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -245,6 +246,28 @@ public interface DocumentIndexRepository extends JpaRepository<DocumentIndex, Lo
            "AND (:isPublicOnly = false OR di.isPublic = true)")
     Long countActiveIndexes(@Param("isPublicOnly") Boolean isPublicOnly);
     
+    /**
+     * 按ID游标分页读取有效索引（用于重建嵌入式搜索索引）
+     */
+    @Query("SELECT di FROM DocumentIndex di WHERE di.isActive = true AND di.id > :afterId ORDER BY di.id")
+    List<DocumentIndex> findActiveAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * 按ID游标分页读取搜索建议的来源：id、标题、权重、是否公开（用于构建搜索建议前缀树）
+     */
+    @Query("SELECT di.id, di.title, di.searchWeight, di.isPublic FROM DocumentIndex di " +
+           "WHERE di.isActive = true AND di.id > :afterId AND di.contentType IN :contentTypes ORDER BY di.id")
+    List<Object[]> findSuggestionSourcesAfter(
+        @Param("afterId") Long afterId,
+        @Param("contentTypes") Collection<DocumentIndex.ContentType> contentTypes,
+        Pageable pageable
+    );
+    
+    /**
+     * 批量读取文档的全部索引（用于把索引管道的写入同步到嵌入式搜索索引）
+     */
+    List<DocumentIndex> findByDocumentIdIn(Collection<Long> documentIds);
+    
     /**
      * 查找需要重建索引的文档
      */
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -33,6 +34,27 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
                                              @Param("keyword") String keyword,
                                              Pageable pageable);
 
+    // 批量权限过滤：返回给定ID中公开文档的ID
+    @Query("SELECT d.id FROM Document d WHERE d.id IN :ids AND d.isPublic = true")
+    List<Long> findPublicDocumentIds(@Param("ids") Collection<Long> ids);
+
+    // 文档可见性索引：全部公开文档的ID
+    @Query("SELECT d.id FROM Document d WHERE d.isPublic = true")
+    List<Long> findAllPublicDocumentIds();
+
+    // 按主键游标分页读取公开状态：[id, isPublic]
+    @Query("SELECT d.id, d.isPublic FROM Document d WHERE d.id > :afterId ORDER BY d.id")
+    List<Object[]> findIdAndPublicAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按ID读取公开状态：[id, isPublic]，按ID排序
+    @Query("SELECT d.id, d.isPublic FROM Document d WHERE d.id IN :ids ORDER BY d.id")
+    List<Object[]> findIdAndPublicByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 按主键游标分页读取需要重建索引的文档ID：没有当前版本的内容块（包括从未索引过的文档）
+    @Query("SELECT d.id FROM Document d WHERE d.id > :afterId AND NOT EXISTS " +
+           "(SELECT di.id FROM DocumentIndex di WHERE di.documentId = d.id AND di.indexVersion = :version) ORDER BY d.id")
+    List<Long> findIdsNeedingIndexAfter(@Param("afterId") Long afterId, @Param("version") String version, Pageable pageable);
+
     // 迁移相关查询方法
     
     /**
@@ -39,12 +39,16 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     );
     
     /**
-     * 获取热门搜索查询
-     */
-    @Query("SELECT sh.searchQuery, COUNT(sh) as searchCount FROM SearchHistory sh " +
-           "WHERE sh.searchTime >= :startDate " +
-           "AND (:hasResults IS NULL OR sh.hasResults = :hasResults) " +
-           "GROUP BY sh.searchQuery " +
+     * 获取热门搜索查询（读取每小时汇总，按小时粒度：包含开始时间不早于startDate的小时）
+     * hasResults为null时统计全部搜索，true只统计有结果的搜索，false只统计无结果的搜索
+     */
+    @Query("SELECT r.searchQuery, SUM(CASE WHEN :hasResults IS NULL THEN r.searches " +
+           "WHEN :hasResults = true THEN r.searches - r.noResultSearches ELSE r.noResultSearches END) as searchCount " +
+           "FROM SearchQueryHourlyRollup r " +
+           "WHERE r.hourStart >= :startDate " +
+           "GROUP BY r.searchQuery " +
+           "HAVING SUM(CASE WHEN :hasResults IS NULL THEN r.searches " +
+           "WHEN :hasResults = true THEN r.searches - r.noResultSearches ELSE r.noResultSearches END) > 0 " +
            "ORDER BY searchCount DESC")
     List<Object[]> findPopularSearchQueries(
         @Param("startDate") LocalDateTime startDate,
@@ -109,13 +113,13 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     );
     
     /**
-     * 按小时统计搜索量
+     * 按小时统计搜索量（读取每小时汇总）
      */
     @Query(value = """
-        SELECT HOUR(sh.search_time) as hour, COUNT(*) as count 
-        FROM search_history sh 
-        WHERE sh.search_time >= :startDate AND sh.search_time <= :endDate 
-        GROUP BY HOUR(sh.search_time) 
+        SELECT HOUR(r.hour_start) as hour, SUM(r.searches) as count 
+        FROM search_hourly_rollup r 
+        WHERE r.hour_start >= :startDate AND r.hour_start <= :endDate 
+        GROUP BY HOUR(r.hour_start) 
         ORDER BY hour
         """, nativeQuery = true)
     List<Object[]> countByHourBetween(
@@ -156,12 +160,12 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     );
     
     /**
-     * 获取无结果搜索查询
+     * 获取无结果搜索查询（读取每小时汇总）
      */
-    @Query("SELECT sh.searchQuery, COUNT(sh) as count FROM SearchHistory sh " +
-           "WHERE sh.hasResults = false " +
-           "AND sh.searchTime >= :startDate " +
-           "GROUP BY sh.searchQuery " +
+    @Query("SELECT r.searchQuery, SUM(r.noResultSearches) as count FROM SearchQueryHourlyRollup r " +
+           "WHERE r.hourStart >= :startDate " +
+           "GROUP BY r.searchQuery " +
+           "HAVING SUM(r.noResultSearches) > 0 " +
            "ORDER BY count DESC")
     List<Object[]> findNoResultQueries(
         @Param("startDate") LocalDateTime startDate,
@@ -1,9 +1,14 @@
 package com.cms.permissions.repository;
 
 import com.cms.permissions.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    // 按主键游标分页，只取ID和用户名：[id, username]
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findIdAndUsernameAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按用户名取ID：[id, username]，按ID排序
+    @Query("SELECT u.id, u.username FROM User u WHERE u.username IN :usernames ORDER BY u.id")
+    List<Object[]> findIdAndUsernameByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // 一批用户的角色与权限代码：[userId, roleId, permissionCode]，角色没有权限时权限代码为null
+    @Query("SELECT u.id, r.id, p.code FROM User u JOIN u.roles r LEFT JOIN r.permissions p WHERE u.id IN :userIds")
+    List<Object[]> findRolePermissionCodes(@Param("userIds") Collection<Long> userIds);
+}
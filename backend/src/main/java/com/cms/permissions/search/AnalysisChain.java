@@ -0,0 +1,82 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可组合的分析链：分词器的输出依次经过各过滤器，索引和查询使用同一条链（过滤器按query区分两端的行为）
+ */
+public class AnalysisChain implements TextAnalyzer {
+
+    public static final String STANDARD = "standard";
+
+    public static final String CJK_BIGRAM = "cjk-bigram";
+
+    private final String name;
+
+    private final Tokenizer tokenizer;
+
+    private final List<TokenFilter> filters;
+
+    public AnalysisChain(String name, Tokenizer tokenizer, List<TokenFilter> filters) {
+        this.name = name;
+        this.tokenizer = tokenizer;
+        this.filters = List.copyOf(filters);
+    }
+
+    /**
+     * 按配置创建分析链
+     *
+     * @param analyzer  standard：中文逐字；cjk-bigram：中文二元切分
+     * @param stopwords 是否删除停用词
+     * @param pinyin    是否拼音折叠，只对cjk-bigram生效
+     */
+    public static AnalysisChain create(String analyzer, boolean stopwords, boolean pinyin) {
+        List<TokenFilter> filters = new ArrayList<>();
+        StringBuilder name = new StringBuilder(analyzer);
+        if (stopwords) {
+            filters.add(new StopFilter());
+            name.append("+stop");
+        }
+        switch (analyzer) {
+            case STANDARD -> {
+            }
+            case CJK_BIGRAM -> {
+                filters.add(new CjkBigramFilter());
+                if (pinyin) {
+                    filters.add(new PinyinFilter());
+                    name.append("+pinyin");
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown analyzer: " + analyzer);
+        }
+        return new AnalysisChain(name.toString(), new StandardTokenizer(), filters);
+    }
+
+    @Override
+    public List<String> analyze(String text) {
+        return run(text, false);
+    }
+
+    @Override
+    public List<String> analyzeQuery(String text) {
+        return run(text, true);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    private List<String> run(String text, boolean query) {
+        List<Token> tokens = tokenizer.tokenize(text);
+        for (TokenFilter filter : filters) {
+            tokens = filter.filter(tokens, query);
+        }
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            terms.add(token.text());
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,51 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CJK二元切分：相邻的中日韩单字组成重叠的二元词（"数据库"为"数据"、"据库"），单独的一个字保留为单字。
+ * 索引时同时保留全部单字，使单字查询也能命中；查询时连续的字只使用二元词，比逐字匹配精确得多。
+ */
+public class CjkBigramFilter implements TokenFilter {
+
+    @Override
+    public List<Token> filter(List<Token> tokens, boolean query) {
+        List<Token> result = new ArrayList<>(tokens.size() * 2);
+        List<Token> run = new ArrayList<>();
+        for (Token token : tokens) {
+            if (token.type() == Token.Type.CJK) {
+                if (!run.isEmpty() && run.get(run.size() - 1).position() + 1 != token.position()) {
+                    flush(run, result, query);
+                }
+                run.add(token);
+            } else {
+                flush(run, result, query);
+                result.add(token);
+            }
+        }
+        flush(run, result, query);
+        return result;
+    }
+
+    private static void flush(List<Token> run, List<Token> result, boolean query) {
+        if (run.size() == 1) {
+            result.add(run.get(0));
+        } else {
+            for (int i = 0; i < run.size(); i++) {
+                Token token = run.get(i);
+                if (!query) {
+                    result.add(token);
+                }
+                if (i + 1 < run.size()) {
+                    result.add(new Token(
+                        token.text() + run.get(i + 1).text(),
+                        Token.Type.CJK_BIGRAM,
+                        token.position()
+                    ));
+                }
+            }
+        }
+        run.clear();
+    }
+}
@@ -0,0 +1,489 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.Document;
+import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.repository.DocumentIndexRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.util.TransactionCallbacks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 文档索引管道：把文档切分为内容块写入document_index
+ * 文档变更在事务提交后登记，同一文档在防抖窗口内的多次变更合并为一次索引（最长延迟max-delay-ms），
+ * 由单个后台线程按批读取文档、切分并用JDBC批量更新/插入/删除内容块行，同一位置的块复用原行ID。
+ * 写入的行带当前indexVersion，修改版本号后reindex()按ID游标重建所有版本不同或尚未索引的文档。
+ */
+@Service
+public class DocumentIndexingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        DocumentIndexingService.class
+    );
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String SELECT_ROWS =
+        "SELECT id, document_id, block_position FROM document_index WHERE document_id IN (%s) " +
+        "ORDER BY document_id, block_position, id";
+
+    private static final String UPDATE_ROW =
+        "UPDATE document_index SET title = ?, content = ?, plain_text = ?, summary = ?, content_type = ?, " +
+        "anchor_id = ?, tags = ?, category_path = ?, language = ?, word_count = ?, character_count = ?, " +
+        "search_weight = ?, is_active = ?, is_public = ?, created_at = ?, updated_at = ?, index_version = ? " +
+        "WHERE id = ?";
+
+    private static final String INSERT_ROW =
+        "INSERT INTO document_index (title, content, plain_text, summary, content_type, anchor_id, tags, " +
+        "category_path, language, word_count, character_count, search_weight, is_active, is_public, " +
+        "created_at, updated_at, index_version, document_id, block_position) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_ROW = "DELETE FROM document_index WHERE id = ?";
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentIndexRepository documentIndexRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private EmbeddedSearchBackend embeddedSearchBackend;
+
+    @Autowired(required = false)
+    private SearchSuggestionService searchSuggestionService;
+
+    @Value("${search.indexing.enabled:true}")
+    private boolean enabled;
+
+    // 修改后reindex()重建所有旧版本的内容块
+    @Value("${search.indexing.version:1}")
+    private String indexVersion;
+
+    @Value("${search.indexing.language:zh-CN}")
+    private String language;
+
+    @Value("${search.indexing.debounce-ms:2000}")
+    private long debounceMs;
+
+    @Value("${search.indexing.max-delay-ms:10000}")
+    private long maxDelayMs;
+
+    // 每批处理的文档数，一批的内容块在一个事务中写入
+    @Value("${search.indexing.batch-documents:50}")
+    private int batchDocuments;
+
+    @Value("${search.indexing.reindex-on-startup:true}")
+    private boolean reindexOnStartup;
+
+    // 索引失败的文档按指数退避重新登记，超过次数后放弃
+    @Value("${search.indexing.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    @Value("${search.indexing.max-retries:5}")
+    private int maxRetries;
+
+    private final MarkdownBlockSplitter splitter = new MarkdownBlockSplitter();
+
+    private final Map<Long, PendingChange> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    private final AtomicLong coalescedChanges = new AtomicLong();
+
+    private final AtomicLong indexedDocuments = new AtomicLong();
+
+    private final AtomicLong failedDocuments = new AtomicLong();
+
+    private final AtomicLong retriedDocuments = new AtomicLong();
+
+    private final AtomicLong updatedBlocks = new AtomicLong();
+
+    private final AtomicLong insertedBlocks = new AtomicLong();
+
+    private final AtomicLong deletedBlocks = new AtomicLong();
+
+    private final AtomicLong reindexedDocuments = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService worker;
+
+    /**
+     * 同一文档待索引的变更：首次和最近一次变更的时间，以及失败重试的次数和最早的重试时间
+     */
+    private record PendingChange(long firstAt, long lastAt, int attempts, long notBefore) {}
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 所有写入都在这一个线程中执行，同一文档不会被并发写入
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!enabled) {
+            return;
+        }
+        long pollMs = Math.max(50L, debounceMs / 4);
+        worker.scheduleWithFixedDelay(this::flushDue, pollMs, pollMs, TimeUnit.MILLISECONDS);
+        if (reindexOnStartup) {
+            reindex();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 不等防抖窗口和重试退避，写入剩余的变更
+        Map<Long, PendingChange> remaining = new LinkedHashMap<>(pending);
+        pending.clear();
+        if (!remaining.isEmpty()) {
+            try {
+                indexBatches(remaining);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to index {} pending documents on shutdown: {}", remaining.size(), e.getMessage());
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("{} documents failed to index on shutdown", pending.size());
+        }
+    }
+
+    /**
+     * 文档新增或修改，在当前事务提交后登记
+     */
+    public void documentChanged(Long documentId) {
+        if (!enabled || documentId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> enqueue(documentId));
+    }
+
+    /**
+     * 文档删除：内容块行在当前事务中同步删除（document_index引用document），提交后从嵌入式索引和搜索建议中移除
+     */
+    public void documentDeleted(Long documentId) {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT id FROM document_index WHERE document_id = ?", Long.class, documentId
+        );
+        if (!ids.isEmpty()) {
+            documentIndexRepository.deleteByDocumentId(documentId);
+            deletedBlocks.addAndGet(ids.size());
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            pending.remove(documentId);
+            if (embeddedSearchBackend != null && !ids.isEmpty()) {
+                embeddedSearchBackend.apply(Collections.emptyList(), ids);
+            }
+            if (searchSuggestionService != null && !ids.isEmpty()) {
+                searchSuggestionService.apply(Collections.emptyList(), ids);
+            }
+        });
+    }
+
+    /**
+     * 按ID游标重建所有没有当前版本内容块的文档，每页作为一个任务提交到索引线程，与增量变更交替执行
+     *
+     * @return 已有重建在进行时返回false
+     */
+    public boolean reindex() {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        reindexedDocuments.set(0);
+        logger.info("Search reindex started for index version {}", indexVersion);
+        worker.execute(() -> reindexPage(0L, System.currentTimeMillis()));
+        return true;
+    }
+
+    private void reindexPage(long afterId, long startedAt) {
+        try {
+            List<Long> ids = documentRepository.findIdsNeedingIndexAfter(
+                afterId,
+                indexVersion,
+                PageRequest.of(0, batchDocuments)
+            );
+            if (ids.isEmpty()) {
+                reindexing.set(false);
+                logger.info(
+                    "Search reindex finished: {} documents in {}ms",
+                    reindexedDocuments.get(), System.currentTimeMillis() - startedAt
+                );
+                return;
+            }
+            indexDocuments(ids);
+            reindexedDocuments.addAndGet(ids.size());
+            long lastId = ids.get(ids.size() - 1);
+            worker.execute(() -> reindexPage(lastId, startedAt));
+        } catch (RuntimeException e) {
+            reindexing.set(false);
+            logger.error("Search reindex failed after document {}: {}", afterId, e.getMessage(), e);
+        }
+    }
+
+    void enqueue(Long documentId) {
+        long now = System.currentTimeMillis();
+        pending.merge(documentId, new PendingChange(now, now, 0, 0L), (previous, change) -> {
+            coalescedChanges.incrementAndGet();
+            return new PendingChange(previous.firstAt(), now, previous.attempts(), previous.notBefore());
+        });
+    }
+
+    /**
+     * 索引防抖窗口内没有新变更、或等待已超过最长延迟的文档（重试的文档还需等到退避结束）
+     */
+    void flushDue() {
+        long now = System.currentTimeMillis();
+        Map<Long, PendingChange> due = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingChange> entry : pending.entrySet()) {
+            PendingChange change = entry.getValue();
+            if (now < change.notBefore()) {
+                continue;
+            }
+            if (now - change.lastAt() >= debounceMs || now - change.firstAt() >= maxDelayMs) {
+                // 与登记并发时保留新的变更，留到下一轮
+                if (pending.remove(entry.getKey(), change)) {
+                    due.put(entry.getKey(), change);
+                }
+            }
+        }
+        if (!due.isEmpty()) {
+            indexBatches(due);
+        }
+    }
+
+    private void indexBatches(Map<Long, PendingChange> changes) {
+        List<Long> documentIds = new ArrayList<>(changes.keySet());
+        for (int from = 0; from < documentIds.size(); from += batchDocuments) {
+            List<Long> batch = documentIds.subList(from, Math.min(from + batchDocuments, documentIds.size()));
+            try {
+                indexDocuments(batch);
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    retryLater(batch.get(0), changes.get(batch.get(0)), e);
+                    continue;
+                }
+                // 整批在一个事务中回滚，逐个重试，只有失败的文档进入退避
+                logger.warn("Failed to index documents {}, retrying one at a time: {}", batch, e.getMessage());
+                for (Long documentId : batch) {
+                    try {
+                        indexDocuments(List.of(documentId));
+                    } catch (RuntimeException single) {
+                        retryLater(documentId, changes.get(documentId), single);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按指数退避重新登记索引失败的文档，期间的新变更合并到同一条目
+     */
+    private void retryLater(Long documentId, PendingChange change, RuntimeException e) {
+        int attempts = change.attempts() + 1;
+        if (attempts > maxRetries) {
+            // 内容块保持原状，修改indexVersion后可由reindex()重建
+            failedDocuments.incrementAndGet();
+            logger.error("Failed to index document {} after {} attempts: {}", documentId, attempts, e.getMessage(), e);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long delayMs = retryBaseMs << Math.min(attempts - 1, 20);
+        retriedDocuments.incrementAndGet();
+        pending.merge(
+            documentId,
+            new PendingChange(now, now, attempts, now + delayMs),
+            (changed, retry) -> new PendingChange(changed.firstAt(), changed.lastAt(), retry.attempts(), retry.notBefore())
+        );
+        logger.warn("Failed to index document {}, retrying in {}ms: {}", documentId, delayMs, e.getMessage());
+    }
+
+    /**
+     * 读取文档的当前内容并替换其内容块；已不存在的文档删除全部内容块
+     */
+    void indexDocuments(Collection<Long> documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Document> documents = documentRepository.findAllById(documentIds)
+            .stream()
+            .collect(Collectors.toMap(Document::getId, Function.identity()));
+        Map<Long, Map<Integer, Long>> existing = new HashMap<>();
+        List<Long> deletes = new ArrayList<>();
+        jdbcTemplate.query(
+            String.format(SELECT_ROWS, String.join(",", Collections.nCopies(documentIds.size(), "?"))),
+            rs -> {
+                long id = rs.getLong(1);
+                int position = rs.getInt(3);
+                boolean hasPosition = !rs.wasNull();
+                // 同一位置的重复行和没有位置的行被删除
+                if (!hasPosition || existing.computeIfAbsent(rs.getLong(2), key -> new HashMap<>())
+                    .putIfAbsent(position, id) != null) {
+                    deletes.add(id);
+                }
+            },
+            documentIds.toArray()
+        );
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Long documentId : documentIds) {
+            Map<Integer, Long> rows = existing.getOrDefault(documentId, Collections.emptyMap());
+            Document document = documents.get(documentId);
+            if (document == null) {
+                deletes.addAll(rows.values());
+                continue;
+            }
+            List<MarkdownBlockSplitter.Block> blocks = splitter.split(document.getTitle(), document.getContent());
+            for (MarkdownBlockSplitter.Block block : blocks) {
+                Long rowId = rows.get(block.position());
+                if (rowId != null) {
+                    updates.add(values(document, block, now, rowId));
+                } else {
+                    inserts.add(values(document, block, now, documentId, block.position()));
+                }
+            }
+            rows.forEach((position, rowId) -> {
+                if (position < 0 || position >= blocks.size()) {
+                    deletes.add(rowId);
+                }
+            });
+        }
+
+        List<Object[]> deleteArgs = deletes.stream().map(id -> new Object[] { id }).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_ROW, updates);
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ROW, inserts);
+            }
+            if (!deleteArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_ROW, deleteArgs);
+            }
+        });
+        indexedDocuments.addAndGet(documents.size());
+        updatedBlocks.addAndGet(updates.size());
+        insertedBlocks.addAndGet(inserts.size());
+        deletedBlocks.addAndGet(deletes.size());
+
+        if (embeddedSearchBackend != null || searchSuggestionService != null) {
+            List<DocumentIndex> rows = documentIndexRepository.findByDocumentIdIn(documentIds);
+            if (embeddedSearchBackend != null) {
+                embeddedSearchBackend.apply(rows, deletes);
+            }
+            if (searchSuggestionService != null) {
+                searchSuggestionService.apply(rows, deletes);
+            }
+        }
+    }
+
+    /**
+     * UPDATE/INSERT共用的列值，trailing为各自末尾的列
+     */
+    private Object[] values(Document document, MarkdownBlockSplitter.Block block, LocalDateTime now, Object... trailing) {
+        Object[] values = new Object[17 + trailing.length];
+        values[0] = truncate(block.title(), 500);
+        values[1] = block.content();
+        values[2] = block.plainText();
+        values[3] = truncate(block.summary(), 1000);
+        values[4] = block.contentType().name();
+        values[5] = truncate(block.anchorId(), 100);
+        values[6] = truncate(tags(document.getTags()), 500);
+        values[7] = truncate(document.getCategory(), 500);
+        values[8] = language;
+        values[9] = block.wordCount();
+        values[10] = block.plainText().codePointCount(0, block.plainText().length());
+        values[11] = block.contentType() == DocumentIndex.ContentType.TITLE ? 1.2 : 1.0;
+        values[12] = true;
+        // 只有已发布的公开文档出现在公开搜索结果中
+        values[13] = Boolean.TRUE.equals(document.getIsPublic())
+            && document.getStatus() == Document.DocumentStatus.PUBLISHED;
+        // 创建时间取文档的创建时间，按日期范围搜索时按文档筛选
+        values[14] = document.getCreatedAt() != null ? document.getCreatedAt() : now;
+        values[15] = now;
+        values[16] = indexVersion;
+        System.arraycopy(trailing, 0, values, 17, trailing.length);
+        return values;
+    }
+
+    /**
+     * 文档标签为JSON数组，内容块中以逗号分隔
+     */
+    static String tags(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            List<?> tags = OBJECT_MAPPER.readValue(json, List.class);
+            return tags.stream().map(String::valueOf).collect(Collectors.joining(","));
+        } catch (JsonProcessingException e) {
+            return json;
+        }
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("indexVersion", indexVersion);
+        stats.put("pendingDocuments", pending.size());
+        stats.put("coalescedChanges", coalescedChanges.get());
+        stats.put("indexedDocuments", indexedDocuments.get());
+        stats.put("failedDocuments", failedDocuments.get());
+        stats.put("retriedDocuments", retriedDocuments.get());
+        stats.put("updatedBlocks", updatedBlocks.get());
+        stats.put("insertedBlocks", insertedBlocks.get());
+        stats.put("deletedBlocks", deletedBlocks.get());
+        stats.put("reindexing", reindexing.get());
+        stats.put("reindexedDocuments", reindexedDocuments.get());
+        return stats;
+    }
+}
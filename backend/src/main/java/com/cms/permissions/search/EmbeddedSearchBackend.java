@@ -0,0 +1,197 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.repository.DocumentIndexRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * 嵌入式搜索后端（search.backend=embedded）
+ * 索引保存在本地磁盘，由DocumentIndex行构建；查询在倒排索引中完成，只按命中的主键从数据库读取当前页。
+ * 索引为空或分析器（search.analysis.*）变化时在后台线程中按ID游标全量构建，构建完成前isReady为false，SearchService继续使用数据库查询。
+ */
+@Service
+@ConditionalOnProperty(prefix = "search", name = "backend", havingValue = "embedded")
+public class EmbeddedSearchBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        EmbeddedSearchBackend.class
+    );
+
+    // 记录构建索引时使用的分析器
+    private static final String ANALYZER_FILE = "analyzer";
+
+    @Autowired
+    private DocumentIndexRepository documentIndexRepository;
+
+    @Value("${search.embedded.directory:./data/search-index}")
+    private String directory;
+
+    @Value("${search.embedded.max-buffered-docs:50000}")
+    private int maxBufferedDocs;
+
+    @Value("${search.embedded.merge-factor:10}")
+    private int mergeFactor;
+
+    @Value("${search.embedded.rebuild-page-size:1000}")
+    private int rebuildPageSize;
+
+    @Value("${search.analysis.analyzer:cjk-bigram}")
+    private String analyzerName;
+
+    @Value("${search.analysis.stopwords:true}")
+    private boolean stopwords;
+
+    @Value("${search.analysis.pinyin:true}")
+    private boolean pinyin;
+
+    private TextAnalyzer analyzer;
+
+    private InvertedIndex index;
+
+    private ExecutorService rebuildExecutor;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() throws IOException {
+        analyzer = AnalysisChain.create(analyzerName, stopwords, pinyin);
+        index = new InvertedIndex(Path.of(directory), analyzer, maxBufferedDocs, mergeFactor);
+        rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 分析器变化后已有的词不再与查询一致，需要重建
+        if (index.docCount() > 0 && analyzer.name().equals(readAnalyzerName())) {
+            ready = true;
+        } else {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+        index.close();
+    }
+
+    /**
+     * 索引是否可用于查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 从DocumentIndex表全量重建索引（按ID游标分页，不使用OFFSET）
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            index.deleteAll();
+            long afterId = 0L;
+            long count = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<DocumentIndex> rows = documentIndexRepository.findActiveAfter(
+                    afterId,
+                    PageRequest.of(0, rebuildPageSize)
+                );
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (DocumentIndex row : rows) {
+                    index.add(IndexedDocument.from(row));
+                }
+                count += rows.size();
+                afterId = rows.get(rows.size() - 1).getId();
+            }
+            index.refresh();
+            Files.writeString(analyzerFile(), analyzer.name());
+            ready = true;
+            logger.info(
+                "Search index rebuilt with {} blocks ({} analyzer) in {}ms",
+                count, analyzer.name(), System.currentTimeMillis() - start
+            );
+        } catch (IOException | RuntimeException e) {
+            logger.error("Search index rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用索引管道对document_index的写入：更新的行重新加入，未激活和已删除的行移除，随后refresh使变更可见
+     */
+    public void apply(Collection<DocumentIndex> upserted, Collection<Long> deletedIds) {
+        for (DocumentIndex row : upserted) {
+            if (Boolean.TRUE.equals(row.getIsActive())) {
+                index.add(IndexedDocument.from(row));
+            } else {
+                index.delete(row.getId());
+            }
+        }
+        for (Long id : deletedIds) {
+            index.delete(id);
+        }
+        index.refresh();
+    }
+
+    /**
+     * 执行查询，命中按得分排序后从数据库读取对应行；已从数据库删除的行被跳过
+     */
+    public Page<DocumentIndex> search(SearchQuery query, Pageable pageable) {
+        SearchHits hits = index.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        List<Long> ids = new ArrayList<>(hits.hits().size());
+        for (SearchHits.Hit hit : hits.hits()) {
+            ids.add(hit.id());
+        }
+        Map<Long, DocumentIndex> rows = documentIndexRepository.findAllById(ids)
+            .stream()
+            .collect(Collectors.toMap(DocumentIndex::getId, Function.identity()));
+        List<DocumentIndex> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            DocumentIndex row = rows.get(id);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return new PageImpl<>(content, pageable, hits.totalHits());
+    }
+
+    private Path analyzerFile() {
+        return Path.of(directory, ANALYZER_FILE);
+    }
+
+    private String readAnalyzerName() throws IOException {
+        Path file = analyzerFile();
+        return Files.exists(file) ? Files.readString(file).trim() : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(index.getStats());
+        stats.put("ready", ready);
+        stats.put("analyzer", analyzer.name());
+        return stats;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 进入倒排索引的内容块：分词的字段文本和用于过滤、排序的属性
+ * id为DocumentIndex的主键，同一id再次加入时替换旧内容。
+ */
+public record IndexedDocument(
+    long id,
+    long documentId,
+    String title,
+    String body,
+    String tags,
+    boolean isPublic,
+    String language,
+    DocumentIndex.ContentType contentType,
+    String categoryPath,
+    long createdAtMillis,
+    float searchWeight
+) {
+
+    public static IndexedDocument from(DocumentIndex index) {
+        return new IndexedDocument(
+            index.getId(),
+            index.getDocumentId() != null ? index.getDocumentId() : 0L,
+            index.getTitle(),
+            index.getPlainText() != null ? index.getPlainText() : index.getContent(),
+            index.getTags(),
+            Boolean.TRUE.equals(index.getIsPublic()),
+            index.getLanguage(),
+            index.getContentType(),
+            index.getCategoryPath(),
+            toMillis(index.getCreatedAt()),
+            index.getSearchWeight() != null ? index.getSearchWeight().floatValue() : 1.0f
+        );
+    }
+
+    String text(IndexedField field) {
+        return switch (field) {
+            case TITLE -> title;
+            case BODY -> body;
+            case TAGS -> tags;
+        };
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cms.permissions.search;
+
+/**
+ * 索引字段及其BM25F权重
+ */
+public enum IndexedField {
+
+    /**
+     * 标题
+     */
+    TITLE(2.0f),
+
+    /**
+     * 正文（纯文本，缺失时使用原始内容）
+     */
+    BODY(1.0f),
+
+    /**
+     * 标签
+     */
+    TAGS(1.5f);
+
+    static final int COUNT = values().length;
+
+    private final float boost;
+
+    IndexedField(float boost) {
+        this.boost = boost;
+    }
+
+    public float getBoost() {
+        return boost;
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+}
@@ -0,0 +1,763 @@
+package com.cms.permissions.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于段的嵌入式倒排索引
+ * 新增和删除先进入内存缓冲，refresh时把缓冲写成一个新段并提交，之后的查询才能看到这些修改（近实时）。
+ * 段文件写入后不再修改：更新为删除旧段中的文档再写入新段，删除记在提交文件的删除位图中；
+ * 段数超过合并因子时把最小的若干段合并为一个，合并时丢弃已删除的文档。
+ * 提交文件通过临时文件加原子重命名替换，进程崩溃后重新打开得到最后一次完整提交的状态。
+ * 查询使用BM25F打分（各字段词频按字段长度归一化并按字段权重相加），读取不可变的快照，不需要加锁。
+ */
+public class InvertedIndex implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        InvertedIndex.class
+    );
+
+    static final String COMMIT_FILE = "segments";
+
+    private static final String COMMIT_TEMP_FILE = "segments.tmp";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int COMMIT_MAGIC = 0x434d5343;
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    private static final int MAX_CLAUSES = 31;
+
+    private final Path directory;
+
+    private final TextAnalyzer analyzer;
+
+    private final int maxBufferedDocs;
+
+    private final int mergeFactor;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 以下字段由writeLock保护
+    private final List<SegmentState> segments = new ArrayList<>();
+
+    private final Map<Long, IndexedDocument> buffer = new LinkedHashMap<>();
+
+    private final Set<Long> pendingDeletes = new HashSet<>();
+
+    private int nextSegmentNumber;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    /**
+     * @param directory 索引目录，不存在时创建
+     * @param maxBufferedDocs 缓冲的文档数达到该值时自动refresh
+     * @param mergeFactor 段数超过该值时合并最小的mergeFactor个段
+     */
+    public InvertedIndex(Path directory, TextAnalyzer analyzer, int maxBufferedDocs, int mergeFactor)
+        throws IOException {
+        this.directory = directory;
+        this.analyzer = analyzer;
+        this.maxBufferedDocs = Math.max(1, maxBufferedDocs);
+        this.mergeFactor = Math.max(2, mergeFactor);
+        Files.createDirectories(directory);
+        loadCommit();
+        deleteUnreferencedFiles();
+        publish();
+    }
+
+    /**
+     * 加入或替换内容块，refresh后可见
+     */
+    public void add(IndexedDocument document) {
+        writeLock.lock();
+        try {
+            buffer.remove(document.id());
+            buffer.put(document.id(), document);
+            if (buffer.size() >= maxBufferedDocs) {
+                refreshLocked();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除内容块，refresh后生效
+     */
+    public void delete(long id) {
+        writeLock.lock();
+        try {
+            buffer.remove(id);
+            pendingDeletes.add(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 写出缓冲的修改并提交，之后的查询可以看到这些修改
+     */
+    public void refresh() {
+        writeLock.lock();
+        try {
+            refreshLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 清空索引（包括未refresh的修改），用于全量重建
+     */
+    public void deleteAll() {
+        writeLock.lock();
+        try {
+            List<Segment> dropped = new ArrayList<>();
+            segments.forEach(state -> dropped.add(state.segment()));
+            segments.clear();
+            buffer.clear();
+            pendingDeletes.clear();
+            commit();
+            publish();
+            deleteFiles(dropped);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear search index", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 查询，返回从offset开始的最多limit个命中（按得分从高到低，得分相同时id大的在前）
+     */
+    public SearchHits search(SearchQuery query, int offset, int limit) {
+        Snapshot current = snapshot;
+        List<ClauseTerms> clauses = new ArrayList<>();
+        for (SearchQuery.Clause clause : query.clauses()) {
+            Set<String> terms = new LinkedHashSet<>(analyzer.analyzeQuery(clause.text()));
+            if (terms.isEmpty()) {
+                // 子句没有可查询的词，不可能被满足
+                return new SearchHits(0, List.of());
+            }
+            clauses.add(new ClauseTerms(List.copyOf(terms), clause.fieldMask()));
+        }
+        if (clauses.size() > MAX_CLAUSES) {
+            throw new IllegalArgumentException("Too many query clauses: " + clauses.size());
+        }
+
+        Map<String, Float> idf = new HashMap<>();
+        for (ClauseTerms clause : clauses) {
+            for (String term : clause.terms()) {
+                idf.computeIfAbsent(term, current::idf);
+            }
+        }
+
+        TopHits collector = new TopHits(offset + limit);
+        for (SegmentView view : current.segments()) {
+            Filter filter = Filter.of(query, view.segment());
+            if (filter == null) {
+                continue;
+            }
+            if (clauses.isEmpty()) {
+                collectAll(view, filter, collector);
+            } else {
+                scoreSegment(current, view, clauses, idf, filter, collector);
+            }
+        }
+        return collector.result(offset, limit);
+    }
+
+    /**
+     * 可查询的内容块数（不含未refresh的修改）
+     */
+    public int docCount() {
+        return snapshot.liveDocs();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("segments", current.segments().size());
+        stats.put("liveDocs", current.liveDocs());
+        stats.put("deletedDocs", current.maxDocs() - current.liveDocs());
+        writeLock.lock();
+        try {
+            stats.put("bufferedDocs", buffer.size());
+            stats.put("pendingDeletes", pendingDeletes.size());
+        } finally {
+            writeLock.unlock();
+        }
+        return stats;
+    }
+
+    /**
+     * 提交缓冲中的修改
+     */
+    @Override
+    public void close() {
+        refresh();
+    }
+
+    private void refreshLocked() {
+        if (buffer.isEmpty() && pendingDeletes.isEmpty()) {
+            return;
+        }
+        try {
+            applyDeletes(pendingDeletes);
+            applyDeletes(buffer.keySet());
+            if (!buffer.isEmpty()) {
+                segments.add(new SegmentState(writeSegment(buffer.values()), new BitSet()));
+            }
+            buffer.clear();
+            pendingDeletes.clear();
+
+            List<Segment> dropped = new ArrayList<>();
+            segments.removeIf(state -> {
+                boolean empty = state.deleted().cardinality() == state.segment().docCount();
+                if (empty) {
+                    dropped.add(state.segment());
+                }
+                return empty;
+            });
+            commit();
+            publish();
+            deleteFiles(dropped);
+            maybeMerge();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to refresh search index", e);
+        }
+    }
+
+    private void applyDeletes(Collection<Long> ids) {
+        for (Long id : ids) {
+            for (SegmentState state : segments) {
+                int doc = state.segment().findDoc(id);
+                if (doc >= 0) {
+                    state.deleted().set(doc);
+                }
+            }
+        }
+    }
+
+    private Segment writeSegment(Collection<IndexedDocument> documents) throws IOException {
+        List<IndexedDocument> sorted = new ArrayList<>(documents);
+        sorted.sort(Comparator.comparingLong(IndexedDocument::id));
+        List<SegmentWriter.DocRecord> records = new ArrayList<>(sorted.size());
+        TreeMap<String, PostingsBuffer> postings = new TreeMap<>();
+        for (int doc = 0; doc < sorted.size(); doc++) {
+            IndexedDocument document = sorted.get(doc);
+            int[] fieldLengths = new int[IndexedField.COUNT];
+            for (IndexedField field : IndexedField.values()) {
+                List<String> tokens = analyzer.analyze(document.text(field));
+                fieldLengths[field.ordinal()] = tokens.size();
+                for (String token : tokens) {
+                    postings.computeIfAbsent(token, t -> new PostingsBuffer()).occur(doc, field.ordinal());
+                }
+            }
+            records.add(new SegmentWriter.DocRecord(
+                document.id(),
+                document.documentId(),
+                document.createdAtMillis(),
+                document.searchWeight(),
+                document.language(),
+                document.categoryPath(),
+                document.contentType() != null ? (byte) document.contentType().ordinal() : -1,
+                document.isPublic(),
+                fieldLengths
+            ));
+        }
+
+        Path path = newSegmentPath();
+        try {
+            try (SegmentWriter writer = new SegmentWriter(path, records)) {
+                for (Map.Entry<String, PostingsBuffer> entry : postings.entrySet()) {
+                    writer.addTerm(entry.getKey(), entry.getValue());
+                }
+                writer.finish();
+            }
+            return Segment.open(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private void maybeMerge() throws IOException {
+        while (segments.size() > mergeFactor) {
+            List<SegmentState> smallest = new ArrayList<>(segments);
+            smallest.sort(Comparator.comparingInt(SegmentState::liveDocs));
+            merge(smallest.subList(0, mergeFactor));
+        }
+    }
+
+    /**
+     * 把若干段的存活文档合并为一个新段：文档按id归并，倒排表按词归并并映射到新的文档号
+     */
+    private void merge(List<SegmentState> sources) throws IOException {
+        long start = System.currentTimeMillis();
+        int count = sources.size();
+        int[][] docMap = new int[count][];
+        List<SegmentWriter.DocRecord> records = new ArrayList<>();
+
+        int[] next = new int[count];
+        PriorityQueue<Integer> byId = new PriorityQueue<>(
+            Comparator.comparingLong(s -> sources.get(s).segment().id(next[s]))
+        );
+        for (int s = 0; s < count; s++) {
+            docMap[s] = new int[sources.get(s).segment().docCount()];
+            Arrays.fill(docMap[s], -1);
+            if (advanceLive(sources.get(s), next, s)) {
+                byId.add(s);
+            }
+        }
+        while (!byId.isEmpty()) {
+            int s = byId.poll();
+            docMap[s][next[s]] = records.size();
+            records.add(sources.get(s).segment().docRecord(next[s]));
+            next[s]++;
+            if (advanceLive(sources.get(s), next, s)) {
+                byId.add(s);
+            }
+        }
+
+        Path path = newSegmentPath();
+        Segment merged;
+        try {
+            try (SegmentWriter writer = new SegmentWriter(path, records)) {
+                int[] termIndex = new int[count];
+                PriorityQueue<Integer> byTerm = new PriorityQueue<>(
+                    Comparator.comparing(s -> sources.get(s).segment().sortedTerms()[termIndex[s]])
+                );
+                for (int s = 0; s < count; s++) {
+                    if (sources.get(s).segment().sortedTerms().length > 0) {
+                        byTerm.add(s);
+                    }
+                }
+                PostingsBuffer postings = new PostingsBuffer();
+                while (!byTerm.isEmpty()) {
+                    String term = sources.get(byTerm.peek()).segment().sortedTerms()[termIndex[byTerm.peek()]];
+                    postings.clear();
+                    while (
+                        !byTerm.isEmpty() &&
+                        sources.get(byTerm.peek()).segment().sortedTerms()[termIndex[byTerm.peek()]].equals(term)
+                    ) {
+                        int s = byTerm.poll();
+                        Segment segment = sources.get(s).segment();
+                        Segment.PostingsCursor cursor = segment.postings(segment.term(term));
+                        while (cursor.next()) {
+                            int doc = docMap[s][cursor.doc()];
+                            if (doc >= 0) {
+                                postings.add(doc, cursor.freqs(), 0);
+                            }
+                        }
+                        if (++termIndex[s] < segment.sortedTerms().length) {
+                            byTerm.add(s);
+                        }
+                    }
+                    postings.sort();
+                    writer.addTerm(term, postings);
+                }
+                writer.finish();
+            }
+            merged = Segment.open(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+
+        List<Segment> dropped = new ArrayList<>();
+        sources.forEach(state -> dropped.add(state.segment()));
+        segments.removeAll(sources);
+        segments.add(new SegmentState(merged, new BitSet()));
+        commit();
+        publish();
+        deleteFiles(dropped);
+        logger.debug(
+            "Merged {} segments into {} in {}ms",
+            count, merged, System.currentTimeMillis() - start
+        );
+    }
+
+    private static boolean advanceLive(SegmentState state, int[] next, int s) {
+        int doc = state.deleted().nextClearBit(next[s]);
+        next[s] = doc;
+        return doc < state.segment().docCount();
+    }
+
+    private void collectAll(SegmentView view, Filter filter, TopHits collector) {
+        Segment segment = view.segment();
+        for (int doc = view.deleted().nextClearBit(0); doc < segment.docCount(); doc = view.deleted().nextClearBit(doc + 1)) {
+            if (filter.matches(doc)) {
+                collector.collect(segment, doc, segment.searchWeight(doc));
+            }
+        }
+    }
+
+    private void scoreSegment(
+        Snapshot current,
+        SegmentView view,
+        List<ClauseTerms> clauses,
+        Map<String, Float> idf,
+        Filter filter,
+        TopHits collector
+    ) {
+        Segment segment = view.segment();
+        float[] scores = null;
+        int[] matched = null;
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (int c = 0; c < clauses.size(); c++) {
+            ClauseTerms clause = clauses.get(c);
+            for (String term : clause.terms()) {
+                Segment.TermInfo info = segment.term(term);
+                if (info == null) {
+                    continue;
+                }
+                if (scores == null) {
+                    scores = new float[segment.docCount()];
+                    matched = new int[segment.docCount()];
+                }
+                float termIdf = idf.get(term);
+                Segment.PostingsCursor cursor = segment.postings(info);
+                while (cursor.next()) {
+                    int doc = cursor.doc();
+                    if (view.deleted().get(doc)) {
+                        continue;
+                    }
+                    float tf = 0;
+                    for (int field = 0; field < IndexedField.COUNT; field++) {
+                        int freq = cursor.freq(field);
+                        if (freq > 0 && (clause.fieldMask() & (1 << field)) != 0) {
+                            float norm = 1 - B + B * segment.fieldLength(doc, field) / current.averageFieldLength(field);
+                            tf += IndexedField.values()[field].getBoost() * freq / norm;
+                        }
+                    }
+                    if (tf == 0) {
+                        continue;
+                    }
+                    scores[doc] += termIdf * tf * (K1 + 1) / (tf + K1);
+                    if (matched[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    matched[doc] |= 1 << c;
+                }
+            }
+        }
+        int required = (1 << clauses.size()) - 1;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (matched[doc] == required && filter.matches(doc)) {
+                collector.collect(segment, doc, scores[doc] * segment.searchWeight(doc));
+            }
+        }
+    }
+
+    private Path newSegmentPath() {
+        return directory.resolve("_" + Integer.toString(nextSegmentNumber++, Character.MAX_RADIX) + SEGMENT_SUFFIX);
+    }
+
+    private void commit() throws IOException {
+        Path temp = directory.resolve(COMMIT_TEMP_FILE);
+        try (
+            FileOutputStream file = new FileOutputStream(temp.toFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))
+        ) {
+            out.writeInt(COMMIT_MAGIC);
+            out.writeInt(nextSegmentNumber);
+            out.writeInt(segments.size());
+            for (SegmentState state : segments) {
+                out.writeUTF(state.segment().name());
+                long[] words = state.deleted().toLongArray();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(
+            temp,
+            directory.resolve(COMMIT_FILE),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    private void loadCommit() throws IOException {
+        Path commitFile = directory.resolve(COMMIT_FILE);
+        if (!Files.exists(commitFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(commitFile)))) {
+            if (in.readInt() != COMMIT_MAGIC) {
+                throw new IOException("Corrupt commit file: " + commitFile);
+            }
+            nextSegmentNumber = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                segments.add(new SegmentState(Segment.open(directory.resolve(name)), BitSet.valueOf(words)));
+            }
+        }
+        logger.info("Opened search index {} with {} segments", directory, segments.size());
+    }
+
+    // 删除崩溃时遗留的未提交段文件
+    private void deleteUnreferencedFiles() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        segments.forEach(state -> referenced.add(state.segment().name()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // 已发布的快照可能仍在使用被删除的段：映射在文件删除后仍然有效，由GC释放
+    private void deleteFiles(List<Segment> dropped) {
+        for (Segment segment : dropped) {
+            try {
+                Files.deleteIfExists(directory.resolve(segment.name()));
+            } catch (IOException e) {
+                logger.warn("Failed to delete segment {}: {}", segment.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void publish() {
+        List<SegmentView> views = new ArrayList<>(segments.size());
+        for (SegmentState state : segments) {
+            views.add(new SegmentView(state.segment(), (BitSet) state.deleted().clone()));
+        }
+        snapshot = new Snapshot(views);
+    }
+
+    /**
+     * 写入方持有的段状态，删除位图在writeLock下修改
+     */
+    private record SegmentState(Segment segment, BitSet deleted) {
+
+        int liveDocs() {
+            return segment.docCount() - deleted.cardinality();
+        }
+    }
+
+    private record SegmentView(Segment segment, BitSet deleted) {}
+
+    private record ClauseTerms(List<String> terms, int fieldMask) {}
+
+    /**
+     * 查询可见的不可变状态和全局打分统计（含已删除文档，与段内的文档频率一致）
+     */
+    private static final class Snapshot {
+
+        private final List<SegmentView> segments;
+
+        private final int maxDocs;
+
+        private final int liveDocs;
+
+        private final float[] averageFieldLength = new float[IndexedField.COUNT];
+
+        Snapshot(List<SegmentView> segments) {
+            this.segments = List.copyOf(segments);
+            int max = 0;
+            int live = 0;
+            long[] totals = new long[IndexedField.COUNT];
+            for (SegmentView view : segments) {
+                max += view.segment().docCount();
+                live += view.segment().docCount() - view.deleted().cardinality();
+                for (int field = 0; field < IndexedField.COUNT; field++) {
+                    totals[field] += view.segment().totalFieldLength(field);
+                }
+            }
+            this.maxDocs = max;
+            this.liveDocs = live;
+            for (int field = 0; field < IndexedField.COUNT; field++) {
+                averageFieldLength[field] = max > 0 && totals[field] > 0 ? (float) totals[field] / max : 1f;
+            }
+        }
+
+        List<SegmentView> segments() {
+            return segments;
+        }
+
+        int maxDocs() {
+            return maxDocs;
+        }
+
+        int liveDocs() {
+            return liveDocs;
+        }
+
+        float averageFieldLength(int field) {
+            return averageFieldLength[field];
+        }
+
+        float idf(String term) {
+            long docFreq = 0;
+            for (SegmentView view : segments) {
+                Segment.TermInfo info = view.segment().term(term);
+                if (info != null) {
+                    docFreq += info.docFreq();
+                }
+            }
+            return (float) Math.log(1 + (maxDocs - docFreq + 0.5) / (docFreq + 0.5));
+        }
+    }
+
+    /**
+     * 段内的过滤条件，字符串条件预先解析为段内字符串表的序号
+     */
+    private record Filter(
+        Segment segment,
+        boolean publicOnly,
+        int languageOrd,
+        int contentType,
+        boolean[] categories,
+        long startMillis,
+        long endMillis
+    ) {
+
+        /**
+         * 段内不可能有匹配时返回null
+         */
+        static Filter of(SearchQuery query, Segment segment) {
+            int languageOrd = -1;
+            if (query.language() != null) {
+                languageOrd = segment.stringOrd(query.language());
+                if (languageOrd < 0) {
+                    return null;
+                }
+            }
+            boolean[] categories = null;
+            if (query.categoryPath() != null) {
+                String needle = query.categoryPath().toLowerCase(Locale.ROOT);
+                String[] strings = segment.strings();
+                categories = new boolean[strings.length];
+                boolean any = false;
+                for (int i = 0; i < strings.length; i++) {
+                    categories[i] = strings[i].toLowerCase(Locale.ROOT).contains(needle);
+                    any |= categories[i];
+                }
+                if (!any) {
+                    return null;
+                }
+            }
+            return new Filter(
+                segment,
+                query.publicOnly(),
+                languageOrd,
+                query.contentType() != null ? query.contentType().ordinal() : -1,
+                categories,
+                query.startDate() != null ? IndexedDocument.toMillis(query.startDate()) : Long.MIN_VALUE,
+                query.endDate() != null ? IndexedDocument.toMillis(query.endDate()) : Long.MAX_VALUE
+            );
+        }
+
+        boolean matches(int doc) {
+            if (publicOnly && !segment.isPublic(doc)) {
+                return false;
+            }
+            if (languageOrd >= 0 && segment.languageOrd(doc) != languageOrd) {
+                return false;
+            }
+            if (contentType >= 0 && segment.contentType(doc) != contentType) {
+                return false;
+            }
+            if (categories != null) {
+                int ord = segment.categoryOrd(doc);
+                if (ord < 0 || !categories[ord]) {
+                    return false;
+                }
+            }
+            long createdAt = segment.createdAtMillis(doc);
+            return createdAt >= startMillis && createdAt <= endMillis;
+        }
+    }
+
+    /**
+     * 保留得分最高的size个命中并统计命中总数
+     */
+    private static final class TopHits {
+
+        private static final Comparator<SearchHits.Hit> ORDER = Comparator
+            .comparingDouble(SearchHits.Hit::score)
+            .thenComparingLong(SearchHits.Hit::id);
+
+        private final int size;
+
+        private final PriorityQueue<SearchHits.Hit> queue;
+
+        private long totalHits;
+
+        TopHits(int size) {
+            this.size = size;
+            this.queue = new PriorityQueue<>(Math.max(1, size), ORDER);
+        }
+
+        void collect(Segment segment, int doc, float score) {
+            totalHits++;
+            if (size == 0) {
+                return;
+            }
+            if (queue.size() < size) {
+                queue.add(new SearchHits.Hit(segment.id(doc), segment.documentId(doc), score));
+            } else if (score > queue.peek().score() || (score == queue.peek().score() && segment.id(doc) > queue.peek().id())) {
+                queue.poll();
+                queue.add(new SearchHits.Hit(segment.id(doc), segment.documentId(doc), score));
+            }
+        }
+
+        SearchHits result(int offset, int limit) {
+            List<SearchHits.Hit> hits = new ArrayList<>(queue);
+            hits.sort(ORDER.reversed());
+            if (offset >= hits.size()) {
+                return new SearchHits(totalHits, List.of());
+            }
+            return new SearchHits(totalHits, List.copyOf(hits.subList(offset, Math.min(hits.size(), offset + limit))));
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex.ContentType;
+import java.util.ArrayList;
+import java.util.List;
+import org.commonmark.ext.gfm.tables.TableBlock;
+import org.commonmark.ext.gfm.tables.TableCell;
+import org.commonmark.ext.gfm.tables.TableRow;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.ext.heading.anchor.IdGenerator;
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.BlockQuote;
+import org.commonmark.node.BulletList;
+import org.commonmark.node.Code;
+import org.commonmark.node.CustomNode;
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.HardLineBreak;
+import org.commonmark.node.Heading;
+import org.commonmark.node.HtmlBlock;
+import org.commonmark.node.Image;
+import org.commonmark.node.IndentedCodeBlock;
+import org.commonmark.node.LinkReferenceDefinition;
+import org.commonmark.node.ListItem;
+import org.commonmark.node.Node;
+import org.commonmark.node.OrderedList;
+import org.commonmark.node.Paragraph;
+import org.commonmark.node.SoftLineBreak;
+import org.commonmark.node.SourceSpan;
+import org.commonmark.node.Text;
+import org.commonmark.node.ThematicBreak;
+import org.commonmark.parser.IncludeSourceSpans;
+import org.commonmark.parser.Parser;
+import org.jsoup.Jsoup;
+
+/**
+ * 把Markdown文档切分为索引内容块
+ * 位置0为整篇文档（FULL_CONTENT），其后按顶层块的顺序编号：标题、段落、代码块、表格、列表、引用、图片。
+ * 锚点ID与EditorService渲染HTML时HeadingAnchorExtension生成的标题id一致，块的锚点为所在小节的标题。
+ */
+public class MarkdownBlockSplitter {
+
+    public static final int SUMMARY_LENGTH = 200;
+
+    private final Parser parser = Parser.builder()
+        .extensions(List.of(TablesExtension.create()))
+        .includeSourceSpans(IncludeSourceSpans.BLOCKS)
+        .build();
+
+    private final TextAnalyzer analyzer = new StandardTextAnalyzer();
+
+    /**
+     * 内容块
+     *
+     * @param title   所在小节的标题，小节之前的块和整篇文档块使用文档标题
+     * @param content 块对应的Markdown原文
+     */
+    public record Block(
+        int position,
+        ContentType contentType,
+        String title,
+        String anchorId,
+        String content,
+        String plainText,
+        String summary,
+        int wordCount
+    ) {}
+
+    public List<Block> split(String documentTitle, String markdown) {
+        String source = markdown == null ? "" : markdown.replace("\r\n", "\n").replace('\r', '\n');
+        String[] lines = source.split("\n", -1);
+        Node document = parser.parse(source);
+        IdGenerator ids = IdGenerator.builder().defaultId("id").build();
+
+        List<Block> blocks = new ArrayList<>();
+        blocks.add(block(0, ContentType.FULL_CONTENT, documentTitle, null, source, plainText(document)));
+
+        String sectionTitle = documentTitle;
+        String anchorId = null;
+        for (Node node = document.getFirstChild(); node != null; node = node.getNext()) {
+            ContentType type = contentType(node);
+            if (type == null) {
+                continue;
+            }
+            String text = plainText(node);
+            if (node instanceof Heading) {
+                anchorId = ids.generateId(headingText(node));
+                sectionTitle = text.isEmpty() ? documentTitle : text;
+            }
+            if (text.isEmpty()) {
+                continue;
+            }
+            blocks.add(block(blocks.size(), type, sectionTitle, anchorId, slice(node, lines, text), text));
+        }
+        return blocks;
+    }
+
+    private Block block(int position, ContentType type, String title, String anchorId, String content, String text) {
+        return new Block(position, type, title, anchorId, content, text, summarize(text), analyzer.analyze(text).size());
+    }
+
+    private static ContentType contentType(Node node) {
+        if (node instanceof Heading) {
+            return ContentType.TITLE;
+        }
+        if (node instanceof Paragraph) {
+            return onlyImages(node) ? ContentType.IMAGE_CAPTION : ContentType.PARAGRAPH;
+        }
+        if (node instanceof FencedCodeBlock || node instanceof IndentedCodeBlock) {
+            return ContentType.CODE_BLOCK;
+        }
+        if (node instanceof TableBlock) {
+            return ContentType.TABLE;
+        }
+        if (node instanceof BulletList || node instanceof OrderedList) {
+            return ContentType.LIST;
+        }
+        if (node instanceof BlockQuote) {
+            return ContentType.QUOTE;
+        }
+        if (node instanceof HtmlBlock) {
+            return ContentType.PARAGRAPH;
+        }
+        // 分隔线、链接引用定义不产生内容块
+        if (node instanceof ThematicBreak || node instanceof LinkReferenceDefinition) {
+            return null;
+        }
+        return ContentType.PARAGRAPH;
+    }
+
+    private static boolean onlyImages(Node paragraph) {
+        boolean image = false;
+        for (Node child = paragraph.getFirstChild(); child != null; child = child.getNext()) {
+            if (child instanceof Image) {
+                image = true;
+            } else if (child instanceof Text text) {
+                if (!text.getLiteral().isBlank()) {
+                    return false;
+                }
+            } else if (!(child instanceof SoftLineBreak || child instanceof HardLineBreak)) {
+                return false;
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 按源码位置截取块的Markdown原文，没有位置信息时使用纯文本
+     */
+    private static String slice(Node node, String[] lines, String fallback) {
+        List<SourceSpan> spans = node.getSourceSpans();
+        if (spans.isEmpty()) {
+            return fallback;
+        }
+        StringBuilder content = new StringBuilder();
+        for (SourceSpan span : spans) {
+            if (span.getLineIndex() >= lines.length) {
+                break;
+            }
+            String line = lines[span.getLineIndex()];
+            int start = Math.min(span.getColumnIndex(), line.length());
+            int end = Math.min(start + span.getLength(), line.length());
+            if (content.length() > 0) {
+                content.append('\n');
+            }
+            content.append(line, start, end);
+        }
+        return content.toString();
+    }
+
+    /**
+     * 与HeadingAnchorExtension相同：只取文本和行内代码
+     */
+    private static String headingText(Node heading) {
+        StringBuilder text = new StringBuilder();
+        heading.accept(new AbstractVisitor() {
+            @Override
+            public void visit(Text node) {
+                text.append(node.getLiteral());
+            }
+
+            @Override
+            public void visit(Code node) {
+                text.append(node.getLiteral());
+            }
+        });
+        return text.toString();
+    }
+
+    static String plainText(Node node) {
+        PlainTextCollector collector = new PlainTextCollector();
+        node.accept(collector);
+        StringBuilder text = new StringBuilder();
+        for (String line : collector.text.toString().split("\n")) {
+            String normalized = line.replaceAll("[ \\t\\x0B\\f]+", " ").strip();
+            if (!normalized.isEmpty()) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(normalized);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 摘要：空白折叠后的前SUMMARY_LENGTH个字符
+     */
+    static String summarize(String plainText) {
+        String collapsed = plainText.replaceAll("\\s+", " ").strip();
+        if (collapsed.codePointCount(0, collapsed.length()) <= SUMMARY_LENGTH) {
+            return collapsed;
+        }
+        return collapsed.substring(0, collapsed.offsetByCodePoints(0, SUMMARY_LENGTH)) + "...";
+    }
+
+    private static class PlainTextCollector extends AbstractVisitor {
+
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void visit(Text node) {
+            text.append(node.getLiteral());
+        }
+
+        @Override
+        public void visit(Code node) {
+            text.append(node.getLiteral());
+        }
+
+        @Override
+        public void visit(SoftLineBreak node) {
+            text.append('\n');
+        }
+
+        @Override
+        public void visit(HardLineBreak node) {
+            text.append('\n');
+        }
+
+        @Override
+        public void visit(FencedCodeBlock node) {
+            text.append(node.getLiteral()).append('\n');
+        }
+
+        @Override
+        public void visit(IndentedCodeBlock node) {
+            text.append(node.getLiteral()).append('\n');
+        }
+
+        @Override
+        public void visit(HtmlBlock node) {
+            text.append(Jsoup.parse(node.getLiteral()).text()).append('\n');
+        }
+
+        @Override
+        public void visit(Paragraph node) {
+            visitChildren(node);
+            text.append('\n');
+        }
+
+        @Override
+        public void visit(Heading node) {
+            visitChildren(node);
+            text.append('\n');
+        }
+
+        @Override
+        public void visit(ListItem node) {
+            visitChildren(node);
+            text.append('\n');
+        }
+
+        @Override
+        public void visit(CustomNode node) {
+            visitChildren(node);
+            if (node instanceof TableCell) {
+                text.append(' ');
+            } else if (node instanceof TableRow) {
+                text.append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.cms.permissions.search;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 汉字拼音（不带声调）
+ * GB2312一级汉字（3755个常用字）按拼音排序，表中只记录每个音节在一级字库中的第一个字，
+ * 启动时按GB2312顺序展开为逐字的映射；二级汉字和其他汉字没有拼音。多音字取GB2312排序所用的读音。
+ */
+final class Pinyin {
+
+    // 音节及其在GB2312一级字库中的第一个字，按字库顺序排列
+    private static final String TABLE =
+        "a啊 ai埃 an鞍 ang肮 ao凹 ba芭 bai白 ban斑 bang邦 bao苞 bei杯 ben奔 beng崩 bi逼 bian鞭 biao标 " +
+        "bie鳖 bin彬 bing兵 bo玻 bu捕 ca擦 cai猜 can餐 cang苍 cao操 ce厕 ceng层 cha插 chai拆 chan搀 " +
+        "chang昌 chao超 che车 chen郴 cheng撑 chi吃 chong充 chou抽 chu初 chuai揣 chuan川 chuang疮 chui吹 " +
+        "chun春 chuo戳 ci疵 cong聪 cou凑 cu粗 cuan蹿 cui摧 cun村 cuo磋 da搭 dai呆 dan耽 dang当 dao刀 " +
+        "de德 deng蹬 di堤 dian颠 diao碉 die跌 ding丁 diu丢 dong东 dou兜 du都 duan端 dui堆 dun墩 duo掇 " +
+        "e蛾 en恩 er而 fa发 fan藩 fang坊 fei菲 fen芬 feng丰 fo佛 fou否 fu夫 ga噶 gai该 gan干 gang冈 " +
+        "gao篙 ge哥 gei给 gen根 geng耕 gong工 gou钩 gu辜 gua刮 guai乖 guan棺 guang光 gui瑰 gun辊 guo锅 " +
+        "ha哈 hai骸 han酣 hang夯 hao壕 he呵 hei嘿 hen痕 heng哼 hong轰 hou喉 hu呼 hua花 huai槐 huan欢 " +
+        "huang荒 hui灰 hun荤 huo豁 ji击 jia嘉 jian歼 jiang僵 jiao蕉 jie揭 jin巾 jing荆 jiong炯 jiu揪 " +
+        "ju鞠 juan捐 jue撅 jun均 ka喀 kai开 kan刊 kang康 kao考 ke坷 ken肯 keng坑 kong空 kou抠 ku枯 " +
+        "kua夸 kuai块 kuan宽 kuang匡 kui亏 kun坤 kuo括 la垃 lai莱 lan蓝 lang琅 lao捞 le勒 lei雷 leng棱 " +
+        "li厘 lia俩 lian联 liang粮 liao撩 lie列 lin琳 ling拎 liu溜 long龙 lou楼 lu芦 lv驴 luan峦 lue掠 " +
+        "lun抡 luo萝 ma妈 mai埋 man瞒 mang芒 mao猫 me么 mei玫 men门 meng萌 mi眯 mian棉 miao苗 mie蔑 " +
+        "min民 ming明 miu谬 mo摸 mou谋 mu拇 na拿 nai氖 nan南 nang囊 nao挠 ne呢 nei馁 nen嫩 neng能 " +
+        "ni妮 nian蔫 niang娘 niao鸟 nie捏 nin您 ning柠 niu牛 nong脓 nu奴 nv女 nuan暖 nue虐 nuo挪 o哦 " +
+        "ou欧 pa啪 pai拍 pan攀 pang乓 pao抛 pei呸 pen喷 peng砰 pi坯 pian篇 piao飘 pie撇 pin拼 ping乒 " +
+        "po坡 pou剖 pu扑 qi期 qia掐 qian牵 qiang枪 qiao橇 qie切 qin钦 qing青 qiong琼 qiu秋 qu趋 quan圈 " +
+        "que缺 qun裙 ran然 rang瓤 rao饶 re惹 ren壬 reng扔 ri日 rong戎 rou揉 ru茹 ruan软 rui蕊 run闰 " +
+        "ruo若 sa撒 sai腮 san三 sang桑 sao搔 se瑟 sen森 seng僧 sha莎 shai筛 shan珊 shang墒 shao梢 " +
+        "she奢 shen砷 sheng声 shi师 shou收 shu蔬 shua刷 shuai摔 shuan栓 shuang霜 shui谁 shun吮 shuo说 " +
+        "si斯 song松 sou搜 su苏 suan酸 sui虽 sun孙 suo蓑 ta塌 tai胎 tan坍 tang汤 tao掏 te特 teng藤 " +
+        "ti梯 tian天 tiao挑 tie贴 ting厅 tong通 tou偷 tu凸 tuan湍 tui推 tun吞 tuo拖 wa挖 wai歪 wan豌 " +
+        "wang汪 wei威 wen瘟 weng嗡 wo挝 wu巫 xi昔 xia瞎 xian掀 xiang相 xiao萧 xie楔 xin薪 xing星 " +
+        "xiong兄 xiu休 xu墟 xuan轩 xue靴 xun勋 ya压 yan焉 yang殃 yao邀 ye椰 yi一 yin茵 ying英 yo哟 " +
+        "yong拥 you幽 yu迂 yuan鸳 yue曰 yun耘 za匝 zai栽 zan咱 zang赃 zao遭 ze责 zei贼 zen怎 zeng增 " +
+        "zha扎 zhai摘 zhan瞻 zhang樟 zhao招 zhe遮 zhen珍 zheng蒸 zhi芝 zhong中 zhou舟 zhu珠 zhua抓 " +
+        "zhuai拽 zhuan专 zhuang桩 zhui椎 zhun谆 zhuo捉 zi兹 zong鬃 zou邹 zu租 zuan钻 zui嘴 zun尊 zuo昨";
+
+    private static final int MAX_SYLLABLE_LENGTH = 6;
+
+    private static final Map<Character, String> BY_CHAR = new HashMap<>();
+
+    private static final Set<String> SYLLABLES = new HashSet<>();
+
+    static {
+        List<String> syllables = new ArrayList<>();
+        List<Character> firstChars = new ArrayList<>();
+        for (String entry : TABLE.split(" ")) {
+            syllables.add(entry.substring(0, entry.length() - 1));
+            firstChars.add(entry.charAt(entry.length() - 1));
+        }
+        SYLLABLES.addAll(syllables);
+        char[] level1 = gb2312Level1();
+        int syllable = -1;
+        for (char c : level1) {
+            if (syllable + 1 < firstChars.size() && firstChars.get(syllable + 1) == c) {
+                syllable++;
+            }
+            if (syllable >= 0) {
+                BY_CHAR.put(c, syllables.get(syllable));
+            }
+        }
+    }
+
+    private Pinyin() {}
+
+    /**
+     * 字的拼音，没有时返回null
+     */
+    static String of(int codePoint) {
+        return codePoint > Character.MAX_VALUE ? null : BY_CHAR.get((char) codePoint);
+    }
+
+    static boolean isSyllable(String text) {
+        return SYLLABLES.contains(text);
+    }
+
+    /**
+     * 把小写字母串切分为拼音音节（优先尝试最长的音节），不能完整切分时返回空列表
+     */
+    static List<String> segment(String text) {
+        List<String> result = new ArrayList<>();
+        return segment(text, 0, result) ? result : Collections.emptyList();
+    }
+
+    private static boolean segment(String text, int start, List<String> result) {
+        if (start == text.length()) {
+            return true;
+        }
+        for (int end = Math.min(text.length(), start + MAX_SYLLABLE_LENGTH); end > start; end--) {
+            String syllable = text.substring(start, end);
+            if (SYLLABLES.contains(syllable)) {
+                result.add(syllable);
+                if (segment(text, end, result)) {
+                    return true;
+                }
+                result.remove(result.size() - 1);
+            }
+        }
+        return false;
+    }
+
+    static int size() {
+        return BY_CHAR.size();
+    }
+
+    /**
+     * 按编码顺序解码GB2312一级汉字（0xB0A1-0xD7F9），运行时不支持GB2312时返回空数组
+     */
+    private static char[] gb2312Level1() {
+        if (!Charset.isSupported("GB2312")) {
+            return new char[0];
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(3755 * 2);
+        for (int hi = 0xB0; hi <= 0xD7; hi++) {
+            for (int lo = 0xA1; lo <= (hi == 0xD7 ? 0xF9 : 0xFE); lo++) {
+                bytes.put((byte) hi).put((byte) lo);
+            }
+        }
+        bytes.flip();
+        try {
+            CharBuffer chars = Charset.forName("GB2312").newDecoder().decode(bytes);
+            char[] result = new char[chars.remaining()];
+            chars.get(result);
+            return result;
+        } catch (CharacterCodingException e) {
+            return new char[0];
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拼音折叠：索引时为每个二元词增加两个字拼音相连的词（"数据"增加"shuju"）；
+ * 查询时能完整切分为两个以上音节的字母词同样转换为相邻音节相连的词（"shujuku"查询"shuju"、"juku"），
+ * 用户不切换输入法也能搜到中文内容。只有GB2312一级汉字有拼音，见Pinyin。
+ */
+public class PinyinFilter implements TokenFilter {
+
+    @Override
+    public List<Token> filter(List<Token> tokens, boolean query) {
+        List<Token> result = new ArrayList<>(tokens.size() * 2);
+        for (Token token : tokens) {
+            result.add(token);
+            if (!query && token.type() == Token.Type.CJK_BIGRAM) {
+                String pinyin = pinyin(token.text());
+                if (pinyin != null) {
+                    result.add(new Token(pinyin, Token.Type.PINYIN, token.position()));
+                }
+            } else if (query && token.type() == Token.Type.WORD && isLatin(token.text())) {
+                List<String> syllables = Pinyin.segment(token.text());
+                for (int i = 0; i + 1 < syllables.size(); i++) {
+                    String pair = syllables.get(i) + syllables.get(i + 1);
+                    if (!pair.equals(token.text())) {
+                        result.add(new Token(pair, Token.Type.PINYIN, token.position()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String pinyin(String text) {
+        StringBuilder pinyin = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            String syllable = Pinyin.of(codePoint);
+            if (syllable == null) {
+                return null;
+            }
+            pinyin.append(syllable);
+            i += Character.charCount(codePoint);
+        }
+        return pinyin.toString();
+    }
+
+    private static boolean isLatin(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
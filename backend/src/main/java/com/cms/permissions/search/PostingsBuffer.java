@@ -0,0 +1,88 @@
+package com.cms.permissions.search;
+
+import java.util.Arrays;
+
+/**
+ * 一个词的倒排表缓冲：按段内文档号升序的文档号和每个字段的词频
+ */
+final class PostingsBuffer {
+
+    private int[] docs = new int[4];
+
+    private int[] freqs = new int[4 * IndexedField.COUNT];
+
+    private int size;
+
+    /**
+     * 记录文档在字段中出现一次；文档号必须不小于上一次记录的文档号
+     */
+    void occur(int doc, int field) {
+        if (size == 0 || docs[size - 1] != doc) {
+            append(doc);
+        }
+        freqs[(size - 1) * IndexedField.COUNT + field]++;
+    }
+
+    /**
+     * 追加一个文档的全部字段词频，文档号可以乱序，写出前调用sort
+     */
+    void add(int doc, int[] fieldFreqs, int offset) {
+        append(doc);
+        System.arraycopy(fieldFreqs, offset, freqs, (size - 1) * IndexedField.COUNT, IndexedField.COUNT);
+    }
+
+    void sort() {
+        for (int i = 1; i < size; i++) {
+            if (docs[i - 1] > docs[i]) {
+                sortByDoc();
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int i) {
+        return docs[i];
+    }
+
+    int freq(int i, int field) {
+        return freqs[i * IndexedField.COUNT + field];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void append(int doc) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            freqs = Arrays.copyOf(freqs, size * 2 * IndexedField.COUNT);
+        }
+        docs[size] = doc;
+        Arrays.fill(freqs, size * IndexedField.COUNT, (size + 1) * IndexedField.COUNT, 0);
+        size++;
+    }
+
+    private void sortByDoc() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(docs[a], docs[b]));
+        int[] sortedDocs = new int[docs.length];
+        int[] sortedFreqs = new int[freqs.length];
+        for (int i = 0; i < size; i++) {
+            sortedDocs[i] = docs[order[i]];
+            System.arraycopy(
+                freqs, order[i] * IndexedField.COUNT,
+                sortedFreqs, i * IndexedField.COUNT,
+                IndexedField.COUNT
+            );
+        }
+        docs = sortedDocs;
+        freqs = sortedFreqs;
+    }
+}
@@ -0,0 +1,317 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.SearchHistory;
+import com.cms.permissions.security.CustomUserDetails;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 搜索历史记录器
+ * 搜索线程只把记录放入有界内存队列，不访问数据库；后台线程定期按批取出，在一个事务中用JDBC批量插入search_history，
+ * 并累加每小时汇总（search_hourly_rollup）和每小时每个搜索词的汇总（search_query_hourly_rollup），统计查询读取汇总表。
+ * 队列占用超过sample-threshold时按sample-rate抽样，保留的记录在汇总中按1/sample-rate计数；队列满时丢弃，搜索线程从不阻塞。
+ */
+@Service
+public class SearchHistoryRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SearchHistoryRecorder.class
+    );
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String INSERT_HISTORY =
+        "INSERT INTO search_history (user_id, search_query, search_type, result_count, search_duration, has_results, " +
+        "ip_address, user_agent, referer, applied_filters, page_number, page_size, search_time, session_id, " +
+        "is_suggestion, search_language) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_HOURLY =
+        "INSERT INTO search_hourly_rollup (hour_start, searches, successful_searches, total_duration, duration_samples) " +
+        "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE searches = searches + VALUES(searches), " +
+        "successful_searches = successful_searches + VALUES(successful_searches), " +
+        "total_duration = total_duration + VALUES(total_duration), " +
+        "duration_samples = duration_samples + VALUES(duration_samples)";
+
+    private static final String UPSERT_QUERY_HOURLY =
+        "INSERT INTO search_query_hourly_rollup (hour_start, search_query, searches, no_result_searches) " +
+        "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE searches = searches + VALUES(searches), " +
+        "no_result_searches = no_result_searches + VALUES(no_result_searches)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${search.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.history.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${search.history.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.history.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    // 队列占用达到该比例后开始抽样
+    @Value("${search.history.sample-threshold:0.8}")
+    private double sampleThreshold;
+
+    @Value("${search.history.sample-rate:0.1}")
+    private double sampleRate;
+
+    private final AtomicLong receivedRecords = new AtomicLong();
+
+    private final AtomicLong sampledOutRecords = new AtomicLong();
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    private final AtomicLong writtenRecords = new AtomicLong();
+
+    private final AtomicLong failedRecords = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private BlockingQueue<Pending> queue;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService worker;
+
+    /**
+     * 待写入的记录；weight为该记录在汇总中代表的搜索次数
+     */
+    private record Pending(SearchHistory history, Map<String, Object> filters, int weight) {}
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            worker.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 写入剩余的记录
+        flush();
+    }
+
+    /**
+     * 记录一次搜索；用户、IP、User-Agent等从当前请求和认证信息中读取，必须在搜索线程中调用
+     *
+     * @param filters 搜索条件，写入applied_filters，可为null
+     */
+    public void record(SearchHistory.SearchType searchType,
+                       String query,
+                       long resultCount,
+                       long durationMs,
+                       String language,
+                       int page,
+                       int size,
+                       Map<String, Object> filters) {
+        if (!enabled || query == null || query.isBlank()) {
+            return;
+        }
+        receivedRecords.incrementAndGet();
+        int weight = 1;
+        if (queue.size() >= queueCapacity * sampleThreshold) {
+            if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                sampledOutRecords.incrementAndGet();
+                return;
+            }
+            weight = (int) Math.round(1 / sampleRate);
+        }
+        SearchHistory history = SearchHistory.builder()
+            .userId(currentUserId())
+            .searchQuery(truncate(query.strip().replaceAll("\\s+", " "), 500))
+            .searchType(searchType)
+            .resultCount(resultCount)
+            .searchDuration(durationMs)
+            .hasResults(resultCount > 0)
+            .searchLanguage(truncate(language != null ? language : "zh-CN", 10))
+            // 页码从1开始
+            .pageNumber(page + 1)
+            .pageSize(size)
+            .searchTime(LocalDateTime.now())
+            .isSuggestion(false)
+            .build();
+        applyRequest(history);
+        if (!queue.offer(new Pending(history, filters, weight))) {
+            droppedRecords.incrementAndGet();
+        }
+    }
+
+    /**
+     * 按批写入队列中的全部记录
+     */
+    void flush() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+                writtenRecords.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                failedRecords.addAndGet(batch.size());
+                logger.warn("Failed to write {} search history records: {}", batch.size(), e.getMessage());
+            }
+            batches.incrementAndGet();
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        Map<LocalDateTime, long[]> hourly = new LinkedHashMap<>();
+        Map<HourQuery, long[]> queryHourly = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            SearchHistory history = pending.history();
+            rows.add(new Object[] {
+                history.getUserId(),
+                history.getSearchQuery(),
+                history.getSearchType().name(),
+                history.getResultCount(),
+                history.getSearchDuration(),
+                history.getHasResults(),
+                history.getIpAddress(),
+                history.getUserAgent(),
+                history.getReferer(),
+                filters(pending.filters()),
+                history.getPageNumber(),
+                history.getPageSize(),
+                history.getSearchTime(),
+                history.getSessionId(),
+                history.getIsSuggestion(),
+                history.getSearchLanguage()
+            });
+
+            LocalDateTime hour = history.getSearchTime().truncatedTo(ChronoUnit.HOURS);
+            int weight = pending.weight();
+            long[] totals = hourly.computeIfAbsent(hour, h -> new long[4]);
+            totals[0] += weight;
+            totals[1] += history.getHasResults() ? weight : 0;
+            if (history.getSearchDuration() != null) {
+                totals[2] += history.getSearchDuration() * weight;
+                totals[3] += weight;
+            }
+            long[] counts = queryHourly.computeIfAbsent(new HourQuery(hour, history.getSearchQuery()), k -> new long[2]);
+            counts[0] += weight;
+            counts[1] += history.getHasResults() ? 0 : weight;
+        }
+
+        List<Object[]> hourlyArgs = new ArrayList<>(hourly.size());
+        hourly.forEach((hour, totals) -> hourlyArgs.add(new Object[] { hour, totals[0], totals[1], totals[2], totals[3] }));
+        List<Object[]> queryArgs = new ArrayList<>(queryHourly.size());
+        queryHourly.forEach((key, counts) -> queryArgs.add(new Object[] { key.hour(), key.query(), counts[0], counts[1] }));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY, rows);
+            jdbcTemplate.batchUpdate(UPSERT_HOURLY, hourlyArgs);
+            jdbcTemplate.batchUpdate(UPSERT_QUERY_HOURLY, queryArgs);
+        });
+    }
+
+    private record HourQuery(LocalDateTime hour, String query) {}
+
+    private static String filters(Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(filters);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+    /**
+     * 从当前请求读取客户端信息，不在请求线程中时跳过
+     */
+    private static void applyRequest(SearchHistory history) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        String ip = forwardedFor != null && !forwardedFor.isEmpty()
+            ? forwardedFor.split(",")[0].trim()
+            : request.getRemoteAddr();
+        history.setIpAddress(truncate(ip, 45));
+        history.setUserAgent(truncate(request.getHeader("User-Agent"), 500));
+        history.setReferer(truncate(request.getHeader("Referer"), 500));
+        HttpSession session = request.getSession(false);
+        history.setSessionId(session != null ? truncate(session.getId(), 100) : null);
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue.size());
+        stats.put("receivedRecords", receivedRecords.get());
+        stats.put("sampledOutRecords", sampledOutRecords.get());
+        stats.put("droppedRecords", droppedRecords.get());
+        stats.put("writtenRecords", writtenRecords.get());
+        stats.put("failedRecords", failedRecords.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cms.permissions.search;
+
+import java.util.List;
+
+/**
+ * 查询结果：命中总数和按得分从高到低排列的当前页
+ */
+public record SearchHits(long totalHits, List<Hit> hits) {
+
+    public record Hit(long id, long documentId, float score) {}
+}
@@ -0,0 +1,47 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Singular;
+
+/**
+ * 倒排索引查询
+ * 每个子句在指定字段中匹配任意一个词即满足，结果必须满足全部子句（没有子句时匹配所有通过过滤的内容块）；
+ * 过滤条件与DocumentIndexRepository中的查询一致，分类路径为不区分大小写的包含匹配。
+ */
+@Builder
+public record SearchQuery(
+    @Singular List<Clause> clauses,
+    boolean publicOnly,
+    String language,
+    DocumentIndex.ContentType contentType,
+    String categoryPath,
+    LocalDateTime startDate,
+    LocalDateTime endDate
+) {
+
+    /**
+     * 查询子句：文本和搜索的字段
+     */
+    public record Clause(String text, Set<IndexedField> fields) {
+
+        public static Clause of(String text, IndexedField... fields) {
+            return new Clause(
+                text,
+                fields.length == 0 ? EnumSet.allOf(IndexedField.class) : EnumSet.of(fields[0], fields)
+            );
+        }
+
+        int fieldMask() {
+            int mask = 0;
+            for (IndexedField field : fields) {
+                mask |= field.bit();
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,639 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.repository.DocumentIndexRepository;
+import com.cms.permissions.repository.SearchHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * 搜索建议（/api/search/suggest）
+ * 候选为document_index中的文档标题和小节标题，以及近期有结果的热门搜索词，保存在内存前缀树中，
+ * 标题的得分为searchWeight乘以按搜索次数计算的热度。标题在开头、每个词的开头和每个汉字处登记，
+ * 输入标题中间的词也能补全。公开标题单独建一棵树，供只查公开内容的请求使用；搜索词只出现在完整的树中。
+ * 索引管道每批写入后增量更新，热门搜索词定期刷新；状态定期写入快照文件，启动时先从快照加载，
+ * 再在后台从数据库重建。未就绪时SearchService继续使用数据库查询。
+ */
+@Service
+@ConditionalOnProperty(prefix = "search.suggest", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SearchSuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SearchSuggestionService.class
+    );
+
+    private static final int SNAPSHOT_MAGIC = 0x434d5347;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // 只有整篇文档和小节标题块的标题作为候选，其他块的标题与这两类相同
+    static final List<DocumentIndex.ContentType> SOURCE_TYPES = List.of(
+        DocumentIndex.ContentType.FULL_CONTENT,
+        DocumentIndex.ContentType.TITLE
+    );
+
+    // 每个候选最多登记的键数和键长度
+    static final int MAX_KEYS = 16;
+
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    @Autowired
+    private DocumentIndexRepository documentIndexRepository;
+
+    @Autowired
+    private SearchHistoryRepository searchHistoryRepository;
+
+    @Value("${search.suggest.snapshot-file:./data/search-suggest/suggestions.snapshot}")
+    private String snapshotFile;
+
+    @Value("${search.suggest.max-results:10}")
+    private int maxResults;
+
+    @Value("${search.suggest.rebuild-page-size:5000}")
+    private int rebuildPageSize;
+
+    // 热门搜索词的统计窗口、数量上限和最少搜索次数
+    @Value("${search.suggest.query-window-days:30}")
+    private int queryWindowDays;
+
+    @Value("${search.suggest.max-queries:10000}")
+    private int maxQueries;
+
+    @Value("${search.suggest.min-query-count:3}")
+    private long minQueryCount;
+
+    @Value("${search.suggest.query-refresh-ms:600000}")
+    private long queryRefreshMs;
+
+    @Value("${search.suggest.snapshot-interval-ms:300000}")
+    private long snapshotIntervalMs;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 快照可能同时由后台线程和关闭时写入
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // 以下字段由writeLock保护；state本身可无锁读取
+    private volatile State state;
+
+    private boolean rebuilding;
+
+    // 重建期间的增量更新，重建完成后在新状态上重放；值为null表示删除
+    private final Map<Long, Source> journal = new LinkedHashMap<>();
+
+    private boolean dirty;
+
+    private volatile boolean ready;
+
+    private volatile long lastRebuildMs;
+
+    private ScheduledExecutorService worker;
+
+    /**
+     * 候选来源的document_index行
+     */
+    record Source(String title, double weight, boolean isPublic) {}
+
+    /**
+     * 搜索词（保留原写法）及其次数，按规范化文本登记
+     */
+    record Query(String text, long count) {}
+
+    @PostConstruct
+    public void init() {
+        state = new State(maxResults);
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (loadSnapshot()) {
+                ready = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable suggestion snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+        // 快照可能落后于数据库，始终在后台重建
+        worker.execute(this::rebuild);
+        worker.scheduleWithFixedDelay(this::refreshQueries, queryRefreshMs, queryRefreshMs, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::snapshotIfDirty, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        snapshotIfDirty();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 以query开头（或以其中某个词、某个汉字开头）的候选，按得分排序
+     */
+    public List<String> suggest(String query, boolean publicOnly) {
+        String prefix = normalize(query == null ? "" : query).stripLeading();
+        State current = state;
+        SuggestionTrie trie = publicOnly ? current.publicTrie : current.allTrie;
+        List<String> result = new ArrayList<>(maxResults);
+        if (prefix.length() <= MAX_KEY_LENGTH) {
+            for (SuggestionTrie.Entry entry : trie.complete(prefix, maxResults)) {
+                result.add(entry.text());
+            }
+            return result;
+        }
+        // 超过键长度的输入按截断的前缀查找后再核对
+        for (SuggestionTrie.Entry entry : trie.complete(prefix.substring(0, MAX_KEY_LENGTH), maxResults)) {
+            if (normalize(entry.text()).contains(prefix)) {
+                result.add(entry.text());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 应用索引管道对document_index的写入
+     */
+    public void apply(Collection<DocumentIndex> upserted, Collection<Long> deletedIds) {
+        writeLock.lock();
+        try {
+            for (DocumentIndex row : upserted) {
+                put(row.getId(), source(row));
+            }
+            for (Long id : deletedIds) {
+                put(id, null);
+            }
+            dirty = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void put(Long id, Source source) {
+        state.put(id, source, true);
+        if (rebuilding) {
+            journal.put(id, source);
+        }
+    }
+
+    /**
+     * 从document_index（按ID游标分页，只读取标题列）和搜索历史构建新状态后整体替换
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            rebuilding = true;
+            journal.clear();
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            State next = new State(maxResults);
+            long afterId = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Object[]> rows = documentIndexRepository.findSuggestionSourcesAfter(
+                    afterId,
+                    SOURCE_TYPES,
+                    PageRequest.of(0, rebuildPageSize)
+                );
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    next.put(id, source((String) row[1], (Double) row[2], (Boolean) row[3]), false);
+                    afterId = id;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            next.setQueries(loadQueries(), false);
+            next.build();
+
+            writeLock.lock();
+            try {
+                journal.forEach((id, source) -> next.put(id, source, true));
+                state = next;
+                dirty = true;
+                ready = true;
+            } finally {
+                writeLock.unlock();
+            }
+            lastRebuildMs = System.currentTimeMillis() - start;
+            logger.info(
+                "Search suggestions rebuilt with {} titles and {} queries in {}ms",
+                next.titles.size(), next.queries.size(), lastRebuildMs
+            );
+            snapshotIfDirty();
+        } catch (RuntimeException e) {
+            logger.error("Search suggestion rebuild failed: {}", e.getMessage(), e);
+        } finally {
+            writeLock.lock();
+            try {
+                rebuilding = false;
+                journal.clear();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 重新统计热门搜索词，只更新次数变化的候选
+     */
+    void refreshQueries() {
+        try {
+            Map<String, Query> queries = loadQueries();
+            writeLock.lock();
+            try {
+                state.setQueries(queries, true);
+                dirty = true;
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh popular search queries: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Query> loadQueries() {
+        List<Object[]> rows = searchHistoryRepository.findPopularSearchQueries(
+            LocalDateTime.now().minusDays(queryWindowDays),
+            true,
+            PageRequest.of(0, maxQueries)
+        );
+        Map<String, Query> queries = new HashMap<>();
+        for (Object[] row : rows) {
+            String text = row[0] == null ? "" : ((String) row[0]).strip().replaceAll("\\s+", " ");
+            long count = ((Number) row[1]).longValue();
+            if (text.isEmpty() || text.length() > MAX_QUERY_LENGTH) {
+                continue;
+            }
+            // 大小写不同的搜索词合并计数，显示次数最多的写法
+            queries.merge(normalize(text), new Query(text, count), (a, b) -> new Query(
+                a.count() >= b.count() ? a.text() : b.text(), a.count() + b.count()
+            ));
+        }
+        queries.values().removeIf(query -> query.count() < minQueryCount);
+        return queries;
+    }
+
+    private void snapshotIfDirty() {
+        if (!ready) {
+            return;
+        }
+        try {
+            saveSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write suggestion snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 把候选来源写入快照文件（临时文件加原子重命名），未修改时不写
+     */
+    void saveSnapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            writeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Map<Long, Source> rows;
+        List<Query> queries;
+        writeLock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            rows = new LinkedHashMap<>(state.rows);
+            queries = new ArrayList<>(state.queries.values());
+            dirty = false;
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            write(Path.of(snapshotFile), rows, queries);
+        } catch (IOException | RuntimeException e) {
+            writeLock.lock();
+            try {
+                dirty = true;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private static void write(Path file, Map<Long, Source> rows, List<Query> queries) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (
+            FileOutputStream output = new FileOutputStream(temp.toFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output))
+        ) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(rows.size());
+            for (Map.Entry<Long, Source> row : rows.entrySet()) {
+                out.writeLong(row.getKey());
+                out.writeUTF(row.getValue().title());
+                out.writeDouble(row.getValue().weight());
+                out.writeBoolean(row.getValue().isPublic());
+            }
+            out.writeInt(queries.size());
+            for (Query query : queries) {
+                out.writeUTF(query.text());
+                out.writeLong(query.count());
+            }
+            out.flush();
+            output.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 从快照文件加载候选
+     *
+     * @return 快照不存在时返回false
+     */
+    boolean loadSnapshot() throws IOException {
+        Path file = Path.of(snapshotFile);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        State loaded = new State(maxResults);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported suggestion snapshot: " + file);
+            }
+            int rowCount = in.readInt();
+            for (int i = 0; i < rowCount; i++) {
+                long id = in.readLong();
+                loaded.put(id, new Source(in.readUTF(), in.readDouble(), in.readBoolean()), false);
+            }
+            int queryCount = in.readInt();
+            Map<String, Query> queries = new HashMap<>(queryCount * 2);
+            for (int i = 0; i < queryCount; i++) {
+                Query query = new Query(in.readUTF(), in.readLong());
+                queries.put(normalize(query.text()), query);
+            }
+            loaded.setQueries(queries, false);
+        }
+        loaded.build();
+        writeLock.lock();
+        try {
+            state = loaded;
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info(
+            "Search suggestions loaded from snapshot with {} titles in {}ms",
+            loaded.titles.size(), System.currentTimeMillis() - start
+        );
+        return true;
+    }
+
+    private static Source source(DocumentIndex row) {
+        if (!Boolean.TRUE.equals(row.getIsActive()) || !SOURCE_TYPES.contains(row.getContentType())) {
+            return null;
+        }
+        return source(row.getTitle(), row.getSearchWeight(), row.getIsPublic());
+    }
+
+    private static Source source(String title, Double weight, Boolean isPublic) {
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        return new Source(title.strip(), weight != null ? weight : 1.0, Boolean.TRUE.equals(isPublic));
+    }
+
+    /**
+     * 转小写并把连续空白合并为一个空格
+     */
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 候选登记的键：整个文本，以及每个词的开头和每个汉字处开始的后缀，长度截断为MAX_KEY_LENGTH
+     */
+    static Set<String> keys(String normalized) {
+        Set<String> keys = new LinkedHashSet<>();
+        int previous = -1;
+        for (int i = 0; i < normalized.length() && keys.size() < MAX_KEYS; ) {
+            int codePoint = normalized.codePointAt(i);
+            boolean wordStart = Character.isLetterOrDigit(codePoint)
+                && (previous < 0 || !Character.isLetterOrDigit(previous));
+            if (i == 0 || wordStart || StandardTokenizer.isCjk(codePoint)) {
+                String key = normalized.substring(i);
+                keys.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+            }
+            previous = codePoint;
+            i += Character.charCount(codePoint);
+        }
+        return keys;
+    }
+
+    public Map<String, Object> getStats() {
+        State current = state;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("titles", current.titles.size());
+        stats.put("queries", current.queries.size());
+        stats.put("keys", current.allTrie.size());
+        stats.put("publicKeys", current.publicTrie.size());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+
+    /**
+     * 候选来源和两棵前缀树；重建和加载快照时在新实例上构建后整体替换
+     */
+    private static final class State {
+
+        final Map<Long, Source> rows = new HashMap<>();
+
+        // 规范化标题 -> 使用该标题的行
+        final Map<String, Map<Long, Source>> titles = new HashMap<>();
+
+        final Map<String, Query> queries = new HashMap<>();
+
+        // 规范化文本 -> 当前登记在树中的候选
+        final Map<String, SuggestionTrie.Entry> allEntries = new HashMap<>();
+
+        final Map<String, SuggestionTrie.Entry> publicEntries = new HashMap<>();
+
+        final SuggestionTrie allTrie;
+
+        final SuggestionTrie publicTrie;
+
+        State(int topK) {
+            allTrie = new SuggestionTrie(topK);
+            publicTrie = new SuggestionTrie(topK);
+        }
+
+        void put(Long id, Source source, boolean maintain) {
+            Source old = source != null ? rows.put(id, source) : rows.remove(id);
+            if (old != null) {
+                String key = normalize(old.title());
+                Map<Long, Source> titleRows = titles.get(key);
+                titleRows.remove(id);
+                if (titleRows.isEmpty()) {
+                    titles.remove(key);
+                }
+                if (maintain) {
+                    update(key);
+                }
+            }
+            if (source != null) {
+                String key = normalize(source.title());
+                titles.computeIfAbsent(key, k -> new HashMap<>(2)).put(id, source);
+                if (maintain) {
+                    update(key);
+                }
+            }
+        }
+
+        void setQueries(Map<String, Query> next, boolean maintain) {
+            Set<String> changed = new LinkedHashSet<>();
+            queries.forEach((text, query) -> {
+                if (!query.equals(next.get(text))) {
+                    changed.add(text);
+                }
+            });
+            next.forEach((text, query) -> {
+                if (!query.equals(queries.get(text))) {
+                    changed.add(text);
+                }
+            });
+            queries.clear();
+            queries.putAll(next);
+            if (maintain) {
+                changed.forEach(this::update);
+            }
+        }
+
+        /**
+         * 批量加入全部候选并计算缓存
+         */
+        void build() {
+            Set<String> texts = new LinkedHashSet<>(titles.keySet());
+            texts.addAll(queries.keySet());
+            for (String text : texts) {
+                SuggestionTrie.Entry all = entry(text, false);
+                SuggestionTrie.Entry pub = entry(text, true);
+                Set<String> keys = keys(text);
+                if (all != null) {
+                    allEntries.put(text, all);
+                    keys.forEach(key -> allTrie.add(key, all, false));
+                }
+                if (pub != null) {
+                    publicEntries.put(text, pub);
+                    keys.forEach(key -> publicTrie.add(key, pub, false));
+                }
+            }
+            allTrie.computeTops();
+            publicTrie.computeTops();
+        }
+
+        /**
+         * 重新计算一个文本的候选，变化时替换树中的旧候选
+         */
+        private void update(String text) {
+            replace(allTrie, allEntries, text, entry(text, false));
+            replace(publicTrie, publicEntries, text, entry(text, true));
+        }
+
+        private static void replace(
+            SuggestionTrie trie,
+            Map<String, SuggestionTrie.Entry> entries,
+            String text,
+            SuggestionTrie.Entry next
+        ) {
+            SuggestionTrie.Entry old = next != null ? entries.put(text, next) : entries.remove(text);
+            if (next != null && next.equals(old)) {
+                return;
+            }
+            Set<String> keys = keys(text);
+            if (old != null) {
+                keys.forEach(key -> trie.remove(key, old));
+            }
+            if (next != null) {
+                keys.forEach(key -> trie.add(key, next, true));
+            }
+        }
+
+        /**
+         * 候选得分：标题为各行searchWeight的最大值，只有搜索词时为1；再乘以热度1+ln(1+搜索次数)
+         */
+        private SuggestionTrie.Entry entry(String text, boolean publicOnly) {
+            Query query = queries.get(text);
+            double popularity = 1 + Math.log1p(query != null ? query.count() : 0);
+            Map<Long, Source> titleRows = titles.get(text);
+            if (titleRows != null) {
+                String display = null;
+                double weight = -1;
+                for (Source source : titleRows.values()) {
+                    if (publicOnly && !source.isPublic()) {
+                        continue;
+                    }
+                    if (source.weight() > weight || (source.weight() == weight && source.title().compareTo(display) < 0)) {
+                        display = source.title();
+                        weight = source.weight();
+                    }
+                }
+                if (display != null) {
+                    return new SuggestionTrie.Entry(display, weight * popularity);
+                }
+            }
+            // 搜索词可能来自非公开内容，不出现在公开建议中
+            if (publicOnly || query == null) {
+                return null;
+            }
+            return new SuggestionTrie.Entry(query.text(), popularity);
+        }
+    }
+}
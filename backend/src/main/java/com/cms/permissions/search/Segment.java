@@ -0,0 +1,336 @@
+package com.cms.permissions.search;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 只读段：段文件整体内存映射，文档表和倒排表按需从映射中读取（由操作系统页缓存管理），
+ * 只有词典和字符串表加载到堆内存。实例不可变，可被多个查询并发读取。
+ */
+final class Segment {
+
+    private final String name;
+
+    private final MappedByteBuffer buffer;
+
+    private final int docCount;
+
+    private final long[] totalFieldLength;
+
+    private final String[] strings;
+
+    private final int docTableOffset;
+
+    private final Map<String, TermInfo> terms;
+
+    // 按字典序排列的词，用于合并段
+    private final String[] sortedTerms;
+
+    private Segment(
+        String name,
+        MappedByteBuffer buffer,
+        int docCount,
+        long[] totalFieldLength,
+        String[] strings,
+        int docTableOffset,
+        Map<String, TermInfo> terms,
+        String[] sortedTerms
+    ) {
+        this.name = name;
+        this.buffer = buffer;
+        this.docCount = docCount;
+        this.totalFieldLength = totalFieldLength;
+        this.strings = strings;
+        this.docTableOffset = docTableOffset;
+        this.terms = terms;
+        this.sortedTerms = sortedTerms;
+    }
+
+    static Segment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < SegmentWriter.FOOTER_BYTES) {
+                throw new IOException("Invalid segment size " + channel.size() + ": " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int footer = buffer.capacity() - SegmentWriter.FOOTER_BYTES;
+        if (buffer.getInt(buffer.capacity() - 4) != SegmentWriter.MAGIC) {
+            throw new IOException("Corrupt segment footer: " + path);
+        }
+        int docTableOffset = (int) buffer.getLong(footer);
+        int dictionaryOffset = (int) buffer.getLong(footer + 16);
+
+        DataInputStream header = new DataInputStream(new BufferInputStream(buffer, 0));
+        if (header.readInt() != SegmentWriter.MAGIC || header.readInt() != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment format: " + path);
+        }
+        int docCount = header.readInt();
+        long[] totalFieldLength = new long[IndexedField.COUNT];
+        for (int field = 0; field < IndexedField.COUNT; field++) {
+            totalFieldLength[field] = header.readLong();
+        }
+        String[] strings = new String[header.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = header.readUTF();
+        }
+
+        BufferInputStream dictionaryInput = new BufferInputStream(buffer, dictionaryOffset);
+        DataInputStream dictionary = new DataInputStream(dictionaryInput);
+        int termCount = dictionary.readInt();
+        Map<String, TermInfo> terms = new HashMap<>(termCount * 4 / 3 + 1);
+        String[] sortedTerms = new String[termCount];
+        for (int i = 0; i < termCount; i++) {
+            String term = dictionary.readUTF();
+            int docFreq = readVarInt(dictionary);
+            int offset = (int) dictionary.readLong();
+            int length = readVarInt(dictionary);
+            terms.put(term, new TermInfo(docFreq, offset, length));
+            sortedTerms[i] = term;
+        }
+        String name = path.getFileName().toString();
+        return new Segment(name, buffer, docCount, totalFieldLength, strings, docTableOffset, terms, sortedTerms);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    long totalFieldLength(int field) {
+        return totalFieldLength[field];
+    }
+
+    String[] strings() {
+        return strings;
+    }
+
+    String[] sortedTerms() {
+        return sortedTerms;
+    }
+
+    TermInfo term(String term) {
+        return terms.get(term);
+    }
+
+    /**
+     * 按id查找段内文档号，不存在时返回-1（文档表按id升序，二分查找）
+     */
+    int findDoc(long id) {
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = id(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    long id(int doc) {
+        return buffer.getLong(record(doc));
+    }
+
+    long documentId(int doc) {
+        return buffer.getLong(record(doc) + 8);
+    }
+
+    long createdAtMillis(int doc) {
+        return buffer.getLong(record(doc) + 16);
+    }
+
+    float searchWeight(int doc) {
+        return buffer.getFloat(record(doc) + 24);
+    }
+
+    int languageOrd(int doc) {
+        return buffer.getInt(record(doc) + 28);
+    }
+
+    int categoryOrd(int doc) {
+        return buffer.getInt(record(doc) + 32);
+    }
+
+    byte contentType(int doc) {
+        return buffer.get(record(doc) + 36);
+    }
+
+    boolean isPublic(int doc) {
+        return (buffer.get(record(doc) + 37) & SegmentWriter.FLAG_PUBLIC) != 0;
+    }
+
+    int fieldLength(int doc, int field) {
+        return buffer.getInt(record(doc) + 38 + 4 * field);
+    }
+
+    /**
+     * 读出文档表记录，合并段时使用
+     */
+    SegmentWriter.DocRecord docRecord(int doc) {
+        int[] fieldLengths = new int[IndexedField.COUNT];
+        for (int field = 0; field < IndexedField.COUNT; field++) {
+            fieldLengths[field] = fieldLength(doc, field);
+        }
+        return new SegmentWriter.DocRecord(
+            id(doc),
+            documentId(doc),
+            createdAtMillis(doc),
+            searchWeight(doc),
+            string(languageOrd(doc)),
+            string(categoryOrd(doc)),
+            contentType(doc),
+            isPublic(doc),
+            fieldLengths
+        );
+    }
+
+    /**
+     * 按字符串值查找序号，不存在时返回-1
+     */
+    int stringOrd(String value) {
+        for (int i = 0; i < strings.length; i++) {
+            if (strings[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    PostingsCursor postings(TermInfo info) {
+        return new PostingsCursor(buffer, info.offset(), info.docFreq());
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + docCount + " docs, " + sortedTerms.length + " terms)";
+    }
+
+    private String string(int ord) {
+        return ord >= 0 ? strings[ord] : null;
+    }
+
+    private int record(int doc) {
+        return docTableOffset + doc * SegmentWriter.DOC_RECORD_BYTES;
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * 词典条目：文档频率和倒排表在段文件中的位置
+     */
+    record TermInfo(int docFreq, int offset, int length) {}
+
+    /**
+     * 倒排表游标，直接从映射的缓冲区按绝对位置解码
+     */
+    static final class PostingsCursor {
+
+        private final ByteBuffer buffer;
+
+        private final int[] freqs = new int[IndexedField.COUNT];
+
+        private int position;
+
+        private int remaining;
+
+        private int doc;
+
+        private PostingsCursor(ByteBuffer buffer, int position, int docFreq) {
+            this.buffer = buffer;
+            this.position = position;
+            this.remaining = docFreq;
+        }
+
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            doc += readVarInt();
+            for (int field = 0; field < freqs.length; field++) {
+                freqs[field] = readVarInt();
+            }
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int freq(int field) {
+            return freqs[field];
+        }
+
+        int[] freqs() {
+            return freqs;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从映射缓冲区的指定位置顺序读取，不改变缓冲区本身的位置
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private int position;
+
+        BufferInputStream(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            return position < buffer.capacity() ? buffer.get(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (position >= buffer.capacity()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.capacity() - position);
+            buffer.get(position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
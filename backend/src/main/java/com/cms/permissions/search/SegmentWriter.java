@@ -0,0 +1,190 @@
+package com.cms.permissions.search;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 段文件写入器
+ * 段文件依次为：文件头（文档数、各字段总长度）、字符串表（语言、分类路径）、定长文档表（按id升序）、
+ * 倒排表（按词的字典序，每个文档为文档号差值和各字段词频的变长编码）、词典和文件尾（各部分的偏移）。
+ * 写入后不再修改，删除通过提交文件中的删除位图表示。
+ */
+final class SegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x434d5331;
+
+    static final int VERSION = 1;
+
+    // id(8) documentId(8) createdAt(8) weight(4) language(4) category(4) contentType(1) flags(1) 字段长度(4*字段数)
+    static final int DOC_RECORD_BYTES = 38 + 4 * IndexedField.COUNT;
+
+    static final int FOOTER_BYTES = 8 * 3 + 4 * 2;
+
+    static final byte FLAG_PUBLIC = 1;
+
+    private final FileOutputStream file;
+
+    private final DataOutputStream out;
+
+    private final long docTableOffset;
+
+    private final long postingsOffset;
+
+    private final List<DictionaryEntry> dictionary = new ArrayList<>();
+
+    private String lastTerm;
+
+    /**
+     * 写入文件头、字符串表和文档表；docs必须按id严格升序
+     */
+    SegmentWriter(Path path, List<DocRecord> docs) throws IOException {
+        this.file = new FileOutputStream(path.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        boolean success = false;
+        try {
+            long[] totalFieldLength = new long[IndexedField.COUNT];
+            Map<String, Integer> strings = new LinkedHashMap<>();
+            for (DocRecord doc : docs) {
+                for (int field = 0; field < IndexedField.COUNT; field++) {
+                    totalFieldLength[field] += doc.fieldLengths()[field];
+                }
+                intern(strings, doc.language());
+                intern(strings, doc.categoryPath());
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docs.size());
+            for (long length : totalFieldLength) {
+                out.writeLong(length);
+            }
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                out.writeUTF(value);
+            }
+
+            docTableOffset = out.size();
+            long previousId = Long.MIN_VALUE;
+            for (DocRecord doc : docs) {
+                if (doc.id() <= previousId) {
+                    throw new IllegalArgumentException("Segment documents must be sorted by id: " + doc.id());
+                }
+                previousId = doc.id();
+                out.writeLong(doc.id());
+                out.writeLong(doc.documentId());
+                out.writeLong(doc.createdAtMillis());
+                out.writeFloat(doc.searchWeight());
+                out.writeInt(doc.language() != null ? strings.get(doc.language()) : -1);
+                out.writeInt(doc.categoryPath() != null ? strings.get(doc.categoryPath()) : -1);
+                out.writeByte(doc.contentType());
+                out.writeByte(doc.isPublic() ? FLAG_PUBLIC : 0);
+                for (int length : doc.fieldLengths()) {
+                    out.writeInt(length);
+                }
+            }
+            postingsOffset = out.size();
+            success = true;
+        } finally {
+            if (!success) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * 写入一个词的倒排表，词必须按字典序升序加入，空倒排表被忽略
+     */
+    void addTerm(String term, PostingsBuffer postings) throws IOException {
+        if (postings.size() == 0) {
+            return;
+        }
+        if (lastTerm != null && lastTerm.compareTo(term) >= 0) {
+            throw new IllegalArgumentException("Terms must be added in order: " + term);
+        }
+        lastTerm = term;
+        int start = out.size();
+        int previousDoc = 0;
+        for (int i = 0; i < postings.size(); i++) {
+            writeVarInt(postings.doc(i) - previousDoc);
+            previousDoc = postings.doc(i);
+            for (int field = 0; field < IndexedField.COUNT; field++) {
+                writeVarInt(postings.freq(i, field));
+            }
+        }
+        checkSize();
+        dictionary.add(new DictionaryEntry(term, postings.size(), start, out.size() - start));
+    }
+
+    /**
+     * 写入词典和文件尾并刷到磁盘
+     */
+    void finish() throws IOException {
+        long dictionaryOffset = out.size();
+        out.writeInt(dictionary.size());
+        for (DictionaryEntry entry : dictionary) {
+            out.writeUTF(entry.term());
+            writeVarInt(entry.docFreq());
+            out.writeLong(entry.offset());
+            writeVarInt(entry.length());
+        }
+        out.writeLong(docTableOffset);
+        out.writeLong(postingsOffset);
+        out.writeLong(dictionaryOffset);
+        out.writeInt(dictionary.size());
+        out.writeInt(MAGIC);
+        checkSize();
+        out.flush();
+        file.getChannel().force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // 段文件整体映射为一个MappedByteBuffer，不能超过2GB；DataOutputStream.size()在此之前不会溢出
+    private void checkSize() throws IOException {
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("Segment exceeds 2GB");
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, String value) {
+        if (value != null) {
+            strings.putIfAbsent(value, strings.size());
+        }
+    }
+
+    /**
+     * 文档表中的一条记录
+     */
+    record DocRecord(
+        long id,
+        long documentId,
+        long createdAtMillis,
+        float searchWeight,
+        String language,
+        String categoryPath,
+        byte contentType,
+        boolean isPublic,
+        int[] fieldLengths
+    ) {}
+
+    private record DictionaryEntry(String term, int docFreq, long offset, int length) {}
+}
@@ -0,0 +1,28 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 标准分析器：只有StandardTokenizer，没有过滤器。
+ * 中文逐字切分，多字查询按任一字匹配；中文内容使用CJK二元分析链（见AnalysisChain）。
+ */
+public class StandardTextAnalyzer implements TextAnalyzer {
+
+    private final Tokenizer tokenizer = new StandardTokenizer();
+
+    @Override
+    public List<String> analyze(String text) {
+        List<Token> tokens = tokenizer.tokenize(text);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            terms.add(token.text());
+        }
+        return terms;
+    }
+
+    @Override
+    public String name() {
+        return AnalysisChain.STANDARD;
+    }
+}
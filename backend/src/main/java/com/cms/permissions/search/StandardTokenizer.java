@@ -0,0 +1,60 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 标准分词器：字母和数字组成的连续片段为一个词并转为小写；
+ * 中日韩文字没有词间分隔，每个字单独作为一个词。超长的片段被截断。
+ */
+public class StandardTokenizer implements Tokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    @Override
+    public List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        int wordStart = 0;
+        int position = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flush(word, wordStart, tokens);
+                tokens.add(new Token(new String(Character.toChars(codePoint)), Token.Type.CJK, position));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                if (word.length() == 0) {
+                    wordStart = position;
+                }
+                if (word.length() < MAX_TOKEN_LENGTH) {
+                    word.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            } else {
+                flush(word, wordStart, tokens);
+            }
+            position++;
+        }
+        flush(word, wordStart, tokens);
+        return tokens;
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN ||
+            script == Character.UnicodeScript.HIRAGANA ||
+            script == Character.UnicodeScript.KATAKANA ||
+            script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flush(StringBuilder word, int start, List<Token> tokens) {
+        if (word.length() > 0) {
+            tokens.add(new Token(word.toString(), Token.Type.WORD, start));
+            word.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 停用词过滤：删除英文停用词和中文虚词单字
+ * 放在CjkBigramFilter之前，删除的字打断相邻关系，"备份的数据"组成"备份"、"数据"而不是"份的"、"的数"。
+ */
+public class StopFilter implements TokenFilter {
+
+    public static final Set<String> ENGLISH = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+        "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these",
+        "they", "this", "to", "was", "will", "with"
+    );
+
+    // 只包含几乎不参与构词的虚词，"在"、"是"等常出现在实词中的字不删除
+    public static final Set<String> CHINESE = Set.of(
+        "的", "了", "吗", "呢", "吧", "啊", "与", "及", "或", "之", "而", "被", "把", "和"
+    );
+
+    private final Set<String> words;
+
+    private final Set<String> characters;
+
+    public StopFilter() {
+        this(ENGLISH, CHINESE);
+    }
+
+    public StopFilter(Set<String> words, Set<String> characters) {
+        this.words = words;
+        this.characters = characters;
+    }
+
+    @Override
+    public List<Token> filter(List<Token> tokens, boolean query) {
+        List<Token> result = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            Set<String> stopwords = token.type() == Token.Type.CJK ? characters : words;
+            if (!stopwords.contains(token.text())) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,236 @@
+package com.cms.permissions.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 搜索建议的前缀树（路径压缩）
+ * 每个节点缓存其子树中得分最高的topK个候选，补全只需沿前缀走到对应节点并读取缓存，与候选总数无关。
+ * 同一候选可以登记在多个键下（如标题中每个词的开头），缓存中按对象去重。
+ * 只允许一个线程写入（调用方加锁）；节点的边标签不可变，分裂时创建新节点，子节点表和top数组整体替换，
+ * 查询不需要加锁。
+ */
+final class SuggestionTrie {
+
+    /**
+     * 候选：显示文本和得分，不可变；得分变化时先移除旧候选再加入新候选
+     */
+    record Entry(String text, double score) {}
+
+    static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score)
+        .reversed()
+        .thenComparing(Entry::text);
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final int topK;
+
+    private final Node root = new Node("");
+
+    private int size;
+
+    SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    private static final class Node {
+
+        final String edge;
+
+        final Map<Character, Node> children;
+
+        // 以该节点结尾的键所登记的候选，只由写线程访问
+        final List<Entry> own;
+
+        volatile Entry[] top;
+
+        Node(String edge) {
+            this(edge, new ConcurrentHashMap<>(4), new ArrayList<>(1), EMPTY);
+        }
+
+        Node(String edge, Map<Character, Node> children, List<Entry> own, Entry[] top) {
+            this.edge = edge;
+            this.children = children;
+            this.own = own;
+            this.top = top;
+        }
+    }
+
+    /**
+     * 在键下登记候选
+     *
+     * @param maintain 为false时不更新缓存，批量加入后调用computeTops统一计算
+     */
+    void add(String key, Entry entry, boolean maintain) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                child.own.add(entry);
+                if (maintain) {
+                    child.top = new Entry[] { entry };
+                    path.forEach(parent -> offer(parent, entry));
+                }
+                node.children.put(c, child);
+                size++;
+                return;
+            }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                child = split(node, child, common);
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        if (!node.own.contains(entry)) {
+            node.own.add(entry);
+            size++;
+        }
+        if (maintain) {
+            path.forEach(n -> offer(n, entry));
+        }
+    }
+
+    /**
+     * 移除键下的候选，路径上缓存中含有该候选的节点由子节点重新计算
+     */
+    void remove(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.edge, i)) {
+                return;
+            }
+            node = child;
+            path.add(node);
+            i += child.edge.length();
+        }
+        if (!node.own.remove(entry)) {
+            return;
+        }
+        size--;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node current = path.get(p);
+            if (p > 0 && current.own.isEmpty() && current.children.isEmpty()) {
+                path.get(p - 1).children.remove(current.edge.charAt(0));
+                continue;
+            }
+            if (contains(current.top, entry)) {
+                current.top = compute(current);
+            }
+        }
+    }
+
+    /**
+     * 以prefix开头的键下得分最高的候选，最多limit个（不超过topK）
+     */
+    List<Entry> complete(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return List.of();
+            }
+            int length = Math.min(child.edge.length(), prefix.length() - i);
+            if (!child.edge.regionMatches(0, prefix, i, length)) {
+                return List.of();
+            }
+            node = child;
+            i += length;
+        }
+        Entry[] top = node.top;
+        return Arrays.asList(top).subList(0, Math.min(limit, top.length));
+    }
+
+    /**
+     * 自底向上计算全部节点的缓存（批量加入后调用）
+     */
+    void computeTops() {
+        computeTops(root);
+    }
+
+    private void computeTops(Node node) {
+        for (Node child : node.children.values()) {
+            computeTops(child);
+        }
+        node.top = compute(node);
+    }
+
+    /**
+     * 登记的键和候选数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 把边在common处分裂：新的中间节点接在父节点下，原节点以剩余的边标签重新创建为其子节点
+     */
+    private Node split(Node parent, Node child, int common) {
+        Node rest = new Node(child.edge.substring(common), child.children, child.own, child.top);
+        Node middle = new Node(child.edge.substring(0, common));
+        middle.children.put(rest.edge.charAt(0), rest);
+        middle.top = child.top;
+        parent.children.put(middle.edge.charAt(0), middle);
+        return middle;
+    }
+
+    private void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        if (contains(top, entry)) {
+            return;
+        }
+        if (top.length == topK && ORDER.compare(entry, top[top.length - 1]) >= 0) {
+            return;
+        }
+        List<Entry> merged = new ArrayList<>(top.length + 1);
+        merged.addAll(Arrays.asList(top));
+        merged.add(entry);
+        merged.sort(ORDER);
+        node.top = merged.subList(0, Math.min(topK, merged.size())).toArray(EMPTY);
+    }
+
+    private Entry[] compute(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.own);
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        return candidates.stream()
+            .distinct()
+            .sorted(ORDER)
+            .limit(topK)
+            .toArray(Entry[]::new);
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry candidate : entries) {
+            if (candidate.equals(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int length = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
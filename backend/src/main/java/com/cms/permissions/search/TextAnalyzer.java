@@ -0,0 +1,29 @@
+package com.cms.permissions.search;
+
+import java.util.List;
+
+/**
+ * 文本分析器：把字段文本切分为索引词
+ * 索引和查询必须使用同一个分析器，词的顺序即在文本中出现的顺序。
+ */
+public interface TextAnalyzer {
+
+    /**
+     * 分析文本，null或空文本返回空列表
+     */
+    List<String> analyze(String text);
+
+    /**
+     * 分析查询文本，默认与索引时相同
+     */
+    default List<String> analyzeQuery(String text) {
+        return analyze(text);
+    }
+
+    /**
+     * 分析器名称，名称不同的分析器产生的词不兼容，索引需要重建
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,31 @@
+package com.cms.permissions.search;
+
+/**
+ * 分析链中的词
+ *
+ * @param position 词在原文中的起始位置（按码点计），相邻的单字位置相差1
+ */
+public record Token(String text, Type type, int position) {
+
+    public enum Type {
+        /**
+         * 字母数字片段
+         */
+        WORD,
+
+        /**
+         * 中日韩单字
+         */
+        CJK,
+
+        /**
+         * 相邻两个中日韩字
+         */
+        CJK_BIGRAM,
+
+        /**
+         * 由汉字转换或由查询中的拼音切分得到的拼音
+         */
+        PINYIN
+    }
+}
@@ -0,0 +1,11 @@
+package com.cms.permissions.search;
+
+import java.util.List;
+
+/**
+ * 词过滤器：对分词结果做删除、组合或扩展，query为true时处理的是查询文本
+ */
+public interface TokenFilter {
+
+    List<Token> filter(List<Token> tokens, boolean query);
+}
@@ -0,0 +1,11 @@
+package com.cms.permissions.search;
+
+import java.util.List;
+
+/**
+ * 分词器：分析链的第一步，把文本切分为词
+ */
+public interface Tokenizer {
+
+    List<Token> tokenize(String text);
+}
@@ -0,0 +1,76 @@
+package com.cms.permissions.security;
+
+import com.cms.permissions.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 带本地缓存的UserDetails加载器，供JwtAuthenticationFilter在每个请求上使用
+ * 在{@link UserDetailsServiceImpl}前增加有容量上限和TTL的进程内缓存，命中时无锁读取，不再每个请求查询用户和角色。
+ * 用户状态、角色变更和删除时由UserService清除对应条目；其他节点最迟在TTL后看到变更，
+ * 因此TTL即禁用/挂起用户在集群中生效的最长延迟。
+ * 不实现UserDetailsService接口，保持容器中只有一个UserDetailsService，登录认证仍直接读取数据库。
+ */
+@Component
+public class CachedUserDetailsService {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${security.user-details-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.user-details-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${security.user-details-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private Cache<String, UserDetails> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+    }
+
+    /**
+     * 按用户名加载UserDetails，优先读取本地缓存；用户不存在时不缓存
+     */
+    public UserDetails loadUserByUsername(String username)
+        throws UsernameNotFoundException {
+        if (!enabled) {
+            return userDetailsService.loadUserByUsername(username);
+        }
+        return cache.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    /**
+     * 清除用户的缓存条目
+     * 事务中调用时在提交后再清除一次，避免提交前的并发请求把旧状态重新写入缓存
+     */
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionCallbacks.afterCommit(() -> cache.invalidate(username));
+        }
+        cache.invalidate(username);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -2,9 +2,10 @@ package com.cms.permissions.security;
 
 import com.cms.permissions.entity.Document;
 import com.cms.permissions.entity.DocumentAssignment;
-import com.cms.permissions.repository.UserRepository;
 import com.cms.permissions.service.PermissionCacheService;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
@@ -13,9 +14,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class CustomPermissionEvaluator implements PermissionEvaluator {
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private PermissionCacheService permissionCacheService;
 
@@ -72,11 +70,10 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
         }
 
         // 获取用户ID用于资源级权限检查
-        var user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
+        Long userId = resolveUserId(authentication);
+        if (userId == null) {
             return false;
         }
-        Long userId = user.get().getId();
 
         // Additional resource-level checks based on target type
         if ("document".equalsIgnoreCase(targetType)) {
@@ -93,6 +90,52 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
         return true;
     }
 
+    /**
+     * 批量文档级权限检查，用于列表和搜索结果过滤，返回有权限的文档ID（保持输入顺序）
+     */
+    public List<Long> filterAccessibleDocuments(
+        Authentication authentication,
+        Collection<Long> documentIds,
+        Object permission
+    ) {
+        if (
+            authentication == null ||
+            documentIds == null ||
+            documentIds.isEmpty() ||
+            permission == null
+        ) {
+            return List.of();
+        }
+
+        String permissionCode = permission.toString();
+        String username = authentication.getName();
+
+        if (!permissionCacheService.hasPermission(username, permissionCode)) {
+            return List.of();
+        }
+
+        Long userId = resolveUserId(authentication);
+        if (userId == null) {
+            return List.of();
+        }
+
+        return permissionCacheService.filterAccessible(
+            userId,
+            documentIds,
+            permissionCode
+        );
+    }
+
+    /**
+     * 获取当前用户ID：优先取认证过滤器已加载的CustomUserDetails，否则按用户名查缓存
+     */
+    private Long resolveUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof CustomUserDetails) {
+            return ((CustomUserDetails) authentication.getPrincipal()).getId();
+        }
+        return permissionCacheService.getUserId(authentication.getName());
+    }
+
     private boolean checkDocumentPermission(
         Long userId,
         Long documentId,
@@ -119,15 +162,8 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
             case "DOC:VIEW":
             case "DOC:VIEW:LOGGED":
             case "DOC:DOWNLOAD":
-                // 检查文档是否公开或用户是否被分配到该文档
-                if (permissionCacheService.isDocumentPublic(documentId)) {
-                    return true;
-                }
-                // 检查用户是否被分配到该文档（任何角色）
-                return permissionCacheService.isUserAssignedToDocument(
-                    userId,
-                    documentId
-                );
+                // 检查文档是否公开或用户是否被分配到该文档（任何角色）
+                return permissionCacheService.canViewDocument(userId, documentId);
             default:
                 return false;
         }
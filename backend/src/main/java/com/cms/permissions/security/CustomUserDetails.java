@@ -9,12 +9,23 @@ import java.util.Collection;
 import java.util.stream.Collectors;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 
 public class CustomUserDetails implements UserDetails {
     private final User user;
 
+    // 权限在构造时展开一次，避免每次调用getAuthorities都重新遍历角色和权限
+    private final List<GrantedAuthority> authorities;
+
     public CustomUserDetails(User user) {
         this.user = user;
+        this.authorities = buildAuthorities(user);
+    }
+
+    // 使用已展开的权限构造（如内嵌在令牌中的权限），不再遍历角色
+    public CustomUserDetails(User user, Collection<? extends GrantedAuthority> authorities) {
+        this.user = user;
+        this.authorities = List.copyOf(authorities);
     }
 
     public Long getId() {
@@ -27,6 +38,10 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> buildAuthorities(User user) {
         // 同时授予角色与权限，确保 hasRole('...') 与 hasAuthority('...') 均可用
         List<GrantedAuthority> authorities = new ArrayList<>();
 
@@ -42,10 +57,11 @@ public class CustomUserDetails implements UserDetails {
             user.getRoles().stream()
                 .flatMap(role -> role.getPermissions().stream())
                 .map(permission -> new SimpleGrantedAuthority(permission.getCode()))
+                .distinct()
                 .collect(Collectors.toList())
         );
 
-        return authorities;
+        return Collections.unmodifiableList(authorities);
     }
 
     @Override
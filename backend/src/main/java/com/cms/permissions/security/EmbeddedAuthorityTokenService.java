@@ -0,0 +1,155 @@
+package com.cms.permissions.security;
+
+import com.cms.permissions.cache.PermissionGenerations;
+import com.cms.permissions.entity.Role;
+import com.cms.permissions.entity.User;
+import com.cms.permissions.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内嵌权限的JWT
+ * 开启后登录签发的令牌带上用户ID、角色和展开后的权限码，以及签发时的用户安全纪元和角色权限代数，
+ * 过滤器直接从令牌构建认证信息，请求路径上不再查询用户。
+ * 用户状态或角色变更推进用户纪元，角色权限变更递增角色代数，令牌纪元早于当前纪元或代数不匹配时令牌失效，需重新登录。
+ */
+@Component
+public class EmbeddedAuthorityTokenService {
+
+    static final String CLAIM_USER_ID = "uid";
+
+    static final String CLAIM_ROLES = "roles";
+
+    static final String CLAIM_ROLE_IDS = "rid";
+
+    static final String CLAIM_PERMISSIONS = "perms";
+
+    static final String CLAIM_EPOCH = "sep";
+
+    static final String CLAIM_GENERATION = "gen";
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private SecurityEpochs securityEpochs;
+
+    @Autowired
+    private PermissionGenerations permissionGenerations;
+
+    @Value("${jwt.embed-authorities.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为登录用户签发令牌，开启内嵌模式时带上权限和纪元
+     */
+    public String generateToken(User user) {
+        if (!enabled) {
+            return jwtUtil.generateToken(user.getUsername());
+        }
+        List<Long> roleIds = user
+            .getRoles()
+            .stream()
+            .map(Role::getId)
+            .sorted()
+            .collect(Collectors.toList());
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(
+            CLAIM_ROLES,
+            user.getRoles().stream().map(Role::getName).sorted().collect(Collectors.toList())
+        );
+        claims.put(CLAIM_ROLE_IDS, roleIds);
+        claims.put(
+            CLAIM_PERMISSIONS,
+            user
+                .getRoles()
+                .stream()
+                .flatMap(role -> role.getPermissions().stream())
+                .map(permission -> permission.getCode())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList())
+        );
+        claims.put(CLAIM_EPOCH, securityEpochs.current(user.getId()));
+        claims.put(CLAIM_GENERATION, permissionGenerations.fingerprint(roleIds));
+        return jwtUtil.generateToken(user.getUsername(), claims);
+    }
+
+    /**
+     * 令牌是否内嵌了权限（关闭内嵌模式后，这类令牌按普通令牌处理）
+     */
+    public boolean isEmbedded(Claims claims) {
+        return enabled && claims.get(CLAIM_EPOCH) != null;
+    }
+
+    /**
+     * 令牌内嵌的权限是否仍然有效：签发后用户纪元没有推进，且角色权限代数与签发时一致
+     */
+    public boolean isCurrent(Claims claims) {
+        Long userId = longClaim(claims.get(CLAIM_USER_ID));
+        Long epoch = longClaim(claims.get(CLAIM_EPOCH));
+        if (userId == null || epoch == null) {
+            return false;
+        }
+        if (securityEpochs.current(userId) > epoch) {
+            return false;
+        }
+        return permissionGenerations
+            .fingerprint(longList(claims.get(CLAIM_ROLE_IDS)))
+            .equals(claims.get(CLAIM_GENERATION));
+    }
+
+    /**
+     * 从令牌构建认证主体，角色和权限的授予方式与CustomUserDetails一致
+     */
+    public CustomUserDetails toUserDetails(Claims claims) {
+        User user = new User();
+        user.setId(longClaim(claims.get(CLAIM_USER_ID)));
+        user.setUsername(claims.getSubject());
+        // 状态变更会递增纪元，纪元有效说明签发后状态未变，而只有启用的用户能登录
+        user.setStatus(User.UserStatus.ACTIVE);
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (Object role : list(claims.get(CLAIM_ROLES))) {
+            authorities.add(new SimpleGrantedAuthority(role.toString()));
+        }
+        for (Object permission : list(claims.get(CLAIM_PERMISSIONS))) {
+            authorities.add(new SimpleGrantedAuthority(permission.toString()));
+        }
+        return new CustomUserDetails(user, authorities);
+    }
+
+    private static Long longClaim(Object value) {
+        return value instanceof Number number ? Long.valueOf(number.longValue()) : null;
+    }
+
+    private static List<Long> longList(Object value) {
+        List<Long> result = new ArrayList<>();
+        for (Object item : list(value)) {
+            Long id = longClaim(item);
+            if (id != null) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static Collection<?> list(Object value) {
+        return value instanceof Collection<?> collection ? collection : List.of();
+    }
+}
@@ -0,0 +1,45 @@
+package com.cms.permissions.security;
+
+/**
+ * 权限位集工具
+ * 用户的有效权限按{@link PermissionRegistry}分配的序号编码为long[]位集，
+ * 权限检查只需一次位测试，缓存时也只需序列化少量long值。
+ */
+public final class PermissionBits {
+
+    public static final long[] EMPTY = new long[0];
+
+    private PermissionBits() {}
+
+    public static boolean test(long[] bits, int ordinal) {
+        if (bits == null || ordinal < 0) {
+            return false;
+        }
+        int word = ordinal >>> 6;
+        return word < bits.length && (bits[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * 设置指定序号，必要时扩容，返回可能是新数组的位集
+     */
+    public static long[] set(long[] bits, int ordinal) {
+        int word = ordinal >>> 6;
+        long[] result = bits;
+        if (word >= bits.length) {
+            result = new long[word + 1];
+            System.arraycopy(bits, 0, result, 0, bits.length);
+        }
+        result[word] |= 1L << ordinal;
+        return result;
+    }
+
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        if (bits != null) {
+            for (long word : bits) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,143 @@
+package com.cms.permissions.security;
+
+import com.cms.permissions.entity.Permission;
+import com.cms.permissions.repository.PermissionRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 权限注册表
+ * 为每个权限代码分配稳定的整数序号（即权限ID，自增且不复用，因此各节点、重启前后一致），
+ * 用于把用户权限编译为{@link PermissionBits}位集。
+ */
+@Component
+public class PermissionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        PermissionRegistry.class
+    );
+
+    // 未知权限代码触发重建的最小间隔，避免无效代码导致频繁查库
+    private static final long UNKNOWN_CODE_REFRESH_INTERVAL_MS = 30_000;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    private volatile Map<String, Integer> ordinalsByCode;
+
+    private volatile Map<Integer, String> codesByOrdinal = Map.of();
+
+    private volatile long lastRebuildTime;
+
+    // 重建时持锁查询数据库
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 从数据库重建注册表，在权限新增、修改、删除后调用
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            doRebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        Map<String, Integer> ordinals = new HashMap<>();
+        Map<Integer, String> codes = new HashMap<>();
+        for (Permission permission : permissionRepository.findAll()) {
+            if (permission.getId() == null || permission.getCode() == null) {
+                continue;
+            }
+            int ordinal = Math.toIntExact(permission.getId());
+            ordinals.put(permission.getCode(), ordinal);
+            codes.put(ordinal, permission.getCode());
+        }
+        this.ordinalsByCode = Collections.unmodifiableMap(ordinals);
+        this.codesByOrdinal = Collections.unmodifiableMap(codes);
+        this.lastRebuildTime = System.currentTimeMillis();
+        logger.debug("Permission registry rebuilt with {} codes", ordinals.size());
+    }
+
+    /**
+     * 获取权限代码的序号，未知代码返回-1
+     */
+    public int ordinalOf(String code) {
+        Integer ordinal = ordinals().get(code);
+        if (ordinal == null) {
+            // 其他节点可能刚新增了该权限
+            refreshIfStale();
+            ordinal = ordinalsByCode.get(code);
+        }
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * 把权限代码集合编译为位集
+     */
+    public long[] compile(Collection<String> codes) {
+        Map<String, Integer> ordinals = ordinals();
+        if (!ordinals.keySet().containsAll(codes)) {
+            // 位集会被缓存，编译时遇到未知代码立即重建，避免丢失新权限
+            rebuild();
+            ordinals = ordinalsByCode;
+        }
+
+        long[] bits = PermissionBits.EMPTY;
+        for (String code : codes) {
+            Integer ordinal = ordinals.get(code);
+            if (ordinal != null) {
+                bits = PermissionBits.set(bits, ordinal);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 把位集还原为权限代码集合
+     */
+    public Set<String> decode(long[] bits) {
+        ordinals();
+        Set<String> codes = new LinkedHashSet<>();
+        for (Map.Entry<Integer, String> entry : codesByOrdinal.entrySet()) {
+            if (PermissionBits.test(bits, entry.getKey())) {
+                codes.add(entry.getValue());
+            }
+        }
+        return codes;
+    }
+
+    private void refreshIfStale() {
+        lock.lock();
+        try {
+            if (
+                System.currentTimeMillis() - lastRebuildTime >
+                UNKNOWN_CODE_REFRESH_INTERVAL_MS
+            ) {
+                doRebuild();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Integer> ordinals() {
+        Map<String, Integer> ordinals = ordinalsByCode;
+        if (ordinals == null) {
+            rebuild();
+            ordinals = ordinalsByCode;
+        }
+        return ordinals;
+    }
+}
@@ -0,0 +1,122 @@
+package com.cms.permissions.security;
+
+import com.cms.permissions.cache.RedisCounterSnapshot;
+import com.cms.permissions.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户安全纪元（security epoch）
+ * 内嵌权限的JWT签发时带上用户当前的纪元，用户状态或角色变更时推进纪元，
+ * 纪元早于当前值的令牌失效，用户需重新登录获取新令牌。
+ * 纪元取推进时的时间戳（毫秒），保存在Redis哈希中，只包含发生过安全变更的用户；
+ * 早于令牌有效期的纪元不会再拒绝任何未过期的令牌，由快照定期从哈希中删除，哈希大小以有效期内发生变更的用户数为界。
+ */
+@Component
+public class SecurityEpochs {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SecurityEpochs.class
+    );
+
+    public static final String EPOCHS_KEY = "cms:security:epochs";
+
+    // 取当前时间与原纪元加一的较大者，节点间时钟偏差时纪元仍单调递增
+    private static final byte[] BUMP_SCRIPT = (
+        "local epoch = math.max(tonumber(ARGV[2]), (tonumber(redis.call('hget', KEYS[1], ARGV[1])) or 0) + 1) " +
+        "redis.call('hset', KEYS[1], ARGV[1], string.format('%d', epoch)) " +
+        "return epoch"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 其他节点推进纪元后，本节点最迟在该间隔后感知
+    @Value("${security.epoch-refresh-ms:1000}")
+    private long refreshIntervalMs;
+
+    @Value("${jwt.expiration:86400000}")
+    private long tokenLifetimeMs;
+
+    // 后台刷新的执行器，为null时由快照自行创建
+    private Executor refreshExecutor;
+
+    private RedisCounterSnapshot epochs;
+
+    @PostConstruct
+    public void init() {
+        epochs = new RedisCounterSnapshot(
+            redisTemplate,
+            EPOCHS_KEY,
+            refreshIntervalMs,
+            refreshExecutor,
+            () -> System.currentTimeMillis() - tokenLifetimeMs
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        epochs.close();
+    }
+
+    /**
+     * 获取用户当前的安全纪元，从未变更过（或变更早于令牌有效期）的用户为0
+     */
+    public long current(Long userId) {
+        return epochs.current(String.valueOf(userId));
+    }
+
+    /**
+     * 推进用户的安全纪元，使其已签发的内嵌权限令牌失效（事务中调用时在提交后生效）
+     */
+    public void bumpUser(Long userId) {
+        TransactionCallbacks.afterCommit(() -> bump(userId));
+    }
+
+    private void bump(Long userId) {
+        String field = String.valueOf(userId);
+        long now = System.currentTimeMillis();
+        Long epoch = null;
+        try {
+            epoch = redisTemplate.execute(
+                (RedisCallback<Long>) connection ->
+                    connection
+                        .scriptingCommands()
+                        .eval(
+                            BUMP_SCRIPT,
+                            ReturnType.INTEGER,
+                            1,
+                            bytes(EPOCHS_KEY),
+                            bytes(field),
+                            bytes(String.valueOf(now))
+                        )
+            );
+        } catch (RuntimeException e) {
+            // 至少让本节点立即拒绝旧令牌
+            logger.error(
+                "Failed to bump security epoch for user {}: {}",
+                userId,
+                e.getMessage()
+            );
+        }
+        epochs.merge(
+            field,
+            epoch != null ? epoch : Math.max(now, epochs.current(field) + 1)
+        );
+        logger.debug("Security epoch for user {} bumped", userId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,170 @@
+package com.cms.permissions.security;
+
+import com.cms.permissions.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 已验签令牌缓存
+ * 以令牌的SHA-256摘要为键缓存验签后的声明，同一令牌再次出现时跳过HS512验签和base64/JSON解码。
+ * 条目最迟在令牌过期时失效，命中时仍检查过期时间；用户状态变更或删除时丢弃该用户的全部条目。
+ * 命中率通过Micrometer指标security.token_cache.*暴露到Actuator。
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${security.token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.token-cache.max-size:10000}")
+    private long maxSize;
+
+    // 条目的最长存活时间（秒），令牌有效期更长时以此为准
+    @Value("${security.token-cache.max-ttl-seconds:3600}")
+    private long maxTtlSeconds;
+
+    private Cache<String, Entry> cache;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    record Entry(Claims claims, String username, long expiresAt) {}
+
+    @PostConstruct
+    public void init() {
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(maxTtlSeconds);
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(
+                new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(
+                            entry.expiresAt() - System.currentTimeMillis()
+                        );
+                        return Math.max(0, Math.min(remaining, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(
+                        String key,
+                        Entry entry,
+                        long currentTime,
+                        long currentDuration
+                    ) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(
+                        String key,
+                        Entry entry,
+                        long currentTime,
+                        long currentDuration
+                    ) {
+                        return currentDuration;
+                    }
+                }
+            )
+            .build();
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        hits = Counter.builder("security.token_cache.requests")
+            .description("Bearer tokens served from the verified-token cache")
+            .tag("result", "hit")
+            .register(registry);
+        misses = Counter.builder("security.token_cache.requests")
+            .description("Bearer tokens verified against the signing key")
+            .tag("result", "miss")
+            .register(registry);
+        Gauge.builder("security.token_cache.hit_ratio", this, VerifiedTokenCache::hitRatio)
+            .description("Share of bearer tokens served without signature verification")
+            .register(registry);
+        Gauge.builder("security.token_cache.size", this, VerifiedTokenCache::size)
+            .description("Verified tokens currently cached")
+            .register(registry);
+    }
+
+    /**
+     * 获取令牌的已验签声明，未命中时验签并缓存
+     * 签名无效、格式错误或已过期时抛出JwtException
+     */
+    public Claims verify(String token) {
+        if (!enabled) {
+            return jwtUtil.parseToken(token);
+        }
+        String key = digest(token);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (entry.expiresAt() > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.claims();
+            }
+            cache.invalidate(key);
+        }
+
+        misses.increment();
+        // 过期令牌在这里抛出ExpiredJwtException
+        Claims claims = jwtUtil.parseToken(token);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            cache.put(key, new Entry(claims, claims.getSubject(), expiration.getTime()));
+        }
+        return claims;
+    }
+
+    /**
+     * 丢弃用户的全部缓存令牌（状态变更、删除时调用），下次请求重新验签
+     */
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(entry -> username.equals(entry.username()));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+                token.getBytes(StandardCharsets.UTF_8)
+            );
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,60 +1,58 @@
 package com.cms.permissions.service;
 
+import com.cms.permissions.cache.LatencyHistogram;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class CachePerformanceAnalyzer {
 
+    // 趋势按小时聚合，环形保留最近24个小时桶
+    private static final long TREND_BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int TREND_BUCKETS = 24;
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
+
     @Autowired
     private PermissionCacheService permissionCacheService;
 
-    // 性能指标收集
-    private final Map<String, AtomicLong> operationCounts = new ConcurrentHashMap<>();
-    private final Map<String, AtomicLong> operationTimes = new ConcurrentHashMap<>();
-    private final List<PerformanceRecord> performanceHistory = Collections.synchronizedList(new ArrayList<>());
-
-    public CachePerformanceAnalyzer() {
-        // 初始化计数器
-        operationCounts.put("cache_hits", new AtomicLong(0));
-        operationCounts.put("cache_misses", new AtomicLong(0));
-        operationCounts.put("cache_evictions", new AtomicLong(0));
-        operationTimes.put("avg_response_time", new AtomicLong(0));
-    }
+    // 性能指标收集：按缓存名分别累加，记录路径只有LongAdder和原子自增，不加锁
+    private final Map<String, CacheRecorder> recorders = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicReferenceArray<TrendBucket> trendBuckets = new AtomicReferenceArray<>(TREND_BUCKETS);
 
     /**
-     * 记录缓存操作
+     * 记录缓存操作（毫秒）
      */
     public void recordCacheOperation(String operation, long executionTime, boolean isHit) {
-        operationCounts.get(isHit ? "cache_hits" : "cache_misses").incrementAndGet();
-        operationTimes.get("avg_response_time").addAndGet(executionTime);
-
-        // 记录性能历史
-        PerformanceRecord record = new PerformanceRecord(
-                LocalDateTime.now(),
-                operation,
-                executionTime,
-                isHit
-        );
-        performanceHistory.add(record);
+        recordCacheOperationNanos(operation, TimeUnit.MILLISECONDS.toNanos(executionTime), isHit);
+    }
 
-        // 保持历史记录在合理范围内（最近1000条）
-        if (performanceHistory.size() > 1000) {
-            performanceHistory.remove(0);
+    /**
+     * 记录缓存操作（纳秒），每次权限查询都会调用
+     */
+    public void recordCacheOperationNanos(String cacheName, long nanos, boolean isHit) {
+        CacheRecorder recorder = recorders.get(cacheName);
+        if (recorder == null) {
+            recorder = recorders.computeIfAbsent(cacheName, k -> new CacheRecorder());
         }
+        recorder.record(nanos, isHit);
+        trendBucket(System.currentTimeMillis()).record(nanos, isHit);
     }
 
     /**
      * 记录缓存清除操作
      */
     public void recordCacheEviction(String cacheName) {
-        operationCounts.get("cache_evictions").incrementAndGet();
+        evictions.increment();
     }
 
     /**
@@ -72,45 +70,60 @@ public class CachePerformanceAnalyzer {
         double hitRate = totalRequests > 0 ? (double) totalHits / totalRequests * 100 : 0;
         double missRate = totalRequests > 0 ? (double) totalMisses / totalRequests * 100 : 0;
 
-        // 计算平均响应时间
-        long avgResponseTime = totalRequests > 0 ? 
-                operationTimes.get("avg_response_time").get() / totalRequests : 0;
+        // 计算平均响应时间（毫秒）
+        long recorded = 0;
+        long recordedNanos = 0;
+        for (CacheRecorder recorder : recorders.values()) {
+            recorded += recorder.count();
+            recordedNanos += recorder.totalNanos.sum();
+        }
+        long avgResponseTime = recorded > 0 ? TimeUnit.NANOSECONDS.toMillis(recordedNanos / recorded) : 0;
 
         return new PerformanceReport(
                 hitRate,
                 missRate,
                 totalRequests,
                 avgResponseTime,
-                operationCounts.get("cache_evictions").get(),
+                evictions.sum(),
                 getRecentPerformanceTrend(),
                 getCacheEfficiencyByType(stats),
-                getPerformanceRecommendations(hitRate, avgResponseTime)
+                getPerformanceRecommendations(hitRate, avgResponseTime),
+                getLatencySummaries()
         );
     }
 
     /**
-     * 获取最近的性能趋势
+     * 按缓存名获取延迟分布（纳秒）
+     */
+    public Map<String, LatencySummary> getLatencySummaries() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        recorders.forEach((cacheName, recorder) -> summaries.put(cacheName, recorder.summary()));
+        return summaries;
+    }
+
+    /**
+     * 获取最近的性能趋势，直接读取各小时桶的聚合值
      */
     private List<TrendData> getRecentPerformanceTrend() {
         List<TrendData> trend = new ArrayList<>();
-        
-        // 按小时分组统计
-        Map<String, List<PerformanceRecord>> hourlyGroups = new HashMap<>();
-        DateTimeFormatter hourFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
-        
-        for (PerformanceRecord record : performanceHistory) {
-            String hourKey = record.getTimestamp().format(hourFormatter);
-            hourlyGroups.computeIfAbsent(hourKey, k -> new ArrayList<>()).add(record);
-        }
-
-        for (Map.Entry<String, List<PerformanceRecord>> entry : hourlyGroups.entrySet()) {
-            List<PerformanceRecord> records = entry.getValue();
-            long hits = records.stream().mapToLong(r -> r.isHit() ? 1 : 0).sum();
-            long total = records.size();
-            double hitRate = total > 0 ? (double) hits / total * 100 : 0;
-            double avgTime = records.stream().mapToLong(PerformanceRecord::getExecutionTime).average().orElse(0);
-
-            trend.add(new TrendData(entry.getKey(), hitRate, avgTime, total));
+        long oldestSlot = System.currentTimeMillis() / TREND_BUCKET_MILLIS - (TREND_BUCKETS - 1);
+
+        for (int i = 0; i < TREND_BUCKETS; i++) {
+            TrendBucket bucket = trendBuckets.get(i);
+            if (bucket == null || bucket.slot < oldestSlot) {
+                continue;
+            }
+            long hits = bucket.hits.sum();
+            long total = hits + bucket.misses.sum();
+            if (total == 0) {
+                continue;
+            }
+            double hitRate = (double) hits / total * 100;
+            double avgTime = (double) bucket.totalNanos.sum() / total / TimeUnit.MILLISECONDS.toNanos(1);
+            String timeLabel = HOUR_FORMATTER.format(
+                Instant.ofEpochMilli(bucket.slot * TREND_BUCKET_MILLIS).atZone(ZoneId.systemDefault())
+            );
+            trend.add(new TrendData(timeLabel, hitRate, avgTime, total));
         }
 
         // 按时间排序
@@ -118,6 +131,23 @@ public class CachePerformanceAnalyzer {
         return trend;
     }
 
+    /**
+     * 获取当前小时的趋势桶，槽位上是过期的桶时用CAS替换
+     */
+    private TrendBucket trendBucket(long now) {
+        long slot = now / TREND_BUCKET_MILLIS;
+        int index = (int) (slot % TREND_BUCKETS);
+        TrendBucket bucket = trendBuckets.get(index);
+        while (bucket == null || bucket.slot < slot) {
+            TrendBucket fresh = new TrendBucket(slot);
+            if (trendBuckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = trendBuckets.get(index);
+        }
+        return bucket;
+    }
+
     /**
      * 按缓存类型获取效率统计
      */
@@ -163,7 +193,7 @@ public class CachePerformanceAnalyzer {
         if (avgResponseTime > 100) {
             recommendations.add("平均响应时间较长(" + avgResponseTime + "ms)，建议检查Redis连接配置");
         }
-        if (operationCounts.get("cache_evictions").get() > 1000) {
+        if (evictions.sum() > 1000) {
             recommendations.add("缓存清除操作频繁，建议优化缓存失效策略");
         }
 
@@ -178,30 +208,58 @@ public class CachePerformanceAnalyzer {
      * 重置性能统计
      */
     public void resetStatistics() {
-        operationCounts.values().forEach(counter -> counter.set(0));
-        operationTimes.values().forEach(counter -> counter.set(0));
-        performanceHistory.clear();
+        recorders.clear();
+        evictions.reset();
+        for (int i = 0; i < TREND_BUCKETS; i++) {
+            trendBuckets.set(i, null);
+        }
     }
 
     // 内部类定义
-    public static class PerformanceRecord {
-        private final LocalDateTime timestamp;
-        private final String operation;
-        private final long executionTime;
-        private final boolean hit;
-
-        public PerformanceRecord(LocalDateTime timestamp, String operation, long executionTime, boolean hit) {
-            this.timestamp = timestamp;
-            this.operation = operation;
-            this.executionTime = executionTime;
-            this.hit = hit;
+    private static class CacheRecorder {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, boolean hit) {
+            (hit ? hits : misses).increment();
+            totalNanos.add(nanos);
+            latency.record(nanos);
         }
 
-        // Getters
-        public LocalDateTime getTimestamp() { return timestamp; }
-        public String getOperation() { return operation; }
-        public long getExecutionTime() { return executionTime; }
-        public boolean isHit() { return hit; }
+        long count() {
+            return hits.sum() + misses.sum();
+        }
+
+        LatencySummary summary() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            return new LatencySummary(
+                    total,
+                    total > 0 ? (double) hitCount / total * 100 : 0,
+                    total > 0 ? totalNanos.sum() / total : 0,
+                    latency.percentile(50),
+                    latency.percentile(95),
+                    latency.percentile(99)
+            );
+        }
+    }
+
+    private static class TrendBucket {
+        private final long slot;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        TrendBucket(long slot) {
+            this.slot = slot;
+        }
+
+        void record(long nanos, boolean hit) {
+            (hit ? hits : misses).increment();
+            totalNanos.add(nanos);
+        }
     }
 
     public static class PerformanceReport {
@@ -213,10 +271,12 @@ public class CachePerformanceAnalyzer {
         private final List<TrendData> performanceTrend;
         private final Map<String, CacheTypeEfficiency> cacheEfficiency;
         private final List<String> recommendations;
+        private final Map<String, LatencySummary> latencyByCache;
 
         public PerformanceReport(double hitRate, double missRate, long totalRequests, long avgResponseTime,
                                long totalEvictions, List<TrendData> performanceTrend,
-                               Map<String, CacheTypeEfficiency> cacheEfficiency, List<String> recommendations) {
+                               Map<String, CacheTypeEfficiency> cacheEfficiency, List<String> recommendations,
+                               Map<String, LatencySummary> latencyByCache) {
             this.hitRate = hitRate;
             this.missRate = missRate;
             this.totalRequests = totalRequests;
@@ -225,6 +285,7 @@ public class CachePerformanceAnalyzer {
             this.performanceTrend = performanceTrend;
             this.cacheEfficiency = cacheEfficiency;
             this.recommendations = recommendations;
+            this.latencyByCache = latencyByCache;
         }
 
         // Getters
@@ -236,6 +297,7 @@ public class CachePerformanceAnalyzer {
         public List<TrendData> getPerformanceTrend() { return performanceTrend; }
         public Map<String, CacheTypeEfficiency> getCacheEfficiency() { return cacheEfficiency; }
         public List<String> getRecommendations() { return recommendations; }
+        public Map<String, LatencySummary> getLatencyByCache() { return latencyByCache; }
     }
 
     public static class TrendData {
@@ -277,4 +339,30 @@ public class CachePerformanceAnalyzer {
         public long getHits() { return hits; }
         public long getMisses() { return misses; }
     }
-}
\ No newline at end of file
+
+    public static class LatencySummary {
+        private final long count;
+        private final double hitRate;
+        private final long avgNanos;
+        private final long p50Nanos;
+        private final long p95Nanos;
+        private final long p99Nanos;
+
+        public LatencySummary(long count, double hitRate, long avgNanos, long p50Nanos, long p95Nanos, long p99Nanos) {
+            this.count = count;
+            this.hitRate = hitRate;
+            this.avgNanos = avgNanos;
+            this.p50Nanos = p50Nanos;
+            this.p95Nanos = p95Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        // Getters
+        public long getCount() { return count; }
+        public double getHitRate() { return hitRate; }
+        public long getAvgNanos() { return avgNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP95Nanos() { return p95Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+    }
+}
@@ -1,27 +1,69 @@
 package com.cms.permissions.service;
 
+import com.cms.permissions.cache.CacheKeyIndex;
 import com.cms.permissions.entity.Document;
 import com.cms.permissions.entity.User;
 import com.cms.permissions.repository.DocumentRepository;
 import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.PermissionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 
 /**
  * 缓存预热服务
+ * 用户权限和文档公开状态按主键游标分批读取（cache.permissions.warmup.batch-size），每批一次查询算出缓存值，
+ * 通过管道SET NX EX写入Redis；各批由有界线程池并行写入，同时在途的批次不超过并行度，
+ * 可查询进度并随时取消。
  */
 @Service
 public class CacheWarmupService {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheWarmupService.class);
 
+    public static final String USER_PERMISSIONS_JOB = "userPermissions";
+
+    public static final String DOCUMENT_PUBLIC_JOB = "documentPublicStatus";
+
+    // 与CacheOptimizationConfig中各缓存的键前缀保持一致
+    private static final String USER_PERMISSIONS_KEY_PREFIX = "cms:permissions:user:";
+    private static final String USER_PERMISSION_BITS_KEY_PREFIX = "cms:permissions:bits:";
+    private static final String USER_ROLE_IDS_KEY_PREFIX = "cms:permissions:roles:";
+    private static final String USER_IDS_KEY_PREFIX = "cms:users:id:";
+    private static final String DOCUMENT_PUBLIC_KEY_PREFIX = "cms:public:document:";
+
     @Autowired
     private PermissionCacheService permissionCacheService;
 
@@ -31,88 +73,312 @@ public class CacheWarmupService {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
+    @Autowired
+    private CacheKeyIndex cacheKeyIndex;
+
+    // 与CacheOptimizationConfig中对应缓存的序列化器一致
+    @Autowired
+    private RedisSerializer<Set<String>> optimizedSetSerializer;
+
+    @Autowired
+    private RedisSerializer<List<Long>> optimizedListSerializer;
+
+    @Autowired
+    private RedisSerializer<Long> optimizedLongSerializer;
+
+    @Autowired
+    private RedisSerializer<long[]> optimizedPermissionBitsSerializer;
+
+    @Autowired
+    private RedisSerializer<Boolean> optimizedBooleanSerializer;
+
+    @Value("${cache.permissions.warmup.batch-size:1000}")
+    private int batchSize;
+
+    // 同时在途的批次数，也是预热最多占用的数据库连接数
+    @Value("${cache.permissions.warmup.parallelism:2}")
+    private int parallelism;
+
+    @Value("${cache.permissions.ttl:300}")
+    private long permissionsTtl;
+
+    @Value("${cache.document-public-status.ttl:600}")
+    private long documentPublicTtl;
+
+    private ExecutorService chunkExecutor;
+
+    // 每类预热最近一次运行的进度
+    private final Map<String, WarmupProgress> progressByJob = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        chunkExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelWarmup();
+        if (chunkExecutor != null) {
+            chunkExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 预热所有用户权限缓存
+     * 每批用户一次连接查询取出角色和权限代码，同时写入角色ID、用户ID、权限集合和权限位集缓存
      */
     @Async
     public CompletableFuture<WarmupResult> warmupUserPermissions() {
         logger.info("开始预热用户权限缓存");
-        WarmupResult result = new WarmupResult();
-        result.setStartTime(LocalDateTime.now());
-        
-        try {
-            List<User> users = userRepository.findAll();
-            int successCount = 0;
-            int failureCount = 0;
-            
-            for (User user : users) {
-                try {
-                    permissionCacheService.getUserPermissions(user.getUsername());
-                    successCount++;
-                } catch (Exception e) {
-                    logger.error("预热用户 {} 的权限缓存失败: {}", user.getUsername(), e.getMessage());
-                    failureCount++;
-                }
-            }
-            
-            result.setSuccessCount(successCount);
-            result.setFailureCount(failureCount);
-            result.setTotalCount(users.size());
-            result.setSuccess(true);
-            
-            logger.info("用户权限缓存预热完成: 成功 {}, 失败 {}, 总计 {}", 
-                       successCount, failureCount, users.size());
-            
-        } catch (Exception e) {
-            logger.error("用户权限缓存预热失败", e);
-            result.setSuccess(false);
-            result.setErrorMessage(e.getMessage());
-        }
-        
-        result.setEndTime(LocalDateTime.now());
+        WarmupResult result = runWarmup(
+            USER_PERMISSIONS_JOB,
+            userRepository.count(),
+            afterId -> userRepository.findIdAndUsernameAfter(afterId, PageRequest.of(0, batchSize)),
+            this::writeUserPermissionChunk
+        );
+        logger.info("用户权限缓存预热完成: 成功 {}, 失败 {}, 总计 {}",
+                   result.getSuccessCount(), result.getFailureCount(), result.getTotalCount());
         return CompletableFuture.completedFuture(result);
     }
 
     /**
-     * 预热文档公开状态缓存
+     * 预热文档公开状态缓存，公开状态随游标分页查询一起读出，每批只有一次查询
      */
     @Async
     public CompletableFuture<WarmupResult> warmupDocumentPublicStatus() {
         logger.info("开始预热文档公开状态缓存");
+        WarmupResult result = runWarmup(
+            DOCUMENT_PUBLIC_JOB,
+            documentRepository.count(),
+            afterId -> documentRepository.findIdAndPublicAfter(afterId, PageRequest.of(0, batchSize)),
+            this::writeDocumentPublicChunk
+        );
+        logger.info("文档公开状态缓存预热完成: 成功 {}, 失败 {}, 总计 {}",
+                   result.getSuccessCount(), result.getFailureCount(), result.getTotalCount());
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * 只预热指定用户的权限缓存，如访问模式学习到的热点用户；与全量预热共用进度和并发限制
+     */
+    @Async
+    public CompletableFuture<WarmupResult> warmupUserPermissions(Collection<String> usernames) {
+        List<Object[]> rows = usernames.isEmpty()
+            ? List.of()
+            : userRepository.findIdAndUsernameByUsernameIn(usernames);
+        WarmupResult result = runWarmup(
+            USER_PERMISSIONS_JOB,
+            rows.size(),
+            pagesOf(rows),
+            this::writeUserPermissionChunk
+        );
+        logger.info("热点用户权限缓存预热完成: 成功 {}, 失败 {}, 总计 {}",
+                   result.getSuccessCount(), result.getFailureCount(), result.getTotalCount());
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * 只预热指定文档的公开状态缓存
+     */
+    @Async
+    public CompletableFuture<WarmupResult> warmupDocumentPublicStatus(Collection<Long> documentIds) {
+        List<Object[]> rows = documentIds.isEmpty()
+            ? List.of()
+            : documentRepository.findIdAndPublicByIdIn(documentIds);
+        WarmupResult result = runWarmup(
+            DOCUMENT_PUBLIC_JOB,
+            rows.size(),
+            pagesOf(rows),
+            this::writeDocumentPublicChunk
+        );
+        logger.info("热点文档公开状态缓存预热完成: 成功 {}, 失败 {}, 总计 {}",
+                   result.getSuccessCount(), result.getFailureCount(), result.getTotalCount());
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * 取消正在运行的预热，已提交的批次写完后停止，返回是否有预热被取消
+     */
+    public boolean cancelWarmup() {
+        boolean cancelled = false;
+        for (WarmupProgress progress : progressByJob.values()) {
+            cancelled |= progress.cancel();
+        }
+        return cancelled;
+    }
+
+    /**
+     * 各类预热最近一次运行的进度
+     */
+    public List<WarmupProgress> getWarmupProgress() {
+        return new ArrayList<>(progressByJob.values());
+    }
+
+    /**
+     * 预热引擎：按主键游标读取下一页，提交给线程池处理，信号量限制在途批次；
+     * 页内第一列为主键，游标推进不依赖批次处理结果，读取下一页与写入上一页并行
+     */
+    private WarmupResult runWarmup(
+        String job,
+        long total,
+        LongFunction<List<Object[]>> pageReader,
+        Consumer<List<Object[]>> chunkWriter
+    ) {
         WarmupResult result = new WarmupResult();
         result.setStartTime(LocalDateTime.now());
-        
+        result.setTotalCount((int) total);
+
+        WarmupProgress progress = new WarmupProgress(job, total);
+        WarmupProgress current = progressByJob.compute(job, (key, previous) ->
+            previous != null && previous.isRunning() ? previous : progress);
+        if (current != progress) {
+            result.setSuccess(false);
+            result.setErrorMessage("预热正在进行中: " + job);
+            result.setEndTime(LocalDateTime.now());
+            return result;
+        }
+
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
         try {
-            List<Document> documents = documentRepository.findAll();
-            int successCount = 0;
-            int failureCount = 0;
-            
-            for (Document document : documents) {
-                try {
-                    permissionCacheService.isDocumentPublic(document.getId());
-                    successCount++;
-                } catch (Exception e) {
-                    logger.error("预热文档 {} 的公开状态缓存失败: {}", document.getId(), e.getMessage());
-                    failureCount++;
+            long afterId = Long.MIN_VALUE;
+            while (!progress.isCancelled()) {
+                List<Object[]> page = pageReader.apply(afterId);
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = ((Number) page.get(page.size() - 1)[0]).longValue();
+                permits.acquire();
+                chunks.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        if (progress.isCancelled()) {
+                            return;
+                        }
+                        chunkWriter.accept(page);
+                        progress.succeeded(page.size());
+                    } catch (RuntimeException e) {
+                        logger.error("预热 {} 的一批数据失败: {}", job, e.getMessage());
+                        progress.failed(page.size());
+                    } finally {
+                        permits.release();
+                    }
+                }, chunkExecutor));
+                if (page.size() < batchSize) {
+                    break;
                 }
             }
-            
-            result.setSuccessCount(successCount);
-            result.setFailureCount(failureCount);
-            result.setTotalCount(documents.size());
-            result.setSuccess(true);
-            
-            logger.info("文档公开状态缓存预热完成: 成功 {}, 失败 {}, 总计 {}", 
-                       successCount, failureCount, documents.size());
-            
-        } catch (Exception e) {
-            logger.error("文档公开状态缓存预热失败", e);
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+            progress.finish(progress.isCancelled() ? WarmupStatus.CANCELLED : WarmupStatus.COMPLETED);
+            result.setSuccess(!progress.isCancelled());
+            if (progress.isCancelled()) {
+                result.setErrorMessage("预热已取消");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.cancel();
+            progress.finish(WarmupStatus.CANCELLED);
+            result.setSuccess(false);
+            result.setErrorMessage("预热被中断");
+        } catch (RuntimeException e) {
+            logger.error("{} 缓存预热失败", job, e);
+            progress.cancel();
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).exceptionally(ex -> null).join();
+            progress.finish(WarmupStatus.FAILED);
             result.setSuccess(false);
             result.setErrorMessage(e.getMessage());
         }
-        
+
+        result.setSuccessCount((int) progress.getProcessedCount());
+        result.setFailureCount((int) progress.getFailureCount());
         result.setEndTime(LocalDateTime.now());
-        return CompletableFuture.completedFuture(result);
+        return result;
+    }
+
+    /**
+     * 按主键游标切分已读出的行（行已按主键排序）
+     */
+    private LongFunction<List<Object[]>> pagesOf(List<Object[]> rows) {
+        return afterId -> rows.stream()
+            .filter(row -> ((Number) row[0]).longValue() > afterId)
+            .limit(batchSize)
+            .toList();
+    }
+
+    /**
+     * 写入一批用户的权限相关缓存，键与PermissionCacheService的缓存方法一致
+     */
+    private void writeUserPermissionChunk(List<Object[]> page) {
+        Map<Long, String> usernames = new LinkedHashMap<>();
+        for (Object[] row : page) {
+            usernames.put((Long) row[0], (String) row[1]);
+        }
+        Map<Long, Set<Long>> roleIds = new HashMap<>();
+        Map<Long, Set<String>> permissionCodes = new HashMap<>();
+        for (Object[] row : userRepository.findRolePermissionCodes(usernames.keySet())) {
+            Long userId = (Long) row[0];
+            roleIds.computeIfAbsent(userId, id -> new TreeSet<>()).add((Long) row[1]);
+            if (row[2] != null) {
+                permissionCodes.computeIfAbsent(userId, id -> new HashSet<>()).add((String) row[2]);
+            }
+        }
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        List<String> permissionKeys = new ArrayList<>(usernames.size());
+        usernames.forEach((userId, username) -> {
+            List<Long> userRoleIds = new ArrayList<>(roleIds.getOrDefault(userId, Set.of()));
+            Set<String> permissions = permissionCodes.getOrDefault(userId, new HashSet<>());
+            String cacheKey = permissionCacheService.permissionCacheKey(username, userRoleIds);
+            entries.put(USER_ROLE_IDS_KEY_PREFIX + username, optimizedListSerializer.serialize(userRoleIds));
+            entries.put(USER_IDS_KEY_PREFIX + username, optimizedLongSerializer.serialize(userId));
+            entries.put(USER_PERMISSIONS_KEY_PREFIX + cacheKey, optimizedSetSerializer.serialize(permissions));
+            entries.put(
+                USER_PERMISSION_BITS_KEY_PREFIX + cacheKey,
+                optimizedPermissionBitsSerializer.serialize(permissionRegistry.compile(permissions))
+            );
+            permissionKeys.add(USER_PERMISSIONS_KEY_PREFIX + cacheKey);
+        });
+        writeIfAbsent(entries, permissionsTtl);
+        cacheKeyIndex.register(permissionKeys, permissionsTtl, CacheKeyIndex.cacheIndex("userPermissions"));
+    }
+
+    private void writeDocumentPublicChunk(List<Object[]> page) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (Object[] row : page) {
+            entries.put(
+                DOCUMENT_PUBLIC_KEY_PREFIX + row[0],
+                optimizedBooleanSerializer.serialize(Boolean.TRUE.equals(row[1]))
+            );
+        }
+        writeIfAbsent(entries, documentPublicTtl);
+        cacheKeyIndex.register(entries.keySet(), documentPublicTtl, CacheKeyIndex.cacheIndex("documentPublic"));
+    }
+
+    /**
+     * 通过一次管道写入整批键值（仅在键不存在时写入，不覆盖并发写入的新值）
+     */
+    private void writeIfAbsent(Map<String, byte[]> entries, long ttlSeconds) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                connection.stringCommands().set(
+                    entry.getKey().getBytes(StandardCharsets.UTF_8),
+                    entry.getValue(),
+                    Expiration.seconds(ttlSeconds),
+                    RedisStringCommands.SetOption.SET_IF_ABSENT
+                );
+            }
+            return null;
+        });
     }
 
     /**
@@ -318,4 +584,74 @@ public class CacheWarmupService {
             return 0;
         }
     }
-}
\ No newline at end of file
+
+    public enum WarmupStatus {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * 预热进度
+     */
+    public static class WarmupProgress {
+        private final String job;
+        private final long totalCount;
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private final AtomicLong processedCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong chunkCount = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile WarmupStatus status = WarmupStatus.RUNNING;
+        private volatile LocalDateTime endTime;
+
+        WarmupProgress(String job, long totalCount) {
+            this.job = job;
+            this.totalCount = totalCount;
+        }
+
+        void succeeded(int count) {
+            processedCount.addAndGet(count);
+            chunkCount.incrementAndGet();
+        }
+
+        void failed(int count) {
+            failureCount.addAndGet(count);
+            chunkCount.incrementAndGet();
+        }
+
+        boolean cancel() {
+            if (status != WarmupStatus.RUNNING || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        void finish(WarmupStatus finalStatus) {
+            endTime = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        boolean isCancelled() { return cancelled; }
+
+        public boolean isRunning() { return status == WarmupStatus.RUNNING; }
+
+        public String getJob() { return job; }
+        public WarmupStatus getStatus() { return status; }
+        public long getTotalCount() { return totalCount; }
+        public long getProcessedCount() { return processedCount.get(); }
+        public long getFailureCount() { return failureCount.get(); }
+        public long getChunkCount() { return chunkCount.get(); }
+        public LocalDateTime getStartTime() { return startTime; }
+        public LocalDateTime getEndTime() { return endTime; }
+
+        /**
+         * 已处理（含失败）的百分比，总数按开始时的计数估算
+         */
+        public double getPercent() {
+            if (totalCount <= 0) {
+                return status == WarmupStatus.RUNNING ? 0.0 : 100.0;
+            }
+            return Math.min(100.0, (processedCount.get() + failureCount.get()) * 100.0 / totalCount);
+        }
+    }
+}
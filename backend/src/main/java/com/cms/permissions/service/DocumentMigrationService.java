@@ -4,9 +4,15 @@ import com.cms.permissions.entity.Document;
 import com.cms.permissions.entity.MigrationLog;
 import com.cms.permissions.repository.DocumentRepository;
 import com.cms.permissions.repository.MigrationLogRepository;
+import com.cms.permissions.search.DocumentIndexingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -33,8 +40,44 @@ public class DocumentMigrationService {
     
     @Autowired
     private MigrationLogRepository migrationLogRepository;
+
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
     
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    // 与Tomcat、@Async共用同一开关，需要Java 21及以上
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 批量迁移的并发上限，避免对源站点发起过多并发抓取
+    @Value("${cms.migration.concurrency:5}")
+    private int concurrency;
+
+    private Executor executorService;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            // 每个迁移任务一个虚拟线程，等待抓取和数据库时不占用平台线程
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("migration-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            executorService = executor;
+        } else {
+            if (virtualThreads) {
+                logger.warn("虚拟线程需要Java 21及以上，迁移任务使用平台线程池");
+            }
+            executorService = Executors.newFixedThreadPool(concurrency);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executorService instanceof ExecutorService pool) {
+            pool.shutdown();
+        } else if (executorService instanceof SimpleAsyncTaskExecutor executor) {
+            executor.close();
+        }
+    }
     
     /**
      * 单个URL迁移
@@ -68,6 +111,7 @@ public class DocumentMigrationService {
             // 3. 创建文档实体
             Document document = createDocumentFromParsedContent(parsedContent, userId);
             document = documentRepository.save(document);
+            documentIndexingService.documentChanged(document.getId());
             
             // 4. 更新迁移日志
             migrationLog.setDocumentId(document.getId());
@@ -3,6 +3,7 @@ package com.cms.permissions.service;
 import com.cms.permissions.entity.*;
 import com.cms.permissions.exception.ResourceNotFoundException;
 import com.cms.permissions.repository.*;
+import com.cms.permissions.search.DocumentIndexingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,9 @@ public class DocumentService {
     @Autowired
     private PermissionCacheService permissionCacheService;
 
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
+
     @PreAuthorize("hasAuthority('DOC:CREATE') or hasPermission(#document, 'DOC:EDIT')")
     public Document createDocument(Document document, Long userId) {
         document.setCreatedBy(userId);
@@ -38,6 +42,10 @@ public class DocumentService {
 
         // 清除相关用户的文档分配缓存
         permissionCacheService.evictUserDocumentAssignments(userId);
+        permissionCacheService.evictDocumentAssignments(savedDocument.getId());
+        permissionCacheService.recordDocumentAssignment(userId, savedDocument.getId());
+        permissionCacheService.recordDocumentPublicStatus(savedDocument.getId(), savedDocument.getIsPublic());
+        documentIndexingService.documentChanged(savedDocument.getId());
 
         return savedDocument;
     }
@@ -56,7 +64,9 @@ public class DocumentService {
         existingDocument.setTitle(updatedDocument.getTitle());
         existingDocument.setContent(updatedDocument.getContent());
         existingDocument.setUpdatedAt(java.time.LocalDateTime.now());
-        return documentRepository.save(existingDocument);
+        Document savedDocument = documentRepository.save(existingDocument);
+        documentIndexingService.documentChanged(documentId);
+        return savedDocument;
     }
 
     @PreAuthorize("hasAuthority('DOC:DELETE') OR hasPermission(#documentId, 'document', 'DOC:EDIT')")
@@ -65,9 +75,11 @@ public class DocumentService {
             throw new ResourceNotFoundException("Document not found with id: " + documentId);
         }
         
-        // 清除文档相关的缓存
-        permissionCacheService.evictDocumentPublicStatus(documentId);
-        permissionCacheService.evictAllUserDocumentAssignments();
+        // 清除文档相关的缓存（只清除该文档的条目）
+        permissionCacheService.evictDocumentCache(documentId);
+        permissionCacheService.evictAllUserDocumentPermissions(documentId);
+        permissionCacheService.removeDocumentAccess(documentId);
+        documentIndexingService.documentDeleted(documentId);
         
         documentRepository.deleteById(documentId);
     }
@@ -84,6 +96,9 @@ public class DocumentService {
             
             // 清除文档公开状态缓存
             permissionCacheService.evictDocumentPublicStatus(documentId);
+            permissionCacheService.recordDocumentPublicStatus(documentId, savedDocument.getIsPublic());
+            // 发布状态决定内容块是否出现在公开搜索结果中
+            documentIndexingService.documentChanged(documentId);
             
             return savedDocument;
         }
@@ -102,6 +117,9 @@ public class DocumentService {
             
             // 清除文档公开状态缓存
             permissionCacheService.evictDocumentPublicStatus(documentId);
+            permissionCacheService.recordDocumentPublicStatus(documentId, savedDocument.getIsPublic());
+            // 发布状态决定内容块是否出现在公开搜索结果中
+            documentIndexingService.documentChanged(documentId);
             
             return savedDocument;
         }
@@ -134,6 +152,10 @@ public class DocumentService {
             DocumentAssignment assignment = new DocumentAssignment(
                     persisted.getId(), userId, DocumentAssignment.AssignmentType.EDITOR, userId);
             documentAssignmentRepository.save(assignment);
+            permissionCacheService.evictDocumentAssignments(persisted.getId());
+            permissionCacheService.recordDocumentAssignment(userId, persisted.getId());
+            permissionCacheService.recordDocumentPublicStatus(persisted.getId(), persisted.getIsPublic());
+            documentIndexingService.documentChanged(persisted.getId());
         }
         // 清除相关用户的文档分配缓存
         permissionCacheService.evictUserDocumentAssignments(userId);
@@ -157,6 +179,8 @@ public class DocumentService {
         Document savedDocument = documentRepository.save(existingDocument);
         // 状态变更可能影响公开状态缓存
         permissionCacheService.evictDocumentPublicStatus(documentId);
+        permissionCacheService.recordDocumentPublicStatus(documentId, savedDocument.getIsPublic());
+        documentIndexingService.documentChanged(documentId);
         return savedDocument;
     }
 
@@ -168,6 +192,8 @@ public class DocumentService {
         
         // 清除相关用户的文档分配缓存
         permissionCacheService.evictUserDocumentAssignments(userId);
+        permissionCacheService.evictDocumentAssignments(documentId);
+        permissionCacheService.recordDocumentAssignment(userId, documentId);
         
         return true;
     }
@@ -8,6 +8,7 @@ import com.cms.permissions.entity.User;
 import com.cms.permissions.exception.ResourceNotFoundException;
 import com.cms.permissions.repository.DocumentRepository;
 import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.search.DocumentIndexingService;
 import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
@@ -43,6 +44,9 @@ public class EditorService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
+
     private final Parser markdownParser = Parser.builder()
             .extensions(Arrays.asList(TablesExtension.create(), HeadingAnchorExtension.create()))
             .build();
@@ -76,6 +80,7 @@ public class EditorService {
         }
 
         Document savedDocument = documentRepository.save(document);
+        documentIndexingService.documentChanged(savedDocument.getId());
 
         // 清除草稿缓存
         clearDraft(request.getDocumentId(), userId);
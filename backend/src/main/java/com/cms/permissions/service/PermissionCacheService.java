@@ -1,24 +1,55 @@
 package com.cms.permissions.service;
 
+import com.cms.permissions.cache.CacheKeyIndex;
+import com.cms.permissions.cache.DocumentAccessIndex;
+import com.cms.permissions.cache.MetricsCacheManager;
+import com.cms.permissions.cache.NearCache;
+import com.cms.permissions.cache.NearCacheManager;
+import com.cms.permissions.cache.RefreshAheadCacheManager;
+import com.cms.permissions.cache.PermissionGenerations;
 import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.entity.Role;
 import com.cms.permissions.entity.User;
 import com.cms.permissions.repository.DocumentAssignmentRepository;
 import com.cms.permissions.repository.DocumentRepository;
 import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.PermissionBits;
+import com.cms.permissions.security.PermissionRegistry;
+import com.cms.permissions.util.TransactionCallbacks;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PermissionCacheService {
 
+    private static final Logger logger = LoggerFactory.getLogger(
+        PermissionCacheService.class
+    );
+
     @Autowired
     private UserRepository userRepository;
 
@@ -35,24 +66,124 @@ public class PermissionCacheService {
     @Lazy
     private CachePerformanceAnalyzer performanceAnalyzer;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
+    // 与CacheOptimizationConfig中documentPublic、documentAssignments缓存的序列化器和TTL一致
+    @Autowired
+    private RedisSerializer<Boolean> optimizedBooleanSerializer;
+
+    @Autowired
+    private RedisSerializer<List<DocumentAssignment>> optimizedAssignmentListSerializer;
+
+    @Autowired
+    private CacheKeyIndex cacheKeyIndex;
+
+    @Autowired
+    private PermissionGenerations permissionGenerations;
+
+    @Autowired
+    private DocumentAccessIndex documentAccessIndex;
+
+    @Value("${cache.permissions.ttl:300}")
+    private long permissionsTtl;
+
+    @Value("${cache.document-public-status.ttl:600}")
+    private long documentPublicTtl;
+
+    @Value("${cache.document-assignments.ttl:180}")
+    private long documentAssignmentsTtl;
+
+    // 通过代理调用自身的缓存方法，避免自调用绕过@Cacheable
+    @Autowired
+    @Lazy
+    private PermissionCacheService self;
+
+    // 与CacheOptimizationConfig中各缓存的键前缀保持一致
     private static final String USER_PERMISSIONS_KEY_PREFIX =
-        "user:permissions:";
+        "cms:permissions:user:";
     private static final String USER_DOCUMENT_PERMISSIONS_KEY_PREFIX =
-        "user:doc:permissions:";
-    private static final String DOCUMENT_PUBLIC_KEY_PREFIX = "document:public:";
+        "cms:cache:userDocumentPermissions:";
+    private static final String DOCUMENT_PUBLIC_KEY_PREFIX =
+        "cms:public:document:";
+    private static final String DOCUMENT_ASSIGNMENTS_KEY_PREFIX =
+        "cms:assignments:user:";
+
+    /**
+     * 获取用户的角色ID列表（带缓存），用于计算版本化的权限缓存键
+     */
+    @Cacheable(value = "userRoleIds", key = "#username", sync = true)
+    public List<Long> getUserRoleIds(String username) {
+        return userRepository
+            .findByUsername(username)
+            .map(user ->
+                user
+                    .getRoles()
+                    .stream()
+                    .map(Role::getId)
+                    .sorted()
+                    .collect(Collectors.toList())
+            )
+            .orElse(List.of());
+    }
+
+    /**
+     * 按用户名获取用户ID（带缓存），用户不存在时返回null且不缓存
+     */
+    @Cacheable(value = "userIds", key = "#username", unless = "#result == null")
+    public Long getUserId(String username) {
+        return userRepository.findByUsername(username).map(User::getId).orElse(null);
+    }
+
+    /**
+     * 清除用户名到用户ID的缓存
+     */
+    @CacheEvict(value = "userIds", key = "#username")
+    public void evictUserId(String username) {
+        // 缓存注解会自动处理清除
+    }
+
+    /**
+     * 计算用户权限缓存键：用户名加上全局及各角色的代数，角色变更后键随之变化
+     */
+    public String permissionCacheKey(String username) {
+        return permissionCacheKey(username, self.getUserRoleIds(username));
+    }
+
+    /**
+     * 按给定的角色ID计算用户权限缓存键，供批量预热在不读取角色缓存的情况下生成相同的键
+     */
+    public String permissionCacheKey(String username, List<Long> roleIds) {
+        return username + ":" + permissionGenerations.fingerprint(roleIds);
+    }
 
     /**
      * 获取用户的所有权限代码（带缓存）
      */
-    @Cacheable(value = "userPermissions", key = "#username")
     public Set<String> getUserPermissions(String username) {
-        long startTime = System.currentTimeMillis();
+        return self.getUserPermissions(username, permissionCacheKey(username));
+    }
+
+    /**
+     * 按版本化缓存键获取用户的所有权限代码，并发未命中合并为一次加载
+     */
+    @Cacheable(value = "userPermissions", key = "#cacheKey", sync = true)
+    public Set<String> getUserPermissions(String username, String cacheKey) {
+        long startTime = System.nanoTime();
         try {
+            cacheKeyIndex.register(
+                USER_PERMISSIONS_KEY_PREFIX + cacheKey,
+                permissionsTtl,
+                CacheKeyIndex.cacheIndex("userPermissions")
+            );
             Optional<User> userOpt = userRepository.findByUsername(username);
             if (userOpt.isEmpty()) {
-                performanceAnalyzer.recordCacheOperation(
+                performanceAnalyzer.recordCacheOperationNanos(
                     "userPermissions",
-                    System.currentTimeMillis() - startTime,
+                    System.nanoTime() - startTime,
                     false
                 );
                 return Set.of();
@@ -66,17 +197,64 @@ public class PermissionCacheService {
                 .map(permission -> permission.getCode())
                 .collect(Collectors.toSet());
 
-            // 记录缓存命中或未命中
-            performanceAnalyzer.recordCacheOperation(
+            // 方法体只在缓存未命中时执行，命中由MetricsCache在缓存层统计，这里记录回源耗时
+            performanceAnalyzer.recordCacheOperationNanos(
                 "userPermissions",
-                System.currentTimeMillis() - startTime,
-                true
+                System.nanoTime() - startTime,
+                false
             );
             return permissions;
         } catch (Exception e) {
-            performanceAnalyzer.recordCacheOperation(
+            performanceAnalyzer.recordCacheOperationNanos(
+                "userPermissions",
+                System.nanoTime() - startTime,
+                false
+            );
+            throw e;
+        }
+    }
+
+    /**
+     * 获取用户权限位集（带缓存），序号由PermissionRegistry分配
+     */
+    public long[] getUserPermissionBits(String username) {
+        return self.getUserPermissionBits(username, permissionCacheKey(username));
+    }
+
+    /**
+     * 按版本化缓存键获取用户权限位集
+     */
+    @Cacheable(
+        value = "userPermissionBits",
+        key = "#cacheKey",
+        sync = true
+    )
+    public long[] getUserPermissionBits(String username, String cacheKey) {
+        long startTime = System.nanoTime();
+        try {
+            long[] bits = userRepository
+                .findByUsername(username)
+                .map(user ->
+                    permissionRegistry.compile(
+                        user
+                            .getRoles()
+                            .stream()
+                            .flatMap(role -> role.getPermissions().stream())
+                            .map(permission -> permission.getCode())
+                            .collect(Collectors.toSet())
+                    )
+                )
+                .orElse(PermissionBits.EMPTY);
+            performanceAnalyzer.recordCacheOperationNanos(
+                "userPermissions",
+                System.nanoTime() - startTime,
+                false
+            );
+            return bits;
+        } catch (Exception e) {
+            performanceAnalyzer.recordCacheOperationNanos(
                 "userPermissions",
-                System.currentTimeMillis() - startTime,
+                System.nanoTime() - startTime,
                 false
             );
             throw e;
@@ -84,11 +262,14 @@ public class PermissionCacheService {
     }
 
     /**
-     * 检查用户是否具有特定权限（带缓存）
+     * 检查用户是否具有特定权限（带缓存），基于权限位集做位测试
      */
     public boolean hasPermission(String username, String permissionCode) {
-        Set<String> userPermissions = getUserPermissions(username);
-        return userPermissions.contains(permissionCode);
+        int ordinal = permissionRegistry.ordinalOf(permissionCode);
+        if (ordinal < 0) {
+            return false;
+        }
+        return PermissionBits.test(getUserPermissionBits(username), ordinal);
     }
 
     /**
@@ -102,7 +283,7 @@ public class PermissionCacheService {
         Long userId,
         Long documentId
     ) {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         try {
             // 使用现有的方法获取用户的所有分配，然后过滤特定文档
             List<DocumentAssignment> assignments = documentAssignmentRepository
@@ -112,16 +293,23 @@ public class PermissionCacheService {
                     assignment.getDocumentId().equals(documentId)
                 )
                 .collect(Collectors.toList());
-            performanceAnalyzer.recordCacheOperation(
+            cacheKeyIndex.register(
+                USER_DOCUMENT_PERMISSIONS_KEY_PREFIX + userId + ":" + documentId,
+                permissionsTtl,
+                CacheKeyIndex.userIndex(userId),
+                CacheKeyIndex.documentIndex(documentId),
+                CacheKeyIndex.cacheIndex("userDocumentPermissions")
+            );
+            performanceAnalyzer.recordCacheOperationNanos(
                 "documentAssignments",
-                System.currentTimeMillis() - startTime,
-                true
+                System.nanoTime() - startTime,
+                false
             );
             return assignments;
         } catch (Exception e) {
-            performanceAnalyzer.recordCacheOperation(
+            performanceAnalyzer.recordCacheOperationNanos(
                 "documentAssignments",
-                System.currentTimeMillis() - startTime,
+                System.nanoTime() - startTime,
                 false
             );
             throw e;
@@ -136,7 +324,7 @@ public class PermissionCacheService {
         Long documentId,
         DocumentAssignment.AssignmentType assignmentType
     ) {
-        List<DocumentAssignment> assignments = getUserDocumentAssignments(
+        List<DocumentAssignment> assignments = self.getUserDocumentAssignments(
             userId,
             documentId
         );
@@ -150,24 +338,29 @@ public class PermissionCacheService {
     /**
      * 检查文档是否为公开文档（带缓存）
      */
-    @Cacheable(value = "documentPublic", key = "#documentId")
+    @Cacheable(value = "documentPublic", key = "#documentId", sync = true)
     public boolean isDocumentPublic(Long documentId) {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         try {
             boolean isPublic = documentRepository
                 .findById(documentId)
                 .map(document -> document.getIsPublic())
                 .orElse(false);
-            performanceAnalyzer.recordCacheOperation(
+            cacheKeyIndex.register(
+                DOCUMENT_PUBLIC_KEY_PREFIX + documentId,
+                documentPublicTtl,
+                CacheKeyIndex.cacheIndex("documentPublic")
+            );
+            performanceAnalyzer.recordCacheOperationNanos(
                 "documentPublicStatus",
-                System.currentTimeMillis() - startTime,
-                true
+                System.nanoTime() - startTime,
+                false
             );
             return isPublic;
         } catch (Exception e) {
-            performanceAnalyzer.recordCacheOperation(
+            performanceAnalyzer.recordCacheOperationNanos(
                 "documentPublicStatus",
-                System.currentTimeMillis() - startTime,
+                System.nanoTime() - startTime,
                 false
             );
             throw e;
@@ -177,8 +370,14 @@ public class PermissionCacheService {
     /**
      * 获取文档的所有权限分配（带缓存）
      */
-    @Cacheable(value = "documentAssignments", key = "#documentId")
+    @Cacheable(value = "documentAssignments", key = "#documentId", sync = true)
     public List<DocumentAssignment> getDocumentAssignments(Long documentId) {
+        cacheKeyIndex.register(
+            DOCUMENT_ASSIGNMENTS_KEY_PREFIX + documentId,
+            documentAssignmentsTtl,
+            CacheKeyIndex.documentIndex(documentId),
+            CacheKeyIndex.cacheIndex("documentAssignments")
+        );
         return documentAssignmentRepository.findByDocumentId(documentId);
     }
 
@@ -186,7 +385,7 @@ public class PermissionCacheService {
      * 检查用户是否被分配到特定文档（任何角色）
      */
     public boolean isUserAssignedToDocument(Long userId, Long documentId) {
-        List<DocumentAssignment> assignments = getDocumentAssignments(
+        List<DocumentAssignment> assignments = self.getDocumentAssignments(
             documentId
         );
         return assignments
@@ -194,23 +393,399 @@ public class PermissionCacheService {
             .anyMatch(assignment -> assignment.getUserId().equals(userId));
     }
 
+    /**
+     * 检查用户是否可以查看文档（公开或被分配到该文档）
+     * 启用文档可见性索引时为两次位图成员判断，否则读取文档的全部分配记录
+     */
+    public boolean canViewDocument(Long userId, Long documentId) {
+        if (documentAccessIndex.isEnabled()) {
+            return documentAccessIndex.canView(userId, documentId);
+        }
+        if (self.isDocumentPublic(documentId)) {
+            return true;
+        }
+        return isUserAssignedToDocument(userId, documentId);
+    }
+
+    /**
+     * 用户被分配到文档后更新可见性索引
+     */
+    public void recordDocumentAssignment(Long userId, Long documentId) {
+        documentAccessIndex.onAssigned(userId, documentId);
+    }
+
+    /**
+     * 文档公开状态可能变化后更新可见性索引
+     */
+    public void recordDocumentPublicStatus(Long documentId, Boolean isPublic) {
+        documentAccessIndex.onPublicStatusChanged(
+            documentId,
+            Boolean.TRUE.equals(isPublic)
+        );
+    }
+
+    /**
+     * 文档删除后从可见性索引中移除
+     */
+    public void removeDocumentAccess(Long documentId) {
+        documentAccessIndex.onDeleted(documentId);
+    }
+
+    /**
+     * 批量过滤用户对一组文档具有指定权限的文档ID，按输入顺序返回
+     * 规则与CustomPermissionEvaluator的文档级检查一致；查看类权限走文档可见性索引，
+     * 其余权限（或未启用索引时）公开状态和文档分配先查本地缓存，
+     * 其余键每类只发一次MGET，Redis未命中的部分各用一次IN查询加载并通过管道回写
+     */
+    public List<Long> filterAccessible(
+        Long userId,
+        Collection<Long> documentIds,
+        String permissionCode
+    ) {
+        if (
+            userId == null ||
+            documentIds == null ||
+            documentIds.isEmpty() ||
+            permissionCode == null
+        ) {
+            return List.of();
+        }
+
+        boolean publicGrantsAccess;
+        DocumentAssignment.AssignmentType requiredType;
+        switch (permissionCode) {
+            case "DOC:EDIT":
+            case "DOC:PUBLISH":
+            case "DOC:MANAGE_COMMENTS":
+                publicGrantsAccess = false;
+                requiredType = DocumentAssignment.AssignmentType.EDITOR;
+                break;
+            case "DOC:APPROVE:ASSIGNED":
+                publicGrantsAccess = false;
+                requiredType = DocumentAssignment.AssignmentType.APPROVER;
+                break;
+            case "DOC:VIEW":
+            case "DOC:VIEW:LOGGED":
+            case "DOC:DOWNLOAD":
+                // 公开文档或任意角色的分配均可访问
+                publicGrantsAccess = true;
+                requiredType = null;
+                break;
+            default:
+                return List.of();
+        }
+
+        long startTime = System.nanoTime();
+        Set<Long> ids = new LinkedHashSet<>(documentIds);
+        ids.remove(null);
+
+        if (publicGrantsAccess && documentAccessIndex.isEnabled()) {
+            List<Long> visible = new ArrayList<>();
+            for (Long id : ids) {
+                if (documentAccessIndex.canView(userId, id)) {
+                    visible.add(id);
+                }
+            }
+            performanceAnalyzer.recordCacheOperationNanos(
+                "documentAccessBatch",
+                System.nanoTime() - startTime,
+                true
+            );
+            return visible;
+        }
+
+        Map<Long, Boolean> publicStatus = publicGrantsAccess
+            ? loadDocumentPublicStatus(ids)
+            : Map.of();
+        List<Long> needAssignments = new ArrayList<>();
+        for (Long id : ids) {
+            if (!Boolean.TRUE.equals(publicStatus.get(id))) {
+                needAssignments.add(id);
+            }
+        }
+        Map<Long, List<DocumentAssignment>> assignments =
+            loadDocumentAssignments(needAssignments);
+
+        List<Long> accessible = new ArrayList<>();
+        for (Long id : ids) {
+            if (Boolean.TRUE.equals(publicStatus.get(id))) {
+                accessible.add(id);
+                continue;
+            }
+            boolean assigned = assignments
+                .getOrDefault(id, List.of())
+                .stream()
+                .anyMatch(
+                    assignment ->
+                        userId.equals(assignment.getUserId()) &&
+                        (requiredType == null ||
+                            assignment.getAssignmentType() == requiredType)
+                );
+            if (assigned) {
+                accessible.add(id);
+            }
+        }
+
+        performanceAnalyzer.recordCacheOperationNanos(
+            "documentAccessBatch",
+            System.nanoTime() - startTime,
+            true
+        );
+        return accessible;
+    }
+
+    /**
+     * 批量获取文档公开状态：L1 -> Redis MGET -> 一次IN查询
+     */
+    private Map<Long, Boolean> loadDocumentPublicStatus(Collection<Long> ids) {
+        Map<Long, Boolean> result = new HashMap<>();
+        List<Long> missing = batchGet(
+            "documentPublic",
+            DOCUMENT_PUBLIC_KEY_PREFIX,
+            ids,
+            Boolean.class,
+            optimizedBooleanSerializer,
+            result
+        );
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Set<Long> publicIds = new HashSet<>(
+            documentRepository.findPublicDocumentIds(missing)
+        );
+        Map<Long, Boolean> loaded = new HashMap<>();
+        for (Long id : missing) {
+            loaded.put(id, publicIds.contains(id));
+        }
+        batchWriteBack(
+            "documentPublic",
+            DOCUMENT_PUBLIC_KEY_PREFIX,
+            documentPublicTtl,
+            optimizedBooleanSerializer,
+            loaded
+        );
+        cacheKeyIndex.register(
+            CacheKeyIndex.keys(DOCUMENT_PUBLIC_KEY_PREFIX, loaded.keySet()),
+            documentPublicTtl,
+            CacheKeyIndex.cacheIndex("documentPublic")
+        );
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 批量获取文档分配：L1 -> Redis MGET -> 一次IN查询
+     */
+    private Map<Long, List<DocumentAssignment>> loadDocumentAssignments(
+        Collection<Long> ids
+    ) {
+        Map<Long, List<DocumentAssignment>> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        List<Long> missing = batchGet(
+            "documentAssignments",
+            DOCUMENT_ASSIGNMENTS_KEY_PREFIX,
+            ids,
+            List.class,
+            optimizedAssignmentListSerializer,
+            result
+        );
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<DocumentAssignment>> loaded = new HashMap<>();
+        for (Long id : missing) {
+            loaded.put(id, new ArrayList<>());
+        }
+        for (DocumentAssignment assignment : documentAssignmentRepository.findByDocumentIdIn(
+            missing
+        )) {
+            loaded.get(assignment.getDocumentId()).add(assignment);
+        }
+        batchWriteBack(
+            "documentAssignments",
+            DOCUMENT_ASSIGNMENTS_KEY_PREFIX,
+            documentAssignmentsTtl,
+            optimizedAssignmentListSerializer,
+            loaded
+        );
+        cacheKeyIndex.register(
+            CacheKeyIndex.keys(DOCUMENT_ASSIGNMENTS_KEY_PREFIX, loaded.keySet()),
+            documentAssignmentsTtl,
+            CacheKeyIndex.cacheIndex("documentAssignments")
+        );
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 先查近端缓存，再用一次MGET读取Redis，命中值写入result并回填L1，返回仍未命中的ID
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<Long> batchGet(
+        String cacheName,
+        String keyPrefix,
+        Collection<Long> ids,
+        Class<?> valueType,
+        RedisSerializer<T> serializer,
+        Map<Long, T> result
+    ) {
+        NearCache nearCache = getNearCache(cacheName);
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long id : ids) {
+            Object local = nearCache != null ? nearCache.getLocal(id) : null;
+            if (valueType.isInstance(local)) {
+                result.put(id, (T) local);
+            } else {
+                remoteIds.add(id);
+            }
+        }
+        if (remoteIds.isEmpty()) {
+            return remoteIds;
+        }
+
+        byte[][] keys = new byte[remoteIds.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (keyPrefix + remoteIds.get(i)).getBytes(
+                StandardCharsets.UTF_8
+            );
+        }
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(keys)
+            );
+        } catch (RuntimeException e) {
+            // Redis不可用时退化为直接查库
+            logger.warn("Batch MGET on {} failed: {}", cacheName, e.getMessage());
+            values = null;
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < remoteIds.size(); i++) {
+            Long id = remoteIds.get(i);
+            byte[] raw = values != null && i < values.size()
+                ? values.get(i)
+                : null;
+            T value = raw != null ? serializer.deserialize(raw) : null;
+            if (value == null) {
+                missing.add(id);
+                continue;
+            }
+            result.put(id, value);
+            if (nearCache != null) {
+                nearCache.putLocal(id, value);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 通过管道把从数据库加载的值回写Redis（仅在键不存在时写入，不覆盖并发写入的新值）并回填L1
+     */
+    private <T> void batchWriteBack(
+        String cacheName,
+        String keyPrefix,
+        long ttlSeconds,
+        RedisSerializer<T> serializer,
+        Map<Long, T> loaded
+    ) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, T> entry : loaded.entrySet()) {
+                    connection
+                        .stringCommands()
+                        .set(
+                            (keyPrefix + entry.getKey()).getBytes(
+                                StandardCharsets.UTF_8
+                            ),
+                            serializer.serialize(entry.getValue()),
+                            Expiration.seconds(ttlSeconds),
+                            RedisStringCommands.SetOption.SET_IF_ABSENT
+                        );
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn(
+                "Batch write-back on {} failed: {}",
+                cacheName,
+                e.getMessage()
+            );
+        }
+
+        NearCache nearCache = getNearCache(cacheName);
+        if (nearCache != null) {
+            loaded.forEach(nearCache::putLocal);
+        }
+    }
+
+    private NearCache getNearCache(String cacheName) {
+        NearCacheManager nearCacheManager = nearCacheManager();
+        return nearCacheManager != null
+            ? nearCacheManager.getNearCache(cacheName)
+            : null;
+    }
+
+    /**
+     * 取出被指标层和提前刷新层包装的近端缓存管理器，未启用近端缓存时返回null
+     */
+    private NearCacheManager nearCacheManager() {
+        CacheManager manager = cacheManager;
+        if (manager instanceof MetricsCacheManager) {
+            manager = ((MetricsCacheManager) manager).getDelegate();
+        }
+        if (manager instanceof RefreshAheadCacheManager) {
+            manager = ((RefreshAheadCacheManager) manager).getDelegate();
+        }
+        return manager instanceof NearCacheManager
+            ? (NearCacheManager) manager
+            : null;
+    }
+
     /**
      * 清除用户权限缓存
+     * 按当前缓存的角色计算版本化键并清除，同时清除角色缓存，下次访问按最新角色换用新键
      */
-    @CacheEvict(value = "userPermissions", key = "#username")
+    @SuppressWarnings("unchecked")
     public void evictUserPermissions(String username) {
-        // 缓存注解会自动处理清除
+        Cache roleIdsCache = cacheManager.getCache("userRoleIds");
+        if (roleIdsCache == null) {
+            return;
+        }
+        List<Long> roleIds = roleIdsCache.get(username, List.class);
+        if (roleIds != null) {
+            String cacheKey = permissionCacheKey(username, roleIds);
+            for (String cacheName : new String[] {
+                "userPermissions",
+                "userPermissionBits",
+            }) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.evict(cacheKey);
+                }
+            }
+        }
+        roleIdsCache.evict(username);
     }
 
     /**
-     * 清除用户的所有文档权限缓存
+     * 使持有指定角色的用户权限缓存失效（递增角色代数，不影响其他用户）
+     */
+    public void evictRolePermissions(Long roleId) {
+        permissionGenerations.bumpRole(roleId);
+    }
+
+    /**
+     * 清除用户的所有文档权限缓存（按用户索引删除，不扫描键空间）
      */
     public void evictUserDocumentPermissions(Long userId) {
-        String pattern = USER_DOCUMENT_PERMISSIONS_KEY_PREFIX + userId + ":*";
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        cacheKeyIndex.evict(CacheKeyIndex.userIndex(userId));
+        evictNearCacheMatching("userDocumentPermissions", userId + ":*");
     }
 
     /**
@@ -225,22 +800,18 @@ public class PermissionCacheService {
     }
 
     /**
-     * 清除所有用户对特定文档的权限缓存
+     * 清除所有用户对特定文档的权限缓存（按文档索引删除，不扫描键空间）
      */
     public void evictAllUserDocumentPermissions(Long documentId) {
-        String pattern =
-            USER_DOCUMENT_PERMISSIONS_KEY_PREFIX + "*:" + documentId;
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        cacheKeyIndex.evict(CacheKeyIndex.documentIndex(documentId));
+        evictNearCacheMatching("userDocumentPermissions", "*:" + documentId);
     }
 
     /**
      * 清除用户的所有相关缓存
      */
     public void evictAllUserCaches(String username, Long userId) {
-        evictUserPermissions(username);
+        self.evictUserPermissions(username);
         evictUserDocumentPermissions(userId);
     }
 
@@ -248,16 +819,19 @@ public class PermissionCacheService {
      * 手动设置缓存（用于预热）
      */
     public void preloadUserPermissions(String username) {
-        getUserPermissions(username); // 触发缓存加载
+        // 触发缓存加载
+        self.getUserPermissions(username);
+        self.getUserPermissionBits(username);
     }
 
     /**
-     * 根据用户ID清除用户权限缓存
+     * 根据用户ID清除用户权限缓存，同时清除用户名到ID的缓存（删除用户前会调用）
      */
     public void evictUserPermissions(Long userId) {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
-            evictUserPermissions(userOpt.get().getUsername());
+            self.evictUserPermissions(userOpt.get().getUsername());
+            self.evictUserId(userOpt.get().getUsername());
         }
     }
 
@@ -268,41 +842,69 @@ public class PermissionCacheService {
         evictUserDocumentPermissions(userId);
     }
 
+    /**
+     * 清除文档的分配缓存（事务中调用时在提交后清除，避免并发读取在提交前回填旧的分配）
+     * 单个检查和批量过滤都读取该缓存，文档分配变化时需与用户维度的缓存一起清除
+     */
+    public void evictDocumentAssignments(Long documentId) {
+        TransactionCallbacks.afterCommit(() -> {
+            Cache cache = cacheManager.getCache("documentAssignments");
+            if (cache != null) {
+                cache.evict(documentId);
+            }
+        });
+    }
+
     /**
      * 清除文档公开状态缓存
      */
     public void evictDocumentPublicStatus(Long documentId) {
-        String key = DOCUMENT_PUBLIC_KEY_PREFIX + documentId;
-        redisTemplate.delete(key);
+        // 通过缓存管理器清除，同时失效各节点的本地缓存
+        Cache cache = cacheManager.getCache("documentPublic");
+        if (cache != null) {
+            cache.evict(documentId);
+        }
     }
 
     /**
      * 清除所有用户权限缓存
      */
-    @CacheEvict(value = "userPermissions", allEntries = true)
     public void evictAllUserPermissions() {
-        // 缓存注解会自动处理清除
+        // 递增全局代数，所有用户换用新键，旧条目由TTL过期，无需按模式批量删除
+        permissionGenerations.bumpGlobal();
     }
 
     /**
      * 清除所有用户文档分配缓存
      */
     public void evictAllUserDocumentAssignments() {
-        String pattern = USER_DOCUMENT_PERMISSIONS_KEY_PREFIX + "*";
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+        cacheKeyIndex.evict(CacheKeyIndex.cacheIndex("userDocumentPermissions"));
+        evictNearCacheMatching("userDocumentPermissions", "*");
+    }
+
+    /**
+     * 清除所有文档分配缓存
+     */
+    public void evictAllDocumentAssignments() {
+        cacheKeyIndex.evict(CacheKeyIndex.cacheIndex("documentAssignments"));
+        evictNearCacheMatching("documentAssignments", "*");
     }
 
     /**
      * 清除所有文档公开状态缓存
      */
     public void evictAllDocumentPublicStatus() {
-        String pattern = DOCUMENT_PUBLIC_KEY_PREFIX + "*";
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
+        cacheKeyIndex.evict(CacheKeyIndex.cacheIndex("documentPublic"));
+        evictNearCacheMatching("documentPublic", "*");
+    }
+
+    /**
+     * 清除与Redis按模式删除对应的近端缓存条目，并广播到其他节点
+     */
+    private void evictNearCacheMatching(String cacheName, String keyPattern) {
+        NearCacheManager nearCacheManager = nearCacheManager();
+        if (nearCacheManager != null) {
+            nearCacheManager.evictMatching(cacheName, keyPattern);
         }
     }
 
@@ -312,67 +914,45 @@ public class PermissionCacheService {
     public CacheStats getCacheStats() {
         CacheStats stats = new CacheStats();
 
-        // 统计用户权限缓存数量
-        Set<String> userPermissionKeys = redisTemplate.keys(
-            USER_PERMISSIONS_KEY_PREFIX + "*"
-        );
+        // 各缓存条目数量取自键索引，不扫描键空间
         stats.setUserPermissionsCacheSize(
-            userPermissionKeys != null ? userPermissionKeys.size() : 0
-        );
-
-        // 统计文档权限缓存数量
-        Set<String> docPermissionKeys = redisTemplate.keys(
-            USER_DOCUMENT_PERMISSIONS_KEY_PREFIX + "*"
+            (int) cacheKeyIndex.count(CacheKeyIndex.cacheIndex("userPermissions"))
         );
         stats.setDocumentPermissionsCacheSize(
-            docPermissionKeys != null ? docPermissionKeys.size() : 0
-        );
-
-        // 统计文档公开状态缓存数量
-        Set<String> docPublicKeys = redisTemplate.keys(
-            DOCUMENT_PUBLIC_KEY_PREFIX + "*"
+            (int) cacheKeyIndex.count(
+                CacheKeyIndex.cacheIndex("userDocumentPermissions")
+            )
         );
         stats.setDocumentPublicCacheSize(
-            docPublicKeys != null ? docPublicKeys.size() : 0
+            (int) cacheKeyIndex.count(CacheKeyIndex.cacheIndex("documentPublic"))
         );
 
-        // 从Redis获取命中率统计（这里简化处理，实际项目中可以使用Redis的INFO命令或自定义计数器）
-        // 为了演示，我们设置一些模拟数据
-        stats.setUserPermissionHits(
-            getCounterValue("cache:hits:userPermissions")
-        );
-        stats.setUserPermissionMisses(
-            getCounterValue("cache:misses:userPermissions")
+        // 命中率取自缓存层的集群计数（MetricsCacheManager定期合并到Redis）
+        MetricsCacheManager.CacheOperationCounts userPermissions = cacheCounts(
+            "userPermissions"
         );
-        stats.setDocumentAssignmentHits(
-            getCounterValue("cache:hits:documentAssignments")
-        );
-        stats.setDocumentAssignmentMisses(
-            getCounterValue("cache:misses:documentAssignments")
-        );
-        stats.setDocumentPublicStatusHits(
-            getCounterValue("cache:hits:documentPublicStatus")
-        );
-        stats.setDocumentPublicStatusMisses(
-            getCounterValue("cache:misses:documentPublicStatus")
+        MetricsCacheManager.CacheOperationCounts documentAssignments =
+            cacheCounts("documentAssignments");
+        MetricsCacheManager.CacheOperationCounts documentPublic = cacheCounts(
+            "documentPublic"
         );
+        stats.setUserPermissionHits(userPermissions.hits());
+        stats.setUserPermissionMisses(userPermissions.misses());
+        stats.setDocumentAssignmentHits(documentAssignments.hits());
+        stats.setDocumentAssignmentMisses(documentAssignments.misses());
+        stats.setDocumentPublicStatusHits(documentPublic.hits());
+        stats.setDocumentPublicStatusMisses(documentPublic.misses());
 
         return stats;
     }
 
     /**
-     * 获取计数器值
-     */
-    private long getCounterValue(String key) {
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? Long.parseLong(value.toString()) : 0L;
-    }
-
-    /**
-     * 增加计数器
+     * 缓存层统计的集群计数，未启用缓存指标时为0
      */
-    public void incrementCounter(String key) {
-        redisTemplate.opsForValue().increment(key);
+    private MetricsCacheManager.CacheOperationCounts cacheCounts(String cacheName) {
+        return cacheManager instanceof MetricsCacheManager
+            ? ((MetricsCacheManager) cacheManager).clusterCounts(cacheName)
+            : MetricsCacheManager.CacheOperationCounts.EMPTY;
     }
 
     /**
@@ -3,6 +3,7 @@ package com.cms.permissions.service;
 import com.cms.permissions.entity.Permission;
 import com.cms.permissions.exception.ResourceNotFoundException;
 import com.cms.permissions.repository.PermissionRepository;
+import com.cms.permissions.security.PermissionRegistry;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,6 +20,9 @@ public class PermissionService {
     @Autowired
     private PermissionCacheService permissionCacheService;
 
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
     @Autowired
     private AuditService auditService;
 
@@ -31,8 +35,8 @@ public class PermissionService {
         Permission permission = new Permission(code, description);
         Permission savedPermission = permissionRepository.save(permission);
 
-        // 清除所有用户权限缓存，因为新权限可能影响现有角色
-        permissionCacheService.evictAllUserPermissions();
+        // 重建权限序号注册表；新权限尚未分配给任何角色，无需清除权限缓存
+        permissionRegistry.rebuild();
 
         // Log the permission creation
         auditService.logPermissionOperation(
@@ -109,7 +113,8 @@ public class PermissionService {
 
         Permission savedPermission = permissionRepository.save(permission);
 
-        // 清除所有用户权限缓存，因为权限信息已更改
+        // 权限代码可能已变更，重建注册表并清除所有用户权限缓存
+        permissionRegistry.rebuild();
         permissionCacheService.evictAllUserPermissions();
 
         // Log the permission update
@@ -142,6 +147,7 @@ public class PermissionService {
         permissionCacheService.evictAllUserPermissions();
 
         permissionRepository.deleteById(permissionId);
+        permissionRegistry.rebuild();
 
         // Log the permission deletion
         auditService.logPermissionOperation(
@@ -172,6 +178,7 @@ public class PermissionService {
         permissionCacheService.evictAllUserPermissions();
 
         permissionRepository.delete(permission);
+        permissionRegistry.rebuild();
 
         // Log the permission deletion
         auditService.logPermissionOperation(
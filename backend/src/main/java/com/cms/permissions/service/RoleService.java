@@ -45,12 +45,8 @@ public class RoleService {
         }
         role.setPermissions(permissions);
 
-        Role savedRole = roleRepository.save(role);
-        
-        // 清除所有用户权限缓存，因为新角色可能影响现有用户
-        permissionCacheService.evictAllUserPermissions();
-        
-        return savedRole;
+        // 新角色尚未分配给任何用户，无需清除权限缓存
+        return roleRepository.save(role);
     }
 
     @PreAuthorize("hasAuthority('ROLE:READ')")
@@ -87,8 +83,8 @@ public class RoleService {
 
         Role savedRole = roleRepository.save(role);
         
-        // 清除所有用户权限缓存，因为角色权限已更改
-        permissionCacheService.evictAllUserPermissions();
+        // 只使持有该角色的用户权限缓存失效
+        permissionCacheService.evictRolePermissions(roleId);
         
         return savedRole;
     }
@@ -111,8 +107,8 @@ public class RoleService {
 
         Role savedRole = roleRepository.save(role);
         
-        // 清除所有用户权限缓存，因为角色信息已更改
-        permissionCacheService.evictAllUserPermissions();
+        // 只使持有该角色的用户权限缓存失效
+        permissionCacheService.evictRolePermissions(roleId);
         
         return savedRole;
     }
@@ -123,8 +119,8 @@ public class RoleService {
             return false;
         }
 
-        // 清除所有用户权限缓存，因为角色将被删除
-        permissionCacheService.evictAllUserPermissions();
+        // 只使持有该角色的用户权限缓存失效
+        permissionCacheService.evictRolePermissions(roleId);
         
         roleRepository.deleteById(roleId);
         return true;
@@ -141,8 +137,8 @@ public class RoleService {
         role.addPermission(permission);
         Role savedRole = roleRepository.save(role);
         
-        // 清除所有用户权限缓存
-        permissionCacheService.evictAllUserPermissions();
+        // 只使持有该角色的用户权限缓存失效
+        permissionCacheService.evictRolePermissions(roleId);
         
         return savedRole;
     }
@@ -158,8 +154,8 @@ public class RoleService {
         role.removePermission(permission);
         Role savedRole = roleRepository.save(role);
         
-        // 清除所有用户权限缓存
-        permissionCacheService.evictAllUserPermissions();
+        // 只使持有该角色的用户权限缓存失效
+        permissionCacheService.evictRolePermissions(roleId);
         
         return savedRole;
     }
@@ -1,7 +1,13 @@
 package com.cms.permissions.service;
 
 import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.entity.SearchHistory;
 import com.cms.permissions.repository.DocumentIndexRepository;
+import com.cms.permissions.search.EmbeddedSearchBackend;
+import com.cms.permissions.search.IndexedField;
+import com.cms.permissions.search.SearchHistoryRecorder;
+import com.cms.permissions.search.SearchSuggestionService;
+import com.cms.permissions.search.SearchQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -9,7 +15,13 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
 
 @Service
 public class SearchService {
@@ -17,6 +29,17 @@ public class SearchService {
     @Autowired
     private DocumentIndexRepository documentIndexRepository;
 
+    // search.backend=embedded时存在；索引构建完成前仍使用数据库查询
+    @Autowired(required = false)
+    private EmbeddedSearchBackend embeddedSearchBackend;
+
+    @Autowired
+    private SearchHistoryRecorder searchHistoryRecorder;
+
+    // search.suggest.enabled=false时不存在；首次构建完成前仍使用数据库查询
+    @Autowired(required = false)
+    private SearchSuggestionService searchSuggestionService;
+
     /**
      * 全文搜索（MySQL FULLTEXT），支持可选的布尔模式
      */
@@ -28,11 +51,45 @@ public class SearchService {
                                               int page,
                                               int size,
                                               boolean booleanMode) {
+        long start = System.currentTimeMillis();
+        DocumentIndex.ContentType type = parseContentType(contentType);
         Pageable pageable = PageRequest.of(page, size);
-        if (booleanMode) {
-            return documentIndexRepository.searchBooleanMode(query, asBool(isPublicOnly), language, pageable);
+        Page<DocumentIndex> result;
+        if (useEmbedded()) {
+            // 布尔模式的运算符被分析器忽略，按自然语言模式匹配
+            result = embeddedSearchBackend.search(
+                SearchQuery.builder()
+                    .clause(SearchQuery.Clause.of(query))
+                    .publicOnly(asBool(isPublicOnly))
+                    .language(language)
+                    .contentType(type)
+                    .build(),
+                pageable
+            );
+        } else if (booleanMode) {
+            result = documentIndexRepository.searchBooleanMode(query, asBool(isPublicOnly), language, pageable);
+        } else {
+            result = documentIndexRepository.searchFullText(query, asBool(isPublicOnly), language,
+                type != null ? type.name() : null, pageable);
+        }
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("contentType", type);
+        filters.put("booleanMode", booleanMode ? true : null);
+        return recorded(SearchHistory.SearchType.FULL_TEXT, query, result, start, language, filters);
+    }
+
+    /**
+     * 解析内容类型参数：不区分大小写，空白视为不过滤，未知的值抛出IllegalArgumentException（返回400）
+     */
+    static DocumentIndex.ContentType parseContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return null;
+        }
+        try {
+            return DocumentIndex.ContentType.valueOf(contentType.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown content type: " + contentType);
         }
-        return documentIndexRepository.searchFullText(query, asBool(isPublicOnly), language, contentType, pageable);
     }
 
     /**
@@ -40,8 +97,12 @@ public class SearchService {
      */
     @PreAuthorize("hasAuthority('SEARCH:QUERY')")
     public Page<DocumentIndex> searchByTitle(String query, Boolean isPublicOnly, String language, int page, int size) {
+        long start = System.currentTimeMillis();
         Pageable pageable = PageRequest.of(page, size);
-        return documentIndexRepository.searchByTitle(query, asBool(isPublicOnly), language, pageable);
+        Page<DocumentIndex> result = useEmbedded()
+            ? embeddedSearchBackend.search(fieldQuery(query, isPublicOnly, language, IndexedField.TITLE), pageable)
+            : documentIndexRepository.searchByTitle(query, asBool(isPublicOnly), language, pageable);
+        return recorded(SearchHistory.SearchType.TITLE_ONLY, query, result, start, language, null);
     }
 
     /**
@@ -49,15 +110,75 @@ public class SearchService {
      */
     @PreAuthorize("hasAuthority('SEARCH:QUERY')")
     public Page<DocumentIndex> searchByContent(String query, Boolean isPublicOnly, String language, int page, int size) {
+        long start = System.currentTimeMillis();
         Pageable pageable = PageRequest.of(page, size);
-        return documentIndexRepository.searchByContent(query, asBool(isPublicOnly), language, pageable);
+        Page<DocumentIndex> result = useEmbedded()
+            ? embeddedSearchBackend.search(fieldQuery(query, isPublicOnly, language, IndexedField.BODY), pageable)
+            : documentIndexRepository.searchByContent(query, asBool(isPublicOnly), language, pageable);
+        return recorded(SearchHistory.SearchType.CONTENT_ONLY, query, result, start, language, null);
     }
 
     /**
-     * 搜索建议
+     * 高级搜索：各文本条件均需满足，可按分类、内容类型和创建时间过滤
+     */
+    @PreAuthorize("hasAuthority('SEARCH:QUERY')")
+    public Page<DocumentIndex> advancedSearch(String title,
+                                              String content,
+                                              String tags,
+                                              String categoryPath,
+                                              DocumentIndex.ContentType contentType,
+                                              LocalDateTime startDate,
+                                              LocalDateTime endDate,
+                                              Boolean isPublicOnly,
+                                              String language,
+                                              int page,
+                                              int size) {
+        long start = System.currentTimeMillis();
+        Pageable pageable = PageRequest.of(page, size);
+        Page<DocumentIndex> result;
+        if (useEmbedded()) {
+            SearchQuery.SearchQueryBuilder query = SearchQuery.builder()
+                .publicOnly(asBool(isPublicOnly))
+                .language(language)
+                .contentType(contentType)
+                .categoryPath(categoryPath)
+                .startDate(startDate)
+                .endDate(endDate);
+            if (title != null) {
+                query.clause(SearchQuery.Clause.of(title, IndexedField.TITLE));
+            }
+            if (content != null) {
+                query.clause(SearchQuery.Clause.of(content, IndexedField.BODY));
+            }
+            if (tags != null) {
+                query.clause(SearchQuery.Clause.of(tags, IndexedField.TAGS));
+            }
+            result = embeddedSearchBackend.search(query.build(), pageable);
+        } else {
+            result = documentIndexRepository.advancedSearch(title, content, tags, categoryPath, contentType,
+                    startDate, endDate, asBool(isPublicOnly), language, pageable);
+        }
+        // 历史中的查询为各文本条件，条件本身记录在appliedFilters中
+        StringJoiner text = new StringJoiner(" ");
+        Map<String, Object> filters = new LinkedHashMap<>();
+        addCondition(text, filters, "title", title);
+        addCondition(text, filters, "content", content);
+        addCondition(text, filters, "tags", tags);
+        filters.put("categoryPath", categoryPath);
+        filters.put("contentType", contentType);
+        filters.put("startDate", startDate != null ? startDate.toString() : null);
+        filters.put("endDate", endDate != null ? endDate.toString() : null);
+        return recorded(SearchHistory.SearchType.ADVANCED_SEARCH, text.toString(), result, start, language, filters);
+    }
+
+    /**
+     * 搜索建议：标题和热门搜索词的前缀补全，按权重和热度排序
      */
     @PreAuthorize("hasAuthority('SEARCH:SUGGEST')")
     public List<String> getSearchSuggestions(String query, Boolean isPublicOnly) {
+        if (searchSuggestionService != null && searchSuggestionService.isReady()) {
+            return searchSuggestionService.suggest(query, asBool(isPublicOnly));
+        }
         return documentIndexRepository.findSearchSuggestions(query, asBool(isPublicOnly));
     }
 
@@ -67,6 +188,42 @@ public class SearchService {
         throw new UnsupportedOperationException("Elasticsearch integration is not implemented yet");
     }
 
+    /**
+     * 把搜索放入历史记录队列（不阻塞），返回原结果
+     */
+    private Page<DocumentIndex> recorded(SearchHistory.SearchType type,
+                                         String query,
+                                         Page<DocumentIndex> result,
+                                         long start,
+                                         String language,
+                                         Map<String, Object> filters) {
+        if (filters != null) {
+            filters.values().removeIf(Objects::isNull);
+        }
+        searchHistoryRecorder.record(type, query, result.getTotalElements(), System.currentTimeMillis() - start,
+                language, result.getNumber(), result.getSize(), filters);
+        return result;
+    }
+
+    private static void addCondition(StringJoiner text, Map<String, Object> filters, String name, String value) {
+        if (value != null && !value.isBlank()) {
+            text.add(value);
+            filters.put(name, value);
+        }
+    }
+
+    private boolean useEmbedded() {
+        return embeddedSearchBackend != null && embeddedSearchBackend.isReady();
+    }
+
+    private SearchQuery fieldQuery(String query, Boolean isPublicOnly, String language, IndexedField field) {
+        return SearchQuery.builder()
+                .clause(SearchQuery.Clause.of(query, field))
+                .publicOnly(asBool(isPublicOnly))
+                .language(language)
+                .build();
+    }
+
     private boolean asBool(Boolean b) {
         return b != null && b;
     }
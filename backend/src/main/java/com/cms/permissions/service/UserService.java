@@ -5,6 +5,9 @@ import com.cms.permissions.entity.User;
 import com.cms.permissions.exception.UserNotFoundException;
 import com.cms.permissions.repository.RoleRepository;
 import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.CachedUserDetailsService;
+import com.cms.permissions.security.SecurityEpochs;
+import com.cms.permissions.security.VerifiedTokenCache;
 import java.util.HashSet;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +35,15 @@ public class UserService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private CachedUserDetailsService cachedUserDetailsService;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private SecurityEpochs securityEpochs;
+
     @PreAuthorize(
         "hasAuthority('USER:MANAGE:SUB') OR hasAuthority('USER:MANAGE:EDITOR')"
     )
@@ -136,6 +148,9 @@ public class UserService {
 
         // 清除用户权限缓存，因为角色已更改
         permissionCacheService.evictUserPermissions(userId);
+        cachedUserDetailsService.evict(savedUser.getUsername());
+        // 已签发的内嵌权限令牌失效，需重新登录
+        securityEpochs.bumpUser(userId);
 
         return savedUser;
     }
@@ -154,6 +169,9 @@ public class UserService {
 
         // 清除用户权限缓存，确保状态变更实时生效
         permissionCacheService.evictUserPermissions(userId);
+        cachedUserDetailsService.evict(savedUser.getUsername());
+        verifiedTokenCache.evictUser(savedUser.getUsername());
+        securityEpochs.bumpUser(userId);
 
         // 记录审计日志
         String details = "User status changed from " + oldStatus + " to " + status;
@@ -178,6 +196,13 @@ public class UserService {
             // 先清除用户权限缓存
             permissionCacheService.evictUserPermissions(userId);
             permissionCacheService.evictUserDocumentAssignments(userId);
+            securityEpochs.bumpUser(userId);
+            userRepository
+                .findById(userId)
+                .ifPresent(user -> {
+                    cachedUserDetailsService.evict(user.getUsername());
+                    verifiedTokenCache.evictUser(user.getUsername());
+                });
 
             userRepository.deleteById(userId);
             return true;
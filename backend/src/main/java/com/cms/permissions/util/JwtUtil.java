@@ -2,6 +2,7 @@ package com.cms.permissions.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -20,8 +21,29 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private Long expiration;
 
+    // 签名密钥和解析器在启动时构建一次，JwtParser不可变，可在请求线程间共享
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * 校验签名并解析令牌，每个请求只需调用一次
+     * 签名无效、格式错误或已过期时抛出JwtException
+     */
+    public Claims parseToken(String token) {
+        return extractAllClaims(token);
     }
 
     public String extractUsername(String token) {
@@ -38,15 +60,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(String username) {
@@ -54,6 +68,10 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
+    public String generateToken(String username, Map<String, Object> claims) {
+        return createToken(new HashMap<>(claims), username);
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -65,16 +83,22 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), username);
+    }
+
+    /**
+     * 使用已解析的声明校验令牌，不再重复解析和验签
+     */
+    public Boolean validateToken(Claims claims, String username) {
+        final String extractedUsername = claims.getSubject();
+        final Date expirationDate = claims.getExpiration();
+        return (extractedUsername != null && extractedUsername.equals(username)
+                && (expirationDate == null || !expirationDate.before(new Date())));
     }
 
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
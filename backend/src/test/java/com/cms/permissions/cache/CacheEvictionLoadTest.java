@@ -0,0 +1,304 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.PermissionRegistry;
+import com.cms.permissions.service.CachePerformanceAnalyzer;
+import com.cms.permissions.service.PermissionCacheService;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 缓存失效负载测试
+ * 键空间从1万增长到20万时，按用户索引失效的耗时应保持平稳（只与受影响键数有关）
+ * 只加载索引和权限缓存服务，其余依赖为mock；RedisTemplate与生产配置一样开启事务支持
+ */
+@SpringBootTest(classes = CacheEvictionLoadTest.TestConfig.class)
+class CacheEvictionLoadTest {
+
+    private static final int[] KEYSPACE_SIZES = { 10_000, 50_000, 200_000 };
+    private static final int DOCUMENTS_PER_USER = 50;
+    private static final int ROUNDS = 20;
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private PermissionCacheService permissionCacheService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private DocumentRepository documentRepository;
+
+    @MockitoBean
+    private CachePerformanceAnalyzer performanceAnalyzer;
+
+    @MockitoBean
+    private PermissionRegistry permissionRegistry;
+
+    @MockitoBean
+    private PermissionGenerations permissionGenerations;
+
+    @MockitoBean
+    private DocumentAccessIndex documentAccessIndex;
+
+    @MockitoBean
+    private RedisSerializer<Boolean> optimizedBooleanSerializer;
+
+    @MockitoBean
+    private RedisSerializer<List<DocumentAssignment>> optimizedAssignmentListSerializer;
+
+    @Configuration
+    @EnableCaching
+    @Import({ CacheKeyIndex.class, PermissionCacheService.class })
+    static class TestConfig {
+
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory() {
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration("localhost", 6379);
+            configuration.setDatabase(2);
+            return new LettuceConnectionFactory(configuration);
+        }
+
+        @Bean
+        RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+            template.setEnableTransactionSupport(true);
+            return template;
+        }
+
+        @Bean
+        CacheManager cacheManager(LettuceConnectionFactory connectionFactory) {
+            return RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(
+                    RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofMinutes(10))
+                        .computePrefixWith(cacheName -> "cms:cache:" + cacheName + ":")
+                        .serializeValuesWith(
+                            RedisSerializationContext.SerializationPair.fromSerializer(
+                                new GenericJackson2JsonRedisSerializer()
+                            )
+                        )
+                )
+                .build();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:eviction;DB_CLOSE_DELAY=-1", "sa", "")
+            );
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().flushDb();
+        when(documentAssignmentRepository.findByUserId(anyLong())).thenAnswer(
+            invocation -> {
+                Long userId = invocation.getArgument(0);
+                List<DocumentAssignment> assignments = new ArrayList<>();
+                for (long docId = 1; docId <= DOCUMENTS_PER_USER; docId++) {
+                    assignments.add(
+                        new DocumentAssignment(
+                            docId,
+                            userId,
+                            DocumentAssignment.AssignmentType.EDITOR,
+                            userId
+                        )
+                    );
+                }
+                return assignments;
+            }
+        );
+    }
+
+    @Test
+    void testEvictionLatencyStaysFlatAsKeyspaceGrows() {
+        long[] medians = new long[KEYSPACE_SIZES.length];
+        int filled = 0;
+
+        for (int s = 0; s < KEYSPACE_SIZES.length; s++) {
+            // 其他用户的同前缀条目，KEYS/SCAN方案需要扫描这些键
+            fillKeyspace(filled, KEYSPACE_SIZES[s]);
+            filled = KEYSPACE_SIZES[s];
+
+            long[] samples = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                populateUserEntries();
+                long start = System.nanoTime();
+                permissionCacheService.evictUserDocumentPermissions(USER_ID);
+                samples[round] = System.nanoTime() - start;
+                assertEquals(0, countUserEntries(), "用户条目应全部失效");
+            }
+            Arrays.sort(samples);
+            medians[s] = samples[ROUNDS / 2];
+
+            assertEquals(
+                (long) filled,
+                redisTemplate.execute(
+                    (RedisCallback<Long>) connection ->
+                        connection.serverCommands().dbSize()
+                ) -
+                    indexKeyCount(),
+                "其他用户的条目不应受影响"
+            );
+            System.out.println(
+                "Keyspace " +
+                    filled +
+                    ": median eviction " +
+                    TimeUnit.NANOSECONDS.toMicros(medians[s]) +
+                    "us"
+            );
+        }
+
+        long smallest = medians[0];
+        long largest = medians[medians.length - 1];
+        assertTrue(
+            largest <= Math.max(smallest * 3, smallest + TimeUnit.MILLISECONDS.toNanos(5)),
+            "键空间增长20倍后失效耗时不应随之增长: " +
+                TimeUnit.NANOSECONDS.toMicros(smallest) +
+                "us -> " +
+                TimeUnit.NANOSECONDS.toMicros(largest) +
+                "us"
+        );
+    }
+
+    @Test
+    void testEvictionInsideTransactionCompletesAfterCommit() {
+        populateUserEntries();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    // 事务内先写Redis，之后的写命令排队在MULTI中直到提交
+                    redisTemplate.opsForValue().set("cms:test:marker", "1");
+                    permissionCacheService.evictUserDocumentPermissions(USER_ID);
+                }),
+            "事务中的失效不应循环等待排队的删除"
+        );
+        assertEquals(0, countUserEntries(), "提交后用户条目应全部失效");
+        assertEquals("1", redisTemplate.opsForValue().get("cms:test:marker"));
+    }
+
+    private void populateUserEntries() {
+        for (long docId = 1; docId <= DOCUMENTS_PER_USER; docId++) {
+            permissionCacheService.getUserDocumentAssignments(USER_ID, docId);
+        }
+        assertEquals(DOCUMENTS_PER_USER, countUserEntries());
+    }
+
+    private long countUserEntries() {
+        long count = 0;
+        for (long docId = 1; docId <= DOCUMENTS_PER_USER; docId++) {
+            if (
+                Boolean.TRUE.equals(
+                    redisTemplate.hasKey(
+                        "cms:cache:userDocumentPermissions:" + USER_ID + ":" + docId
+                    )
+                )
+            ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long indexKeyCount() {
+        // 测试期间存在的索引键：当前用户、各文档以及缓存级索引（失效后可能已为空而自动删除）
+        long count = 0;
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(CacheKeyIndex.userIndex(USER_ID)))) {
+            count++;
+        }
+        for (long docId = 1; docId <= DOCUMENTS_PER_USER; docId++) {
+            if (
+                Boolean.TRUE.equals(
+                    redisTemplate.hasKey(CacheKeyIndex.documentIndex(docId))
+                )
+            ) {
+                count++;
+            }
+        }
+        if (
+            Boolean.TRUE.equals(
+                redisTemplate.hasKey(
+                    CacheKeyIndex.cacheIndex("userDocumentPermissions")
+                )
+            )
+        ) {
+            count++;
+        }
+        return count;
+    }
+
+    private void fillKeyspace(int from, int to) {
+        int batch = 10_000;
+        for (int start = from; start < to; start += batch) {
+            int end = Math.min(start + batch, to);
+            int first = start;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = first; i < end; i++) {
+                    connection
+                        .stringCommands()
+                        .setEx(
+                            ("cms:cache:userDocumentPermissions:" +
+                                (1000 + i / DOCUMENTS_PER_USER) +
+                                ":" +
+                                i).getBytes(StandardCharsets.UTF_8),
+                            600,
+                            "[]".getBytes(StandardCharsets.UTF_8)
+                        );
+                }
+                return null;
+            });
+        }
+    }
+}
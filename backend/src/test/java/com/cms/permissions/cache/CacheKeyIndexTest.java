@@ -0,0 +1,108 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class CacheKeyIndexTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisZSetCommands zSetCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @InjectMocks
+    private CacheKeyIndex cacheKeyIndex;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.getRequiredConnectionFactory()).thenReturn(connectionFactory);
+        lenient().when(connectionFactory.getConnection()).thenReturn(connection);
+        lenient().when(connection.zSetCommands()).thenReturn(zSetCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEvictionStopsAfterMembersSeenAtStart() {
+        // 模拟索引始终不缩小（如删除命令被排队时），失效仍在处理完开始时的成员数后结束
+        when(zSetCommands.zCard(any(byte[].class))).thenReturn(1_200L);
+        when(zSetCommands.zPopMin(any(byte[].class), anyLong())).thenAnswer(invocation -> {
+            long count = invocation.getArgument(1);
+            Set<Tuple> members = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++) {
+                members.add(new DefaultTuple(("cms:cache:key:" + i).getBytes(StandardCharsets.UTF_8), 1.0));
+            }
+            return members;
+        });
+
+        assertEquals(1_200L, cacheKeyIndex.evictNow(CacheKeyIndex.userIndex(1L)));
+
+        verify(zSetCommands, times(2)).zPopMin(any(byte[].class), eq(500L));
+        verify(zSetCommands).zPopMin(any(byte[].class), eq(200L));
+        verify(keyCommands, times(3)).unlink(any(byte[][].class));
+        verify(connection).close();
+    }
+
+    @Test
+    void testEvictionInsideTransactionRunsAfterCommit() {
+        when(zSetCommands.zCard(any(byte[].class))).thenReturn(1L);
+        when(zSetCommands.zPopMin(any(byte[].class), anyLong())).thenReturn(
+            Set.of(new DefaultTuple("cms:cache:key".getBytes(StandardCharsets.UTF_8), 1.0))
+        );
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheKeyIndex.evict(CacheKeyIndex.documentIndex(7L));
+        verifyNoInteractions(connectionFactory);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(keyCommands).unlink(any(byte[][].class));
+    }
+
+    @Test
+    void testEvictionFailureIsNotPropagated() {
+        when(zSetCommands.zCard(any(byte[].class))).thenThrow(new IllegalStateException("redis unavailable"));
+
+        assertDoesNotThrow(() -> cacheKeyIndex.evict(CacheKeyIndex.cacheIndex("documentPublic")));
+        verify(connection).close();
+    }
+}
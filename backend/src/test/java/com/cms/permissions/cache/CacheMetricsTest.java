@@ -0,0 +1,57 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CacheMetricsTest {
+
+    @Test
+    void testConcurrentRecordingIsExact() throws InterruptedException {
+        CacheOptimizationConfig.CachePerformanceMonitor monitor =
+            new CacheOptimizationConfig.CachePerformanceMonitor();
+        int threads = 16;
+        int operations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    // 偶数次命中，响应时间1..100
+                    monitor.recordCacheOperation("userPermissions", i % 2 == 0, i % 100 + 1);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        CacheOptimizationConfig.CacheMetrics metrics = monitor.getMetrics("userPermissions");
+        assertEquals((long) threads * operations, metrics.getTotalOperations());
+        assertEquals((long) threads * operations / 2, metrics.getHitCount());
+        assertEquals(0.5, metrics.getHitRate(), 1e-9);
+        assertEquals(50.5, metrics.getAverageResponseTime(), 1e-9);
+        assertEquals(100, metrics.getMaxResponseTime());
+        assertEquals(1, metrics.getMinResponseTime());
+    }
+
+    @Test
+    void testEmptyMetrics() {
+        CacheOptimizationConfig.CacheMetrics metrics = new CacheOptimizationConfig.CacheMetrics();
+
+        assertEquals(0, metrics.getTotalOperations());
+        assertEquals(0.0, metrics.getHitRate());
+        assertEquals(0, metrics.getMinResponseTime());
+        assertEquals(0, metrics.getMaxResponseTime());
+    }
+}
@@ -0,0 +1,286 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.service.CacheWarmupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CacheWarmupStrategyTest {
+
+    // 模拟Redis中的检查点哈希：键 -> 节点ID -> 编码后的访问模式
+    private final Map<String, Map<String, byte[]>> stored = new ConcurrentHashMap<>();
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private CacheWarmupService cacheWarmupService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        when(hashCommands.hSet(any(byte[].class), any(byte[].class), any(byte[].class))).thenAnswer(
+            invocation -> {
+                hash(invocation.getArgument(0)).put(
+                    string(invocation.getArgument(1)),
+                    invocation.getArgument(2)
+                );
+                return true;
+            }
+        );
+        when(hashCommands.hGetAll(any(byte[].class))).thenAnswer(invocation -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            hash(invocation.getArgument(0)).forEach((field, value) ->
+                entries.put(field.getBytes(StandardCharsets.UTF_8), value)
+            );
+            return entries;
+        });
+        when(hashCommands.hDel(any(byte[].class), any(byte[][].class))).thenAnswer(invocation -> {
+            Map<String, byte[]> hash = hash(invocation.getArgument(0));
+            long removed = 0;
+            for (byte[] field : (byte[][]) invocation.getRawArguments()[1]) {
+                removed += hash.remove(string(field)) != null ? 1 : 0;
+            }
+            return removed;
+        });
+
+        redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+            ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection)
+        );
+
+        cacheWarmupService = mock(CacheWarmupService.class);
+        CacheWarmupService.WarmupResult result = new CacheWarmupService.WarmupResult();
+        result.setSuccess(true);
+        when(cacheWarmupService.warmupUserPermissions()).thenReturn(
+            CompletableFuture.completedFuture(result)
+        );
+        when(cacheWarmupService.warmupUserPermissions(anyCollection())).thenReturn(
+            CompletableFuture.completedFuture(result)
+        );
+        when(cacheWarmupService.warmupDocumentPublicStatus()).thenReturn(
+            CompletableFuture.completedFuture(result)
+        );
+        when(cacheWarmupService.warmupDocumentPublicStatus(anyCollection())).thenReturn(
+            CompletableFuture.completedFuture(result)
+        );
+    }
+
+    @Test
+    void testSketchFindsHeavyHittersWithBoundedMemory() {
+        AccessFrequencySketch sketch = new AccessFrequencySketch(4, 4096, 20);
+        for (int round = 0; round < 200; round++) {
+            for (int hot = 0; hot < 10; hot++) {
+                sketch.increment("hot" + hot);
+            }
+        }
+        // 大量只访问一次的键不会挤掉热点键，热点表也不会增长
+        for (int i = 0; i < 20_000; i++) {
+            sketch.increment("user" + i);
+        }
+
+        Map<String, Integer> top = sketch.topK(10);
+        assertEquals(
+            IntStream.range(0, 10).mapToObj(i -> "hot" + i).collect(Collectors.toSet()),
+            top.keySet()
+        );
+        assertTrue(sketch.topK(100).size() <= 20);
+        for (int hot = 0; hot < 10; hot++) {
+            assertTrue(sketch.estimate("hot" + hot) >= 200);
+        }
+        assertTrue(sketch.estimate("user1") >= 1);
+    }
+
+    @Test
+    void testPatternsMergeAcrossNodesThroughCodec() {
+        CompactRedisSerializer<CacheWarmupStrategy.AccessPattern> serializer =
+            new CompactRedisSerializer<>(CacheWarmupStrategy.AccessPattern.CODEC, null, 1024, true);
+        CacheWarmupStrategy.AccessPattern node1 = new CacheWarmupStrategy.AccessPattern("userPermissions", 4, 256, 10);
+        CacheWarmupStrategy.AccessPattern node2 = new CacheWarmupStrategy.AccessPattern("userPermissions", 4, 256, 10);
+        for (int i = 0; i < 30; i++) {
+            node1.recordAccess("alice", 9);
+            node2.recordAccess("alice", 9);
+            node2.recordAccess("bob", 10);
+        }
+        node1.recordAccess("carol", 9);
+
+        byte[] encoded = serializer.serialize(node2);
+        CacheWarmupStrategy.AccessPattern merged = new CacheWarmupStrategy.AccessPattern("userPermissions", 4, 256, 10);
+        merged.merge(node1);
+        merged.merge(serializer.deserialize(encoded));
+
+        assertEquals(Map.of(9, 61L, 10, 30L), merged.getHourlyAccess());
+        assertEquals("alice", merged.getPopularKeys(9, 1).get(0));
+        assertEquals(List.of("bob"), merged.getPopularKeys(10, 5));
+        assertEquals(60, merged.getKeyAccess().get("alice"));
+        assertEquals(9, merged.getPeakHours().get(0));
+    }
+
+    @Test
+    void testCheckpointsSurviveRestartAndExpire() {
+        CacheWarmupStrategy node1 = strategy("node-1");
+        CacheWarmupStrategy node2 = strategy("node-2");
+        for (int i = 0; i < 50; i++) {
+            node1.recordCacheAccess("userPermissions", "alice");
+        }
+        for (int i = 0; i < 30; i++) {
+            node2.recordCacheAccess("userPermissions", "bob");
+        }
+
+        node1.checkpoint();
+        node2.checkpoint();
+        Map<String, Integer> global = node2.getAccessPatterns().get("userPermissions").getKeyAccess();
+        assertEquals(50, global.get("alice"));
+        assertEquals(30, global.get("bob"));
+
+        // 节点1重新部署：新进程本地没有数据，但仍能读到上次运行的检查点
+        CacheWarmupStrategy restarted = strategy("node-1b");
+        restarted.checkpoint();
+        assertEquals(
+            List.of("alice", "bob"),
+            restarted.getAccessPatterns().get("userPermissions").getPopularKeys(10)
+        );
+
+        // 超过保留期未更新的检查点被删除
+        CacheWarmupStrategy.AccessPattern local = localPattern(node1, "userPermissions");
+        ReflectionTestUtils.setField(local, "lastUpdatedMillis", System.currentTimeMillis() - 8 * 24 * 3_600_000L);
+        node1.checkpoint();
+        restarted.checkpoint();
+        assertFalse(stored.get(CacheWarmupStrategy.ACCESS_KEY_PREFIX + "userPermissions").containsKey("node-1"));
+        assertNull(restarted.getAccessPatterns().get("userPermissions").getKeyAccess().get("alice"));
+    }
+
+    @Test
+    void testPeakHourPreparationWarmsGlobalTopKeys() throws Exception {
+        CacheWarmupStrategy node1 = strategy("node-1");
+        CacheWarmupStrategy node2 = strategy("node-2");
+        ReflectionTestUtils.setField(node2, "peakHours", IntStream.range(0, 24).boxed().toList());
+        ReflectionTestUtils.setField(node2, "batchSize", 2);
+        int hour = LocalTime.now().getHour();
+        for (int i = 0; i < 20; i++) {
+            node1.recordCacheAccess("userPermissions", "alice");
+            node1.recordCacheAccess("documentPublic", "42");
+        }
+        for (int i = 0; i < 10; i++) {
+            node2.recordCacheAccess("userPermissions", "bob");
+        }
+        node2.recordCacheAccess("userPermissions", "carol");
+        node1.checkpoint();
+        node2.checkpoint();
+
+        CacheWarmupStrategy.WarmupExecution execution = node2.executeSmartWarmup().get();
+        Assumptions.assumeTrue(hour == LocalTime.now().getHour(), "hour changed during test");
+
+        assertEquals("PEAK_HOUR_PREPARATION", execution.getStrategy());
+        verify(cacheWarmupService).warmupUserPermissions(List.of("alice", "bob"));
+        verify(cacheWarmupService).warmupDocumentPublicStatus(List.of(42L));
+        verify(cacheWarmupService, never()).warmupUserPermissions();
+        verify(cacheWarmupService, never()).warmupDocumentPublicStatus();
+    }
+
+    @Test
+    void testLearnsFromTrackedCacheReads() {
+        MetricsCacheManager cacheManager = new MetricsCacheManager(
+            new ConcurrentMapCacheManager("userRoleIds", "documentPublic", "userIds"),
+            null,
+            Duration.ofHours(1),
+            new SimpleMeterRegistry()
+        );
+        cacheManager.afterPropertiesSet();
+        CacheWarmupStrategy strategy = strategy("node-1", cacheManager);
+        strategy.init();
+        try {
+            cacheManager.getCache("userRoleIds").get("alice");
+            cacheManager.getCache("userRoleIds").get("alice", () -> List.of(1L));
+            cacheManager.getCache("documentPublic").get(7L, Boolean.class);
+            cacheManager.getCache("userIds").get("alice");
+
+            assertEquals(2, localPattern(strategy, "userPermissions").getKeyAccess().get("alice"));
+            assertEquals(1, localPattern(strategy, "documentPublic").getKeyAccess().get("7"));
+            assertEquals(
+                List.of("documentPublic", "userPermissions"),
+                new ArrayList<>(new TreeSet<>(accessPatterns(strategy).keySet()))
+            );
+        } finally {
+            strategy.shutdown();
+        }
+        cacheManager.getCache("userRoleIds").get("bob");
+        assertNull(localPattern(strategy, "userPermissions").getKeyAccess().get("bob"));
+    }
+
+    private CacheWarmupStrategy strategy(String nodeId) {
+        return strategy(nodeId, mock(CacheManager.class));
+    }
+
+    private CacheWarmupStrategy strategy(String nodeId, CacheManager cacheManager) {
+        CacheMemoryOptimizer memoryOptimizer = mock(CacheMemoryOptimizer.class);
+        CacheMemoryOptimizer.MemoryUsageInfo memoryInfo = mock(CacheMemoryOptimizer.MemoryUsageInfo.class);
+        when(memoryInfo.getUsageRatio()).thenReturn(0.1);
+        when(memoryOptimizer.getMemoryUsageInfo()).thenReturn(memoryInfo);
+
+        CacheWarmupStrategy strategy = new CacheWarmupStrategy();
+        ReflectionTestUtils.setField(strategy, "cacheWarmupService", cacheWarmupService);
+        ReflectionTestUtils.setField(strategy, "memoryOptimizer", memoryOptimizer);
+        ReflectionTestUtils.setField(strategy, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(strategy, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(strategy, "strategyEnabled", true);
+        ReflectionTestUtils.setField(strategy, "peakHours", List.of());
+        ReflectionTestUtils.setField(strategy, "minHitRate", 0.0);
+        ReflectionTestUtils.setField(strategy, "maxMemoryUsage", 0.8);
+        ReflectionTestUtils.setField(strategy, "batchSize", 500);
+        ReflectionTestUtils.setField(strategy, "sketchDepth", 4);
+        ReflectionTestUtils.setField(strategy, "sketchWidth", 256);
+        ReflectionTestUtils.setField(strategy, "topK", 20);
+        ReflectionTestUtils.setField(strategy, "checkpointIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(strategy, "retentionHours", 168L);
+        ReflectionTestUtils.setField(strategy, "nodeId", nodeId);
+        return strategy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, CacheWarmupStrategy.AccessPattern> accessPatterns(CacheWarmupStrategy strategy) {
+        return (Map<String, CacheWarmupStrategy.AccessPattern>) ReflectionTestUtils.getField(
+            strategy,
+            "accessPatterns"
+        );
+    }
+
+    private static CacheWarmupStrategy.AccessPattern localPattern(CacheWarmupStrategy strategy, String cacheType) {
+        return accessPatterns(strategy).get(cacheType);
+    }
+
+    private Map<String, byte[]> hash(byte[] key) {
+        return stored.computeIfAbsent(string(key), k -> new ConcurrentHashMap<>());
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,272 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 紧凑序列化的往返、存量JSON兼容和压缩，以及与原JSON序列化器的大小和耗时对比基准
+ */
+class CompactRedisSerializerTest {
+
+    private static final int WARMUP = 20_000;
+
+    private static final int OPERATIONS = 100_000;
+
+    private CacheOptimizationConfig compactConfig;
+
+    private CacheOptimizationConfig jsonConfig;
+
+    @BeforeEach
+    void setUp() {
+        compactConfig = config("compact", true, 1024);
+        jsonConfig = config("json", false, 1024);
+    }
+
+    @Test
+    void testRoundTripsEveryCachedValueType() {
+        Set<String> permissions = permissions(20);
+        assertEquals(
+            permissions,
+            roundTrip(compactConfig.optimizedSetSerializer(), permissions)
+        );
+        assertEquals(
+            List.of(1L, 42L, -3L, Long.MAX_VALUE),
+            roundTrip(
+                compactConfig.optimizedListSerializer(),
+                List.of(1L, 42L, -3L, Long.MAX_VALUE)
+            )
+        );
+        assertEquals(7L, roundTrip(compactConfig.optimizedLongSerializer(), 7L));
+        assertEquals(true, roundTrip(compactConfig.optimizedBooleanSerializer(), true));
+        assertEquals(false, roundTrip(compactConfig.optimizedBooleanSerializer(), false));
+
+        long[] bits = { 0b1011L, -1L, 0L, Long.MIN_VALUE };
+        assertArrayEquals(
+            bits,
+            roundTrip(compactConfig.optimizedPermissionBitsSerializer(), bits)
+        );
+
+        List<DocumentAssignment> assignments = assignments(5);
+        DocumentAssignment partial = new DocumentAssignment();
+        partial.setDocumentId(9L);
+        assignments.add(partial);
+        List<DocumentAssignment> read = roundTrip(
+            compactConfig.optimizedAssignmentListSerializer(),
+            assignments
+        );
+        assertEquals(assignments.size(), read.size());
+        for (int i = 0; i < assignments.size(); i++) {
+            DocumentAssignment expected = assignments.get(i);
+            DocumentAssignment actual = read.get(i);
+            assertEquals(expected.getDocumentId(), actual.getDocumentId());
+            assertEquals(expected.getUserId(), actual.getUserId());
+            assertEquals(expected.getAssignmentType(), actual.getAssignmentType());
+            assertEquals(expected.getAssignedAt(), actual.getAssignedAt());
+            assertEquals(expected.getAssignedBy(), actual.getAssignedBy());
+        }
+    }
+
+    @Test
+    void testReadsValuesWrittenInTheOtherFormat() {
+        Set<String> permissions = permissions(10);
+        RedisSerializer<Set<String>> compact = compactConfig.optimizedSetSerializer();
+        RedisSerializer<Set<String>> json = jsonConfig.optimizedSetSerializer();
+
+        byte[] legacy = json.serialize(permissions);
+        assertEquals('[', legacy[0]);
+        assertEquals(permissions, compact.deserialize(legacy));
+
+        byte[] written = compact.serialize(permissions);
+        assertEquals(CompactRedisSerializer.FORMAT_COMPACT, written[0]);
+        assertEquals(permissions, json.deserialize(written));
+    }
+
+    @Test
+    void testCompressesPayloadsAboveThreshold() {
+        RedisSerializer<Set<String>> serializer = compactConfig.optimizedSetSerializer();
+
+        assertEquals(
+            CompactRedisSerializer.FORMAT_COMPACT,
+            serializer.serialize(permissions(20))[0]
+        );
+
+        Set<String> large = permissions(500);
+        byte[] compressed = serializer.serialize(large);
+        byte[] uncompressed = config("compact", false, 1024)
+            .optimizedSetSerializer()
+            .serialize(large);
+        assertEquals(CompactRedisSerializer.FORMAT_DEFLATE, compressed[0]);
+        assertTrue(compressed.length < uncompressed.length / 2);
+        assertEquals(large, serializer.deserialize(compressed));
+    }
+
+    @Test
+    void testGenericSerializerKeepsSmallValuesAsPlainJson() {
+        CompactRedisSerializer<Object> serializer = new CompactRedisSerializer<>(
+            null,
+            new GenericJackson2JsonRedisSerializer(),
+            64,
+            true
+        );
+
+        // 未压缩的值与原JSON完全一致，INCR写入的计数也能读取
+        assertEquals("5", new String(serializer.serialize(5), StandardCharsets.UTF_8));
+        assertEquals(5, serializer.deserialize("5".getBytes(StandardCharsets.UTF_8)));
+
+        String draft = "x".repeat(4096);
+        byte[] compressed = serializer.serialize(draft);
+        assertEquals(CompactRedisSerializer.FORMAT_DEFLATE, compressed[0]);
+        assertEquals(draft, serializer.deserialize(compressed));
+    }
+
+    @Test
+    void testRejectsCorruptValues() {
+        RedisSerializer<Set<String>> serializer = compactConfig.optimizedSetSerializer();
+        byte[] bytes = serializer.serialize(permissions(5));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+
+        byte[] hugeSize = { CompactRedisSerializer.FORMAT_COMPACT, (byte) 0xFF, (byte) 0xFF, 0x7F };
+        assertThrows(SerializationException.class, () -> serializer.deserialize(hugeSize));
+
+        assertNull(serializer.deserialize(new byte[0]));
+        assertArrayEquals(new byte[0], serializer.serialize(null));
+    }
+
+    @Test
+    void testSerializerBenchmark() {
+        benchmark(
+            "Set<String>(20 permissions)",
+            jsonConfig.optimizedSetSerializer(),
+            compactConfig.optimizedSetSerializer(),
+            () -> permissions(20)
+        );
+        benchmark(
+            "Boolean",
+            jsonConfig.optimizedBooleanSerializer(),
+            compactConfig.optimizedBooleanSerializer(),
+            () -> Boolean.TRUE
+        );
+        benchmark(
+            "long[](permission bits)",
+            jsonConfig.optimizedPermissionBitsSerializer(),
+            compactConfig.optimizedPermissionBitsSerializer(),
+            () -> new long[] { 0x3F_FFFFL, 0x1L }
+        );
+        benchmark(
+            "List<DocumentAssignment>(10)",
+            jsonConfig.optimizedAssignmentListSerializer(),
+            compactConfig.optimizedAssignmentListSerializer(),
+            () -> assignments(10)
+        );
+        benchmark(
+            "Set<String>(500 permissions, compressed)",
+            jsonConfig.optimizedSetSerializer(),
+            compactConfig.optimizedSetSerializer(),
+            () -> permissions(500)
+        );
+    }
+
+    private static <T> void benchmark(
+        String name,
+        RedisSerializer<T> json,
+        RedisSerializer<T> compact,
+        Supplier<T> value
+    ) {
+        T sample = value.get();
+        int operations = Math.max(1_000, OPERATIONS / Math.max(1, json.serialize(sample).length / 64));
+        int warmup = Math.min(WARMUP, operations);
+        byte[] jsonBytes = json.serialize(sample);
+        byte[] compactBytes = compact.serialize(sample);
+        for (int i = 0; i < warmup; i++) {
+            json.deserialize(json.serialize(sample));
+            compact.deserialize(compact.serialize(sample));
+        }
+
+        long jsonWrite = time(operations, () -> json.serialize(sample));
+        long compactWrite = time(operations, () -> compact.serialize(sample));
+        long jsonRead = time(operations, () -> json.deserialize(jsonBytes));
+        long compactRead = time(operations, () -> compact.deserialize(compactBytes));
+
+        assertTrue(compactBytes.length < jsonBytes.length, name);
+        System.out.println(
+            "Cache serializer " + name + ": bytes json=" + jsonBytes.length +
+            ", compact=" + compactBytes.length +
+            "; serialize json=" + (jsonWrite / operations) +
+            "ns/op, compact=" + (compactWrite / operations) +
+            "ns/op; deserialize json=" + (jsonRead / operations) +
+            "ns/op, compact=" + (compactRead / operations) + "ns/op"
+        );
+    }
+
+    private static long time(int operations, Supplier<Object> operation) {
+        Object sink = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            sink = operation.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNotNull(sink);
+        return elapsed;
+    }
+
+    private static <T> T roundTrip(RedisSerializer<T> serializer, T value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    private static Set<String> permissions(int count) {
+        Set<String> permissions = new HashSet<>();
+        String[] modules = { "DOC", "USER", "ROLE", "COMMENT", "CACHE" };
+        String[] actions = { "VIEW", "EDIT", "CREATE", "DELETE", "PUBLISH", "MANAGE" };
+        for (int i = 0; permissions.size() < count; i++) {
+            String code = modules[i % modules.length] + ":" + actions[(i / modules.length) % actions.length];
+            permissions.add(i < modules.length * actions.length ? code : code + ":" + i);
+        }
+        return permissions;
+    }
+
+    private static List<DocumentAssignment> assignments(int count) {
+        List<DocumentAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DocumentAssignment assignment = new DocumentAssignment(
+                1_000L + i,
+                50L + i,
+                i % 2 == 0
+                    ? DocumentAssignment.AssignmentType.EDITOR
+                    : DocumentAssignment.AssignmentType.APPROVER,
+                1L
+            );
+            assignment.setAssignedAt(LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_000_000));
+            assignments.add(assignment);
+        }
+        return assignments;
+    }
+
+    private static CacheOptimizationConfig config(
+        String format,
+        boolean compression,
+        int threshold
+    ) {
+        CacheOptimizationConfig config = new CacheOptimizationConfig();
+        ReflectionTestUtils.setField(config, "serializationFormat", format);
+        ReflectionTestUtils.setField(config, "serializationCompression", compression);
+        ReflectionTestUtils.setField(config, "compressionThreshold", threshold);
+        return config;
+    }
+}
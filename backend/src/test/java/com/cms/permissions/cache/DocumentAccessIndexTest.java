@@ -0,0 +1,190 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentAccessIndexTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private DocumentAccessIndex documentAccessIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(documentAccessIndex, "enabled", true);
+        ReflectionTestUtils.setField(documentAccessIndex, "maxUsers", 100L);
+        ReflectionTestUtils.setField(documentAccessIndex, "userTtlSeconds", 600L);
+        ReflectionTestUtils.setField(documentAccessIndex, "publicRebuildSeconds", 0L);
+        documentAccessIndex.init();
+
+        lenient().when(documentRepository.findAllPublicDocumentIds()).thenReturn(
+            List.of(1L)
+        );
+        lenient().when(documentAssignmentRepository.findByUserId(7L)).thenReturn(
+            List.of(assignment(10L, 7L))
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentAccessIndex.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testViewChecksUseMaterializedBitmaps() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(documentAccessIndex.canView(7L, 1L));
+            assertTrue(documentAccessIndex.canView(7L, 10L));
+            assertFalse(documentAccessIndex.canView(7L, 11L));
+            assertFalse(documentAccessIndex.canView(8L, 10L));
+        }
+
+        // 位图各只构建一次，不再按文档读取分配列表
+        verify(documentRepository, times(1)).findAllPublicDocumentIds();
+        verify(documentAssignmentRepository, times(1)).findByUserId(7L);
+        verify(documentAssignmentRepository, never()).findByDocumentId(anyLong());
+    }
+
+    @Test
+    void testIncrementalUpdatesWithoutRebuild() {
+        assertFalse(documentAccessIndex.canView(7L, 20L));
+
+        documentAccessIndex.onAssigned(7L, 20L);
+        documentAccessIndex.onPublicStatusChanged(30L, true);
+        documentAccessIndex.onPublicStatusChanged(1L, false);
+
+        assertTrue(documentAccessIndex.canView(7L, 20L));
+        assertTrue(documentAccessIndex.canView(8L, 30L));
+        assertFalse(documentAccessIndex.canView(8L, 1L));
+        verify(documentAssignmentRepository, times(1)).findByUserId(7L);
+        verify(documentRepository, times(1)).findAllPublicDocumentIds();
+    }
+
+    @Test
+    void testDeleteRemovesDocumentEverywhere() {
+        documentAccessIndex.onPublicStatusChanged(10L, true);
+        assertTrue(documentAccessIndex.canView(7L, 10L));
+
+        documentAccessIndex.onDeleted(10L);
+
+        assertFalse(documentAccessIndex.canView(7L, 10L));
+        assertFalse(documentAccessIndex.canView(8L, 10L));
+    }
+
+    @Test
+    void testUpdatesAreAppliedAfterCommit() {
+        documentAccessIndex.canView(7L, 10L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        documentAccessIndex.onAssigned(7L, 20L);
+
+        assertFalse(documentAccessIndex.canView(7L, 20L));
+        verify(redisTemplate, never()).execute(any(RedisCallback.class));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertTrue(documentAccessIndex.canView(7L, 20L));
+        verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    void testAppliesUpdatesFromOtherNodes() {
+        documentAccessIndex.canView(7L, 10L);
+
+        documentAccessIndex.onMessage(message("other-node\nASSIGN\n40\n7"), null);
+        documentAccessIndex.onMessage(message("other-node\nPUBLIC\n50\n"), null);
+        // 本节点发出的消息忽略
+        String nodeId = (String) ReflectionTestUtils.getField(documentAccessIndex, "nodeId");
+        documentAccessIndex.onMessage(message(nodeId + "\nPUBLIC\n60\n"), null);
+        documentAccessIndex.onMessage(message("other-node\nUNKNOWN\n70\n"), null);
+
+        assertTrue(documentAccessIndex.canView(7L, 40L));
+        assertTrue(documentAccessIndex.canView(8L, 50L));
+        assertFalse(documentAccessIndex.canView(8L, 60L));
+    }
+
+    @Test
+    void testLargeAssigneeListDoesNotAffectCheckCost() {
+        List<DocumentAssignment> many = new ArrayList<>();
+        for (long userId = 1; userId <= 500; userId++) {
+            many.add(assignment(99L, userId));
+        }
+        lenient().when(documentAssignmentRepository.findByDocumentId(99L)).thenReturn(many);
+        when(documentAssignmentRepository.findByUserId(500L)).thenReturn(
+            List.of(assignment(99L, 500L))
+        );
+
+        assertTrue(documentAccessIndex.canView(500L, 99L));
+        verify(documentAssignmentRepository, never()).findByDocumentId(99L);
+    }
+
+    @Test
+    void testPeriodicRebuildRunsOffTheRequestPath() {
+        assertTrue(documentAccessIndex.canView(null, 1L));
+        when(documentRepository.findAllPublicDocumentIds()).thenReturn(List.of(1L, 2L));
+
+        // 读取只使用当前位图，不在调用线程中重建
+        assertFalse(documentAccessIndex.canView(null, 2L));
+        verify(documentRepository, times(1)).findAllPublicDocumentIds();
+
+        documentAccessIndex.scheduledRebuild();
+        assertTrue(documentAccessIndex.canView(null, 2L));
+
+        // 重建失败时继续使用当前位图
+        when(documentRepository.findAllPublicDocumentIds()).thenThrow(new IllegalStateException("db down"));
+        documentAccessIndex.scheduledRebuild();
+        assertTrue(documentAccessIndex.canView(null, 2L));
+        verify(documentRepository, times(3)).findAllPublicDocumentIds();
+    }
+
+    private static DocumentAssignment assignment(Long documentId, Long userId) {
+        return new DocumentAssignment(
+            documentId,
+            userId,
+            DocumentAssignment.AssignmentType.EDITOR,
+            1L
+        );
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(
+            DocumentAccessIndex.CHANNEL.getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
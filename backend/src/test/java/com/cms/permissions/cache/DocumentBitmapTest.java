@@ -0,0 +1,102 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class DocumentBitmapTest {
+
+    @Test
+    void testBuildAndContains() {
+        DocumentBitmap bitmap = DocumentBitmap.of(
+            List.of(1L, 4095L, 4096L, 1_000_000L, 1L)
+        );
+
+        assertEquals(4, bitmap.cardinality());
+        assertTrue(bitmap.contains(1L));
+        assertTrue(bitmap.contains(4095L));
+        assertTrue(bitmap.contains(4096L));
+        assertTrue(bitmap.contains(1_000_000L));
+        assertFalse(bitmap.contains(2L));
+        assertFalse(bitmap.contains(999_999L));
+        assertTrue(DocumentBitmap.of(List.of()).isEmpty());
+    }
+
+    @Test
+    void testWithAndWithoutAreImmutable() {
+        DocumentBitmap original = DocumentBitmap.of(List.of(10L));
+
+        DocumentBitmap added = original.with(20L);
+        DocumentBitmap removed = added.without(10L);
+
+        assertFalse(original.contains(20L));
+        assertTrue(added.contains(10L) && added.contains(20L));
+        assertFalse(removed.contains(10L));
+        assertTrue(removed.contains(20L));
+        assertSame(added, added.with(20L));
+        assertSame(removed, removed.without(10L));
+        assertTrue(removed.without(20L).isEmpty());
+    }
+
+    @Test
+    void testDenseBlockSwitchesToBitmapAndBack() {
+        List<Long> dense = new ArrayList<>();
+        for (long id = 0; id < 300; id++) {
+            dense.add(id);
+        }
+        DocumentBitmap bitmap = DocumentBitmap.of(dense);
+        // 300个条目的块存为64个long
+        assertEquals(512, bitmap.sizeInBytes());
+
+        for (long id = 0; id < 100; id++) {
+            bitmap = bitmap.without(id);
+        }
+        // 200个条目回退为有序数组
+        assertEquals(400, bitmap.sizeInBytes());
+        assertEquals(200, bitmap.cardinality());
+        assertFalse(bitmap.contains(99L));
+        assertTrue(bitmap.contains(100L));
+        assertTrue(bitmap.contains(299L));
+    }
+
+    @Test
+    void testMatchesHashSetUnderRandomUpdates() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        DocumentBitmap bitmap = DocumentBitmap.EMPTY;
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(50_000);
+            if (random.nextBoolean()) {
+                expected.add(id);
+                bitmap = bitmap.with(id);
+            } else {
+                expected.remove(id);
+                bitmap = bitmap.without(id);
+            }
+        }
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        for (long id = 0; id < 50_000; id++) {
+            assertEquals(expected.contains(id), bitmap.contains(id));
+        }
+        assertEquals(bitmap.cardinality(), DocumentBitmap.of(expected).cardinality());
+    }
+
+    @Test
+    void testSparseIdsStayCompact() {
+        List<Long> sparse = new ArrayList<>();
+        for (long id = 0; id < 500; id++) {
+            sparse.add(id * 100_000);
+        }
+
+        DocumentBitmap bitmap = DocumentBitmap.of(sparse);
+
+        // 每个块只有一个条目，占2字节
+        assertEquals(1000, bitmap.sizeInBytes());
+    }
+}
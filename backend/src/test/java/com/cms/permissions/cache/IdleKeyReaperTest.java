@@ -0,0 +1,236 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisServerCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+
+class IdleKeyReaperTest {
+
+    private static final String PATTERN = "cms:cache:*";
+
+    // 模拟的键空间：缓存键 -> 空闲秒数，按键排序以模拟稳定的SCAN顺序
+    private final TreeMap<String, Long> keyspace = new TreeMap<>();
+
+    // 模拟的字符串键（游标和锁）
+    private final Map<String, byte[]> strings = new ConcurrentHashMap<>();
+
+    // 一轮扫描开始时的键顺序；和真实的SCAN一样，游标不受扫描期间删除的键影响
+    private final List<String> scanOrder = new ArrayList<>();
+
+    private final List<String> pipelinedKeys = new ArrayList<>();
+
+    private final List<Integer> unlinkSizes = new ArrayList<>();
+
+    private final AtomicInteger scanSteps = new AtomicInteger();
+
+    private RedisConnectionFactory connectionFactory;
+
+    private RedisKeyCommands keyCommands;
+
+    private RedisServerCommands serverCommands;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = mock(RedisConnectionFactory.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        keyCommands = mock(RedisKeyCommands.class);
+        serverCommands = mock(RedisServerCommands.class);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(connection.serverCommands()).thenReturn(serverCommands);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+
+        // SCAN：游标为本轮扫描顺序中的位置，每步返回COUNT个位置上仍存在的键
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.MULTI), eq(0), any(byte[][].class)))
+            .thenAnswer(invocation -> {
+                byte[][] args = (byte[][]) invocation.getRawArguments()[3];
+                int cursor = Integer.parseInt(string(args[0]));
+                assertEquals(PATTERN, string(args[1]));
+                int count = Integer.parseInt(string(args[2]));
+                scanSteps.incrementAndGet();
+                if (cursor == 0) {
+                    scanOrder.clear();
+                    scanOrder.addAll(keyspace.keySet());
+                }
+                int end = Math.min(scanOrder.size(), cursor + count);
+                List<byte[]> page = new ArrayList<>();
+                for (String key : scanOrder.subList(Math.min(cursor, scanOrder.size()), end)) {
+                    if (keyspace.containsKey(key)) {
+                        page.add(bytes(key));
+                    }
+                }
+                String next = end >= scanOrder.size() ? "0" : String.valueOf(end);
+                return List.of(bytes(next), page);
+            });
+        when(keyCommands.idletime(any(byte[].class))).thenAnswer(invocation -> {
+            pipelinedKeys.add(string(invocation.getArgument(0)));
+            return null;
+        });
+        when(connection.closePipeline()).thenAnswer(invocation -> {
+            List<Object> results = new ArrayList<>();
+            for (String key : pipelinedKeys) {
+                Long idle = keyspace.get(key);
+                results.add(idle != null ? Duration.ofSeconds(idle) : null);
+            }
+            pipelinedKeys.clear();
+            return results;
+        });
+        when(keyCommands.unlink(any(byte[][].class))).thenAnswer(invocation -> {
+            byte[][] keys = (byte[][]) invocation.getRawArguments()[0];
+            unlinkSizes.add(keys.length);
+            long removed = 0;
+            for (byte[] key : keys) {
+                removed += keyspace.remove(string(key)) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        when(keyCommands.del(any(byte[][].class))).thenAnswer(invocation -> {
+            long removed = 0;
+            for (byte[] key : (byte[][]) invocation.getRawArguments()[0]) {
+                removed += strings.remove(string(key)) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        // 释放锁：值与令牌相同时才删除
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[][].class)))
+            .thenAnswer(invocation -> {
+                byte[][] args = (byte[][]) invocation.getRawArguments()[3];
+                String key = string(args[0]);
+                byte[] owner = strings.get(key);
+                return owner != null && Arrays.equals(owner, args[1]) && strings.remove(key) != null ? 1L : 0L;
+            });
+        when(stringCommands.get(any(byte[].class))).thenAnswer(invocation ->
+            strings.get(string(invocation.getArgument(0)))
+        );
+        when(stringCommands.set(any(byte[].class), any(byte[].class), any(Expiration.class), any()))
+            .thenAnswer(invocation -> {
+                String key = string(invocation.getArgument(0));
+                if (invocation.getArgument(3) == RedisStringCommands.SetOption.SET_IF_ABSENT) {
+                    return strings.putIfAbsent(key, invocation.getArgument(1)) == null;
+                }
+                strings.put(key, invocation.getArgument(1));
+                return true;
+            });
+
+        for (int i = 0; i < 1_000; i++) {
+            // 每三个键中有一个空闲超过1小时
+            keyspace.put(String.format("cms:cache:documents:%04d", i), i % 3 == 0 ? 7_200L : 60L);
+        }
+    }
+
+    @Test
+    void testUnlinksOnlyIdleKeysInBoundedBatches() {
+        IdleKeyReaper reaper = reaper(100_000, Duration.ofMinutes(1));
+
+        IdleKeyReaper.ReapResult result = reaper.reap();
+
+        assertTrue(result.executed());
+        assertTrue(result.passCompleted());
+        assertEquals(1_000, result.keysScanned());
+        assertEquals(334, result.keysRemoved());
+        assertEquals(666, keyspace.size());
+        assertTrue(keyspace.values().stream().allMatch(idle -> idle < 3_600));
+        assertTrue(unlinkSizes.stream().allMatch(size -> size <= 50), unlinkSizes.toString());
+        // 每步一次SCAN，空闲时间在管道中查询，不会逐键往返
+        assertEquals(10, scanSteps.get());
+        verify(serverCommands, never()).bgReWriteAof();
+        assertNull(strings.get(IdleKeyReaper.CURSOR_KEY_PREFIX + PATTERN));
+        assertNull(strings.get(IdleKeyReaper.LOCK_KEY_PREFIX + PATTERN));
+        assertSame(result, reaper.getLastResult());
+    }
+
+    @Test
+    void testResumesFromPersistedCursorAcrossRuns() {
+        List<IdleKeyReaper.ReapResult> runs = new ArrayList<>();
+        String cursor = "0";
+        long scanned = 0;
+        // 每次运行只有约100ms，新建清理器模拟重启或其他节点接手
+        while (runs.size() < 50) {
+            IdleKeyReaper.ReapResult result = reaper(1_000, Duration.ofMillis(100)).reap();
+            assertTrue(result.executed());
+            assertEquals(cursor, result.startCursor());
+            runs.add(result);
+            scanned += result.keysScanned();
+            cursor = result.endCursor();
+            if (result.passCompleted()) {
+                break;
+            }
+        }
+
+        assertTrue(runs.size() > 1, "expected several bounded runs");
+        assertTrue(runs.get(runs.size() - 1).passCompleted());
+        // 每个键只扫描一次
+        assertEquals(1_000, scanned);
+        assertEquals(666, keyspace.size());
+    }
+
+    @Test
+    void testSkipsWhileAnotherNodeHoldsTheLock() {
+        strings.put(IdleKeyReaper.LOCK_KEY_PREFIX + PATTERN, bytes("other-node"));
+
+        IdleKeyReaper.ReapResult result = reaper(100_000, Duration.ofMinutes(1)).reap();
+
+        assertFalse(result.executed());
+        assertEquals(0, scanSteps.get());
+        assertEquals(1_000, keyspace.size());
+        assertArrayEquals(bytes("other-node"), strings.get(IdleKeyReaper.LOCK_KEY_PREFIX + PATTERN));
+    }
+
+    @Test
+    void testOperationsAreSpreadOverTheBudget() {
+        keyspace.replaceAll((key, idle) -> 60L);
+        keyspace.keySet().removeIf(key -> key.compareTo("cms:cache:documents:0400") >= 0);
+
+        // 4次SCAN加400次IDLETIME，预算2000次/秒时至少需要约200ms
+        IdleKeyReaper.ReapResult result = reaper(2_000, Duration.ofMinutes(1)).reap();
+
+        assertTrue(result.passCompleted());
+        assertEquals(400, result.keysScanned());
+        assertEquals(0, result.keysRemoved());
+        assertTrue(result.durationMs() >= 150, "duration " + result.durationMs());
+        assertTrue(unlinkSizes.isEmpty());
+    }
+
+    private IdleKeyReaper reaper(int operationsPerSecond, Duration maxRunTime) {
+        return new IdleKeyReaper(
+            connectionFactory,
+            PATTERN,
+            Duration.ofHours(1),
+            100,
+            50,
+            operationsPerSecond,
+            maxRunTime
+        );
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
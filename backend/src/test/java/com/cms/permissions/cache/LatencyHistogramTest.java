@@ -0,0 +1,58 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsAreContiguousAndCoverLongRange() {
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            assertEquals(
+                LatencyHistogram.lowerBound(i - 1) + LatencyHistogram.bucketWidth(i - 1),
+                LatencyHistogram.lowerBound(i)
+            );
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.indexOf(0));
+        assertEquals(31, LatencyHistogram.indexOf(31));
+        assertEquals(32, LatencyHistogram.indexOf(32));
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // 10微秒到50毫秒之间的对数分布
+            values[i] = (long) Math.exp(Math.log(10_000) + random.nextDouble() * Math.log(5_000));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        for (double percentile : new double[] { 50, 95, 99, 99.9 }) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long estimate = histogram.percentile(percentile);
+            assertEquals(exact, estimate, exact * 0.07, "p" + percentile);
+        }
+    }
+
+    @Test
+    void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        histogram.record(5);
+        histogram.record(-1);
+        assertEquals(2, histogram.count());
+        assertEquals(5, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+    }
+}
@@ -0,0 +1,267 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisHashCommands;
+
+class MetricsCacheTest {
+
+    // 模拟Redis中的统计哈希
+    private final Map<String, Map<String, Long>> stored = new HashMap<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RedisConnectionFactory connectionFactory;
+
+    private RedisConnection connection;
+
+    private MetricsCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        connectionFactory = mock(RedisConnectionFactory.class);
+        connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(hashCommands.hIncrBy(any(byte[].class), any(byte[].class), anyLong())).thenAnswer(
+            invocation ->
+                hash(invocation.getArgument(0)).merge(
+                    string(invocation.getArgument(1)),
+                    (Long) invocation.getArgument(2),
+                    Long::sum
+                )
+        );
+        when(hashCommands.hGetAll(any(byte[].class))).thenAnswer(invocation -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            hash(invocation.getArgument(0)).forEach((field, value) ->
+                entries.put(bytes(field), bytes(String.valueOf(value)))
+            );
+            return entries;
+        });
+
+        // 刷新间隔足够长，测试中手动刷新
+        cacheManager = new MetricsCacheManager(
+            new ConcurrentMapCacheManager("userPermissions", "documentPublic"),
+            connectionFactory,
+            Duration.ofHours(1),
+            meterRegistry
+        );
+        cacheManager.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.destroy();
+    }
+
+    @Test
+    void testCountsHitsMissesPutsAndEvictions() {
+        Cache cache = cacheManager.getCache("userPermissions");
+
+        assertNull(cache.get("alice"));
+        cache.put("alice", "perms");
+        assertNotNull(cache.get("alice"));
+        assertEquals("perms", cache.get("alice", String.class));
+        assertNull(cache.get("bob", String.class));
+        assertNotNull(cache.putIfAbsent("alice", "other"));
+        cache.evict("alice");
+        assertFalse(cache.evictIfPresent("alice"));
+
+        MetricsCacheManager.CacheOperationCounts counts = cacheManager.localCounts(
+            "userPermissions"
+        );
+        assertEquals(2, counts.hits());
+        assertEquals(2, counts.misses());
+        assertEquals(1, counts.puts());
+        assertEquals(1, counts.evictions());
+        assertEquals(0.5, counts.hitRate(), 1e-9);
+
+        assertEquals(2.0, gets("userPermissions", "hit"), 1e-9);
+        assertEquals(2.0, gets("userPermissions", "miss"), 1e-9);
+        assertEquals(
+            1.0,
+            meterRegistry.get("cms.cache.puts").tag("cache", "userPermissions").counter().count(),
+            1e-9
+        );
+        assertEquals(
+            1.0,
+            meterRegistry
+                .get("cms.cache.evictions")
+                .tag("cache", "userPermissions")
+                .counter()
+                .count(),
+            1e-9
+        );
+    }
+
+    @Test
+    void testValueLoaderCountsMissOnlyWhenItRuns() {
+        Cache cache = cacheManager.getCache("userPermissions");
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(
+                "perms",
+                cache.get("alice", () -> {
+                    loads.incrementAndGet();
+                    return "perms";
+                })
+            );
+        }
+
+        MetricsCacheManager.CacheOperationCounts counts = cacheManager.localCounts(
+            "userPermissions"
+        );
+        assertEquals(1, loads.get());
+        assertEquals(1, counts.misses());
+        assertEquals(9, counts.hits());
+        assertEquals(1, counts.loads());
+        assertTrue(counts.loadNanos() >= 0);
+        assertEquals(
+            1,
+            meterRegistry.get("cms.cache.loads").tag("cache", "userPermissions").timer().count()
+        );
+    }
+
+    @Test
+    void testLoaderRunOnAnotherThreadIsNotCountedAsMiss() {
+        // 模拟提前刷新：命中时在后台线程执行回源
+        Cache background = new ConcurrentMapCache("documentPublic") {
+            @Override
+            public <T> T get(Object key, Callable<T> valueLoader) {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        valueLoader.call();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }).join();
+                @SuppressWarnings("unchecked")
+                T value = (T) Boolean.TRUE;
+                return value;
+            }
+        };
+        MetricsCache cache = new MetricsCache(background, meterRegistry);
+
+        assertEquals(Boolean.TRUE, cache.get(1L, () -> Boolean.TRUE));
+
+        MetricsCacheManager.CacheOperationCounts counts = cache.counts();
+        assertEquals(1, counts.hits());
+        assertEquals(0, counts.misses());
+        assertEquals(1, counts.loads());
+    }
+
+    @Test
+    void testFlushMergesDeltasIntoRedis() {
+        Cache cache = cacheManager.getCache("userPermissions");
+        cache.get("alice");
+        cache.put("alice", "perms");
+        cache.get("alice");
+
+        cacheManager.flush();
+        // 没有新的增量时不访问Redis
+        cacheManager.flush();
+
+        Map<String, Long> stats = stored.get(
+            MetricsCacheManager.STATS_KEY_PREFIX + "userPermissions"
+        );
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1L, stats.get("puts"));
+        assertFalse(stats.containsKey("evictions"));
+        verify(connection, times(1)).openPipeline();
+        verify(connection, times(1)).closePipeline();
+
+        cache.get("alice");
+        cacheManager.flush();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testClusterCountsIncludeOtherNodesAndPendingDeltas() {
+        // 其他节点已合并的计数
+        Map<String, Long> stats = hash(
+            bytes(MetricsCacheManager.STATS_KEY_PREFIX + "userPermissions")
+        );
+        stats.put("hits", 100L);
+        stats.put("misses", 10L);
+
+        Cache cache = cacheManager.getCache("userPermissions");
+        cache.get("alice");
+        cache.put("alice", "perms");
+        cache.get("alice");
+
+        MetricsCacheManager.CacheOperationCounts before = cacheManager.clusterCounts(
+            "userPermissions"
+        );
+        cacheManager.flush();
+        MetricsCacheManager.CacheOperationCounts after = cacheManager.clusterCounts(
+            "userPermissions"
+        );
+
+        assertEquals(101, before.hits());
+        assertEquals(11, before.misses());
+        assertEquals(before, after);
+    }
+
+    @Test
+    void testFailedFlushKeepsDeltaForNextAttempt() {
+        Cache cache = cacheManager.getCache("documentPublic");
+        cache.get(1L);
+
+        when(connectionFactory.getConnection())
+            .thenThrow(new IllegalStateException("redis down"))
+            .thenReturn(connection);
+
+        cacheManager.flush();
+        assertNull(stored.get(MetricsCacheManager.STATS_KEY_PREFIX + "documentPublic"));
+
+        cacheManager.flush();
+        assertEquals(
+            1L,
+            stored.get(MetricsCacheManager.STATS_KEY_PREFIX + "documentPublic").get("misses")
+        );
+    }
+
+    private double gets(String cacheName, String result) {
+        return meterRegistry
+            .get("cms.cache.gets")
+            .tag("cache", cacheName)
+            .tag("result", result)
+            .counter()
+            .count();
+    }
+
+    private Map<String, Long> hash(byte[] key) {
+        return stored.computeIfAbsent(string(key), k -> new HashMap<>());
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+class NearCacheTest {
+
+    private ConcurrentMapCacheManager redisStandIn;
+    private RedisConnection connection;
+    private NearCacheInvalidationBus invalidationBus;
+    private NearCacheManager nearCacheManager;
+
+    @BeforeEach
+    void setUp() {
+        redisStandIn = new ConcurrentMapCacheManager(
+            "userPermissions",
+            "documentPublic",
+            "auditLogs"
+        );
+        RedisConnectionFactory connectionFactory = mock(
+            RedisConnectionFactory.class
+        );
+        connection = mock(RedisConnection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        invalidationBus = new NearCacheInvalidationBus(connectionFactory);
+        nearCacheManager = new NearCacheManager(
+            redisStandIn,
+            List.of("userPermissions", "documentPublic"),
+            100,
+            Duration.ofMinutes(1),
+            invalidationBus
+        );
+        nearCacheManager.afterPropertiesSet();
+    }
+
+    @Test
+    void testLocalHitDoesNotReachDelegate() {
+        Cache cache = nearCacheManager.getCache("userPermissions");
+        cache.put("alice", Set.of("DOC:VIEW"));
+
+        // 直接修改底层缓存，L1命中时应仍返回本地值
+        redisStandIn.getCache("userPermissions").put("alice", Set.of());
+
+        assertEquals(Set.of("DOC:VIEW"), cache.get("alice").get());
+    }
+
+    @Test
+    void testMissPopulatesLocalFromDelegate() {
+        redisStandIn.getCache("documentPublic").put(42L, true);
+        Cache cache = nearCacheManager.getCache("documentPublic");
+
+        assertEquals(true, cache.get(42L).get());
+        redisStandIn.getCache("documentPublic").evict(42L);
+        assertEquals(true, cache.get(42L).get());
+        assertEquals(1, nearCacheManager.getNearCache("documentPublic").getLocalSize());
+    }
+
+    @Test
+    void testEvictClearsBothTiersAndBroadcasts() {
+        Cache cache = nearCacheManager.getCache("userPermissions");
+        cache.put("alice", Set.of("DOC:VIEW"));
+
+        cache.evict("alice");
+
+        assertNull(cache.get("alice"));
+        assertNull(redisStandIn.getCache("userPermissions").get("alice"));
+        verify(connection).publish(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void testRemoteInvalidationEvictsLocalOnly() {
+        Cache cache = nearCacheManager.getCache("userPermissions");
+        cache.put("alice", Set.of("DOC:VIEW"));
+        cache.put("bob", Set.of("DOC:EDIT"));
+        redisStandIn.getCache("userPermissions").clear();
+
+        invalidationBus.onMessage(
+            message("other-node\nuserPermissions\nKEY\nalice"),
+            null
+        );
+
+        assertNull(cache.get("alice"));
+        assertNotNull(cache.get("bob"));
+        verify(connection, never()).publish(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void testOwnMessagesAreIgnored() {
+        Cache cache = nearCacheManager.getCache("userPermissions");
+        cache.put("alice", Set.of("DOC:VIEW"));
+        redisStandIn.getCache("userPermissions").clear();
+
+        invalidationBus.onMessage(
+            message(invalidationBus.getNodeId() + "\nuserPermissions\nCLEAR\n"),
+            null
+        );
+
+        assertNotNull(cache.get("alice"));
+    }
+
+    @Test
+    void testPatternEviction() {
+        Cache cache = nearCacheManager.getCache("documentPublic");
+        cache.put("1:10", true);
+        cache.put("1:11", true);
+        cache.put("2:10", true);
+        redisStandIn.getCache("documentPublic").clear();
+
+        nearCacheManager.evictMatching("documentPublic", "1:*");
+
+        assertNull(cache.get("1:10"));
+        assertNull(cache.get("1:11"));
+        assertNotNull(cache.get("2:10"));
+        verify(connection).publish(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void testCachesOutsideNearCacheNamesAreNotWrapped() {
+        assertFalse(nearCacheManager.getCache("auditLogs") instanceof NearCache);
+        assertNull(nearCacheManager.getNearCache("auditLogs"));
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(
+            NearCacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,189 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionGenerationsTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @InjectMocks
+    private PermissionGenerations permissionGenerations;
+
+    // 模拟Redis中的代数哈希
+    private final Map<String, Long> stored = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(
+            permissionGenerations,
+            "refreshIntervalMs",
+            60_000L
+        );
+        // 测试中在调用线程上同步刷新
+        ReflectionTestUtils.setField(
+            permissionGenerations,
+            "refreshExecutor",
+            (Executor) Runnable::run
+        );
+        permissionGenerations.init();
+        lenient().when(connection.hashCommands()).thenReturn(hashCommands);
+        lenient()
+            .when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenAnswer(invocation ->
+                ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(
+                    connection
+                )
+            );
+        lenient()
+            .when(hashCommands.hIncrBy(any(byte[].class), any(byte[].class), eq(1L)))
+            .thenAnswer(invocation ->
+                stored.merge(
+                    new String(
+                        (byte[]) invocation.getArgument(1),
+                        StandardCharsets.UTF_8
+                    ),
+                    1L,
+                    Long::sum
+                )
+            );
+        lenient()
+            .when(hashCommands.hGetAll(any(byte[].class)))
+            .thenAnswer(invocation -> {
+                Map<byte[], byte[]> entries = new HashMap<>();
+                stored.forEach((field, value) ->
+                    entries.put(
+                        field.getBytes(StandardCharsets.UTF_8),
+                        String.valueOf(value).getBytes(StandardCharsets.UTF_8)
+                    )
+                );
+                return entries;
+            });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRoleBumpOnlyChangesFingerprintsContainingThatRole() {
+        String editor = permissionGenerations.fingerprint(List.of(2L, 1L));
+        String viewer = permissionGenerations.fingerprint(List.of(3L));
+        assertEquals("g0-1.0-2.0", editor);
+
+        permissionGenerations.bumpRole(2L);
+
+        assertNotEquals(editor, permissionGenerations.fingerprint(List.of(1L, 2L)));
+        assertEquals(viewer, permissionGenerations.fingerprint(List.of(3L)));
+    }
+
+    @Test
+    void testGlobalBumpChangesEveryFingerprint() {
+        String before = permissionGenerations.fingerprint(List.of(3L));
+
+        permissionGenerations.bumpGlobal();
+
+        assertEquals("g1-3.0", permissionGenerations.fingerprint(List.of(3L)));
+        assertNotEquals(before, permissionGenerations.fingerprint(List.of(3L)));
+    }
+
+    @Test
+    void testBumpIsDeferredUntilCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        String before = permissionGenerations.fingerprint(List.of(5L));
+
+        permissionGenerations.bumpRole(5L);
+
+        assertEquals(before, permissionGenerations.fingerprint(List.of(5L)));
+        verify(hashCommands, never()).hIncrBy(any(byte[].class), any(byte[].class), anyLong());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertEquals("g0-5.1", permissionGenerations.fingerprint(List.of(5L)));
+    }
+
+    @Test
+    void testRemoteBumpIsSeenAfterRefresh() {
+        ReflectionTestUtils.setField(permissionGenerations, "refreshIntervalMs", 0L);
+        permissionGenerations.init();
+        permissionGenerations.fingerprint(List.of(1L));
+
+        // 其他节点递增了代数
+        stored.put("1", 4L);
+
+        assertEquals("g0-1.4", permissionGenerations.fingerprint(List.of(1L)));
+    }
+
+    @Test
+    void testStaleSnapshotIsServedWhileRefreshRunsInBackground() {
+        List<Runnable> tasks = new ArrayList<>();
+        ReflectionTestUtils.setField(permissionGenerations, "refreshIntervalMs", 0L);
+        ReflectionTestUtils.setField(
+            permissionGenerations,
+            "refreshExecutor",
+            (Executor) tasks::add
+        );
+        permissionGenerations.init();
+        assertEquals("g0-1.0", permissionGenerations.fingerprint(List.of(1L)));
+
+        stored.put("1", 4L);
+
+        // 请求线程不等待Redis，刷新完成前返回上一份快照，且只安排一次刷新
+        assertEquals("g0-1.0", permissionGenerations.fingerprint(List.of(1L)));
+        assertEquals("g0-1.0", permissionGenerations.fingerprint(List.of(1L)));
+        assertEquals(1, tasks.size());
+        verify(hashCommands, times(1)).hGetAll(any(byte[].class));
+
+        tasks.remove(0).run();
+
+        assertEquals("g0-1.4", permissionGenerations.fingerprint(List.of(1L)));
+    }
+
+    @Test
+    void testRedisFailureStillInvalidatesLocally() {
+        when(hashCommands.hIncrBy(any(byte[].class), any(byte[].class), eq(1L))).thenThrow(
+            new RedisConnectionFailureException("down")
+        );
+        String before = permissionGenerations.fingerprint(List.of(7L));
+
+        permissionGenerations.bumpRole(7L);
+
+        assertNotEquals(before, permissionGenerations.fingerprint(List.of(7L)));
+    }
+}
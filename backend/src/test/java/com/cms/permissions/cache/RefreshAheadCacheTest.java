@@ -0,0 +1,202 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class RefreshAheadCacheTest {
+
+    private static final long MAXIMUM_ENTRIES = 100;
+
+    private ConcurrentMapCache backing;
+
+    private SimpleMeterRegistry registry;
+
+    // 手动执行的后台任务，便于断言刷新前返回的是旧值
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        backing = new ConcurrentMapCache("userPermissions");
+        registry = new SimpleMeterRegistry();
+        tasks.clear();
+    }
+
+    @Test
+    void testExpiringEntryIsServedStaleAndRefreshedOnce() {
+        RefreshAheadCache cache = cache(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("v1", cache.get("alice", () -> "v" + loads.incrementAndGet()));
+
+        // 条目已到期：多次命中仍返回旧值，只安排一个后台刷新
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v1", cache.get("alice", () -> "v" + loads.incrementAndGet()));
+        }
+        assertEquals(1, tasks.size());
+        assertEquals(1, loads.get());
+
+        runTasks();
+
+        assertEquals("v2", backing.get("alice").get());
+        assertEquals(2, loads.get());
+        assertEquals(
+            1.0,
+            registry.get("cache.refresh_ahead.refreshes").counter().count()
+        );
+    }
+
+    @Test
+    void testFreshEntryIsNotRefreshed() {
+        RefreshAheadCache cache = cache(Duration.ofMinutes(30));
+        cache.get("alice", () -> "v1");
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get("alice", () -> "v2");
+        }
+
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void testEvictDuringRefreshDiscardsReloadedValue() {
+        RefreshAheadCache cache = cache(Duration.ZERO);
+        cache.get("alice", () -> "v1");
+        cache.get("alice", () -> "v2");
+        assertEquals(1, tasks.size());
+
+        cache.evict("alice");
+        runTasks();
+
+        assertNull(backing.get("alice"));
+    }
+
+    @Test
+    void testFailedRefreshKeepsCurrentValue() {
+        RefreshAheadCache cache = cache(Duration.ZERO);
+        cache.get("alice", () -> "v1");
+        cache.get("alice", () -> {
+            throw new IllegalStateException("db down");
+        });
+
+        runTasks();
+
+        assertEquals("v1", backing.get("alice").get());
+        assertEquals(
+            1.0,
+            registry.get("cache.refresh_ahead.failures").counter().count()
+        );
+        // 失败后允许再次安排刷新
+        cache.get("alice", () -> "v3");
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void testProbabilityRisesTowardsExpiry() {
+        RefreshAheadCache cache = cache(Duration.ofMinutes(30));
+        long expiresAt = 1_000_000;
+        RefreshAheadCache.Entry entry = new RefreshAheadCache.Entry(
+            expiresAt,
+            100
+        );
+
+        int far = 0;
+        int near = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (cache.shouldRefresh(entry, expiresAt - 1000)) {
+                far++;
+            }
+            if (cache.shouldRefresh(entry, expiresAt - 50)) {
+                near++;
+            }
+        }
+
+        // delta=100ms：剩余1秒时概率约e^-10，剩余50毫秒时约e^-0.5
+        assertTrue(far < 10);
+        assertTrue(near > 5000);
+    }
+
+    @Test
+    void testRedisTtlIsProbedOnRefreshExecutor() {
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        // Redis中的条目已过期，只剩本地副本
+        when(keyCommands.pTtl(any(byte[].class))).thenReturn(-2L);
+        RefreshAheadCache cache = new RefreshAheadCache(
+            backing,
+            Duration.ofMinutes(30),
+            1.0,
+            MAXIMUM_ENTRIES,
+            tasks::add,
+            connectionFactory,
+            key -> String.valueOf(key).getBytes(StandardCharsets.UTF_8),
+            registry
+        );
+        // 其他节点写入的条目，本节点没有过期记录
+        backing.put("alice", "v1");
+
+        assertEquals("v1", cache.get("alice", () -> "v2"));
+        verifyNoInteractions(connectionFactory);
+        assertEquals(1, tasks.size());
+
+        // 探测结果替换估计值后，下一次命中按剩余TTL判断并刷新
+        runTasks();
+        assertEquals("v1", cache.get("alice", () -> "v2"));
+        runTasks();
+        assertEquals("v2", backing.get("alice").get());
+    }
+
+    @Test
+    void testExpiryRecordsAreBounded() throws InterruptedException {
+        RefreshAheadCache cache = cache(Duration.ofMinutes(30));
+        // 版本化键每次换代都是新键，旧记录不应无限累积
+        for (int generation = 0; generation < 10_000; generation++) {
+            String key = "alice.g" + generation;
+            cache.get(key, () -> "v");
+            cache.get(key, () -> "v");
+        }
+
+        Map<?, ?> entries = (Map<?, ?>) ReflectionTestUtils.getField(cache, "entries");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (entries.size() > MAXIMUM_ENTRIES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(entries.size() <= MAXIMUM_ENTRIES, entries.size() + " entries");
+    }
+
+    private RefreshAheadCache cache(Duration timeToLive) {
+        return new RefreshAheadCache(
+            backing,
+            timeToLive,
+            1.0,
+            MAXIMUM_ENTRIES,
+            tasks::add,
+            null,
+            null,
+            registry
+        );
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+}
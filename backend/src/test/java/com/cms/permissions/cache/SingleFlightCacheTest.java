@@ -0,0 +1,306 @@
+package com.cms.permissions.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.entity.Permission;
+import com.cms.permissions.entity.Role;
+import com.cms.permissions.entity.User;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.PermissionRegistry;
+import com.cms.permissions.service.CachePerformanceAnalyzer;
+import com.cms.permissions.service.PermissionCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(SingleFlightCacheTest.TestConfig.class)
+class SingleFlightCacheTest {
+
+    private static final int CONCURRENT_MISSES = 500;
+
+    @Autowired
+    private PermissionCacheService permissionCacheService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private DocumentRepository documentRepository;
+
+    @MockitoBean
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @MockitoBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @MockitoBean
+    private CachePerformanceAnalyzer performanceAnalyzer;
+
+    @MockitoBean
+    private PermissionRegistry permissionRegistry;
+
+    @MockitoBean
+    private CacheKeyIndex cacheKeyIndex;
+
+    @MockitoBean
+    private PermissionGenerations permissionGenerations;
+
+    @MockitoBean
+    private DocumentAccessIndex documentAccessIndex;
+
+    @MockitoBean(name = "optimizedBooleanSerializer")
+    private RedisSerializer<Boolean> booleanSerializer;
+
+    @MockitoBean(name = "optimizedAssignmentListSerializer")
+    private RedisSerializer<List<DocumentAssignment>> assignmentSerializer;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager
+            .getCacheNames()
+            .forEach(name -> cacheManager.getCache(name).clear());
+        when(permissionGenerations.fingerprint(anyCollection())).thenReturn(
+            "g0-2.0"
+        );
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> {
+            // 模拟较慢的角色-权限图加载
+            Thread.sleep(200);
+            return Optional.of(user("alice"));
+        });
+        // 角色缓存仍有效，只有权限条目过期
+        permissionCacheService.getUserRoleIds("alice");
+        clearInvocations(userRepository);
+        double coalescedBefore = coalesced("userPermissions");
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+            CONCURRENT_MISSES
+        );
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Set<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_MISSES; i++) {
+            futures.add(
+                executor.submit(() -> {
+                    start.await();
+                    return permissionCacheService.getUserPermissions("alice");
+                })
+            );
+        }
+        start.countDown();
+        for (Future<Set<String>> future : futures) {
+            assertEquals(Set.of("DOC:VIEW", "DOC:EDIT"), future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertEquals(
+            1.0,
+            meterRegistry
+                .get("cache.singleflight.loads")
+                .tag("cache", "userPermissions")
+                .counter()
+                .count()
+        );
+        assertTrue(coalesced("userPermissions") - coalescedBefore > 0);
+    }
+
+    @Test
+    void testWaitsForValueLoadedByAnotherNode() {
+        ConcurrentMapCache backing = new ConcurrentMapCache("remote");
+        RedisConnectionFactory connectionFactory = lockHeldElsewhere(true);
+        SingleFlightCache cache = new SingleFlightCache(
+            backing,
+            connectionFactory,
+            Duration.ofSeconds(2),
+            Duration.ofMillis(10),
+            new SimpleMeterRegistry()
+        );
+        // 另一节点在锁内完成加载并写入
+        new Thread(() -> {
+            sleep(50);
+            backing.put("alice", "remote-value");
+        }).start();
+
+        AtomicInteger localLoads = new AtomicInteger();
+        Object value = cache.get("alice", () -> {
+            localLoads.incrementAndGet();
+            return "local-value";
+        });
+
+        assertEquals("remote-value", value);
+        assertEquals(0, localLoads.get());
+    }
+
+    @Test
+    void testFallsBackToLocalLoadWhenRemoteLoaderGivesUp() {
+        ConcurrentMapCache backing = new ConcurrentMapCache("remote");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlightCache cache = new SingleFlightCache(
+            backing,
+            lockHeldElsewhere(false),
+            Duration.ofSeconds(2),
+            Duration.ofMillis(10),
+            registry
+        );
+
+        assertEquals("local-value", cache.get("alice", () -> "local-value"));
+        assertEquals("local-value", backing.get("alice").get());
+        assertEquals(
+            1.0,
+            registry.get("cache.singleflight.fallbacks").counter().count()
+        );
+    }
+
+    @Test
+    void testLoaderFailureReachesAllWaiters() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(
+            new ConcurrentMapCache("failing"),
+            null,
+            Duration.ofSeconds(1),
+            Duration.ofMillis(10),
+            new SimpleMeterRegistry()
+        );
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Object> first = executor.submit(() ->
+            cache.get("k", () -> {
+                loading.countDown();
+                sleep(100);
+                throw new IllegalStateException("db down");
+            })
+        );
+        loading.await();
+        Future<Object> second = executor.submit(() ->
+            cache.get("k", () -> "unexpected")
+        );
+
+        assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    private double coalesced(String cacheName) {
+        return meterRegistry
+            .get("cache.singleflight.coalesced")
+            .tag("cache", cacheName)
+            .tag("scope", "local")
+            .counter()
+            .count();
+    }
+
+    /**
+     * 模拟另一节点持有锁；stillLocked为false时表示持锁节点已放弃
+     */
+    private RedisConnectionFactory lockHeldElsewhere(boolean stillLocked) {
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+        when(
+            stringCommands.set(
+                any(byte[].class),
+                any(byte[].class),
+                any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT)
+            )
+        ).thenReturn(false);
+        lenient().when(keyCommands.exists(any(byte[].class))).thenReturn(stillLocked);
+        return connectionFactory;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static User user(String username) {
+        Role role = new Role("EDITOR", "editor");
+        role.setId(2L);
+        role.addPermission(new Permission("DOC:VIEW", "view"));
+        role.addPermission(new Permission("DOC:EDIT", "edit"));
+        User user = new User(username, "secret", username + "@example.com");
+        user.setId(1L);
+        user.setRoles(Set.of(role));
+        return user;
+    }
+
+    @Configuration
+    @EnableCaching
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager(MeterRegistry meterRegistry) {
+            SingleFlightCacheManager cacheManager = new SingleFlightCacheManager(
+                new ConcurrentMapCacheManager(
+                    "userPermissions",
+                    "userPermissionBits",
+                    "userRoleIds"
+                ),
+                List.of("userPermissions", "userPermissionBits", "userRoleIds"),
+                null,
+                Duration.ofSeconds(3),
+                Duration.ofMillis(20),
+                meterRegistry
+            );
+            return cacheManager;
+        }
+
+        @Bean
+        PermissionCacheService permissionCacheService() {
+            return new PermissionCacheService();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.cms.permissions.controller;
 
 import com.cms.permissions.config.TestSecurityConfig;
 import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.search.DocumentIndexingService;
+import com.cms.permissions.search.SearchHistoryRecorder;
 import com.cms.permissions.service.SearchService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -35,6 +37,12 @@ class SearchControllerWebMvcTest {
     @MockBean
     private SearchService searchService;
 
+    @MockBean
+    private DocumentIndexingService documentIndexingService;
+
+    @MockBean
+    private SearchHistoryRecorder searchHistoryRecorder;
+
     @Test
     @DisplayName("未授权用户访问全文搜索返回403")
     void fulltext_withoutPermission_403() throws Exception {
@@ -0,0 +1,74 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnalysisChainTest {
+
+    private final TextAnalyzer bigram = AnalysisChain.create(AnalysisChain.CJK_BIGRAM, false, false);
+
+    private final TextAnalyzer full = AnalysisChain.create(AnalysisChain.CJK_BIGRAM, true, true);
+
+    @Test
+    void testBigramsAtQueryTimeAndUnigramsAtIndexTime() {
+        assertEquals(List.of("数据", "据库"), bigram.analyzeQuery("数据库"));
+        assertEquals(List.of("数", "数据", "据", "据库", "库"), bigram.analyze("数据库"));
+
+        // 标点和字母打断相邻关系，单独的字保留为单字
+        assertEquals(List.of("表", "dm8", "安装", "指南"), bigram.analyzeQuery("表，DM8安装 指南"));
+        assertEquals(List.of("表"), bigram.analyze("表"));
+    }
+
+    @Test
+    void testStopwordsBreakRuns() {
+        TextAnalyzer stop = AnalysisChain.create(AnalysisChain.CJK_BIGRAM, true, false);
+
+        assertEquals(List.of("备份", "数据"), stop.analyzeQuery("备份的数据"));
+        assertEquals(List.of("backup", "database"), stop.analyzeQuery("Backup of the database"));
+        assertEquals(List.of(), stop.analyzeQuery("的"));
+    }
+
+    @Test
+    void testPinyinFolding() {
+        List<String> indexed = full.analyze("数据库备份");
+        assertTrue(indexed.containsAll(List.of("shuju", "juku", "kubei", "beifen")), indexed.toString());
+
+        // 查询中可切分为音节的字母词按相邻音节组合
+        assertEquals(List.of("shujuku", "shuju", "juku"), full.analyzeQuery("shujuku"));
+        assertEquals(List.of("beifen"), full.analyzeQuery("beifen"));
+        // 不能完整切分的词保持原样，单个音节不展开
+        assertEquals(List.of("jdbc"), full.analyzeQuery("JDBC"));
+        assertEquals(List.of("xi"), full.analyzeQuery("xi"));
+        // 查询中的汉字不转换为拼音，避免匹配同音字
+        assertEquals(List.of("数据"), full.analyzeQuery("数据"));
+    }
+
+    @Test
+    void testPinyinTable() {
+        assertEquals("shu", Pinyin.of('数'));
+        assertEquals("zhuang", Pinyin.of('装'));
+        assertEquals("lv", Pinyin.of('律'));
+        assertEquals("zuo", Pinyin.of('座'));
+        // GB2312二级汉字没有拼音
+        assertNull(Pinyin.of('亍'));
+        assertNull(Pinyin.of('a'));
+        assertEquals(3755, Pinyin.size());
+        assertEquals(List.of("xian"), Pinyin.segment("xian"));
+        assertEquals(List.of(), Pinyin.segment("jdbc"));
+    }
+
+    @Test
+    void testNamesIdentifyIncompatibleChains() {
+        assertEquals("standard", new StandardTextAnalyzer().name());
+        assertEquals("standard", AnalysisChain.create(AnalysisChain.STANDARD, false, true).name());
+        assertEquals("cjk-bigram+stop+pinyin", full.name());
+        // 标准分析链与原标准分析器结果相同
+        assertEquals(
+            new StandardTextAnalyzer().analyze("数据库 DM8"),
+            AnalysisChain.create(AnalysisChain.STANDARD, false, false).analyze("数据库 DM8")
+        );
+        assertThrows(IllegalArgumentException.class, () -> AnalysisChain.create("jieba", true, true));
+    }
+}
@@ -0,0 +1,258 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.DocumentIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 中文检索对比：逐字切分（standard）、二元切分（cjk-bigram）、二元切分加停用词和拼音折叠，以及整串LIKE匹配
+ * 相关性在人工标注的中文样本上按MAP（前10条）比较；精确率在SearchBenchmarkCorpus的中文词上比较，延迟对比使用 -Dsearch.benchmark=true 运行。
+ */
+class ChineseSearchBenchmarkTest {
+
+    private static final int BLOCKS = Integer.getInteger("search.benchmark.blocks", 20_000);
+
+    // 计时输出和延迟断言只在 -Dsearch.benchmark=true 时启用，默认运行只做功能断言
+    private static final boolean BENCHMARK = Boolean.getBoolean("search.benchmark");
+
+    private static final int RUNS = 5;
+
+    private static final int TOP = 10;
+
+    // 样本文档：id、标题、正文；包含与查询共享单字但主题无关的干扰文档
+    private static final String[][] SAMPLE = {
+        { "1", "DM8数据库备份指南", "介绍使用DMRMAN进行数据库备份，包括全量备份和增量备份的配置步骤。" },
+        { "2", "备份集的恢复与还原", "从备份集恢复数据库，还原表空间并应用归档日志完成恢复。" },
+        { "3", "设备准备清单", "安装前准备服务器设备，检查磁盘容量和内存，确认数据目录的访问控制。" },
+        { "4", "表空间管理", "创建、扩展和删除表空间，查看表空间的使用率。" },
+        { "5", "数据字典视图", "通过数据字典视图查询表、索引和约束的定义。" },
+        { "6", "空间数据类型", "介绍几何空间数据类型和空间索引的使用。" },
+        { "7", "DM8安装配置", "在Linux上安装DM8，配置实例参数并初始化数据库。" },
+        { "8", "驱动安装", "安装JDBC驱动，配置连接串并测试数据库连接。" },
+        { "9", "安全配置指南", "配置审计策略和加密算法，提高数据库安全性。" },
+        { "10", "集群节点管理", "在数据守护集群中添加节点、切换主备节点并监控节点状态。" },
+        { "11", "节点类型", "介绍语法树中的节点类型和遍历方式。" },
+        { "12", "群组授权", "为用户群组分配权限和角色，统一管理成员的权限。" },
+        { "13", "SQL查询优化", "分析执行计划，通过索引和统计信息优化慢查询。" },
+        { "14", "优化器参数", "调整优化器参数以改善查询性能。" },
+        { "15", "化学品查询", "实验室化学品的查询与登记流程。" },
+        { "16", "JDBC连接池", "使用JDBC连接池管理数据库连接，配置最大连接数。" },
+        { "17", "网络连接故障", "排查客户端网络连接超时和端口问题。" },
+        { "18", "用户权限管理", "创建用户、授予和回收权限，管理角色。" },
+        { "19", "权限认证流程", "登录认证后按角色检查权限。" },
+        { "20", "管理工具简介", "DM管理工具提供图形化的对象管理功能。" },
+        { "21", "归档日志配置", "开启归档模式，配置归档日志的路径和保留策略。" },
+        { "22", "日志文件说明", "介绍数据库运行日志和跟踪日志的位置。" },
+        { "23", "档案管理制度", "纸质档案的归类与保存期限。" },
+        { "24", "事务与锁", "事务隔离级别、锁等待和死锁检测。" },
+    };
+
+    // 查询及相关文档
+    private static final Map<String, Set<Long>> QUERIES = new LinkedHashMap<>();
+
+    // 拼音查询
+    private static final Map<String, Set<Long>> PINYIN_QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("数据库备份", Set.of(1L, 2L));
+        QUERIES.put("表空间", Set.of(4L, 2L));
+        QUERIES.put("安装配置", Set.of(7L, 8L));
+        QUERIES.put("集群节点", Set.of(10L));
+        QUERIES.put("查询优化", Set.of(13L, 14L));
+        QUERIES.put("JDBC连接", Set.of(8L, 16L));
+        QUERIES.put("权限管理", Set.of(18L, 12L, 19L));
+        QUERIES.put("归档日志", Set.of(21L, 2L));
+        QUERIES.put("备份的恢复", Set.of(2L, 1L));
+        PINYIN_QUERIES.put("beifen huifu", Set.of(1L, 2L));
+        PINYIN_QUERIES.put("shujuku anzhuang", Set.of(7L, 8L));
+        PINYIN_QUERIES.put("quanxian", Set.of(18L, 12L, 19L));
+    }
+
+    private static final List<TextAnalyzer> ANALYZERS = List.of(
+        AnalysisChain.create(AnalysisChain.STANDARD, false, false),
+        AnalysisChain.create(AnalysisChain.CJK_BIGRAM, false, false),
+        AnalysisChain.create(AnalysisChain.CJK_BIGRAM, true, true)
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBigramChainImprovesRelevance() throws IOException {
+        Map<String, Double> map = new LinkedHashMap<>();
+        Map<String, Double> pinyinMap = new LinkedHashMap<>();
+        for (TextAnalyzer analyzer : ANALYZERS) {
+            InvertedIndex index = new InvertedIndex(directory.resolve(analyzer.name()), analyzer, 1_000, 10);
+            for (String[] row : SAMPLE) {
+                index.add(document(Long.parseLong(row[0]), row[1], row[2]));
+            }
+            index.refresh();
+            map.put(analyzer.name(), meanAveragePrecision(QUERIES, query -> ranked(index, query)));
+            pinyinMap.put(analyzer.name(), meanAveragePrecision(PINYIN_QUERIES, query -> ranked(index, query)));
+            index.close();
+        }
+        map.put("like", meanAveragePrecision(QUERIES, ChineseSearchBenchmarkTest::likeRanked));
+        pinyinMap.put("like", meanAveragePrecision(PINYIN_QUERIES, ChineseSearchBenchmarkTest::likeRanked));
+
+        System.out.printf("Chinese relevance, MAP@%d over %d queries (%d pinyin)%n", TOP, QUERIES.size(), PINYIN_QUERIES.size());
+        System.out.printf("%-24s %8s %8s%n", "analyzer", "MAP", "pinyin");
+        map.forEach((name, value) -> System.out.printf("%-24s %8.3f %8.3f%n", name, value, pinyinMap.get(name)));
+
+        double standard = map.get("standard");
+        double bigram = map.get("cjk-bigram");
+        double full = map.get("cjk-bigram+stop+pinyin");
+        assertTrue(bigram > standard, "bigram " + bigram + " <= standard " + standard);
+        assertTrue(full >= bigram, "full " + full + " < bigram " + bigram);
+        assertTrue(full > map.get("like"));
+        assertEquals(0.0, pinyinMap.get("cjk-bigram"));
+        assertTrue(pinyinMap.get("cjk-bigram+stop+pinyin") > 0.8, pinyinMap.toString());
+    }
+
+    @Test
+    void testBigramQueriesAreExact() throws IOException {
+        SearchBenchmarkCorpus corpus = new SearchBenchmarkCorpus(8_000, 42L);
+        List<IndexedDocument> blocks = corpus.blocks(1, BLOCKS);
+        // 中文词为词表中排名模4余3的双字词
+        int[] ranks = { 3, 11, 51, 203, 1_003, 4_003 };
+
+        List<String> rows = new ArrayList<>();
+        long[] medians = new long[ANALYZERS.size()];
+        for (int a = 0; a < ANALYZERS.size(); a++) {
+            TextAnalyzer analyzer = ANALYZERS.get(a);
+            Path path = directory.resolve("corpus-" + a);
+            InvertedIndex index = new InvertedIndex(path, analyzer, 50_000, 10);
+            long start = System.nanoTime();
+            blocks.forEach(index::add);
+            index.refresh();
+            long buildMs = (System.nanoTime() - start) / 1_000_000;
+
+            long[] nanos = new long[ranks.length];
+            double precision = 0;
+            double recall = 0;
+            for (int q = 0; q < ranks.length; q++) {
+                String word = corpus.word(ranks[q]);
+                SearchQuery query = SearchQuery.builder().clause(SearchQuery.Clause.of(word, IndexedField.BODY)).build();
+                long truth = blocks.stream().filter(block -> block.body().contains(word)).count();
+                SearchHits all = index.search(query, 0, BLOCKS);
+                long relevant = all.hits().stream()
+                    .filter(hit -> blocks.get((int) hit.id() - 1).body().contains(word))
+                    .count();
+                precision += all.totalHits() == 0 ? 0 : (double) relevant / all.totalHits();
+                recall += truth == 0 ? 1 : (double) relevant / truth;
+                if (BENCHMARK) {
+                    nanos[q] = median(() -> index.search(query, 0, TOP).totalHits());
+                }
+            }
+            medians[a] = median(nanos);
+            rows.add(String.format(
+                "%-24s %9.3f %9.3f %10.3f %9d %9d",
+                analyzer.name(), precision / ranks.length, recall / ranks.length,
+                medians[a] / 1e6, buildMs, size(path) / 1024
+            ));
+            index.close();
+
+            if (!analyzer.name().equals(AnalysisChain.STANDARD)) {
+                // 语料中的中文词以空格分隔，二元词查询与子串匹配完全一致
+                assertEquals(1.0, precision / ranks.length, 1e-9, analyzer.name());
+                assertEquals(1.0, recall / ranks.length, 1e-9, analyzer.name());
+            }
+        }
+
+        if (BENCHMARK) {
+            System.out.printf("Chinese query latency, %d blocks, %d two-character queries%n", BLOCKS, ranks.length);
+            System.out.printf("%-24s %9s %9s %10s %9s %9s%n", "analyzer", "precision", "recall", "median ms", "build ms", "index KB");
+            rows.forEach(System.out::println);
+            assertTrue(medians[1] < medians[0], "bigram " + medians[1] + "ns, standard " + medians[0] + "ns");
+        }
+    }
+
+    private static IndexedDocument document(long id, String title, String body) {
+        return new IndexedDocument(
+            id, id, title, body, null, true, "zh-CN",
+            DocumentIndex.ContentType.PARAGRAPH, null, 0L, 1.0f
+        );
+    }
+
+    private static List<Long> ranked(InvertedIndex index, String query) {
+        SearchHits hits = index.search(SearchQuery.builder().clause(SearchQuery.Clause.of(query)).build(), 0, TOP);
+        return hits.hits().stream().map(SearchHits.Hit::id).toList();
+    }
+
+    /**
+     * 与数据库LIKE查询相同：标题或正文包含整个查询串，按id排序
+     */
+    private static List<Long> likeRanked(String query) {
+        List<Long> ids = new ArrayList<>();
+        for (String[] row : SAMPLE) {
+            if (row[1].toLowerCase().contains(query.toLowerCase()) || row[2].toLowerCase().contains(query.toLowerCase())) {
+                ids.add(Long.parseLong(row[0]));
+            }
+        }
+        return ids.subList(0, Math.min(TOP, ids.size()));
+    }
+
+    private static double meanAveragePrecision(Map<String, Set<Long>> queries, Ranker ranker) {
+        double sum = 0;
+        for (Map.Entry<String, Set<Long>> entry : queries.entrySet()) {
+            List<Long> ranked = ranker.rank(entry.getKey());
+            double precisionSum = 0;
+            int found = 0;
+            for (int i = 0; i < ranked.size(); i++) {
+                if (entry.getValue().contains(ranked.get(i))) {
+                    found++;
+                    precisionSum += (double) found / (i + 1);
+                }
+            }
+            sum += precisionSum / entry.getValue().size();
+        }
+        return sum / queries.size();
+    }
+
+    private static long median(Measured measured) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            measured.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return median(nanos);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long size(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            long total = 0;
+            for (Path file : files.toList()) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Ranker {
+        List<Long> rank(String query);
+    }
+
+    @FunctionalInterface
+    private interface Measured {
+        long run();
+    }
+}
@@ -0,0 +1,270 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.Document;
+import com.cms.permissions.repository.DocumentIndexRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DocumentIndexingServiceTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentIndexRepository documentIndexRepository;
+
+    @InjectMocks
+    private DocumentIndexingService indexingService;
+
+    // 模拟documents表
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    private final List<Collection<Long>> loads = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:indexing" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""
+        );
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(
+            "CREATE TABLE document_index (id BIGINT AUTO_INCREMENT PRIMARY KEY, document_id BIGINT NOT NULL, " +
+            "title VARCHAR(500), content CLOB, plain_text CLOB, summary VARCHAR(1000), " +
+            "content_type VARCHAR(32) NOT NULL, block_position INT, anchor_id VARCHAR(100), tags VARCHAR(500), " +
+            "category_path VARCHAR(500), language VARCHAR(10) NOT NULL, word_count INT, character_count INT, " +
+            "search_weight DOUBLE, is_active BOOLEAN NOT NULL, is_public BOOLEAN NOT NULL, " +
+            "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL, index_version VARCHAR(50))"
+        );
+        ReflectionTestUtils.setField(indexingService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(indexingService, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(indexingService, "enabled", false);
+        ReflectionTestUtils.setField(indexingService, "indexVersion", "2");
+        ReflectionTestUtils.setField(indexingService, "language", "zh-CN");
+        ReflectionTestUtils.setField(indexingService, "debounceMs", 100L);
+        ReflectionTestUtils.setField(indexingService, "maxDelayMs", 400L);
+        ReflectionTestUtils.setField(indexingService, "batchDocuments", 2);
+        indexingService.init();
+
+        when(documentRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Collection<Long> ids = new ArrayList<>(invocation.<Collection<Long>>getArgument(0));
+            synchronized (loads) {
+                loads.add(ids);
+            }
+            return ids.stream().map(documents::get).filter(java.util.Objects::nonNull).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexingService.shutdown();
+    }
+
+    @Test
+    void testUpsertReusesRowsByBlockPosition() {
+        documents.put(1L, document(1L, "# A\n\none\n\n# B\n\ntwo\n\n# C\n\nthree", true));
+        documents.put(2L, document(2L, "other", false));
+        indexingService.indexDocuments(List.of(1L, 2L));
+
+        Map<Integer, Long> before = rowIds(1L);
+        assertEquals(7, before.size());
+        assertEquals(2, count("document_id = 2"));
+        assertEquals(9, count("index_version = '2'"));
+        Map<String, Object> title = jdbcTemplate.queryForMap(
+            "SELECT * FROM document_index WHERE document_id = 1 AND block_position = 3"
+        );
+        assertEquals("TITLE", title.get("content_type"));
+        assertEquals("b", title.get("anchor_id"));
+        assertEquals("DM8,安装", title.get("tags"));
+        assertEquals("/产品/数据库", title.get("category_path"));
+        assertEquals(Boolean.TRUE, title.get("is_public"));
+        assertEquals(0, count("document_id = 2 AND is_public = TRUE"));
+
+        // 缩短后同一位置复用原行，多余的行被删除
+        documents.put(1L, document(1L, "# A\n\nchanged", true));
+        indexingService.indexDocuments(List.of(1L));
+
+        Map<Integer, Long> after = rowIds(1L);
+        assertEquals(3, after.size());
+        after.forEach((position, id) -> assertEquals(before.get(position), id));
+        assertEquals("changed", jdbcTemplate.queryForObject(
+            "SELECT plain_text FROM document_index WHERE document_id = 1 AND block_position = 2", String.class
+        ));
+
+        // 已删除的文档清除全部内容块
+        documents.remove(2L);
+        indexingService.indexDocuments(List.of(2L));
+        assertEquals(0, count("document_id = 2"));
+
+        Map<String, Object> stats = indexingService.getStats();
+        assertEquals(7L + 2L, stats.get("insertedBlocks"));
+        assertEquals(3L, stats.get("updatedBlocks"));
+        assertEquals(4L + 2L, stats.get("deletedBlocks"));
+    }
+
+    @Test
+    void testRapidEditsAreCoalesced() throws InterruptedException {
+        documents.put(1L, document(1L, "text", true));
+        documents.put(2L, document(2L, "text", true));
+
+        for (int i = 0; i < 20; i++) {
+            indexingService.enqueue(1L);
+            indexingService.enqueue(2L);
+            indexingService.flushDue();
+        }
+        assertTrue(loads.isEmpty());
+
+        Thread.sleep(150);
+        indexingService.flushDue();
+
+        // 每个文档只索引一次，2个文档一批
+        assertEquals(List.of(List.of(1L, 2L)), sortedLoads());
+        assertEquals(38L, indexingService.getStats().get("coalescedChanges"));
+        assertEquals(0, indexingService.getStats().get("pendingDocuments"));
+    }
+
+    @Test
+    void testContinuousEditsAreFlushedAfterMaxDelay() throws InterruptedException {
+        documents.put(1L, document(1L, "text", true));
+
+        long start = System.currentTimeMillis();
+        while (loads.isEmpty() && System.currentTimeMillis() - start < 2_000) {
+            indexingService.enqueue(1L);
+            indexingService.flushDue();
+            Thread.sleep(20);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        assertEquals(1, loads.size());
+        assertTrue(elapsed >= 400 && elapsed < 1_000, elapsed + "ms");
+    }
+
+    @Test
+    void testFailedDocumentIsRetriedAloneWithBackoff() throws InterruptedException {
+        documents.put(1L, document(1L, "text", true));
+        documents.put(2L, document(2L, "text", true));
+        // 文档2的读取始终失败，整批回滚
+        when(documentRepository.findAllById(argThat((Iterable<Long> ids) ->
+            ids instanceof Collection<?> collection && collection.contains(2L)
+        ))).thenThrow(new IllegalStateException("broken document"));
+        ReflectionTestUtils.setField(indexingService, "retryBaseMs", 200L);
+        ReflectionTestUtils.setField(indexingService, "maxRetries", 1);
+
+        indexingService.enqueue(1L);
+        indexingService.enqueue(2L);
+        Thread.sleep(150);
+        indexingService.flushDue();
+
+        // 同批的文档1逐个重试后写入，文档2按退避重新登记
+        assertTrue(count("document_id = 1") > 0);
+        assertEquals(1, indexingService.getStats().get("pendingDocuments"));
+        assertEquals(1L, indexingService.getStats().get("retriedDocuments"));
+        indexingService.flushDue();
+        assertEquals(1, indexingService.getStats().get("pendingDocuments"));
+
+        Thread.sleep(250);
+        indexingService.flushDue();
+
+        // 超过重试次数后放弃
+        assertEquals(0, indexingService.getStats().get("pendingDocuments"));
+        assertEquals(1L, indexingService.getStats().get("failedDocuments"));
+    }
+
+    @Test
+    void testReindexVisitsDocumentsWithoutCurrentVersion() throws InterruptedException {
+        for (long id = 1; id <= 5; id++) {
+            documents.put(id, document(id, "content " + id, true));
+        }
+        when(documentRepository.findIdsNeedingIndexAfter(anyLong(), eq("2"), any(Pageable.class)))
+            .thenAnswer(invocation -> {
+                long afterId = invocation.getArgument(0);
+                Pageable pageable = invocation.getArgument(2);
+                return documents.keySet().stream()
+                    .filter(id -> id > afterId)
+                    .filter(id -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM document_index WHERE document_id = ? AND index_version = '2'",
+                        Integer.class, id
+                    ) == 0)
+                    .sorted()
+                    .limit(pageable.getPageSize())
+                    .toList();
+            });
+
+        assertTrue(indexingService.reindex());
+        long start = System.currentTimeMillis();
+        while (Boolean.TRUE.equals(indexingService.getStats().get("reindexing"))
+            && System.currentTimeMillis() - start < 5_000) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(5L, indexingService.getStats().get("reindexedDocuments"));
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), sortedLoads());
+        assertEquals(10, count("index_version = '2'"));
+    }
+
+    @Test
+    void testTagsJsonBecomesCommaSeparated() {
+        assertEquals("a,b", DocumentIndexingService.tags("[\"a\",\"b\"]"));
+        assertEquals("plain", DocumentIndexingService.tags("plain"));
+        assertNull(DocumentIndexingService.tags(" "));
+    }
+
+    private Document document(Long id, String content, boolean published) {
+        Document document = new Document("doc " + id, content, 1L);
+        document.setId(id);
+        document.setIsPublic(true);
+        document.setStatus(published ? Document.DocumentStatus.PUBLISHED : Document.DocumentStatus.DRAFT);
+        document.setTags("[\"DM8\",\"安装\"]");
+        document.setCategory("/产品/数据库");
+        document.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return document;
+    }
+
+    private Map<Integer, Long> rowIds(long documentId) {
+        Map<Integer, Long> ids = new ConcurrentHashMap<>();
+        jdbcTemplate.query(
+            "SELECT id, block_position FROM document_index WHERE document_id = ?",
+            rs -> {
+                ids.put(rs.getInt(2), rs.getLong(1));
+            },
+            documentId
+        );
+        return ids;
+    }
+
+    private int count(String where) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM document_index WHERE " + where, Integer.class);
+    }
+
+    private List<List<Long>> sortedLoads() {
+        synchronized (loads) {
+            return loads.stream().map(ids -> ids.stream().sorted().toList()).toList();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.DocumentIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InvertedIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTitleMatchesRankAboveBodyMatches() throws IOException {
+        InvertedIndex index = open(100, 10);
+        index.add(doc(1, "安装指南", "介绍数据库的配置方法", "zh-CN"));
+        index.add(doc(2, "数据库安装", "步骤说明", "zh-CN"));
+        index.add(doc(3, "Release notes", "database tuning and backup", "en-US"));
+        index.refresh();
+
+        SearchHits hits = index.search(query("数据库"), 0, 10);
+
+        assertEquals(2, hits.totalHits());
+        assertEquals(List.of(2L, 1L), ids(hits));
+
+        SearchHits english = index.search(query("DATABASE Backup"), 0, 10);
+        assertEquals(List.of(3L), ids(english));
+    }
+
+    @Test
+    void testChangesBecomeVisibleAfterRefresh() throws IOException {
+        InvertedIndex index = open(100, 10);
+        index.add(doc(1, "alpha", "first", "en-US"));
+        assertEquals(0, index.search(query("alpha"), 0, 10).totalHits());
+
+        index.refresh();
+        assertEquals(1, index.search(query("alpha"), 0, 10).totalHits());
+
+        // 更新：旧段中的版本被删除
+        index.add(doc(1, "beta", "second", "en-US"));
+        index.add(doc(2, "alpha", "third", "en-US"));
+        index.refresh();
+        assertEquals(List.of(2L), ids(index.search(query("alpha"), 0, 10)));
+        assertEquals(List.of(1L), ids(index.search(query("beta"), 0, 10)));
+
+        index.delete(2);
+        index.refresh();
+        assertEquals(0, index.search(query("alpha"), 0, 10).totalHits());
+        assertEquals(1, index.docCount());
+    }
+
+    @Test
+    void testFiltersMatchRepositoryQueries() throws IOException {
+        InvertedIndex index = open(100, 10);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 1; i <= 20; i++) {
+            IndexedDocument document = new IndexedDocument(
+                i,
+                100 + i % 3,
+                "guide " + i,
+                "shared body",
+                null,
+                i % 2 == 0,
+                i % 4 == 0 ? "en-US" : "zh-CN",
+                i % 5 == 0 ? DocumentIndex.ContentType.CODE_BLOCK : DocumentIndex.ContentType.PARAGRAPH,
+                i % 3 == 0 ? "/Ops/Backup" : "/dev/api",
+                IndexedDocument.toMillis(base.plusDays(i)),
+                1.0f
+            );
+            index.add(document);
+        }
+        index.refresh();
+
+        assertEquals(10, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared")).publicOnly(true).build(), 0, 100).totalHits());
+        assertEquals(5, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared")).language("en-US").build(), 0, 100).totalHits());
+        assertEquals(0, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared")).language("fr-FR").build(), 0, 100).totalHits());
+        assertEquals(4, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared"))
+            .contentType(DocumentIndex.ContentType.CODE_BLOCK).build(), 0, 100).totalHits());
+        // 分类路径为不区分大小写的包含匹配
+        assertEquals(6, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared")).categoryPath("ops/back").build(), 0, 100).totalHits());
+        assertEquals(5, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("shared"))
+            .startDate(base.plusDays(3))
+            .endDate(base.plusDays(7)).build(), 0, 100).totalHits());
+        // 没有文本条件时只按过滤条件匹配
+        assertEquals(5, index.search(SearchQuery.builder()
+            .categoryPath("backup").language("zh-CN").build(), 0, 100).totalHits());
+        // 每个子句都必须满足
+        assertEquals(List.of(7L), ids(index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("7", IndexedField.TITLE))
+            .clause(SearchQuery.Clause.of("body", IndexedField.BODY)).build(), 0, 100)));
+        assertEquals(0, index.search(SearchQuery.builder()
+            .clause(SearchQuery.Clause.of("guide", IndexedField.BODY)).build(), 0, 100).totalHits());
+    }
+
+    @Test
+    void testPagingReturnsStableOrder() throws IOException {
+        InvertedIndex index = open(7, 100);
+        for (int i = 1; i <= 50; i++) {
+            index.add(doc(i, "page", "word ".repeat(i % 5 + 1), "en-US"));
+        }
+        index.refresh();
+
+        SearchHits all = index.search(query("page word"), 0, 50);
+        assertEquals(50, all.totalHits());
+        for (int page = 0; page < 5; page++) {
+            SearchHits hits = index.search(query("page word"), page * 10, 10);
+            assertEquals(ids(all).subList(page * 10, page * 10 + 10), ids(hits));
+        }
+        assertTrue(index.search(query("page"), 60, 10).hits().isEmpty());
+    }
+
+    @Test
+    void testMergeKeepsLiveDocumentsAndDropsDeletes() throws IOException {
+        InvertedIndex index = open(10, 3);
+        for (int i = 1; i <= 100; i++) {
+            index.add(doc(i, "merge " + (i % 2 == 0 ? "even" : "odd"), "body " + i, "en-US"));
+        }
+        for (int i = 1; i <= 100; i += 10) {
+            index.delete(i);
+        }
+        index.refresh();
+
+        assertTrue((int) index.getStats().get("segments") <= 3, index.getStats().toString());
+        assertEquals(90, index.docCount());
+        assertEquals(50, index.search(query("even"), 0, 100).totalHits());
+        assertEquals(40, index.search(query("odd"), 0, 100).totalHits());
+        assertEquals(List.of(42L), ids(index.search(query("42"), 0, 10)));
+        assertEquals(0, index.search(query("11"), 0, 10).totalHits());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(
+                index.getStats().get("segments"),
+                (int) files.filter(file -> file.toString().endsWith(".seg")).count()
+            );
+        }
+    }
+
+    @Test
+    void testReopenRestoresCommittedState() throws IOException {
+        InvertedIndex index = open(100, 10);
+        index.add(doc(1, "persisted", "kept", "en-US"));
+        index.add(doc(2, "persisted", "removed", "en-US"));
+        index.refresh();
+        index.delete(2);
+        index.add(doc(3, "unrefreshed", "lost", "en-US"));
+        index.refresh();
+        index.add(doc(4, "buffered", "flushed on close", "en-US"));
+        index.close();
+
+        // 未引用的段文件（如写入中途崩溃）在打开时被清理
+        Files.writeString(directory.resolve("_zz.seg"), "partial");
+
+        InvertedIndex reopened = open(100, 10);
+        assertEquals(3, reopened.docCount());
+        assertEquals(List.of(1L), ids(reopened.search(query("persisted"), 0, 10)));
+        assertEquals(List.of(4L), ids(reopened.search(query("buffered"), 0, 10)));
+        assertFalse(Files.exists(directory.resolve("_zz.seg")));
+    }
+
+    private InvertedIndex open(int maxBufferedDocs, int mergeFactor) throws IOException {
+        return new InvertedIndex(directory, new StandardTextAnalyzer(), maxBufferedDocs, mergeFactor);
+    }
+
+    private static IndexedDocument doc(long id, String title, String body, String language) {
+        return new IndexedDocument(
+            id, id, title, body, null, true, language,
+            DocumentIndex.ContentType.PARAGRAPH, null, 0L, 1.0f
+        );
+    }
+
+    private static SearchQuery query(String text) {
+        return SearchQuery.builder().clause(SearchQuery.Clause.of(text)).build();
+    }
+
+    private static List<Long> ids(SearchHits hits) {
+        return hits.hits().stream().map(SearchHits.Hit::id).toList();
+    }
+}
@@ -0,0 +1,137 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.DocumentIndex.ContentType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.ext.heading.anchor.HeadingAnchorExtension;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.junit.jupiter.api.Test;
+
+class MarkdownBlockSplitterTest {
+
+    private static final String MARKDOWN = String.join("\n",
+        "开篇说明，介绍 **DM8** 的安装。",
+        "",
+        "# 安装",
+        "",
+        "运行 `setup.sh` 完成安装。",
+        "第二行",
+        "",
+        "```bash",
+        "./setup.sh --silent",
+        "```",
+        "",
+        "## 参数 配置",
+        "",
+        "| 参数 | 说明 |",
+        "| --- | --- |",
+        "| PORT | 端口 |",
+        "",
+        "- 第一项",
+        "- 第二项",
+        "",
+        "> 注意：先备份",
+        "",
+        "![架构图](arch.png)",
+        "",
+        "---",
+        "",
+        "# 安装",
+        "",
+        "重复的标题"
+    );
+
+    private final MarkdownBlockSplitter splitter = new MarkdownBlockSplitter();
+
+    @Test
+    void testBlocksFollowDocumentOrder() {
+        List<MarkdownBlockSplitter.Block> blocks = splitter.split("DM8 安装指南", MARKDOWN);
+
+        assertEquals(List.of(
+            ContentType.FULL_CONTENT, ContentType.PARAGRAPH, ContentType.TITLE, ContentType.PARAGRAPH,
+            ContentType.CODE_BLOCK, ContentType.TITLE, ContentType.TABLE, ContentType.LIST, ContentType.QUOTE,
+            ContentType.IMAGE_CAPTION, ContentType.TITLE, ContentType.PARAGRAPH
+        ), blocks.stream().map(MarkdownBlockSplitter.Block::contentType).toList());
+        for (int i = 0; i < blocks.size(); i++) {
+            assertEquals(i, blocks.get(i).position());
+        }
+
+        MarkdownBlockSplitter.Block full = blocks.get(0);
+        assertEquals("DM8 安装指南", full.title());
+        assertNull(full.anchorId());
+        assertEquals(MARKDOWN, full.content());
+
+        // 第一个标题之前的块属于文档本身
+        assertEquals("DM8 安装指南", blocks.get(1).title());
+        assertNull(blocks.get(1).anchorId());
+        assertEquals("开篇说明，介绍 DM8 的安装。", blocks.get(1).plainText());
+
+        MarkdownBlockSplitter.Block paragraph = blocks.get(3);
+        assertEquals("安装", paragraph.title());
+        assertEquals("运行 `setup.sh` 完成安装。\n第二行", paragraph.content());
+        assertEquals("运行 setup.sh 完成安装。\n第二行", paragraph.plainText());
+
+        assertEquals("```bash\n./setup.sh --silent\n```", blocks.get(4).content());
+        assertEquals("./setup.sh --silent", blocks.get(4).plainText());
+        assertEquals("参数 配置", blocks.get(6).title());
+        assertEquals("参数 说明\nPORT 端口", blocks.get(6).plainText());
+        assertEquals("第一项\n第二项", blocks.get(7).plainText());
+        assertEquals("架构图", blocks.get(9).plainText());
+    }
+
+    @Test
+    void testAnchorsMatchRenderedHeadingIds() {
+        Parser parser = Parser.builder()
+            .extensions(List.of(TablesExtension.create(), HeadingAnchorExtension.create()))
+            .build();
+        HtmlRenderer renderer = HtmlRenderer.builder()
+            .extensions(List.of(TablesExtension.create(), HeadingAnchorExtension.create()))
+            .build();
+        String html = renderer.render(parser.parse(MARKDOWN));
+        List<String> renderedIds = new ArrayList<>();
+        Matcher matcher = Pattern.compile("<h\\d id=\"([^\"]*)\"").matcher(html);
+        while (matcher.find()) {
+            renderedIds.add(matcher.group(1));
+        }
+
+        List<String> anchors = splitter.split("title", MARKDOWN).stream()
+            .filter(block -> block.contentType() == ContentType.TITLE)
+            .map(MarkdownBlockSplitter.Block::anchorId)
+            .toList();
+
+        assertEquals(3, renderedIds.size());
+        assertEquals(renderedIds, anchors);
+        // 同名标题的锚点不重复
+        assertNotEquals(anchors.get(0), anchors.get(2));
+    }
+
+    @Test
+    void testSummaryAndCounts() {
+        String longText = "数据库".repeat(100);
+        List<MarkdownBlockSplitter.Block> blocks = splitter.split("t", longText + "\n\nalpha beta  gamma");
+
+        MarkdownBlockSplitter.Block first = blocks.get(1);
+        assertEquals(MarkdownBlockSplitter.SUMMARY_LENGTH + 3, first.summary().length());
+        assertTrue(first.summary().endsWith("..."));
+        assertEquals(300, first.wordCount());
+
+        MarkdownBlockSplitter.Block second = blocks.get(2);
+        assertEquals("alpha beta gamma", second.summary());
+        assertEquals(3, second.wordCount());
+    }
+
+    @Test
+    void testEmptyContentKeepsDocumentBlock() {
+        List<MarkdownBlockSplitter.Block> blocks = splitter.split("只有标题", null);
+
+        assertEquals(1, blocks.size());
+        assertEquals(ContentType.FULL_CONTENT, blocks.get(0).contentType());
+        assertEquals("", blocks.get(0).plainText());
+    }
+}
@@ -0,0 +1,194 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 搜索后端延迟对比：同一语料下，DocumentIndexRepository的LIKE查询（H2，查询当前页加总数）与嵌入式倒排索引
+ * 默认运行只校验两者的命中关系；延迟对比使用 -Dsearch.benchmark=true 运行，1M规模加 -Dsearch.benchmark.blocks=1000000。
+ */
+class SearchBackendBenchmarkTest {
+
+    private static final int BLOCKS = Integer.getInteger("search.benchmark.blocks", 20_000);
+
+    // 计时输出和延迟断言只在 -Dsearch.benchmark=true 时启用，默认运行只做功能断言
+    private static final boolean BENCHMARK = Boolean.getBoolean("search.benchmark");
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final int RUNS = 3;
+
+    // 不同常见程度的查询词（按词频排名），排名模4余3的为中文双字词
+    private static final int[] QUERY_RANKS = { 2, 3, 10, 11, 50, 51, 200, 203, 1_000, 1_003, 4_000, 4_003 };
+
+    // 与searchByTitle/searchByContent相同的条件和排序
+    private static final String LIKE_TITLE_WHERE =
+        "WHERE is_active = TRUE AND (? = FALSE OR is_public = TRUE) " +
+        "AND LOWER(title) LIKE LOWER(CONCAT('%', ?, '%'))";
+
+    private static final String LIKE_CONTENT_WHERE =
+        "WHERE is_active = TRUE AND (? = FALSE OR is_public = TRUE) " +
+        "AND (LOWER(content) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(plain_text) LIKE LOWER(CONCAT('%', ?, '%')))";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEmbeddedIndexMatchesAreASubsetOfLikeQueries() throws IOException, SQLException {
+        SearchBenchmarkCorpus corpus = new SearchBenchmarkCorpus(8_000, 42L);
+        InvertedIndex index = new InvertedIndex(
+            directory.resolve("index"), AnalysisChain.create(AnalysisChain.CJK_BIGRAM, true, true), 50_000, 10
+        );
+
+        String url = "jdbc:h2:file:" + directory.resolve("h2").toAbsolutePath() + ";MODE=MySQL";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            load(corpus, index, connection);
+
+            List<String> rows = new ArrayList<>();
+            long[] likeNanos = new long[QUERY_RANKS.length * 2];
+            long[] indexNanos = new long[QUERY_RANKS.length * 2];
+            int q = 0;
+            for (int rank : QUERY_RANKS) {
+                String word = corpus.word(rank);
+                for (boolean title : new boolean[] { true, false }) {
+                    IndexedField field = title ? IndexedField.TITLE : IndexedField.BODY;
+                    SearchQuery query = SearchQuery.builder()
+                        .clause(SearchQuery.Clause.of(word, field))
+                        .publicOnly(true)
+                        .build();
+
+                    long likeTotal = likeSearch(connection, word, title);
+                    SearchHits hits = index.search(query, 0, PAGE_SIZE);
+                    // 词匹配是子串匹配的子集（LIKE还会匹配包含该词的更长的词）
+                    assertTrue(hits.totalHits() <= likeTotal, word + ": " + hits.totalHits() + " > " + likeTotal);
+                    assertTrue(hits.totalHits() > 0, word);
+
+                    if (BENCHMARK) {
+                        likeNanos[q] = median(() -> likeSearch(connection, word, title));
+                        indexNanos[q] = median(() -> index.search(query, 0, PAGE_SIZE).totalHits());
+                    }
+                    rows.add(String.format(
+                        "%-22s %-7s %8d %8d %10.2f %10.3f",
+                        word, field, likeTotal, hits.totalHits(),
+                        likeNanos[q] / 1e6, indexNanos[q] / 1e6
+                    ));
+                    q++;
+                }
+            }
+
+            if (BENCHMARK) {
+                System.out.printf("Search benchmark, %d blocks%n", BLOCKS);
+                System.out.printf("%-22s %-7s %8s %8s %10s %10s%n", "query", "field", "like", "index", "like ms", "index ms");
+                rows.forEach(System.out::println);
+                long likeMedian = medianOf(likeNanos);
+                long indexMedian = medianOf(indexNanos);
+                System.out.printf("median: like %.2fms, index %.3fms%n", likeMedian / 1e6, indexMedian / 1e6);
+                assertTrue(indexMedian < likeMedian, "index " + indexMedian + "ns, like " + likeMedian + "ns");
+            }
+        }
+    }
+
+    private void load(SearchBenchmarkCorpus corpus, InvertedIndex index, Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(
+                "CREATE TABLE document_index (id BIGINT PRIMARY KEY, title VARCHAR(500), content VARCHAR(4000), " +
+                "plain_text VARCHAR(4000), is_active BOOLEAN, is_public BOOLEAN, language VARCHAR(10), " +
+                "search_weight DOUBLE, created_at TIMESTAMP)"
+            );
+            statement.execute("CREATE INDEX idx_created_at ON document_index(created_at)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO document_index VALUES (?, ?, ?, ?, TRUE, ?, ?, ?, ?)"
+        )) {
+            int chunk = 10_000;
+            for (int first = 1; first <= BLOCKS; first += chunk) {
+                for (IndexedDocument block : corpus.blocks(first, Math.min(chunk, BLOCKS - first + 1))) {
+                    index.add(block);
+                    insert.setLong(1, block.id());
+                    insert.setString(2, block.title());
+                    insert.setString(3, block.body());
+                    insert.setString(4, block.body());
+                    insert.setBoolean(5, block.isPublic());
+                    insert.setString(6, block.language());
+                    insert.setDouble(7, block.searchWeight());
+                    insert.setTimestamp(8, Timestamp.from(Instant.ofEpochMilli(block.createdAtMillis())));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+        connection.setAutoCommit(true);
+        index.refresh();
+        assertEquals(BLOCKS, index.docCount());
+    }
+
+    /**
+     * 与Spring Data分页查询相同：读取当前页并统计总数
+     */
+    private static long likeSearch(Connection connection, String word, boolean title) throws SQLException {
+        String where = title ? LIKE_TITLE_WHERE : LIKE_CONTENT_WHERE;
+        try (PreparedStatement page = connection.prepareStatement(
+            "SELECT * FROM document_index " + where + " ORDER BY search_weight DESC, created_at DESC LIMIT " + PAGE_SIZE
+        )) {
+            bind(page, word, title);
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+        }
+        try (PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM document_index " + where)) {
+            bind(count, word, title);
+            try (ResultSet rs = count.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, String word, boolean title) throws SQLException {
+        statement.setBoolean(1, true);
+        statement.setString(2, word);
+        if (!title) {
+            statement.setString(3, word);
+        }
+    }
+
+    private static long median(Measured measured) throws SQLException {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            measured.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return medianOf(nanos);
+    }
+
+    private static long medianOf(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @FunctionalInterface
+    private interface Measured {
+        long run() throws SQLException;
+    }
+}
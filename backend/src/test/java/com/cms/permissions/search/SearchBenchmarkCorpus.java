@@ -0,0 +1,113 @@
+package com.cms.permissions.search;
+
+import com.cms.permissions.entity.DocumentIndex;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 搜索基准语料：固定种子生成的内容块，词频服从Zipf分布（少数词非常常见，大量词很少出现），
+ * 包含英文词和中文词，各属性的分布覆盖全部过滤条件。相同参数每次生成相同的语料。
+ */
+class SearchBenchmarkCorpus {
+
+    private static final String[] SYLLABLES = {
+        "da", "ta", "ba", "se", "con", "fig", "ser", "ver", "in", "dex", "cache", "log",
+        "net", "work", "re", "pli", "ca", "tion", "back", "up", "quer", "y", "tab", "le",
+        "sto", "rage", "clu", "ster", "node", "shard", "mi", "gra", "te", "lock", "sync", "mon",
+    };
+
+    private static final String CJK =
+        "数据库安装配置备份恢复集群节点索引查询优化事务日志权限用户角色文档分类迁移监控性能缓存存储表空间连接驱动" +
+        "参数版本升级兼容函数过程触发器视图序列约束主键外键字段类型字符编码时间格式统计分析报表审计安全加密网络";
+
+    private static final String[] LANGUAGES = { "zh-CN", "zh-CN", "zh-CN", "en-US" };
+
+    private static final String[] CATEGORIES = {
+        "/产品/数据库/安装", "/产品/数据库/运维", "/产品/工具/迁移", "/开发/接口", "/开发/驱动", "/运维/监控",
+    };
+
+    private final String[] vocabulary;
+
+    private final double[] cumulative;
+
+    private final long seed;
+
+    SearchBenchmarkCorpus(int vocabularySize, long seed) {
+        this.seed = seed;
+        Random random = new Random(seed);
+        vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) {
+            // 约四分之一为中文双字词
+            if (i % 4 == 3) {
+                vocabulary[i] = "" + CJK.charAt(random.nextInt(CJK.length())) + CJK.charAt(random.nextInt(CJK.length()));
+            } else {
+                StringBuilder word = new StringBuilder();
+                int syllables = 2 + random.nextInt(3);
+                for (int s = 0; s < syllables; s++) {
+                    word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                vocabulary[i] = word.append(i).toString();
+            }
+        }
+        cumulative = new double[vocabularySize];
+        double sum = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    /**
+     * 按词频排名取词，排名越小越常见
+     */
+    String word(int rank) {
+        return vocabulary[rank];
+    }
+
+    /**
+     * 生成id从1开始的count个内容块
+     */
+    List<IndexedDocument> blocks(int first, int count) {
+        List<IndexedDocument> blocks = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int id = first; id < first + count; id++) {
+            Random random = new Random(seed * 31 + id);
+            blocks.add(new IndexedDocument(
+                id,
+                id / 20 + 1,
+                text(random, 3 + random.nextInt(6)),
+                text(random, 30 + random.nextInt(51)),
+                word(sample(random)) + "," + word(sample(random)),
+                random.nextInt(10) < 8,
+                LANGUAGES[random.nextInt(LANGUAGES.length)],
+                DocumentIndex.ContentType.values()[random.nextInt(DocumentIndex.ContentType.values().length)],
+                CATEGORIES[random.nextInt(CATEGORIES.length)],
+                IndexedDocument.toMillis(base.plusMinutes(id * 7L)),
+                1.0f + random.nextInt(4) * 0.5f
+            ));
+        }
+        return blocks;
+    }
+
+    private String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word(sample(random)));
+        }
+        return text.toString();
+    }
+
+    private int sample(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1);
+    }
+}
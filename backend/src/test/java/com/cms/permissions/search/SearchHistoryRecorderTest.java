@@ -0,0 +1,150 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.SearchHistory;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class SearchHistoryRecorderTest {
+
+    private final SearchHistoryRecorder recorder = new SearchHistoryRecorder();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:history" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""
+        );
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(
+            "CREATE TABLE search_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT, " +
+            "search_query VARCHAR(500) NOT NULL, search_type VARCHAR(32) NOT NULL, result_count BIGINT NOT NULL, " +
+            "search_duration BIGINT, has_results BOOLEAN NOT NULL, ip_address VARCHAR(45), user_agent VARCHAR(500), " +
+            "referer VARCHAR(500), applied_filters CLOB, sort_by VARCHAR(50), sort_direction VARCHAR(10), " +
+            "page_number INT, page_size INT, search_time TIMESTAMP NOT NULL, session_id VARCHAR(100), " +
+            "is_suggestion BOOLEAN NOT NULL, search_language VARCHAR(10))"
+        );
+        jdbcTemplate.execute(
+            "CREATE TABLE search_hourly_rollup (id BIGINT AUTO_INCREMENT PRIMARY KEY, hour_start TIMESTAMP NOT NULL UNIQUE, " +
+            "searches BIGINT NOT NULL, successful_searches BIGINT NOT NULL, total_duration BIGINT NOT NULL, " +
+            "duration_samples BIGINT NOT NULL)"
+        );
+        jdbcTemplate.execute(
+            "CREATE TABLE search_query_hourly_rollup (id BIGINT AUTO_INCREMENT PRIMARY KEY, hour_start TIMESTAMP NOT NULL, " +
+            "search_query VARCHAR(500) NOT NULL, searches BIGINT NOT NULL, no_result_searches BIGINT NOT NULL, " +
+            "CONSTRAINT uk_query_hour UNIQUE (hour_start, search_query))"
+        );
+        ReflectionTestUtils.setField(recorder, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(recorder, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "queueCapacity", 100);
+        ReflectionTestUtils.setField(recorder, "batchSize", 4);
+        // 测试中手动flush
+        ReflectionTestUtils.setField(recorder, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(recorder, "sampleThreshold", 0.5);
+        ReflectionTestUtils.setField(recorder, "sampleRate", 0.25);
+        recorder.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        recorder.shutdown();
+    }
+
+    @Test
+    void testBatchesWriteHistoryAndAccumulateRollups() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Forwarded-For", "10.0.0.1, 10.0.0.2");
+        request.addHeader("User-Agent", "JUnit");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        for (int i = 0; i < 5; i++) {
+            recorder.record(SearchHistory.SearchType.FULL_TEXT, "  数据库  备份 ", 3, 10, "zh-CN", 0, 10, null);
+        }
+        recorder.record(SearchHistory.SearchType.TITLE_ONLY, "dm9", 0, 20, null, 1, 20, Map.of("contentType", "TITLE"));
+        // 在请求线程中不写数据库
+        assertEquals(0, count("search_history"));
+
+        recorder.flush();
+        assertEquals(6, count("search_history"));
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM search_history WHERE search_query = 'dm9'");
+        assertEquals("10.0.0.1", row.get("ip_address"));
+        assertEquals("JUnit", row.get("user_agent"));
+        assertEquals("TITLE_ONLY", row.get("search_type"));
+        assertEquals(Boolean.FALSE, row.get("has_results"));
+        assertEquals(2, row.get("page_number"));
+        assertEquals("{\"contentType\":\"TITLE\"}", row.get("applied_filters"));
+
+        // 下一批累加到同一小时的汇总行
+        recorder.record(SearchHistory.SearchType.FULL_TEXT, "dm9", 0, 30, null, 0, 10, null);
+        recorder.flush();
+
+        Map<String, Object> hourly = jdbcTemplate.queryForMap("SELECT * FROM search_hourly_rollup");
+        assertEquals(7L, hourly.get("searches"));
+        assertEquals(5L, hourly.get("successful_searches"));
+        assertEquals(5 * 10L + 20 + 30, hourly.get("total_duration"));
+        assertEquals(7L, hourly.get("duration_samples"));
+        assertEquals(
+            List.of(Map.of("SEARCH_QUERY", "dm9", "SEARCHES", 2L, "NO_RESULT_SEARCHES", 2L),
+                Map.of("SEARCH_QUERY", "数据库 备份", "SEARCHES", 5L, "NO_RESULT_SEARCHES", 0L)),
+            jdbcTemplate.queryForList(
+                "SELECT search_query, searches, no_result_searches FROM search_query_hourly_rollup ORDER BY search_query"
+            )
+        );
+        assertEquals(7L, recorder.getStats().get("writtenRecords"));
+        // 6条记录按每批4条写入，之后再写1批
+        assertEquals(3L, recorder.getStats().get("batches"));
+    }
+
+    @Test
+    void testOverloadSamplesAndDropsWithoutBlocking() {
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            recorder.record(SearchHistory.SearchType.FULL_TEXT, "q" + (i % 10), 1, 1, null, 0, 10, null);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 5_000, elapsedMs + "ms");
+
+        Map<String, Object> stats = recorder.getStats();
+        long sampledOut = (long) stats.get("sampledOutRecords");
+        long dropped = (long) stats.get("droppedRecords");
+        assertEquals(100, stats.get("queued"));
+        assertEquals(10_000L, stats.get("receivedRecords"));
+        assertEquals(10_000L - 100, sampledOut + dropped);
+        assertTrue(sampledOut > dropped, stats.toString());
+
+        // 前50条每条计1次，抽样保留的50条每条计4次
+        recorder.flush();
+        assertEquals(100, count("search_history"));
+        assertEquals(50L + 50L * 4, jdbcTemplate.queryForObject("SELECT searches FROM search_hourly_rollup", Long.class));
+    }
+
+    @Test
+    void testFailedBatchIsRolledBackAndCounted() {
+        jdbcTemplate.execute("DROP TABLE search_query_hourly_rollup");
+        recorder.record(SearchHistory.SearchType.FULL_TEXT, "lost", 1, 1, null, 0, 10, null);
+        recorder.flush();
+
+        // 整批在一个事务中回滚
+        assertEquals(0, count("search_history"));
+        assertEquals(1L, recorder.getStats().get("failedRecords"));
+        assertEquals(0, recorder.getStats().get("queued"));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,200 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.DocumentIndex;
+import com.cms.permissions.repository.DocumentIndexRepository;
+import com.cms.permissions.repository.SearchHistoryRepository;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SearchSuggestionServiceTest {
+
+    @Mock
+    private DocumentIndexRepository documentIndexRepository;
+
+    @Mock
+    private SearchHistoryRepository searchHistoryRepository;
+
+    @InjectMocks
+    private SearchSuggestionService suggestionService;
+
+    @TempDir
+    Path directory;
+
+    // 模拟document_index中的候选来源：id、标题、权重、是否公开
+    private final List<Object[]> sources = new ArrayList<>();
+
+    private final List<Object[]> popularQueries = new ArrayList<>();
+
+    private boolean started;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(suggestionService, "snapshotFile", directory.resolve("suggestions.snapshot").toString());
+        ReflectionTestUtils.setField(suggestionService, "maxResults", 10);
+        ReflectionTestUtils.setField(suggestionService, "rebuildPageSize", 2);
+        ReflectionTestUtils.setField(suggestionService, "queryWindowDays", 30);
+        ReflectionTestUtils.setField(suggestionService, "maxQueries", 100);
+        ReflectionTestUtils.setField(suggestionService, "minQueryCount", 3L);
+        ReflectionTestUtils.setField(suggestionService, "queryRefreshMs", 3_600_000L);
+        ReflectionTestUtils.setField(suggestionService, "snapshotIntervalMs", 3_600_000L);
+
+        when(documentIndexRepository.findSuggestionSourcesAfter(anyLong(), anyCollection(), any(Pageable.class)))
+            .thenAnswer(invocation -> {
+                long afterId = invocation.getArgument(0);
+                Pageable pageable = invocation.getArgument(2);
+                return sources.stream()
+                    .filter(row -> (Long) row[0] > afterId)
+                    .limit(pageable.getPageSize())
+                    .toList();
+            });
+        when(searchHistoryRepository.findPopularSearchQueries(any(), eq(true), any(Pageable.class)))
+            .thenAnswer(invocation -> new ArrayList<>(popularQueries));
+
+        sources.add(new Object[] { 1L, "DM8安装指南", 1.0, true });
+        sources.add(new Object[] { 2L, "数据库备份与恢复", 1.0, true });
+        sources.add(new Object[] { 3L, "内部运维手册", 2.0, false });
+        sources.add(new Object[] { 4L, "DM8 备份工具", 1.2, true });
+        sources.add(new Object[] { 5L, "  dm8安装指南 ", 1.5, false });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (started) {
+            suggestionService.shutdown();
+        }
+    }
+
+    @Test
+    void testRebuildServesPrefixesOfWordsAndCharacters() throws InterruptedException {
+        start();
+
+        assertEquals(List.of("DM8 备份工具", "DM8安装指南"), suggestionService.suggest("dm8", true));
+        // 同一标题的多行合并，全部候选中取最高权重的写法
+        assertEquals(List.of("dm8安装指南", "DM8 备份工具"), suggestionService.suggest("DM8", false));
+        // 标题中间的词和汉字
+        assertEquals(List.of("DM8 备份工具", "数据库备份与恢复"), suggestionService.suggest("备份", true));
+        assertEquals(List.of("数据库备份与恢复"), suggestionService.suggest("恢复", true));
+        assertEquals(List.of("DM8 备份工具"), suggestionService.suggest("dm8  备", true));
+        // 非公开标题只出现在完整的候选中
+        assertEquals(List.of(), suggestionService.suggest("运维", true));
+        assertEquals(List.of("内部运维手册"), suggestionService.suggest("运维", false));
+        assertEquals(4, suggestionService.getStats().get("titles"));
+    }
+
+    @Test
+    void testPopularQueriesBoostAndExtendCandidates() throws InterruptedException {
+        popularQueries.add(new Object[] { "数据库备份与恢复", 20L });
+        popularQueries.add(new Object[] { "数据迁移", 5L });
+        popularQueries.add(new Object[] { "数据 迁移", 1L });
+        popularQueries.add(new Object[] { "数据字典", 2L });
+        start();
+
+        assertEquals(List.of("数据库备份与恢复", "数据迁移"), suggestionService.suggest("数据", false));
+        // 搜索词不出现在公开建议中
+        assertEquals(List.of("数据库备份与恢复"), suggestionService.suggest("数据", true));
+
+        popularQueries.clear();
+        popularQueries.add(new Object[] { "数据字典", 9L });
+        suggestionService.refreshQueries();
+        assertEquals(List.of("数据字典", "数据库备份与恢复"), suggestionService.suggest("数据", false));
+    }
+
+    @Test
+    void testIncrementalUpdatesFromIndexingPipeline() throws InterruptedException {
+        start();
+
+        suggestionService.apply(
+            List.of(
+                row(6L, "DM8集群部署", DocumentIndex.ContentType.TITLE, 3.0, true),
+                row(7L, "DM8段落", DocumentIndex.ContentType.PARAGRAPH, 5.0, true),
+                // 同一位置的块变为其他类型时不再作为候选
+                row(4L, "DM8 备份工具", DocumentIndex.ContentType.PARAGRAPH, 1.2, true)
+            ),
+            List.of(1L)
+        );
+
+        assertEquals(List.of("DM8集群部署"), suggestionService.suggest("dm8", true));
+        assertEquals(List.of("DM8集群部署", "dm8安装指南"), suggestionService.suggest("dm8", false));
+    }
+
+    @Test
+    void testSnapshotRestoresSuggestionsBeforeRebuild() throws Exception {
+        popularQueries.add(new Object[] { "数据迁移", 5L });
+        start();
+        suggestionService.apply(List.of(row(6L, "DM8集群部署", DocumentIndex.ContentType.TITLE, 3.0, true)), Set.of());
+        suggestionService.shutdown();
+
+        // 新实例在数据库不可用时从快照提供建议
+        DocumentIndexRepository unavailable = mock(DocumentIndexRepository.class);
+        when(unavailable.findSuggestionSourcesAfter(anyLong(), anyCollection(), any(Pageable.class)))
+            .thenThrow(new IllegalStateException("database unavailable"));
+        SearchSuggestionService restored = new SearchSuggestionService();
+        ReflectionTestUtils.setField(restored, "documentIndexRepository", unavailable);
+        ReflectionTestUtils.setField(restored, "searchHistoryRepository", mock(SearchHistoryRepository.class));
+        ReflectionTestUtils.setField(restored, "snapshotFile", directory.resolve("suggestions.snapshot").toString());
+        ReflectionTestUtils.setField(restored, "maxResults", 10);
+        ReflectionTestUtils.setField(restored, "queryRefreshMs", 3_600_000L);
+        ReflectionTestUtils.setField(restored, "snapshotIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(restored, "rebuildPageSize", 2);
+        restored.init();
+        try {
+            assertTrue(restored.isReady());
+            assertEquals(List.of("DM8集群部署", "DM8 备份工具", "DM8安装指南"), restored.suggest("dm8", true));
+            assertEquals(List.of("数据迁移", "数据库备份与恢复"), restored.suggest("数据", false));
+        } finally {
+            restored.shutdown();
+        }
+    }
+
+    @Test
+    void testKeysStartAtWordsAndCjkCharacters() {
+        assertEquals(
+            List.of("dm8 备份", "备份", "份"),
+            new ArrayList<>(SearchSuggestionService.keys("dm8 备份"))
+        );
+        assertEquals(List.of("sql-tuning", "tuning"), new ArrayList<>(SearchSuggestionService.keys("sql-tuning")));
+        String longTitle = "a".repeat(100);
+        assertEquals(SearchSuggestionService.MAX_KEY_LENGTH, SearchSuggestionService.keys(longTitle).iterator().next().length());
+    }
+
+    private void start() throws InterruptedException {
+        suggestionService.init();
+        started = true;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!suggestionService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(suggestionService.isReady());
+    }
+
+    private static DocumentIndex row(Long id, String title, DocumentIndex.ContentType type, double weight, boolean isPublic) {
+        DocumentIndex row = new DocumentIndex();
+        row.setId(id);
+        row.setTitle(title);
+        row.setContentType(type);
+        row.setSearchWeight(weight);
+        row.setIsActive(true);
+        row.setIsPublic(isPublic);
+        return row;
+    }
+}
@@ -0,0 +1,162 @@
+package com.cms.permissions.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SuggestionTrieTest {
+
+    // 计时输出和延迟断言只在 -Dsearch.benchmark=true 时启用，默认运行只做功能断言
+    private static final boolean BENCHMARK = Boolean.getBoolean("search.benchmark");
+
+    @Test
+    void testCompletionsAreRankedByScore() {
+        SuggestionTrie trie = new SuggestionTrie(3);
+        trie.add("dm8安装", entry("DM8安装", 1.0), true);
+        trie.add("dm8备份", entry("DM8备份", 3.0), true);
+        trie.add("dmrman", entry("DMRMAN", 2.0), true);
+        trie.add("dm", entry("DM", 0.5), true);
+
+        assertEquals(texts("DM8备份", "DMRMAN", "DM8安装"), texts(trie.complete("dm", 10)));
+        assertEquals(texts("DM8备份", "DM8安装"), texts(trie.complete("dm8", 10)));
+        // 前缀停在边的中间
+        assertEquals(texts("DMRMAN"), texts(trie.complete("dmr", 10)));
+        assertEquals(texts("DM8备份"), texts(trie.complete("d", 1)));
+        assertEquals(List.of(), trie.complete("x", 10));
+        assertEquals(List.of(), trie.complete("dm9", 10));
+    }
+
+    @Test
+    void testRemovalRecomputesCachedTop() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        SuggestionTrie.Entry high = entry("abc", 3.0);
+        trie.add("abc", high, true);
+        trie.add("abd", entry("abd", 2.0), true);
+        trie.add("abe", entry("abe", 1.0), true);
+        assertEquals(texts("abc", "abd"), texts(trie.complete("ab", 10)));
+
+        // 被挤出缓存的候选在移除后重新出现
+        trie.remove("abc", high);
+        assertEquals(texts("abd", "abe"), texts(trie.complete("ab", 10)));
+        assertEquals(List.of(), trie.complete("abc", 10));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void testEntryRegisteredUnderSeveralKeysIsReturnedOnce() {
+        SuggestionTrie trie = new SuggestionTrie(10);
+        SuggestionTrie.Entry entry = entry("备份备份", 1.0);
+        trie.add("备份备份", entry, true);
+        trie.add("份备份", entry, true);
+        trie.add("备份", entry, true);
+        trie.add("份", entry, true);
+
+        assertEquals(texts("备份备份"), texts(trie.complete("备", 10)));
+        assertEquals(texts("备份备份"), texts(trie.complete("", 10)));
+    }
+
+    @Test
+    void testRandomUpdatesMatchBruteForce() {
+        Random random = new Random(7L);
+        SuggestionTrie trie = new SuggestionTrie(5);
+        Map<String, SuggestionTrie.Entry> keys = new HashMap<>();
+        String alphabet = "abc数据";
+        for (int step = 0; step < 5_000; step++) {
+            String key = randomKey(random, alphabet);
+            SuggestionTrie.Entry old = keys.get(key);
+            if (old != null && random.nextBoolean()) {
+                trie.remove(key, old);
+                keys.remove(key);
+            } else if (old == null) {
+                SuggestionTrie.Entry entry = entry(key.toUpperCase(), random.nextInt(1_000));
+                trie.add(key, entry, true);
+                keys.put(key, entry);
+            }
+            if (step % 50 == 0) {
+                String sample = randomKey(random, alphabet);
+                String prefix = sample.substring(0, Math.min(sample.length(), 1 + random.nextInt(2)));
+                List<SuggestionTrie.Entry> expected = keys.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .map(Map.Entry::getValue)
+                    .sorted(SuggestionTrie.ORDER)
+                    .limit(5)
+                    .toList();
+                assertEquals(expected, trie.complete(prefix, 5), prefix);
+            }
+        }
+        assertEquals(keys.size(), trie.size());
+
+        // 批量构建得到相同的结果
+        SuggestionTrie bulk = new SuggestionTrie(5);
+        keys.forEach((key, entry) -> bulk.add(key, entry, false));
+        bulk.computeTops();
+        for (String prefix : List.of("", "a", "ab", "数", "数据", "c")) {
+            assertEquals(trie.complete(prefix, 5), bulk.complete(prefix, 5), prefix);
+        }
+    }
+
+    @Test
+    void testCompletionLatency() {
+        SearchBenchmarkCorpus corpus = new SearchBenchmarkCorpus(8_000, 42L);
+        SuggestionTrie trie = new SuggestionTrie(10);
+        List<IndexedDocument> blocks = corpus.blocks(1, 100_000);
+        for (IndexedDocument block : blocks) {
+            String title = SearchSuggestionService.normalize(block.title());
+            SuggestionTrie.Entry entry = entry(block.title(), block.searchWeight());
+            SearchSuggestionService.keys(title).forEach(key -> trie.add(key, entry, false));
+        }
+        trie.computeTops();
+
+        List<String> prefixes = new ArrayList<>();
+        for (int rank = 0; rank < 2_000; rank++) {
+            String word = corpus.word(rank);
+            prefixes.add(word.substring(0, Math.min(word.length(), 1 + rank % 4)));
+        }
+        long[] nanos = new long[prefixes.size()];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < prefixes.size(); i++) {
+                long start = System.nanoTime();
+                List<SuggestionTrie.Entry> result = trie.complete(prefixes.get(i), 10);
+                nanos[i] = System.nanoTime() - start;
+                assertFalse(result.isEmpty(), prefixes.get(i));
+            }
+        }
+        if (BENCHMARK) {
+            Arrays.sort(nanos);
+            long median = nanos[nanos.length / 2];
+            long p99 = nanos[nanos.length * 99 / 100];
+            System.out.printf(
+                "Suggestion trie: %d titles, %d keys, median %.1fus, p99 %.1fus%n",
+                blocks.size(), trie.size(), median / 1e3, p99 / 1e3
+            );
+            assertTrue(median < 50_000, median + "ns");
+        }
+    }
+
+    private static SuggestionTrie.Entry entry(String text, double score) {
+        return new SuggestionTrie.Entry(text, score);
+    }
+
+    private static List<String> texts(String... texts) {
+        return List.of(texts);
+    }
+
+    private static List<String> texts(List<SuggestionTrie.Entry> entries) {
+        return entries.stream().map(SuggestionTrie.Entry::text).toList();
+    }
+
+    private static String randomKey(Random random, String alphabet) {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.cms.permissions.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class CachedUserDetailsServiceTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @InjectMocks
+    private CachedUserDetailsService cachedUserDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cachedUserDetailsService, "enabled", true);
+        ReflectionTestUtils.setField(cachedUserDetailsService, "maxSize", 100L);
+        ReflectionTestUtils.setField(cachedUserDetailsService, "ttlSeconds", 30L);
+        cachedUserDetailsService.init();
+
+        user = new User("alice", "secret", "alice@example.com");
+        user.setId(7L);
+        lenient().when(userDetailsService.loadUserByUsername("alice")).thenAnswer(
+            invocation -> new CustomUserDetails(user)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRepeatedRequestsLoadOnce() {
+        UserDetails first = cachedUserDetailsService.loadUserByUsername("alice");
+        for (int i = 0; i < 1000; i++) {
+            assertSame(first, cachedUserDetailsService.loadUserByUsername("alice"));
+        }
+
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testStatusChangeVisibleAfterEvict() {
+        assertTrue(cachedUserDetailsService.loadUserByUsername("alice").isAccountNonLocked());
+
+        user.setStatus(User.UserStatus.SUSPENDED);
+        cachedUserDetailsService.evict("alice");
+
+        assertFalse(cachedUserDetailsService.loadUserByUsername("alice").isAccountNonLocked());
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+
+    @Test
+    void testEvictIsRepeatedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cachedUserDetailsService.evict("alice");
+        // 提交前的并发请求重新加载了旧状态
+        cachedUserDetailsService.loadUserByUsername("alice");
+        assertEquals(1, cachedUserDetailsService.size());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertEquals(0, cachedUserDetailsService.size());
+    }
+
+    @Test
+    void testUnknownUserIsNotCached() {
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(
+            new UsernameNotFoundException("User not found: ghost")
+        );
+
+        assertThrows(UsernameNotFoundException.class, () ->
+            cachedUserDetailsService.loadUserByUsername("ghost")
+        );
+        assertThrows(UsernameNotFoundException.class, () ->
+            cachedUserDetailsService.loadUserByUsername("ghost")
+        );
+
+        verify(userDetailsService, times(2)).loadUserByUsername("ghost");
+        assertEquals(0, cachedUserDetailsService.size());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        ReflectionTestUtils.setField(cachedUserDetailsService, "enabled", false);
+
+        cachedUserDetailsService.loadUserByUsername("alice");
+        cachedUserDetailsService.loadUserByUsername("alice");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("alice");
+    }
+}
@@ -0,0 +1,281 @@
+package com.cms.permissions.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.cache.PermissionGenerations;
+import com.cms.permissions.entity.Permission;
+import com.cms.permissions.entity.Role;
+import com.cms.permissions.entity.User;
+import com.cms.permissions.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class EmbeddedAuthorityTokenServiceTest {
+
+    private static final String SECRET =
+        "myVerySecureSecretKeyForJWTTokenGenerationThatIsLongEnoughForHS512AlgorithmRequirements123456789";
+
+    // 模拟Redis中的哈希，按键区分纪元和代数
+    private final Map<String, Map<String, Long>> stored = new HashMap<>();
+
+    private JwtUtil jwtUtil;
+
+    private SecurityEpochs securityEpochs;
+
+    private PermissionGenerations permissionGenerations;
+
+    private EmbeddedAuthorityTokenService tokenService;
+
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+            ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection)
+        );
+        when(hashCommands.hIncrBy(any(byte[].class), any(byte[].class), eq(1L))).thenAnswer(
+            invocation ->
+                hash(invocation.getArgument(0)).merge(
+                    string(invocation.getArgument(1)),
+                    1L,
+                    Long::sum
+                )
+        );
+        // 纪元推进脚本：取当前时间与原纪元加一的较大者
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[][].class)))
+            .thenAnswer(invocation -> {
+                Map<String, Long> hash = hash(invocation.getArgument(3));
+                String field = string(invocation.getArgument(4));
+                long epoch = Math.max(
+                    Long.parseLong(string(invocation.getArgument(5))),
+                    hash.getOrDefault(field, 0L) + 1
+                );
+                hash.put(field, epoch);
+                return epoch;
+            });
+        when(hashCommands.hGetAll(any(byte[].class))).thenAnswer(invocation -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            hash(invocation.getArgument(0)).forEach((field, value) ->
+                entries.put(bytes(field), bytes(String.valueOf(value)))
+            );
+            return entries;
+        });
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        jwtUtil.init();
+
+        securityEpochs = new SecurityEpochs();
+        ReflectionTestUtils.setField(securityEpochs, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(securityEpochs, "refreshIntervalMs", 0L);
+        ReflectionTestUtils.setField(securityEpochs, "tokenLifetimeMs", 86_400_000L);
+        ReflectionTestUtils.setField(securityEpochs, "refreshExecutor", (Executor) Runnable::run);
+        securityEpochs.init();
+
+        permissionGenerations = new PermissionGenerations();
+        ReflectionTestUtils.setField(permissionGenerations, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(permissionGenerations, "refreshIntervalMs", 0L);
+        ReflectionTestUtils.setField(permissionGenerations, "refreshExecutor", (Executor) Runnable::run);
+        permissionGenerations.init();
+
+        tokenService = new EmbeddedAuthorityTokenService();
+        ReflectionTestUtils.setField(tokenService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(tokenService, "securityEpochs", securityEpochs);
+        ReflectionTestUtils.setField(tokenService, "permissionGenerations", permissionGenerations);
+        ReflectionTestUtils.setField(tokenService, "enabled", true);
+
+        Permission view = new Permission("DOC:VIEW", "view");
+        Permission edit = new Permission("DOC:EDIT", "edit");
+        Role editor = new Role("EDITOR", "editor");
+        editor.setId(2L);
+        editor.addPermission(view);
+        editor.addPermission(edit);
+        user = new User("alice", "secret", "alice@example.com");
+        user.setId(7L);
+        user.setRoles(Set.of(editor));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testTokenCarriesAuthoritiesAndIdentity() {
+        Claims claims = jwtUtil.parseToken(tokenService.generateToken(user));
+
+        assertTrue(tokenService.isEmbedded(claims));
+        assertTrue(tokenService.isCurrent(claims));
+
+        CustomUserDetails details = tokenService.toUserDetails(claims);
+        assertEquals(7L, details.getId());
+        assertEquals("alice", details.getUsername());
+        assertTrue(details.isEnabled());
+        assertEquals(
+            Set.of("EDITOR", "DOC:VIEW", "DOC:EDIT"),
+            authorityNames(details.getAuthorities())
+        );
+        assertEquals(
+            authorityNames(new CustomUserDetails(user).getAuthorities()),
+            authorityNames(details.getAuthorities())
+        );
+    }
+
+    @Test
+    void testUserEpochBumpRevokesIssuedTokens() {
+        Claims before = jwtUtil.parseToken(tokenService.generateToken(user));
+
+        securityEpochs.bumpUser(7L);
+
+        assertFalse(tokenService.isCurrent(before));
+        Claims reissued = jwtUtil.parseToken(tokenService.generateToken(user));
+        assertTrue(tokenService.isCurrent(reissued));
+    }
+
+    @Test
+    void testEpochBumpOnAnotherNodeIsSeenAfterRefresh() {
+        Claims claims = jwtUtil.parseToken(tokenService.generateToken(user));
+
+        // 其他节点推进了纪元
+        stored.computeIfAbsent(SecurityEpochs.EPOCHS_KEY, key -> new HashMap<>())
+            .put("7", System.currentTimeMillis());
+
+        assertFalse(tokenService.isCurrent(claims));
+    }
+
+    @Test
+    void testEpochOlderThanTokenLifetimeIsIgnored() {
+        // 纪元早于令牌有效期，之前签发的令牌都已过期，不再计入
+        stored.computeIfAbsent(SecurityEpochs.EPOCHS_KEY, key -> new HashMap<>())
+            .put("7", System.currentTimeMillis() - 86_400_000L - 60_000L);
+
+        assertEquals(0L, securityEpochs.current(7L));
+        assertTrue(tokenService.isCurrent(jwtUtil.parseToken(tokenService.generateToken(user))));
+    }
+
+    @Test
+    void testRoleGenerationBumpRevokesIssuedTokens() {
+        Claims claims = jwtUtil.parseToken(tokenService.generateToken(user));
+
+        permissionGenerations.bumpRole(3L);
+        assertTrue(tokenService.isCurrent(claims));
+
+        permissionGenerations.bumpRole(2L);
+        assertFalse(tokenService.isCurrent(claims));
+    }
+
+    @Test
+    void testDisabledModeIssuesPlainTokens() {
+        String embedded = tokenService.generateToken(user);
+        ReflectionTestUtils.setField(tokenService, "enabled", false);
+
+        Claims plain = jwtUtil.parseToken(tokenService.generateToken(user));
+
+        assertNull(plain.get(EmbeddedAuthorityTokenService.CLAIM_EPOCH));
+        assertFalse(tokenService.isEmbedded(plain));
+        // 关闭后已签发的内嵌令牌按普通令牌处理
+        assertFalse(tokenService.isEmbedded(jwtUtil.parseToken(embedded)));
+    }
+
+    @Test
+    void testFilterAuthenticatesEmbeddedTokenWithoutUserLookup() throws Exception {
+        CachedUserDetailsService userDetailsService = mock(CachedUserDetailsService.class);
+        JwtAuthenticationFilter filter = filter(userDetailsService);
+        String token = tokenService.generateToken(user);
+
+        for (int i = 0; i < 100; i++) {
+            SecurityContextHolder.clearContext();
+            filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertNotNull(authentication);
+            assertEquals(7L, ((CustomUserDetails) authentication.getPrincipal()).getId());
+        }
+
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testFilterRejectsRevokedEmbeddedToken() throws Exception {
+        CachedUserDetailsService userDetailsService = mock(CachedUserDetailsService.class);
+        JwtAuthenticationFilter filter = filter(userDetailsService);
+        String token = tokenService.generateToken(user);
+
+        securityEpochs.bumpUser(7L);
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    private JwtAuthenticationFilter filter(CachedUserDetailsService userDetailsService) {
+        VerifiedTokenCache verifiedTokenCache = mock(VerifiedTokenCache.class);
+        when(verifiedTokenCache.verify(anyString())).thenAnswer(invocation ->
+            jwtUtil.parseToken(invocation.getArgument(0))
+        );
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(filter, "embeddedAuthorityTokenService", tokenService);
+        return filter;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/documents");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static Set<String> authorityNames(
+        Collection<? extends GrantedAuthority> authorities
+    ) {
+        Set<String> names = new HashSet<>();
+        authorities.forEach(authority -> names.add(authority.getAuthority()));
+        return names;
+    }
+
+    private Map<String, Long> hash(byte[] key) {
+        return stored.computeIfAbsent(string(key), k -> new HashMap<>());
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
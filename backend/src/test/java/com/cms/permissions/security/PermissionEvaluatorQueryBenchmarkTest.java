@@ -0,0 +1,210 @@
+package com.cms.permissions.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.cache.CacheKeyIndex;
+import com.cms.permissions.cache.DocumentAccessIndex;
+import com.cms.permissions.cache.PermissionGenerations;
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.entity.Permission;
+import com.cms.permissions.entity.Role;
+import com.cms.permissions.entity.User;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.repository.PermissionRepository;
+import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.service.CachePerformanceAnalyzer;
+import com.cms.permissions.service.PermissionCacheService;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/**
+ * 资源级权限检查的数据库查询次数基准：缓存预热后每次授权请求不应再访问数据库
+ */
+@SpringJUnitConfig(PermissionEvaluatorQueryBenchmarkTest.TestConfig.class)
+class PermissionEvaluatorQueryBenchmarkTest {
+
+    private static final int REQUESTS = 10_000;
+
+    @Autowired
+    private CustomPermissionEvaluator permissionEvaluator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private DocumentRepository documentRepository;
+
+    @MockitoBean
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @MockitoBean
+    private PermissionRepository permissionRepository;
+
+    @MockitoBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @MockitoBean
+    private CachePerformanceAnalyzer performanceAnalyzer;
+
+    @MockitoBean
+    private CacheKeyIndex cacheKeyIndex;
+
+    @MockitoBean
+    private PermissionGenerations permissionGenerations;
+
+    @MockitoBean
+    private DocumentAccessIndex documentAccessIndex;
+
+    @MockitoBean(name = "optimizedBooleanSerializer")
+    private RedisSerializer<Boolean> booleanSerializer;
+
+    @MockitoBean(name = "optimizedAssignmentListSerializer")
+    private RedisSerializer<List<DocumentAssignment>> assignmentSerializer;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager
+            .getCacheNames()
+            .forEach(name -> cacheManager.getCache(name).clear());
+
+        Permission view = permission(1L, "DOC:VIEW");
+        Permission edit = permission(2L, "DOC:EDIT");
+        Role editor = new Role("EDITOR", "editor");
+        editor.setId(2L);
+        editor.addPermission(view);
+        editor.addPermission(edit);
+        user = new User("alice", "secret", "alice@example.com");
+        user.setId(7L);
+        user.setRoles(Set.of(editor));
+
+        when(permissionRepository.findAll()).thenReturn(List.of(view, edit));
+        when(permissionGenerations.fingerprint(anyCollection())).thenReturn(
+            "g0-2.0"
+        );
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(documentAssignmentRepository.findByUserId(7L)).thenReturn(
+            List.of(
+                new DocumentAssignment(
+                    10L,
+                    7L,
+                    DocumentAssignment.AssignmentType.EDITOR,
+                    1L
+                )
+            )
+        );
+    }
+
+    @Test
+    void testWarmRequestsWithUserDetailsPrincipalHitNoDatabase() {
+        CustomUserDetails principal = new CustomUserDetails(user);
+        runBenchmark(
+            "CustomUserDetails principal",
+            new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                principal.getAuthorities()
+            )
+        );
+    }
+
+    @Test
+    void testWarmRequestsWithUsernamePrincipalHitNoDatabase() {
+        // 非CustomUserDetails主体（如测试或其他认证方式）走用户名到ID的缓存
+        runBenchmark(
+            "username principal",
+            new UsernamePasswordAuthenticationToken("alice", null, List.of())
+        );
+    }
+
+    private void runBenchmark(String label, Authentication authentication) {
+        assertTrue(
+            permissionEvaluator.hasPermission(authentication, 10L, "document", "DOC:EDIT")
+        );
+        int coldQueries = databaseQueries();
+        clearInvocations(userRepository, documentRepository, documentAssignmentRepository);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertTrue(
+                permissionEvaluator.hasPermission(
+                    authentication,
+                    10L,
+                    "document",
+                    "DOC:EDIT"
+                )
+            );
+        }
+        long elapsed = System.nanoTime() - start;
+        int warmQueries = databaseQueries();
+
+        System.out.println(
+            label + ": cold queries=" + coldQueries +
+            ", warm queries/request=" + ((double) warmQueries / REQUESTS) +
+            ", avg check time=" + (elapsed / REQUESTS) + "ns"
+        );
+        assertEquals(0, warmQueries);
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    private int databaseQueries() {
+        return (
+            mockingDetails(userRepository).getInvocations().size() +
+            mockingDetails(documentRepository).getInvocations().size() +
+            mockingDetails(documentAssignmentRepository).getInvocations().size()
+        );
+    }
+
+    private static Permission permission(Long id, String code) {
+        Permission permission = new Permission(code, code);
+        permission.setId(id);
+        return permission;
+    }
+
+    @Configuration
+    @EnableCaching
+    static class TestConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        PermissionRegistry permissionRegistry() {
+            return new PermissionRegistry();
+        }
+
+        @Bean
+        PermissionCacheService permissionCacheService() {
+            return new PermissionCacheService();
+        }
+
+        @Bean
+        CustomPermissionEvaluator customPermissionEvaluator() {
+            return new CustomPermissionEvaluator();
+        }
+    }
+}
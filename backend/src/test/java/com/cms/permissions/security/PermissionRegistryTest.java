@@ -0,0 +1,91 @@
+package com.cms.permissions.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.entity.Permission;
+import com.cms.permissions.repository.PermissionRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionRegistryTest {
+
+    @Mock
+    private PermissionRepository permissionRepository;
+
+    @InjectMocks
+    private PermissionRegistry permissionRegistry;
+
+    private final List<Permission> permissions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        permissions.add(permission(1L, "DOC:VIEW"));
+        permissions.add(permission(2L, "DOC:EDIT"));
+        permissions.add(permission(70L, "DOC:PUBLISH"));
+        lenient().when(permissionRepository.findAll()).thenReturn(permissions);
+    }
+
+    @Test
+    void testOrdinalIsPermissionId() {
+        assertEquals(1, permissionRegistry.ordinalOf("DOC:VIEW"));
+        assertEquals(70, permissionRegistry.ordinalOf("DOC:PUBLISH"));
+        assertEquals(-1, permissionRegistry.ordinalOf("DOC:UNKNOWN"));
+    }
+
+    @Test
+    void testCompileAndTest() {
+        long[] bits = permissionRegistry.compile(Set.of("DOC:VIEW", "DOC:PUBLISH"));
+
+        assertEquals(2, bits.length);
+        assertTrue(PermissionBits.test(bits, permissionRegistry.ordinalOf("DOC:VIEW")));
+        assertTrue(PermissionBits.test(bits, permissionRegistry.ordinalOf("DOC:PUBLISH")));
+        assertFalse(PermissionBits.test(bits, permissionRegistry.ordinalOf("DOC:EDIT")));
+        assertFalse(PermissionBits.test(bits, -1));
+        assertFalse(PermissionBits.test(bits, 4096));
+        assertEquals(2, PermissionBits.cardinality(bits));
+    }
+
+    @Test
+    void testDecodeRoundTrip() {
+        Set<String> codes = Set.of("DOC:EDIT", "DOC:PUBLISH");
+
+        assertEquals(codes, permissionRegistry.decode(permissionRegistry.compile(codes)));
+    }
+
+    @Test
+    void testCompileRebuildsOnUnknownCode() {
+        permissionRegistry.compile(Set.of("DOC:VIEW"));
+        permissions.add(permission(3L, "DOC:DELETE"));
+
+        long[] bits = permissionRegistry.compile(Set.of("DOC:DELETE"));
+
+        assertTrue(PermissionBits.test(bits, 3));
+        verify(permissionRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testUnknownCodeLookupIsThrottled() {
+        permissionRegistry.rebuild();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(-1, permissionRegistry.ordinalOf("DOC:UNKNOWN"));
+        }
+
+        verify(permissionRepository, times(1)).findAll();
+    }
+
+    private Permission permission(Long id, String code) {
+        Permission permission = new Permission(code, code);
+        permission.setId(id);
+        return permission;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cms.permissions.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET =
+        "myVerySecureSecretKeyForJWTTokenGenerationThatIsLongEnoughForHS512AlgorithmRequirements123456789";
+
+    private JwtUtil jwtUtil;
+
+    private MeterRegistry registry;
+
+    private VerifiedTokenCache tokenCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jwtUtil = spy(newJwtUtil(86_400_000L));
+        registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+
+        tokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(tokenCache, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(tokenCache, "meterRegistry", provider);
+        ReflectionTestUtils.setField(tokenCache, "enabled", true);
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(tokenCache, "maxTtlSeconds", 3600L);
+        tokenCache.init();
+    }
+
+    @Test
+    void testRepeatedTokenVerifiedOnce() {
+        String token = jwtUtil.generateToken("alice");
+
+        for (int i = 0; i < 1000; i++) {
+            Claims claims = tokenCache.verify(token);
+            assertEquals("alice", claims.getSubject());
+        }
+
+        verify(jwtUtil, times(1)).parseToken(token);
+        assertEquals(999.0 / 1000, tokenCache.hitRatio(), 1e-9);
+        assertEquals(
+            999.0,
+            registry.get("security.token_cache.requests").tag("result", "hit").counter().count()
+        );
+        assertEquals(
+            tokenCache.hitRatio(),
+            registry.get("security.token_cache.hit_ratio").gauge().value()
+        );
+    }
+
+    @Test
+    void testInvalidTokensAreNotCached() {
+        String token = jwtUtil.generateToken("alice");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> tokenCache.verify(tampered));
+        assertThrows(JwtException.class, () -> tokenCache.verify(tampered));
+
+        verify(jwtUtil, times(2)).parseToken(tampered);
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void testExpiryEnforcedOnHit() throws InterruptedException {
+        JwtUtil shortLived = newJwtUtil(1_000L);
+        ReflectionTestUtils.setField(tokenCache, "jwtUtil", shortLived);
+        String token = shortLived.generateToken("alice");
+        tokenCache.verify(token);
+
+        Thread.sleep(1_100L);
+
+        assertThrows(ExpiredJwtException.class, () -> tokenCache.verify(token));
+    }
+
+    @Test
+    void testEvictUserDropsOnlyThatUsersTokens() {
+        String alice = jwtUtil.generateToken("alice");
+        String bob = jwtUtil.generateToken("bob");
+        tokenCache.verify(alice);
+        tokenCache.verify(bob);
+
+        tokenCache.evictUser("alice");
+        tokenCache.verify(alice);
+        tokenCache.verify(bob);
+
+        verify(jwtUtil, times(2)).parseToken(alice);
+        verify(jwtUtil, times(1)).parseToken(bob);
+    }
+
+    @Test
+    void testDisabledCacheAlwaysVerifies() {
+        ReflectionTestUtils.setField(tokenCache, "enabled", false);
+        String token = jwtUtil.generateToken("alice");
+
+        tokenCache.verify(token);
+        tokenCache.verify(token);
+
+        verify(jwtUtil, times(2)).parseToken(token);
+    }
+
+    private static JwtUtil newJwtUtil(long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", expiration);
+        util.init();
+        return util;
+    }
+}
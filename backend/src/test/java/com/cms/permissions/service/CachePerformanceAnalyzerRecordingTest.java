@@ -0,0 +1,108 @@
+package com.cms.permissions.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * CachePerformanceAnalyzer记录路径的并发正确性与吞吐
+ */
+@ExtendWith(MockitoExtension.class)
+class CachePerformanceAnalyzerRecordingTest {
+
+    @Mock
+    private PermissionCacheService permissionCacheService;
+
+    @InjectMocks
+    private CachePerformanceAnalyzer performanceAnalyzer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(permissionCacheService.getCacheStats()).thenReturn(
+            new PermissionCacheService.CacheStats()
+        );
+    }
+
+    @Test
+    void testConcurrentRecordingPerCache() throws InterruptedException {
+        int threads = 16;
+        int operations = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            String cacheName = t % 2 == 0 ? "userPermissions" : "documentPublic";
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    performanceAnalyzer.recordCacheOperationNanos(cacheName, 1_000 + i % 1_000, i % 4 != 0);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - begin;
+
+        Map<String, CachePerformanceAnalyzer.LatencySummary> summaries =
+            performanceAnalyzer.getLatencySummaries();
+        CachePerformanceAnalyzer.LatencySummary userPermissions = summaries.get("userPermissions");
+        assertEquals((long) threads / 2 * operations, userPermissions.getCount());
+        assertEquals(75.0, userPermissions.getHitRate(), 1e-9);
+        assertEquals(1_499, userPermissions.getAvgNanos());
+        assertEquals(1_500, userPermissions.getP50Nanos(), 1_500 * 0.07);
+        assertEquals(1_990, userPermissions.getP99Nanos(), 1_990 * 0.07);
+
+        // 趋势由当前小时桶直接给出，不重新扫描原始记录
+        List<CachePerformanceAnalyzer.TrendData> trend =
+            performanceAnalyzer.getPerformanceReport().getPerformanceTrend();
+        assertFalse(trend.isEmpty());
+        assertEquals(
+            (long) threads * operations,
+            trend.stream().mapToLong(CachePerformanceAnalyzer.TrendData::getRequestCount).sum()
+        );
+
+        System.out.println(
+            "CachePerformanceAnalyzer: " + threads + " threads, throughput=" +
+            ((long) threads * operations * 1_000_000_000L / elapsed) + " records/s"
+        );
+    }
+
+    @Test
+    void testMillisecondApiAndReset() {
+        performanceAnalyzer.recordCacheOperation("userPermissions", 2L, true);
+        performanceAnalyzer.recordCacheEviction("userPermissions");
+
+        CachePerformanceAnalyzer.PerformanceReport report = performanceAnalyzer.getPerformanceReport();
+        assertEquals(2L, report.getAvgResponseTime());
+        assertEquals(1L, report.getTotalEvictions());
+        assertEquals(
+            2_000_000L,
+            report.getLatencyByCache().get("userPermissions").getAvgNanos()
+        );
+
+        performanceAnalyzer.resetStatistics();
+
+        report = performanceAnalyzer.getPerformanceReport();
+        assertTrue(report.getLatencyByCache().isEmpty());
+        assertTrue(report.getPerformanceTrend().isEmpty());
+        assertEquals(0L, report.getTotalEvictions());
+    }
+}
@@ -0,0 +1,281 @@
+package com.cms.permissions.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.cache.CacheKeyIndex;
+import com.cms.permissions.cache.CacheOptimizationConfig;
+import com.cms.permissions.repository.DocumentRepository;
+import com.cms.permissions.repository.UserRepository;
+import com.cms.permissions.security.PermissionRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CacheWarmupServiceBulkTest {
+
+    private static final int USERS = 2_500;
+
+    private static final int DOCUMENTS = 1_200;
+
+    @Mock
+    private PermissionCacheService permissionCacheService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private PermissionRegistry permissionRegistry;
+
+    @Mock
+    private CacheKeyIndex cacheKeyIndex;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    @InjectMocks
+    private CacheWarmupService cacheWarmupService;
+
+    // 模拟Redis中写入的键值
+    private final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile long writeDelayMs;
+
+    private CacheOptimizationConfig config;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config = new CacheOptimizationConfig();
+        ReflectionTestUtils.setField(cacheWarmupService, "optimizedSetSerializer", config.optimizedSetSerializer());
+        ReflectionTestUtils.setField(cacheWarmupService, "optimizedListSerializer", config.optimizedListSerializer());
+        ReflectionTestUtils.setField(cacheWarmupService, "optimizedLongSerializer", config.optimizedLongSerializer());
+        ReflectionTestUtils.setField(
+            cacheWarmupService,
+            "optimizedPermissionBitsSerializer",
+            config.optimizedPermissionBitsSerializer()
+        );
+        ReflectionTestUtils.setField(
+            cacheWarmupService,
+            "optimizedBooleanSerializer",
+            config.optimizedBooleanSerializer()
+        );
+        ReflectionTestUtils.setField(cacheWarmupService, "batchSize", 1_000);
+        ReflectionTestUtils.setField(cacheWarmupService, "parallelism", 2);
+        ReflectionTestUtils.setField(cacheWarmupService, "permissionsTtl", 300L);
+        ReflectionTestUtils.setField(cacheWarmupService, "documentPublicTtl", 600L);
+        cacheWarmupService.init();
+
+        when(userRepository.count()).thenReturn((long) USERS);
+        when(userRepository.findIdAndUsernameAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            List<Object[]> page = new ArrayList<>();
+            for (long id = Math.max(1, afterId + 1); id <= USERS && page.size() < pageable.getPageSize(); id++) {
+                page.add(new Object[] { id, "user" + id });
+            }
+            return page;
+        });
+        // 用户i持有角色i%3+1，角色r有r个权限；ID为3的倍数的用户没有角色
+        when(userRepository.findRolePermissionCodes(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : (Collection<Long>) invocation.getArgument(0)) {
+                if (userId % 3 == 0) {
+                    continue;
+                }
+                long roleId = userId % 3 + 1;
+                for (int p = 1; p <= roleId; p++) {
+                    rows.add(new Object[] { userId, roleId, "PERM:" + p });
+                }
+            }
+            return rows;
+        });
+        when(documentRepository.count()).thenReturn((long) DOCUMENTS);
+        when(documentRepository.findIdAndPublicAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            List<Object[]> page = new ArrayList<>();
+            for (long id = Math.max(1, afterId + 1); id <= DOCUMENTS && page.size() < pageable.getPageSize(); id++) {
+                page.add(new Object[] { id, id % 2 == 0 });
+            }
+            return page;
+        });
+
+        when(permissionCacheService.permissionCacheKey(anyString(), anyList())).thenAnswer(invocation ->
+            invocation.getArgument(0) + ":g0-" + invocation.getArgument(1)
+        );
+        when(permissionRegistry.compile(anySet())).thenAnswer(invocation ->
+            new long[] { ((Set<?>) invocation.getArgument(0)).size() }
+        );
+
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(stringCommands.set(
+            any(byte[].class),
+            any(byte[].class),
+            any(Expiration.class),
+            eq(RedisStringCommands.SetOption.SET_IF_ABSENT)
+        )).thenAnswer(invocation -> {
+            stored.putIfAbsent(
+                new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8),
+                invocation.getArgument(1)
+            );
+            return true;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                if (writeDelayMs > 0) {
+                    Thread.sleep(writeDelayMs);
+                }
+                ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection);
+                return List.of();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheWarmupService.shutdown();
+    }
+
+    @Test
+    void testUserPermissionWarmupStreamsChunksWithOneJoinQueryEach() throws Exception {
+        CacheWarmupService.WarmupResult result = cacheWarmupService.warmupUserPermissions().get();
+
+        assertTrue(result.isSuccess());
+        assertEquals(USERS, result.getSuccessCount());
+        assertEquals(0, result.getFailureCount());
+
+        // 3页（1000、1000、500），每页一次连接查询和一次管道写入，不加载整表
+        verify(userRepository, times(3)).findIdAndUsernameAfter(anyLong(), any(Pageable.class));
+        verify(userRepository, times(3)).findRolePermissionCodes(anyCollection());
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        verify(userRepository, never()).findAll();
+        verify(permissionCacheService, never()).getUserPermissions(anyString());
+        verify(cacheKeyIndex, times(3)).register(anyCollection(), eq(300L), eq("cms:index:cache:userPermissions"));
+        assertEquals(USERS * 4, stored.size());
+
+        assertEquals(List.of(3L), config.optimizedListSerializer().deserialize(stored.get("cms:permissions:roles:user2")));
+        assertEquals(2L, config.optimizedLongSerializer().deserialize(stored.get("cms:users:id:user2")));
+        assertEquals(
+            Set.of("PERM:1", "PERM:2", "PERM:3"),
+            config.optimizedSetSerializer().deserialize(stored.get("cms:permissions:user:user2:g0-[3]"))
+        );
+        assertArrayEquals(
+            new long[] { 3 },
+            config.optimizedPermissionBitsSerializer().deserialize(stored.get("cms:permissions:bits:user2:g0-[3]"))
+        );
+        // 没有角色的用户也写入空集合，避免首次访问回源
+        assertEquals(Set.of(), config.optimizedSetSerializer().deserialize(stored.get("cms:permissions:user:user3:g0-[]")));
+
+        CacheWarmupService.WarmupProgress progress = cacheWarmupService.getWarmupProgress().get(0);
+        assertEquals(CacheWarmupService.WarmupStatus.COMPLETED, progress.getStatus());
+        assertEquals(3, progress.getChunkCount());
+        assertEquals(100.0, progress.getPercent(), 1e-9);
+    }
+
+    @Test
+    void testDocumentPublicWarmupUsesOneQueryPerChunk() throws Exception {
+        CacheWarmupService.WarmupResult result = cacheWarmupService.warmupDocumentPublicStatus().get();
+
+        assertTrue(result.isSuccess());
+        assertEquals(DOCUMENTS, result.getSuccessCount());
+        verify(documentRepository, times(2)).findIdAndPublicAfter(anyLong(), any(Pageable.class));
+        verify(documentRepository, never()).findAll();
+        verify(permissionCacheService, never()).isDocumentPublic(anyLong());
+        assertEquals(DOCUMENTS, stored.size());
+        assertEquals(true, config.optimizedBooleanSerializer().deserialize(stored.get("cms:public:document:42")));
+        assertEquals(false, config.optimizedBooleanSerializer().deserialize(stored.get("cms:public:document:43")));
+    }
+
+    @Test
+    void testChunkWritesAreBoundedByParallelism() throws Exception {
+        ReflectionTestUtils.setField(cacheWarmupService, "batchSize", 100);
+        writeDelayMs = 20;
+
+        CacheWarmupService.WarmupResult result = cacheWarmupService.warmupUserPermissions().get();
+
+        assertTrue(result.isSuccess());
+        assertEquals(USERS, result.getSuccessCount());
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+        assertTrue(maxInFlight.get() >= 1);
+    }
+
+    @Test
+    void testCancellationStopsReadingFurtherPages() throws Exception {
+        ReflectionTestUtils.setField(cacheWarmupService, "batchSize", 100);
+        AtomicInteger pages = new AtomicInteger();
+        when(userRepository.findIdAndUsernameAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            if (pages.incrementAndGet() == 3) {
+                assertTrue(cacheWarmupService.cancelWarmup());
+            }
+            long afterId = invocation.getArgument(0);
+            List<Object[]> page = new ArrayList<>();
+            for (long id = Math.max(1, afterId + 1); page.size() < 100; id++) {
+                page.add(new Object[] { id, "user" + id });
+            }
+            return page;
+        });
+
+        CacheWarmupService.WarmupResult result = cacheWarmupService.warmupUserPermissions().get();
+
+        assertFalse(result.isSuccess());
+        assertEquals(3, pages.get());
+        assertTrue(result.getSuccessCount() <= 300);
+        CacheWarmupService.WarmupProgress progress = cacheWarmupService.getWarmupProgress().get(0);
+        assertEquals(CacheWarmupService.WarmupStatus.CANCELLED, progress.getStatus());
+        assertFalse(cacheWarmupService.cancelWarmup());
+    }
+
+    @Test
+    void testFailedChunkIsCountedAndOthersContinue() throws Exception {
+        when(userRepository.findRolePermissionCodes(anyCollection()))
+            .thenThrow(new IllegalStateException("db timeout"))
+            .thenReturn(List.of());
+
+        CacheWarmupService.WarmupResult result = cacheWarmupService.warmupUserPermissions().get();
+
+        assertEquals(1_000, result.getFailureCount());
+        assertEquals(USERS - 1_000, result.getSuccessCount());
+    }
+}
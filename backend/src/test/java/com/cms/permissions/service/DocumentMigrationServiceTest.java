@@ -4,6 +4,8 @@ import com.cms.permissions.entity.Document;
 import com.cms.permissions.entity.MigrationLog;
 import com.cms.permissions.repository.DocumentRepository;
 import com.cms.permissions.repository.MigrationLogRepository;
+import com.cms.permissions.search.DocumentIndexingService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +13,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -36,6 +39,9 @@ class DocumentMigrationServiceTest {
     
     @Mock
     private MigrationLogRepository migrationLogRepository;
+
+    @Mock
+    private DocumentIndexingService documentIndexingService;
     
     @InjectMocks
     private DocumentMigrationService migrationService;
@@ -47,6 +53,9 @@ class DocumentMigrationServiceTest {
     
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(migrationService, "concurrency", 5);
+        migrationService.init();
+
         testUrl = "https://example.com/test-article";
         testUserId = 1L;
         
@@ -69,6 +78,11 @@ class DocumentMigrationServiceTest {
         mockParsedContent.setWordCount(100);
     }
     
+    @AfterEach
+    void tearDown() {
+        migrationService.shutdown();
+    }
+    
     @Test
     void testMigrateDocument_Success() {
         // 准备测试数据
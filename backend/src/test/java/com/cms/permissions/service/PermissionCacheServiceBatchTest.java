@@ -0,0 +1,284 @@
+package com.cms.permissions.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.cms.permissions.cache.CacheKeyIndex;
+import com.cms.permissions.cache.CacheOptimizationConfig;
+import com.cms.permissions.cache.DocumentAccessIndex;
+import com.cms.permissions.entity.DocumentAssignment;
+import com.cms.permissions.repository.DocumentAssignmentRepository;
+import com.cms.permissions.repository.DocumentRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionCacheServiceBatchTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentAssignmentRepository documentAssignmentRepository;
+
+    @Mock
+    private CachePerformanceAnalyzer performanceAnalyzer;
+
+    @Mock
+    private CacheKeyIndex cacheKeyIndex;
+
+    // 未启用可见性索引时走批量MGET路径
+    @Mock
+    private DocumentAccessIndex documentAccessIndex;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    @InjectMocks
+    private PermissionCacheService permissionCacheService;
+
+    private RedisSerializer<Boolean> booleanSerializer;
+
+    private RedisSerializer<List<DocumentAssignment>> assignmentSerializer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CacheOptimizationConfig config = new CacheOptimizationConfig();
+        booleanSerializer = config.optimizedBooleanSerializer();
+        assignmentSerializer = config.optimizedAssignmentListSerializer();
+        ReflectionTestUtils.setField(
+            permissionCacheService,
+            "optimizedBooleanSerializer",
+            booleanSerializer
+        );
+        ReflectionTestUtils.setField(
+            permissionCacheService,
+            "optimizedAssignmentListSerializer",
+            assignmentSerializer
+        );
+        ReflectionTestUtils.setField(
+            permissionCacheService,
+            "documentPublicTtl",
+            600L
+        );
+        ReflectionTestUtils.setField(
+            permissionCacheService,
+            "documentAssignmentsTtl",
+            180L
+        );
+
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient()
+            .when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenAnswer(invocation ->
+                ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(
+                    connection
+                )
+            );
+        lenient()
+            .when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenAnswer(invocation -> {
+                ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(
+                    connection
+                );
+                return List.of();
+            });
+    }
+
+    @Test
+    void testViewPageResolvesWithOneRoundTripPerSource() {
+        // 1-50号文档：偶数号公开，3号和5号分配给用户7，其余全部未缓存
+        List<Long> ids = LongStream.rangeClosed(1, 50)
+            .boxed()
+            .collect(Collectors.toList());
+        when(stringCommands.mGet(any(byte[][].class))).thenAnswer(
+            invocation -> {
+                List<byte[]> values = new ArrayList<>();
+                for (int i = 0; i < invocation.getArguments().length; i++) {
+                    values.add(null);
+                }
+                return values;
+            }
+        );
+        when(documentRepository.findPublicDocumentIds(anyCollection())).thenAnswer(
+            invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream()
+                    .filter(id -> id % 2 == 0)
+                    .collect(Collectors.toList())
+        );
+        when(documentAssignmentRepository.findByDocumentIdIn(anyCollection())).thenReturn(
+            List.of(
+                assignment(3L, 7L, DocumentAssignment.AssignmentType.EDITOR),
+                assignment(5L, 8L, DocumentAssignment.AssignmentType.EDITOR),
+                assignment(5L, 7L, DocumentAssignment.AssignmentType.APPROVER)
+            )
+        );
+
+        List<Long> accessible = permissionCacheService.filterAccessible(
+            7L,
+            ids,
+            "DOC:VIEW"
+        );
+
+        List<Long> expected = new ArrayList<>(List.of(3L, 5L));
+        LongStream.rangeClosed(1, 50)
+            .filter(id -> id % 2 == 0)
+            .forEach(expected::add);
+        expected.sort(null);
+        assertEquals(expected, accessible);
+
+        // 公开状态和分配各一次MGET、各一次IN查询
+        verify(stringCommands, times(2)).mGet(any(byte[][].class));
+        verify(documentRepository, times(1)).findPublicDocumentIds(anyCollection());
+        ArgumentCaptor<Collection<Long>> assignmentIds = ArgumentCaptor.forClass(
+            Collection.class
+        );
+        verify(documentAssignmentRepository, times(1)).findByDocumentIdIn(
+            assignmentIds.capture()
+        );
+        // 公开文档无需再查分配
+        assertEquals(25, assignmentIds.getValue().size());
+        // 回写的分配键登记到索引，可按缓存整体清除
+        verify(cacheKeyIndex).register(
+            anyCollection(),
+            eq(180L),
+            eq(CacheKeyIndex.cacheIndex("documentAssignments"))
+        );
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+        verify(stringCommands, times(75)).set(
+            any(byte[].class),
+            any(byte[].class),
+            any(Expiration.class),
+            eq(RedisStringCommands.SetOption.SET_IF_ABSENT)
+        );
+    }
+
+    @Test
+    void testRedisHitsSkipDatabase() {
+        when(stringCommands.mGet(any(byte[][].class))).thenReturn(
+            List.of(
+                assignmentSerializer.serialize(
+                    List.of(
+                        assignment(1L, 7L, DocumentAssignment.AssignmentType.EDITOR)
+                    )
+                ),
+                assignmentSerializer.serialize(
+                    List.of(
+                        assignment(2L, 7L, DocumentAssignment.AssignmentType.APPROVER)
+                    )
+                )
+            )
+        );
+
+        List<Long> accessible = permissionCacheService.filterAccessible(
+            7L,
+            List.of(1L, 2L),
+            "DOC:EDIT"
+        );
+
+        assertEquals(List.of(1L), accessible);
+        verify(stringCommands, times(1)).mGet(
+            eq("cms:assignments:user:1".getBytes(StandardCharsets.UTF_8)),
+            eq("cms:assignments:user:2".getBytes(StandardCharsets.UTF_8))
+        );
+        verifyNoInteractions(documentRepository, documentAssignmentRepository);
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testRedisFailureFallsBackToDatabase() {
+        when(stringCommands.mGet(any(byte[][].class))).thenThrow(
+            new org.springframework.data.redis.RedisConnectionFailureException(
+                "down"
+            )
+        );
+        when(documentRepository.findPublicDocumentIds(anyCollection())).thenReturn(
+            List.of(1L)
+        );
+        when(documentAssignmentRepository.findByDocumentIdIn(anyCollection())).thenReturn(
+            List.of()
+        );
+
+        assertEquals(
+            List.of(1L),
+            permissionCacheService.filterAccessible(
+                7L,
+                List.of(1L, 2L),
+                "DOC:DOWNLOAD"
+            )
+        );
+    }
+
+    @Test
+    void testDocumentAssignmentEvictionWaitsForCommit() {
+        when(cacheManager.getCache("documentAssignments")).thenReturn(cache);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            permissionCacheService.evictDocumentAssignments(9L);
+            verifyNoInteractions(cache);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 批量过滤读取的按文档缓存在提交后清除
+        verify(cache).evict(9L);
+    }
+
+    @Test
+    void testUnknownPermissionCodeGrantsNothing() {
+        assertTrue(
+            permissionCacheService
+                .filterAccessible(7L, List.of(1L, 2L), "DOC:DELETE")
+                .isEmpty()
+        );
+        verifyNoInteractions(redisTemplate, documentRepository);
+    }
+
+    private DocumentAssignment assignment(
+        Long documentId,
+        Long userId,
+        DocumentAssignment.AssignmentType type
+    ) {
+        return new DocumentAssignment(documentId, userId, type, 1L);
+    }
+}
@@ -0,0 +1,27 @@
+package com.cms.permissions.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cms.permissions.entity.DocumentIndex;
+import org.junit.jupiter.api.Test;
+
+class SearchServiceTest {
+
+    @Test
+    void testContentTypeIsParsedLeniently() {
+        assertEquals(DocumentIndex.ContentType.TITLE, SearchService.parseContentType("title"));
+        assertEquals(DocumentIndex.ContentType.TITLE, SearchService.parseContentType(" Title "));
+        // 空白参数视为不过滤
+        assertNull(SearchService.parseContentType(null));
+        assertNull(SearchService.parseContentType("  "));
+    }
+
+    @Test
+    void testUnknownContentTypeIsRejectedAsInvalidArgument() {
+        IllegalArgumentException e = assertThrows(
+            IllegalArgumentException.class,
+            () -> SearchService.parseContentType("chapter")
+        );
+        assertEquals("Unknown content type: chapter", e.getMessage());
+    }
+}
@@ -0,0 +1,141 @@
+package com.cms.permissions.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.util.Date;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * JwtUtil的单次解析校验路径，以及过滤器令牌处理的前后对比基准
+ */
+class JwtUtilTest {
+
+    private static final String SECRET =
+        "myVerySecureSecretKeyForJWTTokenGenerationThatIsLongEnoughForHS512AlgorithmRequirements123456789";
+
+    private static final int WARMUP = 2_000;
+
+    private static final int REQUESTS = 20_000;
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(86_400_000L);
+    }
+
+    @Test
+    void testParseTokenReturnsClaimsOnce() {
+        String token = jwtUtil.generateToken("alice");
+
+        Claims claims = jwtUtil.parseToken(token);
+
+        assertEquals("alice", claims.getSubject());
+        assertTrue(jwtUtil.validateToken(claims, "alice"));
+        assertFalse(jwtUtil.validateToken(claims, "bob"));
+        assertTrue(jwtUtil.validateToken(token, "alice"));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void testRejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateToken("alice");
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+        String expired = newJwtUtil(-1_000L).generateToken("alice");
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(expired));
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertFalse(jwtUtil.validateToken(expired));
+    }
+
+    @Test
+    void testSharedParserIsThreadSafe() throws InterruptedException {
+        String token = jwtUtil.generateToken("alice");
+        Thread[] threads = new Thread[8];
+        boolean[] results = new boolean[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            int index = t;
+            threads[t] = new Thread(() -> {
+                boolean ok = true;
+                for (int i = 0; i < 500; i++) {
+                    ok &= jwtUtil.validateToken(jwtUtil.parseToken(token), "alice");
+                }
+                results[index] = ok;
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (boolean result : results) {
+            assertTrue(result);
+        }
+    }
+
+    @Test
+    void testFilterTokenHandlingBenchmark() {
+        String token = jwtUtil.generateToken("alice");
+
+        for (int i = 0; i < WARMUP; i++) {
+            legacyFilterPath(token);
+            singleParseFilterPath(token);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertTrue(legacyFilterPath(token));
+        }
+        long legacy = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertTrue(singleParseFilterPath(token));
+        }
+        long singleParse = System.nanoTime() - start;
+
+        System.out.println(
+            "JWT filter token handling: legacy avg=" + (legacy / REQUESTS) +
+            "ns, single-parse avg=" + (singleParse / REQUESTS) + "ns"
+        );
+    }
+
+    /**
+     * 改造前的过滤器路径：每次重新构建密钥和解析器，共解析验签三次
+     */
+    private static boolean legacyFilterPath(String token) {
+        String username = legacyClaims(token).getSubject();
+        String extractedUsername = legacyClaims(token).getSubject();
+        Date expiration = legacyClaims(token).getExpiration();
+        return extractedUsername.equals(username) && !expiration.before(new Date());
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    private boolean singleParseFilterPath(String token) {
+        Claims claims = jwtUtil.parseToken(token);
+        return jwtUtil.validateToken(claims, claims.getSubject());
+    }
+
+    private static JwtUtil newJwtUtil(long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", expiration);
+        util.init();
+        return util;
+    }
+}